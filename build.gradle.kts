@@ -14,10 +14,22 @@ android {
         versionName = "1.0"
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+
+        // -Ptodo.sync.url=https://host/path points a build at a sync server; without it tasks stay on the device
+        buildConfigField("String", "SYNC_URL", "\"${project.findProperty("todo.sync.url") ?: ""}\"")
+    }
+
+    buildFeatures {
+        buildConfig = true
     }
 
     buildTypes {
+        debug {
+            buildConfigField("boolean", "METRICS", "true")
+        }
         release {
+            // -Ptodo.metrics=true keeps timers and trace sections in a release build for profiling
+            buildConfigField("boolean", "METRICS", (project.findProperty("todo.metrics") ?: "false").toString())
             isMinifyEnabled = false
             proguardFiles(
                 getDefaultProguardFile("proguard-android-optimize.txt"),
@@ -28,6 +40,14 @@ android {
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
+        isCoreLibraryDesugaringEnabled = true
+    }
+    testOptions {
+        unitTests.isIncludeAndroidResources = true
+        unitTests.all {
+            it.systemProperty("todo.benchmark", project.findProperty("todo.benchmark") ?: "false")
+            it.systemProperty("todo.benchmark.output", project.layout.buildDirectory.dir("benchmarks").get().asFile.path)
+        }
     }
 }
 
@@ -37,7 +57,12 @@ dependencies {
     implementation(libs.material)
     implementation(libs.activity)
     implementation(libs.constraintlayout)
+    implementation(libs.recyclerview)
+    coreLibraryDesugaring(libs.desugar.jdk.libs)
     testImplementation(libs.junit)
+    testImplementation(libs.robolectric)
+    testImplementation(libs.jmh.core)
+    testAnnotationProcessor(libs.jmh.generator.annprocess)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
 }
\ No newline at end of file
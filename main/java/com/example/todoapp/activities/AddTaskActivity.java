@@ -2,8 +2,6 @@ package com.example.todoapp;
 
 import android.app.DatePickerDialog;
 import android.app.TimePickerDialog;
-import android.content.ContentValues;
-import android.database.sqlite.SQLiteDatabase;
 import android.os.Bundle;
 import android.view.MenuItem;
 import android.view.View;
@@ -12,6 +10,7 @@ import android.widget.DatePicker;
 import android.widget.EditText;
 import android.widget.RadioButton;
 import android.widget.RadioGroup;
+import android.widget.Spinner;
 import android.widget.Switch;
 import android.widget.TimePicker;
 import android.widget.Toast;
@@ -19,29 +18,29 @@ import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 
-import com.example.todoapp.data.TaskContract;
-import com.example.todoapp.data.TaskDbHelper;
+import com.example.todoapp.data.TaskRepository;
+import com.example.todoapp.model.RecurrenceRule;
+import com.example.todoapp.model.Task;
+import com.example.todoapp.util.TaskDateFormatter;
 
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.Calendar;
-import java.util.Locale;
 
 public class AddTaskActivity extends AppCompatActivity {
 
     private EditText etTaskTitle, etTaskDescription;
     private Button btnDate, btnTime, btnSave;
     private RadioGroup rgPriority;
+    private Spinner spRepeat;
     private Switch switchAlarm;
 
-    private TaskDbHelper dbHelper;
+    private TaskRepository repository;
     private String selectedDate = null;
     private String selectedTime = null;
 
     private Calendar calendar;
-    private SimpleDateFormat dateFormat;
-    private SimpleDateFormat timeFormat;
-    private SimpleDateFormat displayDateFormat;
-    private SimpleDateFormat displayTimeFormat;
+    private TaskDateFormatter dateFormatter;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -53,10 +52,7 @@ public class AddTaskActivity extends AppCompatActivity {
 
         // Initialize date and time formats
         calendar = Calendar.getInstance();
-        dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
-        displayDateFormat = new SimpleDateFormat("MMM d, yyyy", Locale.getDefault());
-        displayTimeFormat = new SimpleDateFormat("h:mm a", Locale.getDefault());
+        dateFormatter = TaskDateFormatter.getInstance();
 
         // Initialize views
         etTaskTitle = findViewById(R.id.et_task_title);
@@ -65,9 +61,10 @@ public class AddTaskActivity extends AppCompatActivity {
         btnTime = findViewById(R.id.btn_time);
         btnSave = findViewById(R.id.btn_save);
         rgPriority = findViewById(R.id.rg_priority);
+        spRepeat = findViewById(R.id.sp_repeat);
         switchAlarm = findViewById(R.id.switch_alarm);
 
-        dbHelper = new TaskDbHelper(this);
+        repository = TaskRepository.getInstance(this);
 
         // Set up date picker
         btnDate.setOnClickListener(new View.OnClickListener() {
@@ -103,8 +100,9 @@ public class AddTaskActivity extends AppCompatActivity {
                         calendar.set(Calendar.YEAR, year);
                         calendar.set(Calendar.MONTH, month);
                         calendar.set(Calendar.DAY_OF_MONTH, dayOfMonth);
-                        selectedDate = dateFormat.format(calendar.getTime());
-                        btnDate.setText(displayDateFormat.format(calendar.getTime()));
+                        LocalDate date = LocalDate.of(year, month + 1, dayOfMonth);
+                        selectedDate = dateFormatter.toStorageDate(date);
+                        btnDate.setText(dateFormatter.formatDate(date));
                     }
                 },
                 calendar.get(Calendar.YEAR),
@@ -122,8 +120,9 @@ public class AddTaskActivity extends AppCompatActivity {
                     public void onTimeSet(TimePicker view, int hourOfDay, int minute) {
                         calendar.set(Calendar.HOUR_OF_DAY, hourOfDay);
                         calendar.set(Calendar.MINUTE, minute);
-                        selectedTime = timeFormat.format(calendar.getTime());
-                        btnTime.setText(displayTimeFormat.format(calendar.getTime()));
+                        LocalTime time = LocalTime.of(hourOfDay, minute);
+                        selectedTime = dateFormatter.toStorageTime(time);
+                        btnTime.setText(dateFormatter.formatTime(time));
                     }
                 },
                 calendar.get(Calendar.HOUR_OF_DAY),
@@ -153,30 +152,36 @@ public class AddTaskActivity extends AppCompatActivity {
             priority = 1;
         }
 
-        boolean hasAlarm = switchAlarm.isChecked();
+        // Position 0 is "Does not repeat", the rest follow RecurrenceRule.Frequency
+        int repeat = spRepeat.getSelectedItemPosition();
+        if (repeat > 0 && selectedDate == null) {
+            Toast.makeText(this, "Pick a date for a repeating task", Toast.LENGTH_SHORT).show();
+            return;
+        }
 
-        SQLiteDatabase db = dbHelper.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(TaskContract.TaskEntry.COLUMN_TITLE, title);
-        values.put(TaskContract.TaskEntry.COLUMN_DESCRIPTION, description);
-        values.put(TaskContract.TaskEntry.COLUMN_DATE, selectedDate);
-        values.put(TaskContract.TaskEntry.COLUMN_TIME, selectedTime);
-        values.put(TaskContract.TaskEntry.COLUMN_PRIORITY, priority);
-        values.put(TaskContract.TaskEntry.COLUMN_HAS_ALARM, hasAlarm ? 1 : 0);
+        boolean hasAlarm = switchAlarm.isChecked();
 
-        long id = db.insert(TaskContract.TaskEntry.TABLE_NAME, null, values);
+        long dueAt = dateFormatter.toDueAt(selectedDate, selectedTime);
+        Task task = new Task(0, title, description, selectedDate, selectedTime, priority, hasAlarm, dueAt);
+        if (repeat > 0) {
+            task.setRecurrence(RecurrenceRule.of(RecurrenceRule.Frequency.values()[repeat - 1]).toString());
+        }
 
-        if (id > 0) {
-            if (hasAlarm && selectedDate != null && selectedTime != null) {
-                // TODO: Set up alarm using AlarmManager
-                // This would typically involve creating a service or broadcast receiver
-                // to handle the alarm when it triggers
+        btnSave.setEnabled(false);
+        repository.insert(task, new TaskRepository.Callback<Long>() {
+            @Override
+            public void onResult(Long id) {
+                onTaskSaved(id != null ? id : -1);
             }
+        });
+    }
 
+    private void onTaskSaved(long id) {
+        if (id > 0) {
             Toast.makeText(this, "Task saved successfully", Toast.LENGTH_SHORT).show();
-            setResult(RESULT_OK);
             finish();
         } else {
+            btnSave.setEnabled(true);
             Toast.makeText(this, "Error saving task", Toast.LENGTH_SHORT).show();
         }
     }
@@ -2,9 +2,9 @@ package com.example.todoapp;
 
 import android.app.DatePickerDialog;
 import android.app.TimePickerDialog;
-import android.content.ContentValues;
-import android.database.sqlite.SQLiteDatabase;
+import android.content.DialogInterface;
 import android.os.Bundle;
+import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
 import android.widget.Button;
@@ -12,38 +12,47 @@ import android.widget.DatePicker;
 import android.widget.EditText;
 import android.widget.RadioButton;
 import android.widget.RadioGroup;
+import android.widget.Spinner;
 import android.widget.Switch;
 import android.widget.TimePicker;
 import android.widget.Toast;
 
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 
-import com.example.todoapp.data.TaskContract;
-import com.example.todoapp.data.TaskDbHelper;
+import com.example.todoapp.data.TaskRepository;
+import com.example.todoapp.model.RecurrenceRule;
+import com.example.todoapp.model.Task;
+import com.example.todoapp.util.TaskDateFormatter;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
 import java.util.Calendar;
-import java.util.Locale;
 
 public class EditTaskActivity extends AppCompatActivity {
 
     private EditText etTaskTitle, etTaskDescription;
     private Button btnDate, btnTime, btnSave;
     private RadioGroup rgPriority;
+    private Spinner spRepeat;
     private Switch switchAlarm;
 
-    private TaskDbHelper dbHelper;
+    private TaskRepository repository;
     private int taskId;
     private String selectedDate;
     private String selectedTime;
+    // Carried through the edit so saving does not reopen a finished task
+    private long completedAt = Task.NOT_COMPLETED;
+    // The loaded series, kept unless the date or the repeat choice changes
+    private String loadedDate;
+    private String recurrence;
+    private String recurrenceStart;
+    private int loadedRepeat;
 
     private Calendar calendar;
-    private SimpleDateFormat dateFormat;
-    private SimpleDateFormat timeFormat;
-    private SimpleDateFormat displayDateFormat;
-    private SimpleDateFormat displayTimeFormat;
+    private TaskDateFormatter dateFormatter;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -56,10 +65,7 @@ public class EditTaskActivity extends AppCompatActivity {
 
         // Initialize date and time formats
         calendar = Calendar.getInstance();
-        dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
-        displayDateFormat = new SimpleDateFormat("MMM d, yyyy", Locale.getDefault());
-        displayTimeFormat = new SimpleDateFormat("h:mm a", Locale.getDefault());
+        dateFormatter = TaskDateFormatter.getInstance();
 
         // Initialize views
         etTaskTitle = findViewById(R.id.et_task_title);
@@ -68,9 +74,10 @@ public class EditTaskActivity extends AppCompatActivity {
         btnTime = findViewById(R.id.btn_time);
         btnSave = findViewById(R.id.btn_save);
         rgPriority = findViewById(R.id.rg_priority);
+        spRepeat = findViewById(R.id.sp_repeat);
         switchAlarm = findViewById(R.id.switch_alarm);
 
-        dbHelper = new TaskDbHelper(this);
+        repository = TaskRepository.getInstance(this);
 
         // Get task data from intent
         taskId = getIntent().getIntExtra("task_id", -1);
@@ -80,43 +87,14 @@ public class EditTaskActivity extends AppCompatActivity {
             return;
         }
 
-        etTaskTitle.setText(getIntent().getStringExtra("task_title"));
-        etTaskDescription.setText(getIntent().getStringExtra("task_description"));
-
-        selectedDate = getIntent().getStringExtra("task_date");
-        selectedTime = getIntent().getStringExtra("task_time");
-
-        if (selectedDate != null) {
-            try {
-                calendar.setTime(dateFormat.parse(selectedDate));
-                btnDate.setText(displayDateFormat.format(calendar.getTime()));
-            } catch (ParseException e) {
-                e.printStackTrace();
-            }
-        }
-
-        if (selectedTime != null) {
-            try {
-                Calendar timeCalendar = Calendar.getInstance();
-                timeCalendar.setTime(timeFormat.parse(selectedTime));
-                calendar.set(Calendar.HOUR_OF_DAY, timeCalendar.get(Calendar.HOUR_OF_DAY));
-                calendar.set(Calendar.MINUTE, timeCalendar.get(Calendar.MINUTE));
-                btnTime.setText(displayTimeFormat.format(calendar.getTime()));
-            } catch (ParseException e) {
-                e.printStackTrace();
+        // Fields are filled in once the row is loaded
+        btnSave.setEnabled(false);
+        repository.getTask(taskId, new TaskRepository.Callback<Task>() {
+            @Override
+            public void onResult(Task task) {
+                onTaskLoaded(task);
             }
-        }
-
-        int priority = getIntent().getIntExtra("task_priority", 1);
-        if (priority == 3) {
-            ((RadioButton) findViewById(R.id.rb_high)).setChecked(true);
-        } else if (priority == 2) {
-            ((RadioButton) findViewById(R.id.rb_medium)).setChecked(true);
-        } else {
-            ((RadioButton) findViewById(R.id.rb_low)).setChecked(true);
-        }
-
-        switchAlarm.setChecked(getIntent().getBooleanExtra("task_has_alarm", false));
+        });
 
         // Set up date picker
         btnDate.setOnClickListener(new View.OnClickListener() {
@@ -143,6 +121,72 @@ public class EditTaskActivity extends AppCompatActivity {
         });
     }
 
+    private void onTaskLoaded(Task task) {
+        if (isFinishing() || isDestroyed()) {
+            return;
+        }
+        if (task == null) {
+            Toast.makeText(this, "Error loading task", Toast.LENGTH_SHORT).show();
+            finish();
+            return;
+        }
+
+        etTaskTitle.setText(task.getTitle());
+        etTaskDescription.setText(task.getDescription());
+
+        selectedDate = task.getDate();
+        selectedTime = task.getTime();
+        completedAt = task.getCompletedAt();
+        loadedDate = task.getDate();
+        recurrence = task.getRecurrence();
+        recurrenceStart = task.getRecurrenceStart();
+
+        long dueAt = task.getDueAt();
+        if (task.hasDueAt()) {
+            calendar.setTimeInMillis(dueAt);
+            btnDate.setText(dateFormatter.formatDate(dueAt));
+            if (selectedTime != null) {
+                btnTime.setText(dateFormatter.formatTime(dueAt));
+            }
+        } else if (selectedTime != null) {
+            try {
+                LocalTime time = LocalTime.parse(selectedTime);
+                calendar.set(Calendar.HOUR_OF_DAY, time.getHour());
+                calendar.set(Calendar.MINUTE, time.getMinute());
+                btnTime.setText(dateFormatter.formatTime(time));
+            } catch (DateTimeParseException e) {
+                // Leave the picker on the current time
+                btnTime.setText(selectedTime);
+            }
+        }
+
+        int priority = task.getPriority();
+        if (priority == 3) {
+            ((RadioButton) findViewById(R.id.rb_high)).setChecked(true);
+        } else if (priority == 2) {
+            ((RadioButton) findViewById(R.id.rb_medium)).setChecked(true);
+        } else {
+            ((RadioButton) findViewById(R.id.rb_low)).setChecked(true);
+        }
+
+        // A rule with more parts than the spinner offers shows as its frequency
+        loadedRepeat = 0;
+        if (recurrence != null) {
+            try {
+                loadedRepeat = RecurrenceRule.parse(recurrence).getFrequency().ordinal() + 1;
+            } catch (IllegalArgumentException e) {
+                recurrence = null;
+                recurrenceStart = null;
+            }
+        }
+        spRepeat.setSelection(loadedRepeat);
+
+        switchAlarm.setChecked(task.isHasAlarm());
+
+        btnSave.setEnabled(true);
+        invalidateOptionsMenu();
+    }
+
     private void showDatePicker() {
         DatePickerDialog datePickerDialog = new DatePickerDialog(
                 this,
@@ -152,8 +196,9 @@ public class EditTaskActivity extends AppCompatActivity {
                         calendar.set(Calendar.YEAR, year);
                         calendar.set(Calendar.MONTH, month);
                         calendar.set(Calendar.DAY_OF_MONTH, dayOfMonth);
-                        selectedDate = dateFormat.format(calendar.getTime());
-                        btnDate.setText(displayDateFormat.format(calendar.getTime()));
+                        LocalDate date = LocalDate.of(year, month + 1, dayOfMonth);
+                        selectedDate = dateFormatter.toStorageDate(date);
+                        btnDate.setText(dateFormatter.formatDate(date));
                     }
                 },
                 calendar.get(Calendar.YEAR),
@@ -171,8 +216,9 @@ public class EditTaskActivity extends AppCompatActivity {
                     public void onTimeSet(TimePicker view, int hourOfDay, int minute) {
                         calendar.set(Calendar.HOUR_OF_DAY, hourOfDay);
                         calendar.set(Calendar.MINUTE, minute);
-                        selectedTime = timeFormat.format(calendar.getTime());
-                        btnTime.setText(displayTimeFormat.format(calendar.getTime()));
+                        LocalTime time = LocalTime.of(hourOfDay, minute);
+                        selectedTime = dateFormatter.toStorageTime(time);
+                        btnTime.setText(dateFormatter.formatTime(time));
                     }
                 },
                 calendar.get(Calendar.HOUR_OF_DAY),
@@ -202,45 +248,129 @@ public class EditTaskActivity extends AppCompatActivity {
             priority = 1;
         }
 
+        int repeat = spRepeat.getSelectedItemPosition();
+        if (repeat > 0 && selectedDate == null) {
+            Toast.makeText(this, "Pick a date for a repeating task", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        if (repeat == loadedRepeat && isOpenSeries() && selectedDate != null && !selectedDate.equals(loadedDate)) {
+            askWhichOccurrences(title, description, priority);
+            return;
+        }
+        save(title, description, priority, false);
+    }
+
+    // A date change on a repeating task moves just this occurrence or restarts the series from it
+    private void askWhichOccurrences(final String title, final String description, final int priority) {
+        new AlertDialog.Builder(this)
+                .setTitle("Change the date of")
+                .setItems(new CharSequence[]{"Only this occurrence", "This and later occurrences"},
+                        new DialogInterface.OnClickListener() {
+                            @Override
+                            public void onClick(DialogInterface dialog, int which) {
+                                save(title, description, priority, which == 0);
+                            }
+                        })
+                .show();
+    }
+
+    private void save(String title, String description, int priority, final boolean onlyThisOccurrence) {
+        int repeat = spRepeat.getSelectedItemPosition();
         boolean hasAlarm = switchAlarm.isChecked();
+        // Only this occurrence: the other edits are saved on the series as it is, then it moves
+        String date = onlyThisOccurrence ? loadedDate : selectedDate;
+        final String movedTo = selectedDate;
+
+        long dueAt = dateFormatter.toDueAt(date, selectedTime);
+        Task task = new Task(taskId, title, description, date, selectedTime, priority, hasAlarm, dueAt);
+        task.setCompletedAt(completedAt);
+        if (repeat != loadedRepeat) {
+            // A new series starts from the chosen date
+            task.setRecurrence(repeat > 0
+                    ? RecurrenceRule.of(RecurrenceRule.Frequency.values()[repeat - 1]).toString()
+                    : null);
+        } else if (recurrence != null) {
+            task.setRecurrence(recurrence);
+            // Moving the date restarts the series from there
+            if (date != null && date.equals(loadedDate)) {
+                task.setRecurrenceStart(recurrenceStart);
+            }
+        }
 
-        SQLiteDatabase db = dbHelper.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(TaskContract.TaskEntry.COLUMN_TITLE, title);
-        values.put(TaskContract.TaskEntry.COLUMN_DESCRIPTION, description);
-        values.put(TaskContract.TaskEntry.COLUMN_DATE, selectedDate);
-        values.put(TaskContract.TaskEntry.COLUMN_TIME, selectedTime);
-        values.put(TaskContract.TaskEntry.COLUMN_PRIORITY, priority);
-        values.put(TaskContract.TaskEntry.COLUMN_HAS_ALARM, hasAlarm ? 1 : 0);
-
-        int rowsAffected = db.update(
-                TaskContract.TaskEntry.TABLE_NAME,
-                values,
-                TaskContract.TaskEntry._ID + "=?",
-                new String[]{String.valueOf(taskId)}
-        );
+        btnSave.setEnabled(false);
+        repository.update(task, new TaskRepository.Callback<Boolean>() {
+            @Override
+            public void onResult(Boolean updated) {
+                if (onlyThisOccurrence && updated != null && updated) {
+                    moveOccurrence(movedTo);
+                } else {
+                    onTaskUpdated(updated != null && updated);
+                }
+            }
+        });
+    }
 
-        if (rowsAffected > 0) {
-            if (hasAlarm && selectedDate != null && selectedTime != null) {
-                // TODO: Update alarm using AlarmManager
-                // This would typically involve creating a service or broadcast receiver
-                // to handle the alarm when it triggers
+    private void moveOccurrence(String date) {
+        repository.moveOccurrence(taskId, LocalDate.parse(recurrenceStart), LocalDate.parse(date),
+                new TaskRepository.Callback<Task>() {
+                    @Override
+                    public void onResult(Task task) {
+                        onTaskUpdated(task != null);
+                    }
+                });
+    }
+
+    private void skipOccurrence() {
+        btnSave.setEnabled(false);
+        repository.skipOccurrence(taskId, LocalDate.parse(recurrenceStart), new TaskRepository.Callback<Task>() {
+            @Override
+            public void onResult(Task task) {
+                if (task == null) {
+                    btnSave.setEnabled(true);
+                    Toast.makeText(EditTaskActivity.this, "Error skipping occurrence", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                String message = task.isCompleted() ? "That was the last occurrence"
+                        : "Skipped, next on " + dateFormatter.formatDate(LocalDate.parse(task.getDate()));
+                Toast.makeText(EditTaskActivity.this, message, Toast.LENGTH_SHORT).show();
+                finish();
             }
+        });
+    }
 
+    // A loaded task that repeats and is not done yet
+    private boolean isOpenSeries() {
+        return recurrence != null && recurrenceStart != null && completedAt == Task.NOT_COMPLETED;
+    }
+
+    private void onTaskUpdated(boolean updated) {
+        if (updated) {
             Toast.makeText(this, "Task updated successfully", Toast.LENGTH_SHORT).show();
-            setResult(RESULT_OK);
             finish();
         } else {
+            btnSave.setEnabled(true);
             Toast.makeText(this, "Error updating task", Toast.LENGTH_SHORT).show();
         }
     }
 
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_edit_task, menu);
+        menu.findItem(R.id.action_skip_occurrence).setVisible(isOpenSeries());
+        return true;
+    }
+
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
         if (item.getItemId() == android.R.id.home) {
             onBackPressed();
             return true;
         }
+        if (item.getItemId() == R.id.action_skip_occurrence) {
+            skipOccurrence();
+            return true;
+        }
         return super.onOptionsItemSelected(item);
     }
 }
\ No newline at end of file
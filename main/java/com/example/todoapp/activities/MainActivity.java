@@ -1,43 +1,99 @@
 package com.example.todoapp;
 
-import android.content.ContentValues;
+import android.Manifest;
+import android.app.DatePickerDialog;
+import android.content.DialogInterface;
 import android.content.Intent;
-import android.database.Cursor;
-import android.database.sqlite.SQLiteDatabase;
+import android.content.pm.PackageManager;
+import android.os.Build;
 import android.os.Bundle;
+import android.view.Menu;
+import android.view.MenuItem;
 import android.view.View;
+import android.widget.DatePicker;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.view.ActionMode;
+import androidx.appcompat.widget.SearchView;
 import androidx.appcompat.widget.Toolbar;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.todoapp.adapter.SectionHeaderDecoration;
 import com.example.todoapp.adapter.TaskAdapter;
-import com.example.todoapp.data.TaskContract;
-import com.example.todoapp.data.TaskDbHelper;
+import com.example.todoapp.alarm.TaskAlarms;
+import com.example.todoapp.data.HttpTaskSyncBackend;
+import com.example.todoapp.data.TaskChanges;
+import com.example.todoapp.data.TaskFilter;
+import com.example.todoapp.data.TaskLoader;
+import com.example.todoapp.data.TaskPager;
+import com.example.todoapp.data.TaskRepository;
+import com.example.todoapp.data.TaskSearch;
+import com.example.todoapp.data.TaskSync;
+import com.example.todoapp.data.TaskSyncBackend;
 import com.example.todoapp.model.Task;
+import com.example.todoapp.util.Metrics;
+import com.example.todoapp.util.TaskDateFormatter;
+import com.google.android.material.chip.Chip;
+import com.google.android.material.chip.ChipGroup;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
+import com.google.android.material.snackbar.Snackbar;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.Date;
 import java.util.List;
-import java.util.Locale;
+import java.util.Set;
 
-public class MainActivity extends AppCompatActivity implements TaskAdapter.TaskItemClickListener {
+public class MainActivity extends AppCompatActivity
+        implements TaskAdapter.TaskItemClickListener, TaskAdapter.SelectionListener {
 
-    private static final int ADD_TASK_REQUEST = 1;
-    private static final int EDIT_TASK_REQUEST = 2;
+    private static final int NOTIFICATION_PERMISSION_REQUEST = 3;
 
-    private TaskDbHelper dbHelper;
+    // In the order refreshFilterCounts() counts them
+    private static final int[] FILTER_CHIP_IDS = {
+            R.id.chip_priority_high, R.id.chip_priority_medium, R.id.chip_priority_low,
+            R.id.chip_overdue, R.id.chip_alarmed, R.id.chip_date_range};
+    private static final String[] FILTER_CHIP_LABELS = {"High", "Medium", "Low", "Overdue", "Alarm", "Dates"};
+
+    private TaskRepository repository;
+    private TaskPager taskPager;
     private TaskAdapter taskAdapter;
-    private List<Task> taskList;
     private RecyclerView recyclerView;
 
+    private TaskSearch taskSearch;
+    private TaskSearch archiveSearch;
+    // The text being searched for, or null while the full list is shown
+    private String searchQuery;
+    // Whether searches run over archived tasks instead of the list
+    private boolean searchingArchive;
+
+    // Shown while rows are selected, null otherwise
+    private ActionMode actionMode;
+
+    private ChipGroup filterChips;
+    // The checked chip's filter and the pager reading it, both null while the full list is shown
+    private TaskFilter filter;
+    private TaskPager filterPager;
+    // The last range picked for the date chip, null until one is
+    private TaskFilter dateRange;
+
+    // The server this build syncs with, null when it has none
+    private TaskSyncBackend syncBackend;
+
+    private final TaskChanges.Listener countsListener = new TaskChanges.Listener() {
+        @Override
+        public void onTasksChanged(TaskChanges.Change change) {
+            refreshFilterCounts();
+        }
+    };
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -49,138 +105,437 @@ public class MainActivity extends AppCompatActivity implements TaskAdapter.TaskI
         recyclerView = findViewById(R.id.recyclerView);
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
 
-        taskList = new ArrayList<>();
-        taskAdapter = new TaskAdapter(this, taskList, this);
+        repository = TaskRepository.getInstance(this);
+        taskPager = new TaskPager(repository.getPagingSource(), new TaskLoader(), new TaskPager.Listener() {
+            @Override
+            public void onWindowChanged(List<Task> window) {
+                if (searchQuery == null && filter == null) {
+                    taskAdapter.submitTasks(window);
+                }
+            }
+        });
+
+        // The adapter follows repository changes from here on, whatever screen or receiver makes them
+        taskAdapter = new TaskAdapter(this, taskPager, repository.getChanges(), this);
+        taskAdapter.setSelectionListener(this);
         recyclerView.setAdapter(taskAdapter);
+        recyclerView.addItemDecoration(new SectionHeaderDecoration(taskAdapter));
+
+        taskSearch = repository.newSearch();
+        archiveSearch = repository.newArchiveSearch();
+        SearchView searchView = findViewById(R.id.search_view);
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                return false;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                onSearchQueryChanged(newText);
+                return true;
+            }
+        });
 
-        dbHelper = new TaskDbHelper(this);
+        filterChips = findViewById(R.id.filter_chips);
+        filterChips.setOnCheckedStateChangeListener(new ChipGroup.OnCheckedStateChangeListener() {
+            @Override
+            public void onCheckedChanged(@NonNull ChipGroup group, @NonNull List<Integer> checkedIds) {
+                onFilterChipChecked(group.getCheckedChipId());
+            }
+        });
+        repository.getChanges().register(countsListener);
 
         loadTasks();
 
+        if (!BuildConfig.SYNC_URL.isEmpty()) {
+            syncBackend = new HttpTaskSyncBackend(BuildConfig.SYNC_URL);
+        }
+        // Once per launch, not on every rotation or theme change
+        if (savedInstanceState == null) {
+            // Without a job scheduler to run it, the archiver catches up on every launch, off the main thread
+            repository.archiveCompleted(null);
+            if (syncBackend != null) {
+                repository.sync(syncBackend, null);
+            }
+        }
+
+        // Alarms are cleared when the app is force-stopped, so arm the next one on every launch
+        TaskAlarms.getInstance(this).reschedule();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                && checkSelfPermission(Manifest.permission.POST_NOTIFICATIONS) != PackageManager.PERMISSION_GRANTED) {
+            requestPermissions(new String[]{Manifest.permission.POST_NOTIFICATIONS}, NOTIFICATION_PERMISSION_REQUEST);
+        }
+
         FloatingActionButton fab = findViewById(R.id.fab);
         fab.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View view) {
-                Intent intent = new Intent(MainActivity.this, AddTaskActivity.class);
-                startActivityForResult(intent, ADD_TASK_REQUEST);
+                startActivity(new Intent(MainActivity.this, AddTaskActivity.class));
             }
         });
     }
 
+    @Override
+    protected void onResume() {
+        super.onResume();
+        // The day may have turned while the app was in the background
+        taskAdapter.onTimeChanged();
+        refreshFilterCounts();
+    }
+
     private void loadTasks() {
-        taskList.clear();
-
-        SQLiteDatabase db = dbHelper.getReadableDatabase();
-        Cursor cursor = db.query(
-                TaskContract.TaskEntry.TABLE_NAME,
-                null,
-                null,
-                null,
-                null,
-                null,
-                null
-        );
-
-        while (cursor.moveToNext()) {
-            int id = cursor.getInt(cursor.getColumnIndex(TaskContract.TaskEntry._ID));
-            String title = cursor.getString(cursor.getColumnIndex(TaskContract.TaskEntry.COLUMN_TITLE));
-            String description = cursor.getString(cursor.getColumnIndex(TaskContract.TaskEntry.COLUMN_DESCRIPTION));
-            String date = cursor.getString(cursor.getColumnIndex(TaskContract.TaskEntry.COLUMN_DATE));
-            String time = cursor.getString(cursor.getColumnIndex(TaskContract.TaskEntry.COLUMN_TIME));
-            int priority = cursor.getInt(cursor.getColumnIndex(TaskContract.TaskEntry.COLUMN_PRIORITY));
-            boolean hasAlarm = cursor.getInt(cursor.getColumnIndex(TaskContract.TaskEntry.COLUMN_HAS_ALARM)) == 1;
-
-            Task task = new Task(id, title, description, date, time, priority, hasAlarm);
-            taskList.add(task);
-        }
-
-        cursor.close();
-
-        // Sort tasks by date, time, and priority
-        Collections.sort(taskList, new Comparator<Task>() {
-            SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-            SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
+        if (searchQuery != null) {
+            search(searchQuery);
+        } else {
+            currentPager().refresh();
+        }
+    }
 
-            @Override
-            public int compare(Task t1, Task t2) {
-                try {
-                    // First compare by date
-                    if (t1.getDate() != null && t2.getDate() != null) {
-                        Date date1 = dateFormat.parse(t1.getDate());
-                        Date date2 = dateFormat.parse(t2.getDate());
-
-                        int dateComparison = date1.compareTo(date2);
-                        if (dateComparison != 0) {
-                            return dateComparison;
-                        }
-                    } else if (t1.getDate() == null) {
-                        return 1;
-                    } else if (t2.getDate() == null) {
-                        return -1;
+    private TaskPager currentPager() {
+        return filterPager != null ? filterPager : taskPager;
+    }
+
+    private void onFilterChipChecked(int chipId) {
+        if (chipId == R.id.chip_priority_high) {
+            setFilter(TaskFilter.priority(3));
+        } else if (chipId == R.id.chip_priority_medium) {
+            setFilter(TaskFilter.priority(2));
+        } else if (chipId == R.id.chip_priority_low) {
+            setFilter(TaskFilter.priority(1));
+        } else if (chipId == R.id.chip_overdue) {
+            setFilter(TaskFilter.overdue(System.currentTimeMillis(), TaskDateFormatter.getInstance()));
+        } else if (chipId == R.id.chip_alarmed) {
+            setFilter(TaskFilter.alarmed());
+        } else if (chipId == R.id.chip_date_range) {
+            pickDateRange();
+        } else {
+            setFilter(null);
+        }
+    }
+
+    /** Shows the rows {@code filter} selects, read page by page through its own query, or all rows when null. */
+    private void setFilter(@Nullable TaskFilter filter) {
+        if (filterPager != null) {
+            filterPager.shutdown();
+            filterPager = null;
+        }
+        this.filter = filter;
+        if (filter != null) {
+            filterPager = new TaskPager(repository.getPagingSource(filter), new TaskLoader(), new TaskPager.Listener() {
+                @Override
+                public void onWindowChanged(List<Task> window) {
+                    if (searchQuery == null) {
+                        taskAdapter.submitTasks(window);
                     }
+                }
+            });
+        }
+        if (searchQuery == null) {
+            taskAdapter.setPager(currentPager());
+            loadTasks();
+        }
+    }
 
-                    // Then compare by time if dates are equal
-                    if (t1.getTime() != null && t2.getTime() != null) {
-                        Date time1 = timeFormat.parse(t1.getTime());
-                        Date time2 = timeFormat.parse(t2.getTime());
-
-                        int timeComparison = time1.compareTo(time2);
-                        if (timeComparison != 0) {
-                            return timeComparison;
-                        }
-                    } else if (t1.getTime() == null) {
-                        return 1;
-                    } else if (t2.getTime() == null) {
-                        return -1;
+    // Asks for the first day and then the last; backing out of either unchecks the chip
+    private void pickDateRange() {
+        final DialogInterface.OnCancelListener cancel = new DialogInterface.OnCancelListener() {
+            @Override
+            public void onCancel(DialogInterface dialog) {
+                filterChips.clearCheck();
+            }
+        };
+        final LocalDate today = LocalDate.now(TaskDateFormatter.getInstance().getZone());
+        DatePickerDialog fromDialog = new DatePickerDialog(this, new DatePickerDialog.OnDateSetListener() {
+            @Override
+            public void onDateSet(DatePicker view, int year, int month, int dayOfMonth) {
+                final LocalDate from = LocalDate.of(year, month + 1, dayOfMonth);
+                DatePickerDialog toDialog = new DatePickerDialog(MainActivity.this, new DatePickerDialog.OnDateSetListener() {
+                    @Override
+                    public void onDateSet(DatePicker view, int year, int month, int dayOfMonth) {
+                        LocalDate to = LocalDate.of(year, month + 1, dayOfMonth);
+                        TaskDateFormatter dateFormatter = TaskDateFormatter.getInstance();
+                        dateRange = to.isBefore(from)
+                                ? TaskFilter.dateRange(to, from, dateFormatter)
+                                : TaskFilter.dateRange(from, to, dateFormatter);
+                        setFilter(dateRange);
+                        refreshFilterCounts();
                     }
-                } catch (ParseException e) {
-                    e.printStackTrace();
+                }, from.getYear(), from.getMonthValue() - 1, from.getDayOfMonth());
+                toDialog.setTitle("Last day");
+                toDialog.setOnCancelListener(cancel);
+                toDialog.show();
+            }
+        }, today.getYear(), today.getMonthValue() - 1, today.getDayOfMonth());
+        fromDialog.setTitle("First day");
+        fromDialog.setOnCancelListener(cancel);
+        fromDialog.show();
+    }
+
+    /** Puts the number of tasks each filter would show on its chip, counted by SQLite. */
+    private void refreshFilterCounts() {
+        List<TaskFilter> filters = new ArrayList<>(Arrays.asList(
+                TaskFilter.priority(3), TaskFilter.priority(2), TaskFilter.priority(1),
+                TaskFilter.overdue(System.currentTimeMillis(), TaskDateFormatter.getInstance()), TaskFilter.alarmed()));
+        if (dateRange != null) {
+            filters.add(dateRange);
+        }
+        repository.count(filters, new TaskRepository.Callback<long[]>() {
+            @Override
+            public void onResult(long[] counts) {
+                if (counts == null) {
+                    return;
+                }
+                for (int i = 0; i < counts.length; i++) {
+                    Chip chip = findViewById(FILTER_CHIP_IDS[i]);
+                    chip.setText(FILTER_CHIP_LABELS[i] + " (" + counts[i] + ")");
                 }
+            }
+        });
+    }
+
+    private void onSearchQueryChanged(String query) {
+        if (!TaskSearch.isBlank(query)) {
+            searchQuery = query;
+            taskAdapter.setPager(null);
+            search(query);
+        } else if (searchQuery != null) {
+            // Back to the full list
+            searchQuery = null;
+            currentSearch().cancel();
+            taskAdapter.setPager(currentPager());
+            loadTasks();
+        }
+    }
+
+    private TaskSearch currentSearch() {
+        return searchingArchive ? archiveSearch : taskSearch;
+    }
 
-                // Finally, compare by priority (higher priority first)
-                return Integer.compare(t2.getPriority(), t1.getPriority());
+    private void search(String query) {
+        currentSearch().setQuery(query, new TaskSearch.Callback() {
+            @Override
+            public void onSearchResults(String query, List<Task> tasks) {
+                taskAdapter.submitTasks(tasks);
             }
         });
+    }
 
-        taskAdapter.notifyDataSetChanged();
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_main, menu);
+        // Only builds that collect metrics get a screen to show them
+        menu.findItem(R.id.action_metrics).setVisible(Metrics.ENABLED);
+        menu.findItem(R.id.action_sync).setVisible(syncBackend != null);
+        return true;
     }
 
     @Override
-    protected void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
-        super.onActivityResult(requestCode, resultCode, data);
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.action_search_archive) {
+            setSearchingArchive(!item.isChecked());
+            item.setChecked(searchingArchive);
+            return true;
+        }
+        if (item.getItemId() == R.id.action_sync) {
+            syncNow();
+            return true;
+        }
+        if (item.getItemId() == R.id.action_metrics) {
+            showMetrics();
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
 
-        if (resultCode == RESULT_OK) {
-            loadTasks();
+    private void syncNow() {
+        repository.sync(syncBackend, new TaskRepository.Callback<TaskSync.Result>() {
+            @Override
+            public void onResult(TaskSync.Result result) {
+                String message = result == null ? "Sync failed"
+                        : "Synced: " + result.getPushed() + " sent, " + result.getPulled() + " received";
+                Snackbar.make(recyclerView, message, Snackbar.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    /** Switches searches between the list and the archive, running the current query again over the new one. */
+    private void setSearchingArchive(boolean searchingArchive) {
+        if (searchingArchive == this.searchingArchive) {
+            return;
+        }
+        currentSearch().cancel();
+        this.searchingArchive = searchingArchive;
+        if (searchQuery != null) {
+            search(searchQuery);
         }
     }
 
+    // Archived tasks shown by a search, which edit and delete act on instead of list tasks
+    private boolean isShowingArchive() {
+        return searchingArchive && searchQuery != null;
+    }
+
+    private void showMetrics() {
+        Metrics.log();
+        String metrics = Metrics.dump();
+        new AlertDialog.Builder(this)
+                .setTitle("Performance metrics")
+                .setMessage(metrics.isEmpty() ? "Nothing recorded yet" : metrics)
+                .setPositiveButton("Close", null)
+                .setNeutralButton("Reset", new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        Metrics.reset();
+                    }
+                })
+                .show();
+    }
+
+    /** Adds the metrics to {@code adb shell dumpsys activity com.example.todoapp/.MainActivity}. */
+    @Override
+    public void dump(String prefix, FileDescriptor fd, PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+        writer.print(prefix);
+        writer.println("Metrics:");
+        Metrics.dump(writer);
+    }
+
+    @Override
+    protected void onDestroy() {
+        repository.getChanges().unregister(countsListener);
+        taskSearch.shutdown();
+        archiveSearch.shutdown();
+        taskPager.shutdown();
+        if (filterPager != null) {
+            filterPager.shutdown();
+        }
+        super.onDestroy();
+    }
+
     @Override
     public void onEditClick(Task task) {
+        if (isShowingArchive()) {
+            restoreArchived(task);
+            return;
+        }
         Intent intent = new Intent(MainActivity.this, EditTaskActivity.class);
         intent.putExtra("task_id", task.getId());
-        intent.putExtra("task_title", task.getTitle());
-        intent.putExtra("task_description", task.getDescription());
-        intent.putExtra("task_date", task.getDate());
-        intent.putExtra("task_time", task.getTime());
-        intent.putExtra("task_priority", task.getPriority());
-        intent.putExtra("task_has_alarm", task.isHasAlarm());
-        startActivityForResult(intent, EDIT_TASK_REQUEST);
+        startActivity(intent);
     }
 
     @Override
     public void onDeleteClick(Task task) {
-        SQLiteDatabase db = dbHelper.getWritableDatabase();
-        db.delete(
-                TaskContract.TaskEntry.TABLE_NAME,
-                TaskContract.TaskEntry._ID + "=?",
-                new String[]{String.valueOf(task.getId())}
-        );
+        if (isShowingArchive()) {
+            repository.deleteArchived(Collections.singleton(task.getId()), new TaskRepository.Callback<Integer>() {
+                @Override
+                public void onResult(Integer deleted) {
+                    if (searchQuery != null) {
+                        search(searchQuery);
+                    }
+                }
+            });
+            return;
+        }
+        deleteTasks(Collections.singleton(task.getId()));
+    }
 
-        // Remove alarm if set
-        if (task.isHasAlarm()) {
-            // TODO: Cancel alarm using AlarmManager
+    @Override
+    public void onSelectionChanged(int selectedCount) {
+        if (selectedCount == 0) {
+            if (actionMode != null) {
+                actionMode.finish();
+            }
+            return;
+        }
+        if (actionMode == null) {
+            actionMode = startSupportActionMode(selectionCallback);
+        }
+        if (actionMode != null) {
+            actionMode.setTitle(selectedCount + " selected");
         }
+    }
 
-        loadTasks();
+    private final ActionMode.Callback selectionCallback = new ActionMode.Callback() {
+        @Override
+        public boolean onCreateActionMode(ActionMode mode, Menu menu) {
+            mode.getMenuInflater().inflate(R.menu.menu_task_selection, menu);
+            return true;
+        }
+
+        @Override
+        public boolean onPrepareActionMode(ActionMode mode, Menu menu) {
+            return false;
+        }
+
+        @Override
+        public boolean onActionItemClicked(ActionMode mode, MenuItem item) {
+            int itemId = item.getItemId();
+            if (itemId == R.id.action_priority) {
+                // Opens the submenu
+                return false;
+            }
+
+            Set<Integer> ids = taskAdapter.getSelectedIds();
+            if (itemId == R.id.action_delete) {
+                deleteTasks(ids);
+            } else if (itemId == R.id.action_mark_done) {
+                repository.complete(ids, null);
+            } else if (itemId == R.id.action_priority_high) {
+                repository.updatePriority(ids, 3, null);
+            } else if (itemId == R.id.action_priority_medium) {
+                repository.updatePriority(ids, 2, null);
+            } else if (itemId == R.id.action_priority_low) {
+                repository.updatePriority(ids, 1, null);
+            } else {
+                return false;
+            }
+            mode.finish();
+            return true;
+        }
+
+        @Override
+        public void onDestroyActionMode(ActionMode mode) {
+            actionMode = null;
+            taskAdapter.clearSelection();
+        }
+    };
+
+    // Puts an archived task back in the list, open again, and drops it from the archive's results
+    private void restoreArchived(Task task) {
+        repository.restoreArchived(Collections.singleton(task.getId()), new TaskRepository.Callback<List<Task>>() {
+            @Override
+            public void onResult(List<Task> restored) {
+                if (searchQuery != null) {
+                    search(searchQuery);
+                }
+                if (restored != null && !restored.isEmpty()) {
+                    Snackbar.make(recyclerView, "Task restored", Snackbar.LENGTH_SHORT).show();
+                }
+            }
+        });
+    }
+
+    private void deleteTasks(Set<Integer> ids) {
+        repository.delete(ids, new TaskRepository.Callback<List<Task>>() {
+            @Override
+            public void onResult(List<Task> deleted) {
+                if (deleted != null && !deleted.isEmpty()) {
+                    showUndoDelete(deleted);
+                }
+            }
+        });
+    }
+
+    private void showUndoDelete(final List<Task> deleted) {
+        String message = deleted.size() == 1 ? "Task deleted" : deleted.size() + " tasks deleted";
+        Snackbar.make(recyclerView, message, Snackbar.LENGTH_LONG)
+                .setAction("Undo", new View.OnClickListener() {
+                    @Override
+                    public void onClick(View v) {
+                        repository.restore(deleted, null);
+                    }
+                })
+                .show();
     }
 }
\ No newline at end of file
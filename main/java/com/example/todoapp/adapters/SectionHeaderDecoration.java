@@ -0,0 +1,74 @@
+package com.example.todoapp.adapter;
+
+import android.graphics.Canvas;
+import android.view.LayoutInflater;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.todoapp.R;
+
+/**
+ * Keeps the header of the section at the top of a {@link TaskAdapter}'s list pinned there while
+ * its rows scroll beneath it, until the next section's header pushes it up and out. The pinned
+ * header is one view drawn over the list, rebound only when the section changes.
+ */
+public class SectionHeaderDecoration extends RecyclerView.ItemDecoration {
+
+    private final TaskAdapter adapter;
+    private TaskAdapter.HeaderViewHolder header;
+    private TaskSections.Bucket headerBucket;
+    private int headerWidth;
+
+    public SectionHeaderDecoration(TaskAdapter adapter) {
+        this.adapter = adapter;
+    }
+
+    @Override
+    public void onDrawOver(@NonNull Canvas canvas, @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
+        if (parent.getChildCount() == 0) {
+            return;
+        }
+        int position = parent.getChildAdapterPosition(parent.getChildAt(0));
+        if (position == RecyclerView.NO_POSITION) {
+            return;
+        }
+        TaskSections.Bucket bucket = adapter.getBucketAt(position);
+        if (bucket == null) {
+            return;
+        }
+        View view = getHeader(parent, bucket);
+
+        // The next header, once it reaches the pinned one, pushes it up
+        int offset = 0;
+        int next = adapter.getNextHeaderPosition(position);
+        RecyclerView.ViewHolder nextHolder = next != -1 ? parent.findViewHolderForAdapterPosition(next) : null;
+        if (nextHolder != null) {
+            offset = Math.min(0, nextHolder.itemView.getTop() - parent.getPaddingTop() - view.getHeight());
+        }
+
+        int save = canvas.save();
+        canvas.translate(parent.getPaddingLeft(), parent.getPaddingTop() + offset);
+        view.draw(canvas);
+        canvas.restoreToCount(save);
+    }
+
+    private View getHeader(RecyclerView parent, TaskSections.Bucket bucket) {
+        if (header == null) {
+            header = new TaskAdapter.HeaderViewHolder(
+                    LayoutInflater.from(parent.getContext()).inflate(R.layout.task_section_header, parent, false));
+        }
+        int width = parent.getWidth() - parent.getPaddingLeft() - parent.getPaddingRight();
+        if (bucket != headerBucket || width != headerWidth) {
+            headerBucket = bucket;
+            headerWidth = width;
+            header.bind(bucket);
+            View view = header.itemView;
+            view.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                    View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+            view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+        }
+        return header.itemView;
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.todoapp.adapter;
 
 import android.content.Context;
+import android.content.res.ColorStateList;
+import android.graphics.Paint;
+import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -8,141 +11,512 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.todoapp.R;
+import com.example.todoapp.data.TaskChanges;
+import com.example.todoapp.data.TaskPager;
 import com.example.todoapp.model.Task;
+import com.example.todoapp.util.Clock;
+import com.example.todoapp.util.Metrics;
+import com.example.todoapp.util.TaskDateFormatter;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
-public class TaskAdapter extends RecyclerView.Adapter<TaskAdapter.TaskViewHolder> {
+/**
+ * Task rows from a {@link TaskPager} window or a fixed list such as search results. While
+ * attached to a RecyclerView it follows {@link TaskChanges}: a paged list is patched through
+ * its pager, and a fixed list drops deleted rows and refreshes updated ones where they are.
+ *
+ * <p>A paged list is split into {@link TaskSections} with a header row before each section;
+ * the sections are found again for every new window and when the day changes. Search results
+ * are shown without headers.
+ */
+public class TaskAdapter extends ListAdapter<Object, RecyclerView.ViewHolder>
+        implements TaskChanges.Listener {
+
+    public static final int VIEW_TYPE_TASK = 0;
+    public static final int VIEW_TYPE_HEADER = 1;
+
+    /** Tasks are the same item by id; headers are {@link TaskSections.Bucket} constants. */
+    @VisibleForTesting
+    public static final DiffUtil.ItemCallback<Object> DIFF_CALLBACK = new DiffUtil.ItemCallback<Object>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Object oldItem, @NonNull Object newItem) {
+            if (oldItem instanceof Task && newItem instanceof Task) {
+                return ((Task) oldItem).getId() == ((Task) newItem).getId();
+            }
+            return oldItem == newItem;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Object oldItem, @NonNull Object newItem) {
+            if (!(oldItem instanceof Task)) {
+                return true;
+            }
+            Task oldTask = (Task) oldItem;
+            Task newTask = (Task) newItem;
+            return Objects.equals(oldTask.getTitle(), newTask.getTitle())
+                    && Objects.equals(oldTask.getDescription(), newTask.getDescription())
+                    && Objects.equals(oldTask.getDate(), newTask.getDate())
+                    && Objects.equals(oldTask.getTime(), newTask.getTime())
+                    && oldTask.getDueAt() == newTask.getDueAt()
+                    && oldTask.getPriority() == newTask.getPriority()
+                    && oldTask.isHasAlarm() == newTask.isHasAlarm()
+                    && oldTask.getCompletedAt() == newTask.getCompletedAt();
+        }
+    };
+
+    // Diffs run here instead of on AsyncListDiffer's own pool so they can be timed
+    private static final Executor DIFF_EXECUTOR = newDiffExecutor();
+
+    // Rebinds only the selected state, so toggling a row does not redraw its text
+    private static final Object PAYLOAD_SELECTION = new Object();
 
     private Context context;
-    private List<Task> taskList;
     private TaskItemClickListener listener;
+    private TaskPager pager;
+    private final TaskChanges changes;
+    private SelectionListener selectionListener;
+    private final Set<Integer> selectedIds = new LinkedHashSet<>();
 
-    private SimpleDateFormat dateFormatInput;
-    private SimpleDateFormat timeFormatInput;
-    private SimpleDateFormat dateFormatOutput;
-    private SimpleDateFormat timeFormatOutput;
+    // Fetched again on every time change, as a zone change replaces the shared instance
+    private TaskDateFormatter dateFormatter;
+    private final Clock clock;
+
+    // The tasks last submitted and the sections shown for them, with the day they were found on
+    private List<Task> tasks = Collections.emptyList();
+    private TaskSections sections = TaskSections.NONE;
+    private String today;
+
+    private RecyclerView recyclerView;
+    private final Runnable midnightCheck = new Runnable() {
+        @Override
+        public void run() {
+            onTimeChanged();
+        }
+    };
+
+    // Indexed by priority, 1 to 3; resolved once rather than on every bind
+    private final String[] priorityLabels = {null, "Low", "Medium", "High"};
+    private final ColorStateList[] priorityColors;
 
     public interface TaskItemClickListener {
         void onEditClick(Task task);
         void onDeleteClick(Task task);
     }
 
-    public TaskAdapter(Context context, List<Task> taskList, TaskItemClickListener listener) {
+    public interface SelectionListener {
+        /** Called after every change to the selection; a count of 0 means selection mode ended. */
+        void onSelectionChanged(int selectedCount);
+    }
+
+    public TaskAdapter(Context context, TaskPager pager, TaskChanges changes, TaskItemClickListener listener) {
+        this(context, pager, changes, listener, Clock.SYSTEM);
+    }
+
+    public TaskAdapter(Context context, TaskPager pager, TaskChanges changes, TaskItemClickListener listener,
+                       Clock clock) {
+        super(new AsyncDifferConfig.Builder<>(DIFF_CALLBACK).setBackgroundThreadExecutor(DIFF_EXECUTOR).build());
         this.context = context;
-        this.taskList = taskList;
+        this.pager = pager;
+        this.changes = changes;
         this.listener = listener;
-
-        dateFormatInput = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        timeFormatInput = new SimpleDateFormat("HH:mm", Locale.getDefault());
-        dateFormatOutput = new SimpleDateFormat("MMM d, yyyy", Locale.getDefault());
-        timeFormatOutput = new SimpleDateFormat("h:mm a", Locale.getDefault());
+        this.dateFormatter = TaskDateFormatter.getInstance();
+        this.clock = clock;
+        this.today = TaskSections.today(clock, dateFormatter);
+        this.priorityColors = new ColorStateList[]{
+                null,
+                ContextCompat.getColorStateList(context, R.color.colorPriorityLow),
+                ContextCompat.getColorStateList(context, R.color.colorPriorityMedium),
+                ContextCompat.getColorStateList(context, R.color.colorPriorityHigh)
+        };
+        setHasStableIds(true);
     }
 
-    @NonNull
     @Override
-    public TaskViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(context).inflate(R.layout.task_item, parent, false);
-        return new TaskViewHolder(view);
+    public int getItemViewType(int position) {
+        return getItem(position) instanceof Task ? VIEW_TYPE_TASK : VIEW_TYPE_HEADER;
     }
 
     @Override
-    public void onBindViewHolder(@NonNull TaskViewHolder holder, int position) {
-        Task task = taskList.get(position);
-
-        holder.tvTaskTitle.setText(task.getTitle());
-        holder.tvTaskDescription.setText(task.getDescription());
-
-        // Format date and time
-        StringBuilder dateTimeBuilder = new StringBuilder();
-        if (task.getDate() != null) {
-            try {
-                Date date = dateFormatInput.parse(task.getDate());
-                dateTimeBuilder.append(dateFormatOutput.format(date));
-            } catch (ParseException e) {
-                dateTimeBuilder.append(task.getDate());
+    public long getItemId(int position) {
+        Object item = getItem(position);
+        // Task ids start at 1, so headers take negative ids
+        return item instanceof Task ? ((Task) item).getId() : -1 - ((TaskSections.Bucket) item).ordinal();
+    }
+
+    /**
+     * Shows {@code tasks}, in list order, under section headers while a pager is set, or as they
+     * are otherwise. Use instead of {@link #submitList}.
+     */
+    public void submitTasks(List<Task> tasks) {
+        this.tasks = tasks;
+        final TaskSections next = pager != null ? TaskSections.of(tasks, today) : TaskSections.NONE;
+        submitList(next.withHeaders(tasks), new Runnable() {
+            @Override
+            public void run() {
+                // Positions only match the new sections once the list they were found for is shown
+                sections = next;
             }
+        });
+    }
+
+    /**
+     * Finds the sections again if the day changed since they were found, so tasks due today
+     * move to Overdue and tomorrow's to Today. Runs by itself at midnight while attached; call
+     * it as well when the screen comes back, as the clock or zone may have changed meanwhile.
+     * After a zone change every row is rebound, so its labels are formatted in the new zone.
+     */
+    public void onTimeChanged() {
+        TaskDateFormatter formatter = TaskDateFormatter.getInstance();
+        boolean zoneChanged = formatter != dateFormatter;
+        dateFormatter = formatter;
+        String now = TaskSections.today(clock, dateFormatter);
+        if (!now.equals(today)) {
+            today = now;
+            submitTasks(tasks);
         }
+        if (zoneChanged) {
+            notifyItemRangeChanged(0, getItemCount());
+        }
+        scheduleMidnightCheck();
+    }
 
-        if (task.getTime() != null) {
-            try {
-                Date time = timeFormatInput.parse(task.getTime());
-                if (dateTimeBuilder.length() > 0) {
-                    dateTimeBuilder.append(" - ");
-                }
-                dateTimeBuilder.append(timeFormatOutput.format(time));
-            } catch (ParseException e) {
-                if (dateTimeBuilder.length() > 0) {
-                    dateTimeBuilder.append(" - ");
-                }
-                dateTimeBuilder.append(task.getTime());
-            }
+    /** The section adapter position {@code position} falls in, or null when there are no headers. */
+    @Nullable
+    public TaskSections.Bucket getBucketAt(int position) {
+        return sections.getBucketAt(position);
+    }
+
+    /** Adapter position of the first header after {@code position}, or -1 when there is none. */
+    public int getNextHeaderPosition(int position) {
+        return sections.getNextHeaderPosition(position);
+    }
+
+    private void scheduleMidnightCheck() {
+        if (recyclerView != null) {
+            recyclerView.removeCallbacks(midnightCheck);
+            recyclerView.postDelayed(midnightCheck, TaskSections.millisUntilTomorrow(clock, dateFormatter));
         }
+    }
+
+    @Nullable
+    private Task getTask(int position) {
+        Object item = getItem(position);
+        return item instanceof Task ? (Task) item : null;
+    }
+
+    /** The pager to prefetch from as rows are bound, or null while showing rows it does not own. */
+    public void setPager(@Nullable TaskPager pager) {
+        this.pager = pager;
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        this.recyclerView = recyclerView;
+        changes.register(this);
+        scheduleMidnightCheck();
+    }
 
-        if (dateTimeBuilder.length() > 0) {
-            holder.tvDateTime.setText(dateTimeBuilder.toString());
-            holder.tvDateTime.setVisibility(View.VISIBLE);
-        } else {
-            holder.tvDateTime.setVisibility(View.GONE);
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        changes.unregister(this);
+        recyclerView.removeCallbacks(midnightCheck);
+        this.recyclerView = null;
+        super.onDetachedFromRecyclerView(recyclerView);
+    }
+
+    @Override
+    public void onTasksChanged(TaskChanges.Change change) {
+        if (pager != null) {
+            pager.onTasksChanged(change);
+            return;
         }
 
-        // Set priority text and background
-        String priorityText;
-        int priorityColor;
-        switch (task.getPriority()) {
-            case 3:
-                priorityText = "High";
-                priorityColor = R.color.colorPriorityHigh;
-                break;
-            case 2:
-                priorityText = "Medium";
-                priorityColor = R.color.colorPriorityMedium;
-                break;
-            default:
-                priorityText = "Low";
-                priorityColor = R.color.colorPriorityLow;
-                break;
+        // Not paged: whether a new or changed row belongs here is up to whoever built the list
+        List<Task> patched = new ArrayList<>(tasks.size());
+        boolean changed = false;
+        for (Task task : tasks) {
+            Task row = change.getRow(task.getId());
+            if (change.getDeletedIds().contains(task.getId())) {
+                changed = true;
+            } else if (row != null) {
+                patched.add(row);
+                changed = true;
+            } else {
+                patched.add(task);
+            }
+        }
+        if (changed) {
+            submitTasks(patched);
         }
+    }
 
-        holder.tvPriority.setText(priorityText);
-        holder.tvPriority.setBackgroundTintList(ContextCompat.getColorStateList(context, priorityColor));
+    public void setSelectionListener(@Nullable SelectionListener selectionListener) {
+        this.selectionListener = selectionListener;
+    }
 
-        // Show alarm icon if task has alarm
-        holder.ivAlarm.setVisibility(task.isHasAlarm() ? View.VISIBLE : View.GONE);
+    /** True while at least one row is selected; a tap then toggles rows instead of doing nothing. */
+    public boolean isSelecting() {
+        return !selectedIds.isEmpty();
+    }
+
+    /** Ids of the selected tasks, in the order they were selected. */
+    public Set<Integer> getSelectedIds() {
+        return new LinkedHashSet<>(selectedIds);
+    }
+
+    public void clearSelection() {
+        if (selectedIds.isEmpty()) {
+            return;
+        }
+        selectedIds.clear();
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
+        if (selectionListener != null) {
+            selectionListener.onSelectionChanged(0);
+        }
+    }
+
+    private void toggleSelection(int position) {
+        Task task = position != RecyclerView.NO_POSITION ? getTask(position) : null;
+        if (task == null) {
+            return;
+        }
+        int id = task.getId();
+        if (!selectedIds.remove(id)) {
+            selectedIds.add(id);
+        }
+        notifyItemChanged(position, PAYLOAD_SELECTION);
+        if (selectionListener != null) {
+            selectionListener.onSelectionChanged(selectedIds.size());
+        }
+    }
+
+    @NonNull
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        if (viewType == VIEW_TYPE_HEADER) {
+            return new HeaderViewHolder(LayoutInflater.from(context).inflate(R.layout.task_section_header, parent, false));
+        }
+        View view = LayoutInflater.from(context).inflate(R.layout.task_item, parent, false);
+        final TaskViewHolder holder = new TaskViewHolder(view);
 
-        // Set click listeners
+        // A long press starts selection mode; once it is on, a tap adds or removes a row
+        view.setOnLongClickListener(new View.OnLongClickListener() {
+            @Override
+            public boolean onLongClick(View v) {
+                toggleSelection(holder.getBindingAdapterPosition());
+                return true;
+            }
+        });
+        view.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                if (isSelecting()) {
+                    toggleSelection(holder.getBindingAdapterPosition());
+                }
+            }
+        });
+        // Created once per holder; the row they act on is looked up when tapped
         holder.ivEdit.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                listener.onEditClick(task);
+                int position = holder.getBindingAdapterPosition();
+                Task task = position != RecyclerView.NO_POSITION ? getTask(position) : null;
+                if (task != null) {
+                    listener.onEditClick(task);
+                }
             }
         });
-
         holder.ivDelete.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                listener.onDeleteClick(task);
+                int position = holder.getBindingAdapterPosition();
+                Task task = position != RecyclerView.NO_POSITION ? getTask(position) : null;
+                if (task != null) {
+                    listener.onDeleteClick(task);
+                }
             }
         });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        Task task = getTask(position);
+        if (task != null && !payloads.isEmpty() && allSelectionPayloads(payloads)) {
+            holder.itemView.setActivated(isSelected(task.getId()));
+            return;
+        }
+        onBindViewHolder(holder, position);
+    }
+
+    private static boolean allSelectionPayloads(List<Object> payloads) {
+        for (Object payload : payloads) {
+            if (payload != PAYLOAD_SELECTION) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
-    public int getItemCount() {
-        return taskList.size();
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        if (holder instanceof HeaderViewHolder) {
+            ((HeaderViewHolder) holder).bind((TaskSections.Bucket) getItem(position));
+            return;
+        }
+        long start = Metrics.BIND.start();
+        try {
+            bind((TaskViewHolder) holder, position);
+        } finally {
+            Metrics.BIND.stop(start);
+        }
+    }
+
+    private void bind(TaskViewHolder holder, int position) {
+        Task task = (Task) getItem(position);
+        if (pager != null) {
+            pager.onItemAccessed(sections.getTaskIndex(position));
+        }
+
+        // Each view is only touched when its value changed: setText lays the row out again
+        // even for the same text, and rebinding an unchanged row should cost nothing
+        holder.itemView.setActivated(isSelected(task.getId()));
+        setTextIfChanged(holder.tvTaskTitle, task.getTitle());
+        // Finished tasks stay in the list, struck through
+        int titleFlags = holder.tvTaskTitle.getPaintFlags();
+        holder.tvTaskTitle.setPaintFlags(task.isCompleted()
+                ? titleFlags | Paint.STRIKE_THRU_TEXT_FLAG
+                : titleFlags & ~Paint.STRIKE_THRU_TEXT_FLAG);
+        setTextIfChanged(holder.tvTaskDescription, task.getDescription());
+
+        // Formatting allocates, so the label is only rebuilt when its inputs change
+        TaskDateFormatter formatter = TaskDateFormatter.getInstance();
+        if (!holder.hasDateTimeLabelFor(task, formatter)) {
+            holder.setDateTimeLabel(task, formatter, formatDateTimeLabel(task, formatter));
+        }
+
+        int priority = priorityIndex(task.getPriority());
+        if (holder.priority != priority) {
+            holder.priority = priority;
+            holder.tvPriority.setText(priorityLabels[priority]);
+            holder.tvPriority.setBackgroundTintList(priorityColors[priority]);
+        }
+
+        // Show alarm icon if task has alarm
+        setVisibility(holder.ivAlarm, task.isHasAlarm());
+    }
+
+    @Nullable
+    private static String formatDateTimeLabel(Task task, TaskDateFormatter formatter) {
+        if (task.hasDueAt()) {
+            return formatter.formatDueLabel(task.getDueAt(), task.getTime() != null);
+        } else if (task.getTime() != null) {
+            // A time without a date has no due_at, so it is formatted from its text
+            return formatter.formatStoredTime(task.getTime());
+        }
+        return task.getDate();
+    }
+
+    // Checked first so binding an unselected row never boxes its id
+    private boolean isSelected(int id) {
+        return !selectedIds.isEmpty() && selectedIds.contains(id);
+    }
+
+    // Index into priorityLabels and priorityColors; anything unknown shows as Low
+    private static int priorityIndex(int priority) {
+        return priority == 3 || priority == 2 ? priority : 1;
+    }
+
+    private static void setTextIfChanged(TextView view, @Nullable String text) {
+        // A TextView given null shows and returns ""
+        String value = text != null ? text : "";
+        if (!TextUtils.equals(view.getText(), value)) {
+            view.setText(value);
+        }
+    }
+
+    private static void setVisibility(View view, boolean visible) {
+        int visibility = visible ? View.VISIBLE : View.GONE;
+        if (view.getVisibility() != visibility) {
+            view.setVisibility(visibility);
+        }
+    }
+
+    private static Executor newDiffExecutor() {
+        // Two threads, like the pool AsyncDifferConfig uses by default
+        final ExecutorService threads = Executors.newFixedThreadPool(2, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "TaskAdapter.diff");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        if (!Metrics.ENABLED) {
+            return threads;
+        }
+        return new Executor() {
+            @Override
+            public void execute(final Runnable diff) {
+                threads.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        long start = Metrics.DIFF.start();
+                        try {
+                            diff.run();
+                        } finally {
+                            Metrics.DIFF.stop(start);
+                        }
+                    }
+                });
+            }
+        };
+    }
+
+    /** A section's title; also drawn pinned to the top by {@link SectionHeaderDecoration}. */
+    static class HeaderViewHolder extends RecyclerView.ViewHolder {
+        final TextView tvTitle;
+
+        HeaderViewHolder(@NonNull View itemView) {
+            super(itemView);
+            tvTitle = (TextView) itemView;
+        }
+
+        void bind(TaskSections.Bucket bucket) {
+            tvTitle.setText(bucket.getLabel());
+        }
     }
 
     static class TaskViewHolder extends RecyclerView.ViewHolder {
         TextView tvTaskTitle, tvTaskDescription, tvDateTime, tvPriority;
         ImageView ivEdit, ivDelete, ivAlarm;
 
+        // What the row shows now, so a rebind can skip what has not changed
+        int priority;
+        private TaskDateFormatter labelFormatter;
+        private long labelDueAt;
+        private String labelDate;
+        private String labelTime;
+
         public TaskViewHolder(@NonNull View itemView) {
             super(itemView);
             tvTaskTitle = itemView.findViewById(R.id.tv_task_title);
@@ -153,5 +527,25 @@ public class TaskAdapter extends RecyclerView.Adapter<TaskAdapter.TaskViewHolder
             ivDelete = itemView.findViewById(R.id.iv_delete);
             ivAlarm = itemView.findViewById(R.id.iv_alarm);
         }
+
+        boolean hasDateTimeLabelFor(Task task, TaskDateFormatter formatter) {
+            return labelFormatter == formatter
+                    && labelDueAt == task.getDueAt()
+                    && Objects.equals(labelDate, task.getDate())
+                    && Objects.equals(labelTime, task.getTime());
+        }
+
+        void setDateTimeLabel(Task task, TaskDateFormatter formatter, @Nullable String label) {
+            labelFormatter = formatter;
+            labelDueAt = task.getDueAt();
+            labelDate = task.getDate();
+            labelTime = task.getTime();
+            if (label != null) {
+                tvDateTime.setText(label);
+                tvDateTime.setVisibility(View.VISIBLE);
+            } else {
+                tvDateTime.setVisibility(View.GONE);
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,173 @@
+package com.example.todoapp.adapter;
+
+import androidx.annotation.Nullable;
+
+import com.example.todoapp.model.Task;
+import com.example.todoapp.util.Clock;
+import com.example.todoapp.util.TaskDateFormatter;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Where the Overdue, Today, Upcoming and No date sections of one list of tasks start. Tasks
+ * in list order are sorted by date with undated ones last, so each section is one run and its
+ * bounds are found by binary search on the date instead of by looking at every task. A changed
+ * task or a new day only moves the bounds; nothing is regrouped.
+ *
+ * <p>Positions are adapter positions in {@link #withHeaders}, where each non-empty section is
+ * preceded by its {@link Bucket} as a header row.
+ */
+public final class TaskSections {
+
+    public enum Bucket {
+        OVERDUE("Overdue"),
+        TODAY("Today"),
+        UPCOMING("Upcoming"),
+        NO_DATE("No date");
+
+        private final String label;
+
+        Bucket(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final Bucket[] BUCKETS = Bucket.values();
+
+    /** No headers, for lists not in list order such as search results. */
+    public static final TaskSections NONE = new TaskSections(new int[0]);
+
+    // Adapter position of each header shown, in order; a section runs from its header to the next
+    private final int[] headerPositions;
+    private final Bucket[] headerBuckets;
+
+    private TaskSections(int[] taskStarts) {
+        int headers = 0;
+        for (int i = 0; i + 1 < taskStarts.length; i++) {
+            if (taskStarts[i] < taskStarts[i + 1]) {
+                headers++;
+            }
+        }
+        headerPositions = new int[headers];
+        headerBuckets = new Bucket[headers];
+        int header = 0;
+        for (int i = 0; i + 1 < taskStarts.length; i++) {
+            if (taskStarts[i] < taskStarts[i + 1]) {
+                headerPositions[header] = taskStarts[i] + header;
+                headerBuckets[header] = BUCKETS[i];
+                header++;
+            }
+        }
+    }
+
+    /**
+     * The sections of {@code tasks}, which must be in list order, on the day whose stored date
+     * is {@code today}.
+     */
+    public static TaskSections of(List<Task> tasks, String today) {
+        int[] starts = new int[BUCKETS.length + 1];
+        starts[Bucket.TODAY.ordinal()] = firstDatedOnOrAfter(tasks, today, false);
+        starts[Bucket.UPCOMING.ordinal()] = firstDatedOnOrAfter(tasks, today, true);
+        starts[Bucket.NO_DATE.ordinal()] = firstUndated(tasks);
+        starts[BUCKETS.length] = tasks.size();
+        return new TaskSections(starts);
+    }
+
+    /** The stored date of the current day in the formatter's zone. */
+    public static String today(Clock clock, TaskDateFormatter dateFormatter) {
+        return dateFormatter.toStorageDate(Instant.ofEpochMilli(clock.currentTimeMillis())
+                .atZone(dateFormatter.getZone()).toLocalDate());
+    }
+
+    /** Milliseconds from now until the next day starts in the formatter's zone. */
+    public static long millisUntilTomorrow(Clock clock, TaskDateFormatter dateFormatter) {
+        long now = clock.currentTimeMillis();
+        LocalDate today = Instant.ofEpochMilli(now).atZone(dateFormatter.getZone()).toLocalDate();
+        ZonedDateTime tomorrow = today.plusDays(1).atStartOfDay(dateFormatter.getZone());
+        return tomorrow.toInstant().toEpochMilli() - now;
+    }
+
+    /** {@code tasks}, the same ones these sections were found for, with a header before each section. */
+    public List<Object> withHeaders(List<Task> tasks) {
+        List<Object> rows = new ArrayList<>(tasks.size() + headerBuckets.length);
+        int start = 0;
+        for (int header = 0; header < headerBuckets.length; header++) {
+            int end = headerPositions[header] - header;
+            rows.addAll(tasks.subList(start, end));
+            rows.add(headerBuckets[header]);
+            start = end;
+        }
+        rows.addAll(tasks.subList(start, tasks.size()));
+        return rows;
+    }
+
+    public int getHeaderCount() {
+        return headerBuckets.length;
+    }
+
+    /** The section adapter position {@code position} falls in, or null when there are no headers. */
+    @Nullable
+    public Bucket getBucketAt(int position) {
+        int header = headerAtOrBefore(position);
+        return header >= 0 ? headerBuckets[header] : null;
+    }
+
+    /** Adapter position of the first header after {@code position}, or -1 when there is none. */
+    public int getNextHeaderPosition(int position) {
+        int next = headerAtOrBefore(position) + 1;
+        return next < headerBuckets.length ? headerPositions[next] : -1;
+    }
+
+    /** Index among the tasks of the task row at adapter position {@code position}. */
+    public int getTaskIndex(int position) {
+        return position - (headerAtOrBefore(position) + 1);
+    }
+
+    // At most four headers, so a scan beats a binary search
+    private int headerAtOrBefore(int position) {
+        int header = -1;
+        while (header + 1 < headerBuckets.length && headerPositions[header + 1] <= position) {
+            header++;
+        }
+        return header;
+    }
+
+    // Index of the first task dated today, or after today when afterToday, or undated
+    private static int firstDatedOnOrAfter(List<Task> tasks, String today, boolean afterToday) {
+        int low = 0;
+        int high = tasks.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            String date = tasks.get(mid).getDate();
+            int compared = date == null ? 1 : date.compareTo(today);
+            if (compared > 0 || (compared == 0 && !afterToday)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private static int firstUndated(List<Task> tasks) {
+        int low = 0;
+        int high = tasks.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tasks.get(mid).getDate() == null) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+}
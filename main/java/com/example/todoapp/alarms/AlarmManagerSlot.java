@@ -0,0 +1,42 @@
+package com.example.todoapp.alarm;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+
+/** The scheduler's slot as a single AlarmManager alarm, always the same PendingIntent. */
+class AlarmManagerSlot implements AlarmScheduler.AlarmSlot {
+
+    private final Context context;
+    private final AlarmManager alarmManager;
+
+    AlarmManagerSlot(Context context) {
+        this.context = context;
+        this.alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+    }
+
+    @Override
+    public void set(long triggerAt) {
+        PendingIntent operation = newOperation();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S && !alarmManager.canScheduleExactAlarms()) {
+            // Without the exact alarm permission the reminder can arrive a few minutes late
+            alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, operation);
+        } else {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAt, operation);
+        }
+    }
+
+    @Override
+    public void cancel() {
+        alarmManager.cancel(newOperation());
+    }
+
+    private PendingIntent newOperation() {
+        Intent intent = new Intent(context, AlarmReceiver.class);
+        intent.setAction(AlarmReceiver.ACTION_ALARM);
+        return PendingIntent.getBroadcast(context, 0, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+}
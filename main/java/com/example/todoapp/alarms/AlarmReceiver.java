@@ -0,0 +1,34 @@
+package com.example.todoapp.alarm;
+
+import android.app.AlarmManager;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+/** Receives the scheduler's alarm, and the system events after which it has to be re-armed. */
+public class AlarmReceiver extends BroadcastReceiver {
+
+    static final String ACTION_ALARM = "com.example.todoapp.action.TASK_ALARM";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        TaskAlarms alarms = TaskAlarms.getInstance(context);
+        PendingResult result = goAsync();
+
+        if (ACTION_ALARM.equals(action)) {
+            alarms.deliverDue(result);
+        } else if (Intent.ACTION_TIMEZONE_CHANGED.equals(action)) {
+            alarms.onClockChanged(true, result);
+        } else if (Intent.ACTION_TIME_CHANGED.equals(action)) {
+            alarms.onClockChanged(false, result);
+        } else if (Intent.ACTION_BOOT_COMPLETED.equals(action)
+                || Intent.ACTION_MY_PACKAGE_REPLACED.equals(action)
+                || AlarmManager.ACTION_SCHEDULE_EXACT_ALARM_PERMISSION_STATE_CHANGED.equals(action)) {
+            // Alarms do not survive a reboot or an update, and a new grant can make them exact
+            alarms.reschedule(result);
+        } else {
+            result.finish();
+        }
+    }
+}
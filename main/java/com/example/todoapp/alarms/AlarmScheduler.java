@@ -0,0 +1,148 @@
+package com.example.todoapp.alarm;
+
+import com.example.todoapp.model.Task;
+import com.example.todoapp.util.Clock;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Decides what the app's one system alarm is set to. Instead of a PendingIntent per task, only
+ * the earliest pending alarm is armed; when it fires, every task that came due since the last
+ * delivery is handed back and the next one is armed. The store answers both questions from the
+ * due_at index, so thousands of alarmed tasks cost one indexed lookup per change, not thousands
+ * of registered alarms.
+ *
+ * <p>Alarms are coalesced into windows of {@code windowMillis}: the slot is armed for the end of
+ * the window holding the next alarm, and every task due by then is delivered together, so a burst
+ * of tasks due around the same time costs one wakeup. Windows are aligned to multiples of their
+ * length and include their end, so with minute-sized windows a task due on the minute rings on
+ * time. The scheduler asks the store what is due only when the window closes, so a task moved
+ * into, out of or within an armed window is delivered according to where it ended up.
+ *
+ * <p>Call {@link #reschedule()} after anything that can move the earliest alarm: an insert, edit,
+ * delete or completion, a reboot, or a clock change. Has no Android dependencies, so it runs on
+ * the JVM against a fake clock.
+ */
+public class AlarmScheduler {
+
+    public interface AlarmStore {
+        /** Due time of the earliest alarm due strictly after {@code after}, or {@link Task#NO_DUE_AT}. */
+        long nextAlarmAfter(long after);
+
+        /** Tasks whose alarms are due in ({@code after}, {@code upTo}], earliest first. */
+        List<Task> alarmsBetween(long after, long upTo);
+
+        /** Time up to which alarms have been delivered, or {@link Task#NO_DUE_AT} before the first run. */
+        long getDeliveredThrough();
+
+        void setDeliveredThrough(long time);
+    }
+
+    /** The one system alarm. Setting it replaces whatever it was set to before. */
+    public interface AlarmSlot {
+        void set(long triggerAt);
+
+        void cancel();
+    }
+
+    /** Task times are whole minutes, so this coalesces tasks due together without delaying any. */
+    public static final long DEFAULT_WINDOW_MILLIS = 60_000L;
+
+    /** Value of {@link #getArmedAt()} while the slot is known to be empty. */
+    public static final long NOT_ARMED = Long.MIN_VALUE;
+    // The slot may still hold an alarm from before this process started
+    private static final long UNKNOWN = Long.MAX_VALUE;
+
+    private final AlarmStore store;
+    private final AlarmSlot slot;
+    private final Clock clock;
+    private final long windowMillis;
+    private long armedAt = UNKNOWN;
+
+    public AlarmScheduler(AlarmStore store, AlarmSlot slot, Clock clock) {
+        this(store, slot, clock, DEFAULT_WINDOW_MILLIS);
+    }
+
+    public AlarmScheduler(AlarmStore store, AlarmSlot slot, Clock clock, long windowMillis) {
+        if (windowMillis < 1) {
+            throw new IllegalArgumentException("Invalid window: " + windowMillis);
+        }
+        this.store = store;
+        this.slot = slot;
+        this.clock = clock;
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Arms the slot for the end of the window holding the earliest undelivered alarm, or empties
+     * it when there is none, and returns the time armed. A window already in the past, missed
+     * while the device was off, is armed as is and fires straight away.
+     */
+    public synchronized long reschedule() {
+        long next = store.nextAlarmAfter(getDeliveredThrough());
+        if (next == Task.NO_DUE_AT) {
+            if (armedAt != NOT_ARMED) {
+                slot.cancel();
+                armedAt = NOT_ARMED;
+            }
+        } else {
+            long windowEnd = windowEnd(next);
+            // Edits that leave the next alarm in the same window cost nothing
+            if (windowEnd != armedAt) {
+                slot.set(windowEnd);
+                armedAt = windowEnd;
+            }
+        }
+        return getArmedAt();
+    }
+
+    /**
+     * Returns the tasks that came due since the last delivery, with one query, and arms the
+     * next window.
+     */
+    public synchronized List<Task> onAlarmFired() {
+        long now = clock.currentTimeMillis();
+        long deliveredThrough = getDeliveredThrough();
+        List<Task> due = Collections.emptyList();
+        if (now > deliveredThrough) {
+            due = store.alarmsBetween(deliveredThrough, now);
+            store.setDeliveredThrough(now);
+        }
+        // The slot is empty once it has fired
+        armedAt = NOT_ARMED;
+        reschedule();
+        return due;
+    }
+
+    /**
+     * After the wall clock is set back, alarms between the new time and the last delivery
+     * have not happened yet on the new clock, so they are delivered again when they come due.
+     */
+    public synchronized long onClockChanged() {
+        long now = clock.currentTimeMillis();
+        if (now < getDeliveredThrough()) {
+            store.setDeliveredThrough(now);
+        }
+        return reschedule();
+    }
+
+    public synchronized long getArmedAt() {
+        return armedAt == UNKNOWN ? NOT_ARMED : armedAt;
+    }
+
+    /** The end of the window {@code time} falls in; a time on a window boundary ends its window. */
+    public long windowEnd(long time) {
+        return Math.floorDiv(time + windowMillis - 1, windowMillis) * windowMillis;
+    }
+
+    private long getDeliveredThrough() {
+        long deliveredThrough = store.getDeliveredThrough();
+        if (deliveredThrough == Task.NO_DUE_AT) {
+            // First run: alarms that were already in the past are not replayed
+            deliveredThrough = clock.currentTimeMillis();
+            store.setDeliveredThrough(deliveredThrough);
+        }
+        return deliveredThrough;
+    }
+}
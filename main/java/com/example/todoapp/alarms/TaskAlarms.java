@@ -0,0 +1,159 @@
+package com.example.todoapp.alarm;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.example.todoapp.data.TaskChanges;
+import com.example.todoapp.data.TaskRepository;
+import com.example.todoapp.model.Task;
+import com.example.todoapp.util.Clock;
+import com.example.todoapp.util.TaskDateFormatter;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Application-wide task reminders: an {@link AlarmScheduler} over the tasks table, one
+ * AlarmManager alarm and the notifications it leads to, one per delivery window. Every call
+ * returns straight away and does its work on a background thread, in the order the calls were
+ * made. Re-arms itself after every write reported through {@link TaskRepository#getChanges()}.
+ */
+public class TaskAlarms {
+
+    private static final String PREFS_NAME = "task_alarms";
+    private static final String KEY_DELIVERED_THROUGH = "delivered_through";
+
+    private static volatile TaskAlarms instance;
+
+    private final TaskRepository repository;
+    private final AlarmScheduler scheduler;
+    private final TaskNotifier notifier;
+    private final Executor executor;
+
+    public static TaskAlarms getInstance(Context context) {
+        TaskAlarms alarms = instance;
+        if (alarms == null) {
+            synchronized (TaskAlarms.class) {
+                alarms = instance;
+                if (alarms == null) {
+                    alarms = new TaskAlarms(context.getApplicationContext());
+                    instance = alarms;
+                }
+            }
+        }
+        return alarms;
+    }
+
+    private TaskAlarms(Context context) {
+        this.repository = TaskRepository.getInstance(context);
+        this.scheduler = new AlarmScheduler(
+                new TableAlarmStore(repository, context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)),
+                new AlarmManagerSlot(context),
+                Clock.SYSTEM);
+        this.notifier = new TaskNotifier(context);
+        this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "TaskAlarms");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        // Any write can change which alarm is due next
+        repository.getChanges().register(new TaskChanges.Listener() {
+            @Override
+            public void onTasksChanged(TaskChanges.Change change) {
+                reschedule();
+            }
+        });
+    }
+
+    /** Re-arms for the table as it is now. Writes through the repository do this on their own. */
+    public void reschedule() {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                scheduler.reschedule();
+            }
+        });
+    }
+
+    void reschedule(BroadcastReceiver.PendingResult result) {
+        run(new Runnable() {
+            @Override
+            public void run() {
+                scheduler.reschedule();
+            }
+        }, result);
+    }
+
+    void deliverDue(BroadcastReceiver.PendingResult result) {
+        run(new Runnable() {
+            @Override
+            public void run() {
+                notifier.notifyDue(scheduler.onAlarmFired());
+            }
+        }, result);
+    }
+
+    void onClockChanged(final boolean zoneChanged, BroadcastReceiver.PendingResult result) {
+        run(new Runnable() {
+            @Override
+            public void run() {
+                if (zoneChanged) {
+                    // due_at is the stored date and time in the device zone, so it moves with the zone
+                    TaskDateFormatter.reset();
+                    repository.recomputeDueTimes();
+                }
+                scheduler.onClockChanged();
+            }
+        }, result);
+    }
+
+    private void run(final Runnable work, final BroadcastReceiver.PendingResult result) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    work.run();
+                } finally {
+                    result.finish();
+                }
+            }
+        });
+    }
+
+    private static final class TableAlarmStore implements AlarmScheduler.AlarmStore {
+        private final TaskRepository repository;
+        private final SharedPreferences preferences;
+
+        TableAlarmStore(TaskRepository repository, SharedPreferences preferences) {
+            this.repository = repository;
+            this.preferences = preferences;
+        }
+
+        @Override
+        public long nextAlarmAfter(long after) {
+            return repository.getNextAlarmAfter(after);
+        }
+
+        @Override
+        public List<Task> alarmsBetween(long after, long upTo) {
+            return repository.getAlarmsBetween(after, upTo);
+        }
+
+        @Override
+        public long getDeliveredThrough() {
+            return preferences.getLong(KEY_DELIVERED_THROUGH, Task.NO_DUE_AT);
+        }
+
+        @Override
+        public void setDeliveredThrough(long time) {
+            preferences.edit().putLong(KEY_DELIVERED_THROUGH, time).apply();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.todoapp.alarm;
+
+import android.Manifest;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.os.Build;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+import androidx.core.content.ContextCompat;
+
+import com.example.todoapp.MainActivity;
+import com.example.todoapp.R;
+import com.example.todoapp.model.Task;
+import com.example.todoapp.util.TaskDateFormatter;
+
+import java.util.List;
+
+/**
+ * Posts the reminders for one delivery. A single task gets a notification of its own; a batch
+ * gets one notification listing them, so a burst of due tasks makes one sound, not dozens.
+ */
+class TaskNotifier {
+
+    static final String CHANNEL_ID = "task_reminders";
+    // Keeps reminders from successive windows bundled together in the shade
+    private static final String GROUP_KEY = "com.example.todoapp.TASK_REMINDERS";
+    private static final String TAG_BATCH = "batch";
+    private static final int MAX_BATCH_LINES = 6;
+
+    private final Context context;
+
+    TaskNotifier(Context context) {
+        this.context = context;
+    }
+
+    void notifyDue(List<Task> tasks) {
+        if (tasks.isEmpty() || !canNotify()) {
+            return;
+        }
+        createChannel();
+
+        NotificationManagerCompat manager = NotificationManagerCompat.from(context);
+        Task first = tasks.get(0);
+        if (tasks.size() == 1) {
+            NotificationCompat.Builder builder = newBuilder(first)
+                    .setContentTitle(first.getTitle())
+                    .setContentText(TaskDateFormatter.getInstance().formatDueLabel(first.getDueAt(), true));
+            manager.notify(first.getId(), builder.build());
+            return;
+        }
+
+        NotificationCompat.InboxStyle style = new NotificationCompat.InboxStyle();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < tasks.size() && i < MAX_BATCH_LINES; i++) {
+            style.addLine(tasks.get(i).getTitle());
+            text.append(i == 0 ? "" : ", ").append(tasks.get(i).getTitle());
+        }
+        if (tasks.size() > MAX_BATCH_LINES) {
+            style.setSummaryText("+" + (tasks.size() - MAX_BATCH_LINES) + " more");
+        }
+
+        String title = tasks.size() + " tasks due";
+        NotificationCompat.Builder builder = newBuilder(first)
+                .setContentTitle(title)
+                .setContentText(text)
+                .setStyle(style.setBigContentTitle(title))
+                .setNumber(tasks.size());
+        // A task is delivered once, so the first task's id is unique among batches
+        manager.notify(TAG_BATCH, first.getId(), builder.build());
+    }
+
+    private NotificationCompat.Builder newBuilder(Task first) {
+        return new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_alarm)
+                .setContentIntent(openList(first.getId()))
+                .setCategory(NotificationCompat.CATEGORY_REMINDER)
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setGroup(GROUP_KEY)
+                .setWhen(first.getDueAt())
+                .setAutoCancel(true);
+    }
+
+    private boolean canNotify() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU
+                && ContextCompat.checkSelfPermission(context, Manifest.permission.POST_NOTIFICATIONS)
+                != PackageManager.PERMISSION_GRANTED) {
+            return false;
+        }
+        return NotificationManagerCompat.from(context).areNotificationsEnabled();
+    }
+
+    private PendingIntent openList(int requestCode) {
+        Intent intent = new Intent(context, MainActivity.class);
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TOP);
+        return PendingIntent.getActivity(context, requestCode, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    private void createChannel() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationChannel channel = new NotificationChannel(CHANNEL_ID, "Task reminders",
+                    NotificationManager.IMPORTANCE_HIGH);
+            context.getSystemService(NotificationManager.class).createNotificationChannel(channel);
+        }
+    }
+}
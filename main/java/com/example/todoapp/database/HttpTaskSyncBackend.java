@@ -0,0 +1,100 @@
+package com.example.todoapp.data;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLEncoder;
+
+/**
+ * A {@link TaskSyncBackend} over HTTP. Pushes POST a batch to {@code <base>/changes}; pulls GET
+ * {@code <base>/changes?limit=<n>&since=<token>}, leaving out since on the first pull. Batches
+ * go as they are, already compressed, so nothing along the way compresses them again.
+ */
+public class HttpTaskSyncBackend implements TaskSyncBackend {
+
+    static final String CONTENT_TYPE = "application/x-todo-sync-batch";
+
+    private static final int TIMEOUT_MILLIS = 15_000;
+
+    private final String changesUrl;
+
+    public HttpTaskSyncBackend(String baseUrl) {
+        try {
+            changesUrl = new URL(baseUrl.endsWith("/") ? baseUrl + "changes" : baseUrl + "/changes").toString();
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid sync URL: " + baseUrl, e);
+        }
+    }
+
+    @Override
+    @WorkerThread
+    public void push(byte[] batch) throws IOException {
+        HttpURLConnection connection = open(changesUrl);
+        try {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(batch.length);
+            connection.setRequestProperty("Content-Type", CONTENT_TYPE);
+            OutputStream out = connection.getOutputStream();
+            try {
+                out.write(batch);
+            } finally {
+                out.close();
+            }
+            checkResponse(connection);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Override
+    @WorkerThread
+    public byte[] pull(@Nullable String token, int limit) throws IOException {
+        String url = changesUrl + "?limit=" + limit;
+        if (token != null) {
+            url += "&since=" + URLEncoder.encode(token, "UTF-8");
+        }
+        HttpURLConnection connection = open(url);
+        try {
+            connection.setRequestProperty("Accept", CONTENT_TYPE);
+            checkResponse(connection);
+            InputStream in = connection.getInputStream();
+            try {
+                ByteArrayOutputStream batch = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    batch.write(buffer, 0, read);
+                }
+                return batch.toByteArray();
+            } finally {
+                in.close();
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static HttpURLConnection open(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+        // The batch is gzip already; asking for identity keeps the client from unpacking it
+        connection.setRequestProperty("Accept-Encoding", "identity");
+        return connection;
+    }
+
+    private static void checkResponse(HttpURLConnection connection) throws IOException {
+        int code = connection.getResponseCode();
+        if (code < 200 || code >= 300) {
+            throw new IOException("Sync request failed: HTTP " + code);
+        }
+    }
+}
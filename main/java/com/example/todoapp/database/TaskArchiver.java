@@ -0,0 +1,196 @@
+package com.example.todoapp.data;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.WorkerThread;
+
+import com.example.todoapp.model.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves tasks done more than {@link #DEFAULT_RETENTION_DAYS} ago from tasks into
+ * {@link TaskContract.TaskArchiveEntry}, so the list, its indexes and every query over tasks
+ * only grow with open and recently done tasks. Each batch is its own short transaction, so an
+ * archive run never holds the list's reads or the user's writes behind one long write.
+ *
+ * <p>Moving a task between the tables is not an edit, so sync's triggers are off while it
+ * happens and other devices keep their own copy where it is.
+ *
+ * <p>Archived tasks stay searchable through their own FTS index and can be put back. Pages
+ * freed by archiving are returned to the file system a few at a time by {@link #vacuum}.
+ * Used through {@link TaskRepository}, which keeps its cache and change listeners in step.
+ */
+public class TaskArchiver {
+
+    public static final int DEFAULT_RETENTION_DAYS = 30;
+    public static final int DEFAULT_BATCH_SIZE = 200;
+
+    // Free pages handed back per vacuum, and how many may pile up before one is worth it
+    static final int VACUUM_PAGES = 256;
+    static final int VACUUM_THRESHOLD_PAGES = 64;
+
+    private static final String COLUMNS = TaskContract.TaskEntry._ID + ", " +
+            TaskContract.TaskEntry.COLUMN_TITLE + ", " +
+            TaskContract.TaskEntry.COLUMN_DESCRIPTION + ", " +
+            TaskContract.TaskEntry.COLUMN_DATE + ", " +
+            TaskContract.TaskEntry.COLUMN_TIME + ", " +
+            TaskContract.TaskEntry.COLUMN_PRIORITY + ", " +
+            TaskContract.TaskEntry.COLUMN_HAS_ALARM + ", " +
+            TaskContract.TaskEntry.COLUMN_DUE_AT + ", " +
+            TaskContract.TaskEntry.COLUMN_COMPLETED_AT + ", " +
+            TaskContract.TaskEntry.COLUMN_RECURRENCE + ", " +
+            TaskContract.TaskEntry.COLUMN_RECURRENCE_START;
+
+    private static final String SQL_ARCHIVE = "INSERT INTO " + TaskContract.TaskArchiveEntry.TABLE_NAME +
+            " (" + COLUMNS + ", " + TaskContract.TaskArchiveEntry.COLUMN_ARCHIVED_AT + ") SELECT " +
+            COLUMNS + ", ? FROM " + TaskContract.TaskEntry.TABLE_NAME + " WHERE ";
+
+    private static final String SQL_RESTORE = "INSERT INTO " + TaskContract.TaskEntry.TABLE_NAME +
+            " (" + COLUMNS + ") SELECT " + COLUMNS + " FROM " + TaskContract.TaskArchiveEntry.TABLE_NAME + " WHERE ";
+
+    private final TaskDbHelper dbHelper;
+
+    public TaskArchiver(TaskDbHelper dbHelper) {
+        this.dbHelper = dbHelper;
+    }
+
+    /** The completion time before which {@link #DEFAULT_RETENTION_DAYS} have passed by {@code now}. */
+    public static long cutoff(long now) {
+        return now - TimeUnit.DAYS.toMillis(DEFAULT_RETENTION_DAYS);
+    }
+
+    /**
+     * Moves up to {@code batchSize} tasks done before {@code completedBefore}, longest done
+     * first, in one transaction, and returns their ids; none once nothing is left to move.
+     */
+    @WorkerThread
+    public List<Integer> archiveBatch(long completedBefore, long archivedAt, int batchSize) {
+        if (batchSize <= 0 || batchSize > TaskRepository.MAX_IDS_PER_STATEMENT) {
+            throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+        }
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        List<Integer> ids = new ArrayList<>(batchSize);
+        db.beginTransactionNonExclusive();
+        try {
+            Cursor cursor = db.query(
+                    TaskContract.TaskEntry.TABLE_NAME,
+                    new String[]{TaskContract.TaskEntry._ID},
+                    TaskContract.TaskEntry.COLUMN_COMPLETED_AT + " < ?",
+                    new String[]{String.valueOf(completedBefore)},
+                    null,
+                    null,
+                    TaskContract.TaskEntry.COLUMN_COMPLETED_AT,
+                    String.valueOf(batchSize)
+            );
+            try {
+                while (cursor.moveToNext()) {
+                    ids.add(cursor.getInt(0));
+                }
+            } finally {
+                cursor.close();
+            }
+
+            if (!ids.isEmpty()) {
+                TaskSync.setTracking(db, false);
+                String selection = TaskRepository.idSelection(ids.size());
+                String[] selectionArgs = TaskRepository.idSelectionArgs(ids);
+                String[] archiveArgs = new String[selectionArgs.length + 1];
+                archiveArgs[0] = String.valueOf(archivedAt);
+                System.arraycopy(selectionArgs, 0, archiveArgs, 1, selectionArgs.length);
+                db.execSQL(SQL_ARCHIVE + selection, archiveArgs);
+                db.delete(TaskContract.TaskEntry.TABLE_NAME, selection, selectionArgs);
+                TaskSync.setTracking(db, true);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return ids;
+    }
+
+    /**
+     * Moves the archived tasks in {@code ids}, at most
+     * {@link TaskRepository#MAX_IDS_PER_STATEMENT}, back into tasks as open tasks, and returns
+     * them whole, descriptions uncut, since they go into the cache. Ids not in the archive are
+     * skipped.
+     */
+    @WorkerThread
+    public List<Task> restore(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        String selection = TaskRepository.idSelection(ids.size());
+        String[] selectionArgs = TaskRepository.idSelectionArgs(ids);
+        List<Task> restored;
+        db.beginTransactionNonExclusive();
+        try {
+            TaskSync.setTracking(db, false);
+            db.execSQL(SQL_RESTORE + selection, selectionArgs);
+            db.delete(TaskContract.TaskArchiveEntry.TABLE_NAME, selection, selectionArgs);
+            TaskSync.setTracking(db, true);
+            // Restored tasks come back open, an edit that syncs; left done, the next run would archive them again
+            ContentValues open = new ContentValues();
+            open.putNull(TaskContract.TaskEntry.COLUMN_COMPLETED_AT);
+            db.update(TaskContract.TaskEntry.TABLE_NAME, open, selection, selectionArgs);
+            Cursor cursor = db.query(TaskContract.TaskEntry.TABLE_NAME, TaskCursorMapper.FULL.getProjection(),
+                    selection, selectionArgs, null, null, null);
+            try {
+                restored = TaskCursorMapper.FULL.mapAll(cursor);
+            } finally {
+                cursor.close();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return restored;
+    }
+
+    /** Deletes the archived tasks in {@code ids} for good and returns how many there were. */
+    @WorkerThread
+    public int delete(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return dbHelper.getWritableDatabase().delete(TaskContract.TaskArchiveEntry.TABLE_NAME,
+                TaskRepository.idSelection(ids.size()), TaskRepository.idSelectionArgs(ids));
+    }
+
+    @WorkerThread
+    public long getArchivedCount() {
+        return DatabaseUtils.queryNumEntries(dbHelper.getReadableDatabase(), TaskContract.TaskArchiveEntry.TABLE_NAME);
+    }
+
+    /**
+     * Hands up to {@link #VACUUM_PAGES} free pages back to the file system once more than
+     * {@link #VACUUM_THRESHOLD_PAGES} have piled up, and returns how many it freed. Does nothing
+     * until {@link TaskDbHelper#onOpen} has converted the database to incremental auto-vacuum.
+     */
+    @WorkerThread
+    public long vacuum() {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        if (DatabaseUtils.longForQuery(db, "PRAGMA auto_vacuum", null) != TaskDbHelper.AUTO_VACUUM_INCREMENTAL) {
+            return 0;
+        }
+        long free = DatabaseUtils.longForQuery(db, "PRAGMA freelist_count", null);
+        if (free <= VACUUM_THRESHOLD_PAGES) {
+            return 0;
+        }
+        // Frees one page per step; execSQL would stop after the first, so the cursor is
+        // counted, which steps it to the end
+        Cursor cursor = db.rawQuery("PRAGMA incremental_vacuum(" + VACUUM_PAGES + ")", null);
+        try {
+            cursor.getCount();
+        } finally {
+            cursor.close();
+        }
+        return free - DatabaseUtils.longForQuery(db, "PRAGMA freelist_count", null);
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.todoapp.data;
+
+import androidx.annotation.Nullable;
+
+import com.example.todoapp.model.Task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Write-through memory cache in front of the tasks table.
+ *
+ * <p>List rows are kept as one contiguous run of the table in
+ * {@link TaskContract.TaskEntry#DEFAULT_SORT_ORDER}, so a page that falls inside the run is
+ * answered without SQLite. {@code fromStart} and {@code toEnd} record whether the run reaches
+ * the first or last row of the table. Whole tasks for the edit screen are kept separately by id.
+ *
+ * <p>Every write bumps {@link #getVersion()}; a read that started before a write passes the
+ * version it saw and its rows are dropped rather than cached stale.
+ */
+public class TaskCache {
+
+    /** Java mirror of DEFAULT_SORT_ORDER, including missing dates and times sorting last. */
+    static final Comparator<Task> SORT_ORDER = new Comparator<Task>() {
+        @Override
+        public int compare(Task a, Task b) {
+            int result = sortKey(a.getDate()).compareTo(sortKey(b.getDate()));
+            if (result == 0) {
+                result = sortKey(a.getTime()).compareTo(sortKey(b.getTime()));
+            }
+            if (result == 0) {
+                result = Integer.compare(b.getPriority(), a.getPriority());
+            }
+            if (result == 0) {
+                result = Integer.compare(a.getId(), b.getId());
+            }
+            return result;
+        }
+    };
+
+    static final int DEFAULT_MAX_ROWS = 2_000;
+    static final int DEFAULT_MAX_TASKS = 64;
+
+    private final int maxRows;
+    private final TreeSet<Task> rows = new TreeSet<>(SORT_ORDER);
+    private final Map<Integer, Task> rowsById = new HashMap<>();
+    private final LinkedHashMap<Integer, Task> tasksById;
+    private boolean fromStart;
+    private boolean toEnd;
+    private int version;
+    private long hitCount;
+    private long missCount;
+
+    public TaskCache() {
+        this(DEFAULT_MAX_ROWS, DEFAULT_MAX_TASKS);
+    }
+
+    TaskCache(int maxRows, final int maxTasks) {
+        this.maxRows = maxRows;
+        this.tasksById = new LinkedHashMap<Integer, Task>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Task> eldest) {
+                return size() > maxTasks;
+            }
+        };
+    }
+
+    public synchronized int getVersion() {
+        return version;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /** Rows after {@code anchor} (or from the top), or null when the run does not cover them. */
+    @Nullable
+    public synchronized List<Task> getAfter(@Nullable Task anchor, int limit) {
+        NavigableSet<Task> tail;
+        if (anchor == null) {
+            tail = fromStart ? rows : null;
+        } else {
+            tail = fromStart || (!rows.isEmpty() && SORT_ORDER.compare(anchor, rows.first()) >= 0)
+                    ? rows.tailSet(anchor, false)
+                    : null;
+        }
+
+        if (tail == null || (tail.size() < limit && !toEnd)) {
+            missCount++;
+            return null;
+        }
+
+        hitCount++;
+        List<Task> page = new ArrayList<>(Math.min(limit, tail.size()));
+        for (Task task : tail) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(task);
+        }
+        return page;
+    }
+
+    /** Rows just before {@code anchor} in list order, or null when the run does not cover them. */
+    @Nullable
+    public synchronized List<Task> getBefore(Task anchor, int limit) {
+        NavigableSet<Task> head = toEnd || (!rows.isEmpty() && SORT_ORDER.compare(anchor, rows.last()) <= 0)
+                ? rows.headSet(anchor, false)
+                : null;
+
+        if (head == null || (head.size() < limit && !fromStart)) {
+            missCount++;
+            return null;
+        }
+
+        hitCount++;
+        List<Task> page = new ArrayList<>(Math.min(limit, head.size()));
+        for (Task task : head.descendingSet()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(task);
+        }
+        Collections.reverse(page);
+        return page;
+    }
+
+    /** Records a page read by {@code loadAfter(anchor, limit)}, extending the run when it is adjacent. */
+    public synchronized void putAfter(@Nullable Task anchor, List<Task> page, int limit, int readVersion) {
+        if (readVersion != version || limit <= 0) {
+            return;
+        }
+
+        boolean reachesEnd = page.size() < limit;
+        if (anchor == null ? fromStart : rows.contains(anchor)) {
+            NavigableSet<Task> after = anchor == null ? rows : rows.tailSet(anchor, false);
+            removeRows(reachesEnd ? after : after.headSet(page.get(page.size() - 1), true));
+            toEnd = toEnd || reachesEnd;
+        } else {
+            clearRows();
+            fromStart = anchor == null;
+            toEnd = reachesEnd;
+        }
+        addRows(page);
+
+        while (rows.size() > maxRows) {
+            rowsById.remove(rows.pollFirst().getId());
+            fromStart = false;
+        }
+    }
+
+    /** Records a page read by {@code loadBefore(anchor, limit)}, extending the run when it is adjacent. */
+    public synchronized void putBefore(Task anchor, List<Task> page, int limit, int readVersion) {
+        if (readVersion != version || limit <= 0) {
+            return;
+        }
+
+        boolean reachesStart = page.size() < limit;
+        if (rows.contains(anchor)) {
+            NavigableSet<Task> before = rows.headSet(anchor, false);
+            removeRows(reachesStart ? before : before.tailSet(page.get(0), true));
+            fromStart = fromStart || reachesStart;
+        } else {
+            clearRows();
+            fromStart = reachesStart;
+            toEnd = false;
+        }
+        addRows(page);
+
+        while (rows.size() > maxRows) {
+            rowsById.remove(rows.pollLast().getId());
+            toEnd = false;
+        }
+    }
+
+    /** The whole task for the edit screen, or null on a miss. */
+    @Nullable
+    public synchronized Task getTask(int id) {
+        Task task = tasksById.get(id);
+        if (task == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return task;
+    }
+
+    public synchronized void putTask(Task task, int readVersion) {
+        if (readVersion == version) {
+            tasksById.put(task.getId(), task);
+        }
+    }
+
+    /** Write-through for a row the repository just inserted or updated. */
+    public synchronized void onTaskWritten(Task task) {
+        version++;
+        tasksById.put(task.getId(), task);
+
+        Task previous = rowsById.remove(task.getId());
+        if (previous != null) {
+            rows.remove(previous);
+        }
+        if (covers(task)) {
+            Task row = toListRow(task);
+            rows.add(row);
+            rowsById.put(row.getId(), row);
+        }
+    }
+
+    public synchronized void onTaskDeleted(int id) {
+        version++;
+        tasksById.remove(id);
+
+        Task previous = rowsById.remove(id);
+        if (previous != null) {
+            rows.remove(previous);
+        }
+    }
+
+    /** Forgets everything, for changes made to the table outside the repository. */
+    public synchronized void invalidate() {
+        version++;
+        tasksById.clear();
+        clearRows();
+    }
+
+    // Whether the run already spans the position task sorts into, so adding it keeps the run contiguous.
+    private boolean covers(Task task) {
+        if (rows.isEmpty()) {
+            return fromStart && toEnd;
+        }
+        return (fromStart || SORT_ORDER.compare(task, rows.first()) > 0)
+                && (toEnd || SORT_ORDER.compare(task, rows.last()) < 0);
+    }
+
+    private void addRows(List<Task> page) {
+        for (Task row : page) {
+            Task previous = rowsById.put(row.getId(), row);
+            if (previous != null) {
+                rows.remove(previous);
+            }
+            rows.add(row);
+        }
+    }
+
+    private void removeRows(NavigableSet<Task> range) {
+        for (Task row : range) {
+            rowsById.remove(row.getId());
+        }
+        range.clear();
+    }
+
+    private void clearRows() {
+        rows.clear();
+        rowsById.clear();
+        fromStart = false;
+        toEnd = false;
+    }
+
+    // Same shape as a TaskCursorMapper.LIST_ROW row, so cached and queried pages diff equal.
+    static Task toListRow(Task task) {
+        String description = task.getDescription();
+        if (description != null
+                && description.codePointCount(0, description.length()) > TaskCursorMapper.DESCRIPTION_PREVIEW_LENGTH) {
+            description = description.substring(0,
+                    description.offsetByCodePoints(0, TaskCursorMapper.DESCRIPTION_PREVIEW_LENGTH));
+        }
+        Task row = new Task(task.getId(), task.getTitle(), description, task.getDate(), task.getTime(),
+                task.getPriority(), task.isHasAlarm(), task.getDueAt());
+        row.setCompletedAt(task.getCompletedAt());
+        row.setRecurrence(task.getRecurrence());
+        row.setRecurrenceStart(task.getRecurrenceStart());
+        return row;
+    }
+
+    private static String sortKey(String value) {
+        return value != null ? value : TaskContract.TaskEntry.SORT_KEY_MISSING;
+    }
+}
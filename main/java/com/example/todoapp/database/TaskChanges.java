@@ -0,0 +1,182 @@
+package com.example.todoapp.data;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.Nullable;
+
+import com.example.todoapp.model.Task;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Tells listeners which tasks were inserted, updated or deleted, whoever wrote them.
+ *
+ * <p>Writes are collected for {@code windowMillis} after the first one and delivered as one
+ * {@link Change}, so a batch edit or a burst of single writes costs listeners one update.
+ * Within a window the events for an id are merged: a row inserted and then deleted is never
+ * reported, and a row deleted and then restored is reported as updated. Listeners are called
+ * on the scheduler's thread, the main thread in the app.
+ */
+public class TaskChanges {
+
+    public static final long DEFAULT_WINDOW_MILLIS = 100L;
+
+    public interface Listener {
+        void onTasksChanged(Change change);
+    }
+
+    /** Runs the delivery of a window once it closes. */
+    public interface Scheduler {
+        void schedule(Runnable delivery, long delayMillis);
+    }
+
+    /** What changed during one window. */
+    public static final class Change {
+        private final Set<Integer> inserted;
+        private final Set<Integer> updated;
+        private final Set<Integer> deleted;
+        private final Map<Integer, Task> rows;
+        private final boolean reloadNeeded;
+
+        Change(Set<Integer> inserted, Set<Integer> updated, Set<Integer> deleted,
+               Map<Integer, Task> rows, boolean reloadNeeded) {
+            this.inserted = Collections.unmodifiableSet(inserted);
+            this.updated = Collections.unmodifiableSet(updated);
+            this.deleted = Collections.unmodifiableSet(deleted);
+            this.rows = rows;
+            this.reloadNeeded = reloadNeeded;
+        }
+
+        public Set<Integer> getInsertedIds() { return inserted; }
+
+        public Set<Integer> getUpdatedIds() { return updated; }
+
+        public Set<Integer> getDeletedIds() { return deleted; }
+
+        /**
+         * The row as last written, in list-row shape, for an inserted or updated id. Listeners
+         * must not modify it.
+         */
+        @Nullable
+        public Task getRow(int id) { return rows.get(id); }
+
+        /**
+         * True when rows changed that were not tracked one by one, such as after an import;
+         * listeners should reload everything they show.
+         */
+        public boolean isReloadNeeded() { return reloadNeeded; }
+    }
+
+    private final Scheduler scheduler;
+    private final long windowMillis;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    // The open window, guarded by this
+    private Set<Integer> inserted = new LinkedHashSet<>();
+    private Set<Integer> updated = new LinkedHashSet<>();
+    private Set<Integer> deleted = new LinkedHashSet<>();
+    private Map<Integer, Task> rows = new HashMap<>();
+    private boolean reloadNeeded;
+    private boolean scheduled;
+
+    public TaskChanges(Scheduler scheduler, long windowMillis) {
+        if (windowMillis < 0) {
+            throw new IllegalArgumentException("Invalid window: " + windowMillis);
+        }
+        this.scheduler = scheduler;
+        this.windowMillis = windowMillis;
+    }
+
+    @MainThread
+    public void register(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @MainThread
+    public void unregister(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /** Records a newly inserted row. Safe to call from any thread. */
+    public void onInserted(Task task) {
+        synchronized (this) {
+            int id = task.getId();
+            if (deleted.remove(id)) {
+                // Put back within the window, so to listeners it only changed
+                updated.add(id);
+            } else {
+                inserted.add(id);
+            }
+            rows.put(id, TaskCache.toListRow(task));
+        }
+        scheduleDelivery();
+    }
+
+    /** Records a changed row. Safe to call from any thread. */
+    public void onUpdated(Task task) {
+        synchronized (this) {
+            int id = task.getId();
+            if (!inserted.contains(id)) {
+                updated.add(id);
+            }
+            rows.put(id, TaskCache.toListRow(task));
+        }
+        scheduleDelivery();
+    }
+
+    /** Records a deleted row. Safe to call from any thread. */
+    public void onDeleted(int id) {
+        synchronized (this) {
+            rows.remove(id);
+            updated.remove(id);
+            if (!inserted.remove(id)) {
+                deleted.add(id);
+            }
+        }
+        scheduleDelivery();
+    }
+
+    /** Records that the table changed in ways not reported row by row. */
+    public void onReloadNeeded() {
+        synchronized (this) {
+            reloadNeeded = true;
+        }
+        scheduleDelivery();
+    }
+
+    private void scheduleDelivery() {
+        synchronized (this) {
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                deliver();
+            }
+        }, windowMillis);
+    }
+
+    private void deliver() {
+        Change change;
+        synchronized (this) {
+            change = new Change(inserted, updated, deleted, rows, reloadNeeded);
+            inserted = new LinkedHashSet<>();
+            updated = new LinkedHashSet<>();
+            deleted = new LinkedHashSet<>();
+            rows = new HashMap<>();
+            reloadNeeded = false;
+            scheduled = false;
+        }
+        for (Listener listener : listeners) {
+            listener.onTasksChanged(change);
+        }
+    }
+}
@@ -13,5 +13,118 @@ public final class TaskContract {
         public static final String COLUMN_TIME = "time";
         public static final String COLUMN_PRIORITY = "priority";
         public static final String COLUMN_HAS_ALARM = "has_alarm";
+        // Epoch millis of date + time in the device time zone, NULL when the task has no date.
+        public static final String COLUMN_DUE_AT = "due_at";
+        // Epoch millis the task was marked done, NULL while it is open.
+        public static final String COLUMN_COMPLETED_AT = "completed_at";
+        // RecurrenceRule text, NULL for one-off tasks. A recurring task's date, time and due_at
+        // are those of its current occurrence, and recurrence_start is the date the rule gave
+        // that occurrence before any move.
+        public static final String COLUMN_RECURRENCE = "recurrence";
+        public static final String COLUMN_RECURRENCE_START = "recurrence_start";
+
+        public static final String INDEX_DUE_ORDER = "index_tasks_due_order";
+        public static final String INDEX_DUE_AT = "index_tasks_due_at";
+        public static final String INDEX_ALARM_DUE_AT = "index_tasks_alarm_due_at";
+        public static final String INDEX_RECURRING = "index_tasks_recurring";
+        public static final String INDEX_PRIORITY_ORDER = "index_tasks_priority_order";
+        public static final String INDEX_ALARMED_ORDER = "index_tasks_alarmed_order";
+        public static final String INDEX_OPEN_ORDER = "index_tasks_open_order";
+        public static final String INDEX_COMPLETED_AT = "index_tasks_completed_at";
+
+        // Tasks that still owe a reminder. Only timed tasks ring; a date alone would mean midnight.
+        // Queries must repeat this text for SQLite to use the partial index built on it.
+        public static final String ALARM_SELECTION = COLUMN_HAS_ALARM + " = 1 AND " +
+                COLUMN_COMPLETED_AT + " IS NULL AND " + COLUMN_TIME + " IS NOT NULL";
+
+        // Dates and times are stored as yyyy-MM-dd and HH:mm, so they sort as plain text.
+        // A missing value becomes '~', which sorts after every digit, so undated tasks come
+        // last and untimed tasks come last within their day. Unlike "date IS NULL, date" the
+        // keys are never NULL, so a page boundary can be expressed as a plain range.
+        public static final String SORT_KEY_DATE = "IFNULL(" + COLUMN_DATE + ", '~')";
+        public static final String SORT_KEY_TIME = "IFNULL(" + COLUMN_TIME + ", '~')";
+        public static final String SORT_KEY_MISSING = "~";
+
+        // Conditions of the partial indexes behind the list filters, repeated by the filter queries.
+        public static final String ALARMED_SELECTION = COLUMN_HAS_ALARM + " = 1";
+        public static final String OPEN_SELECTION = COLUMN_COMPLETED_AT + " IS NULL";
+
+        // Higher priority first, then insertion order so every row has a unique position.
+        public static final String DEFAULT_SORT_ORDER =
+                SORT_KEY_DATE + ", " + SORT_KEY_TIME + ", " + COLUMN_PRIORITY + " DESC, " + _ID;
+    }
+
+    // Tasks done long enough ago to leave the list, moved here by TaskArchiver with the columns
+    // of tasks and their own id, so a restored task comes back as the same task.
+    public static class TaskArchiveEntry {
+        public static final String TABLE_NAME = "tasks_archive";
+        // Epoch millis the task was moved here
+        public static final String COLUMN_ARCHIVED_AT = "archived_at";
+    }
+
+    // FTS4 index over archived task text, kept in step with tasks_archive like tasks_fts.
+    public static class TaskArchiveSearchEntry {
+        public static final String TABLE_NAME = "tasks_archive_fts";
+    }
+
+    // What sync knows about each task, kept by TaskDbHelper's triggers on every local write.
+    // Rows outlive their task, as tombstones, so a delete reaches other devices. Keyed by the
+    // local id whether the task is in tasks or tasks_archive.
+    public static class TaskSyncEntry {
+        public static final String TABLE_NAME = "task_sync";
+        public static final String COLUMN_TASK_ID = "task_id";
+        // The id every device knows the task by
+        public static final String COLUMN_UID = "uid";
+        // Raised from SyncStateEntry.COLUMN_VERSION on each local change; 0 for changes pulled in
+        public static final String COLUMN_VERSION = "version";
+        public static final String COLUMN_DELETED = "deleted";
+        // Clock stamps of the last write to each field, in TaskSyncRecord field order
+        public static final String COLUMN_STAMP_TITLE = "stamp_title";
+        public static final String COLUMN_STAMP_DESCRIPTION = "stamp_description";
+        public static final String COLUMN_STAMP_DATE = "stamp_date";
+        public static final String COLUMN_STAMP_PRIORITY = "stamp_priority";
+        public static final String COLUMN_STAMP_ALARM = "stamp_alarm";
+        public static final String COLUMN_STAMP_COMPLETED = "stamp_completed";
+        public static final String COLUMN_STAMP_RECURRENCE = "stamp_recurrence";
+        public static final String COLUMN_STAMP_DELETED = "stamp_deleted";
+
+        public static final String INDEX_VERSION = "index_task_sync_version";
+    }
+
+    // The single row of sync bookkeeping: the clock stamps come from, how far pushes and pulls
+    // have got, and whether the triggers record writes at all.
+    public static class SyncStateEntry implements BaseColumns {
+        public static final String TABLE_NAME = "sync_state";
+        // Last stamp handed out; never behind any stamp pulled in
+        public static final String COLUMN_CLOCK = "clock";
+        // Last version handed out to a task_sync row
+        public static final String COLUMN_VERSION = "version";
+        // Every task_sync row at or below this version has reached the backend
+        public static final String COLUMN_PUSHED_VERSION = "pushed_version";
+        // The backend's token for the changes already pulled, NULL before the first pull
+        public static final String COLUMN_PULL_TOKEN = "pull_token";
+        // 0 while sync writes pulled changes or the archiver moves rows, which are not local edits
+        public static final String COLUMN_TRACKING = "tracking";
+    }
+
+    // Occurrences of recurring tasks that differ from their rule: skipped, or moved to another
+    // date. Nothing is stored for occurrences that happen as the rule says.
+    public static class TaskOccurrenceEntry {
+        public static final String TABLE_NAME = "task_occurrences";
+        public static final String COLUMN_TASK_ID = "task_id";
+        // The date the rule gives the occurrence
+        public static final String COLUMN_ORIGINAL_DATE = "original_date";
+        public static final String COLUMN_SKIPPED = "skipped";
+        // Where a moved occurrence now falls, NULL when it is skipped
+        public static final String COLUMN_DATE = "date";
+    }
+
+    // FTS4 index over task text. Its docid is the task's _id, and TaskDbHelper's triggers
+    // keep it in step with the tasks table, so it stores no copy of the text itself.
+    public static class TaskSearchEntry {
+        public static final String TABLE_NAME = "tasks_fts";
+        public static final String COLUMN_DOCID = "docid";
+        public static final String COLUMN_TITLE = TaskEntry.COLUMN_TITLE;
+        public static final String COLUMN_DESCRIPTION = TaskEntry.COLUMN_DESCRIPTION;
     }
 }
\ No newline at end of file
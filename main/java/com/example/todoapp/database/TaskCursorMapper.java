@@ -0,0 +1,132 @@
+package com.example.todoapp.data;
+
+import android.database.Cursor;
+
+import com.example.todoapp.model.Task;
+import com.example.todoapp.util.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps rows of a tasks cursor to {@link Task}s. Column indices are looked up once per cursor
+ * rather than once per column per row, and queries pass the mapper's projection instead of
+ * selecting every column.
+ */
+public class TaskCursorMapper {
+
+    /** Characters of the description the list screen shows before it ellipsizes. */
+    public static final int DESCRIPTION_PREVIEW_LENGTH = 200;
+
+    /** Every column, for screens that need the whole task. */
+    public static final TaskCursorMapper FULL = new TaskCursorMapper(new String[]{
+            TaskContract.TaskEntry._ID,
+            TaskContract.TaskEntry.COLUMN_TITLE,
+            TaskContract.TaskEntry.COLUMN_DESCRIPTION,
+            TaskContract.TaskEntry.COLUMN_DATE,
+            TaskContract.TaskEntry.COLUMN_TIME,
+            TaskContract.TaskEntry.COLUMN_PRIORITY,
+            TaskContract.TaskEntry.COLUMN_HAS_ALARM,
+            TaskContract.TaskEntry.COLUMN_DUE_AT,
+            TaskContract.TaskEntry.COLUMN_COMPLETED_AT,
+            TaskContract.TaskEntry.COLUMN_RECURRENCE,
+            TaskContract.TaskEntry.COLUMN_RECURRENCE_START
+    });
+
+    /**
+     * The list screen's row: only a preview of the description is read, so long descriptions
+     * never cross the cursor window or sit on the heap while the list scrolls.
+     */
+    public static final TaskCursorMapper LIST_ROW = new TaskCursorMapper(new String[]{
+            TaskContract.TaskEntry._ID,
+            TaskContract.TaskEntry.COLUMN_TITLE,
+            "substr(" + TaskContract.TaskEntry.COLUMN_DESCRIPTION + ", 1, " + DESCRIPTION_PREVIEW_LENGTH + ") AS " +
+                    TaskContract.TaskEntry.COLUMN_DESCRIPTION,
+            TaskContract.TaskEntry.COLUMN_DATE,
+            TaskContract.TaskEntry.COLUMN_TIME,
+            TaskContract.TaskEntry.COLUMN_PRIORITY,
+            TaskContract.TaskEntry.COLUMN_HAS_ALARM,
+            TaskContract.TaskEntry.COLUMN_DUE_AT,
+            TaskContract.TaskEntry.COLUMN_COMPLETED_AT,
+            TaskContract.TaskEntry.COLUMN_RECURRENCE,
+            TaskContract.TaskEntry.COLUMN_RECURRENCE_START
+    });
+
+    private final String[] projection;
+
+    public TaskCursorMapper(String[] projection) {
+        this.projection = projection;
+    }
+
+    public String[] getProjection() {
+        return projection.clone();
+    }
+
+    /** Maps every remaining row of {@code cursor}. Does not close it. */
+    public List<Task> mapAll(Cursor cursor) {
+        ColumnIndices columns = new ColumnIndices(cursor);
+        List<Task> taskList = new ArrayList<>(cursor.getCount());
+        while (cursor.moveToNext()) {
+            taskList.add(map(cursor, columns));
+        }
+        Metrics.ROWS_MAPPED.add(taskList.size());
+        return taskList;
+    }
+
+    /** Maps the first row of {@code cursor}, or returns null when it is empty. Does not close it. */
+    public Task mapFirst(Cursor cursor) {
+        if (!cursor.moveToFirst()) {
+            return null;
+        }
+        return map(cursor, new ColumnIndices(cursor));
+    }
+
+    private static Task map(Cursor cursor, ColumnIndices columns) {
+        int id = cursor.getInt(columns.id);
+        String title = cursor.getString(columns.title);
+        String description = columns.description >= 0 ? cursor.getString(columns.description) : null;
+        String date = cursor.getString(columns.date);
+        String time = cursor.getString(columns.time);
+        int priority = cursor.getInt(columns.priority);
+        boolean hasAlarm = cursor.getInt(columns.hasAlarm) == 1;
+        long dueAt = cursor.isNull(columns.dueAt) ? Task.NO_DUE_AT : cursor.getLong(columns.dueAt);
+
+        Task task = new Task(id, title, description, date, time, priority, hasAlarm, dueAt);
+        if (columns.completedAt >= 0 && !cursor.isNull(columns.completedAt)) {
+            task.setCompletedAt(cursor.getLong(columns.completedAt));
+        }
+        if (columns.recurrence >= 0) {
+            task.setRecurrence(cursor.getString(columns.recurrence));
+            task.setRecurrenceStart(cursor.getString(columns.recurrenceStart));
+        }
+        return task;
+    }
+
+    private static final class ColumnIndices {
+        final int id;
+        final int title;
+        final int description;
+        final int date;
+        final int time;
+        final int priority;
+        final int hasAlarm;
+        final int dueAt;
+        final int completedAt;
+        final int recurrence;
+        final int recurrenceStart;
+
+        ColumnIndices(Cursor cursor) {
+            id = cursor.getColumnIndexOrThrow(TaskContract.TaskEntry._ID);
+            title = cursor.getColumnIndexOrThrow(TaskContract.TaskEntry.COLUMN_TITLE);
+            description = cursor.getColumnIndex(TaskContract.TaskEntry.COLUMN_DESCRIPTION);
+            date = cursor.getColumnIndexOrThrow(TaskContract.TaskEntry.COLUMN_DATE);
+            time = cursor.getColumnIndexOrThrow(TaskContract.TaskEntry.COLUMN_TIME);
+            priority = cursor.getColumnIndexOrThrow(TaskContract.TaskEntry.COLUMN_PRIORITY);
+            hasAlarm = cursor.getColumnIndexOrThrow(TaskContract.TaskEntry.COLUMN_HAS_ALARM);
+            dueAt = cursor.getColumnIndexOrThrow(TaskContract.TaskEntry.COLUMN_DUE_AT);
+            completedAt = cursor.getColumnIndex(TaskContract.TaskEntry.COLUMN_COMPLETED_AT);
+            recurrence = cursor.getColumnIndex(TaskContract.TaskEntry.COLUMN_RECURRENCE);
+            recurrenceStart = cursor.getColumnIndex(TaskContract.TaskEntry.COLUMN_RECURRENCE_START);
+        }
+    }
+}
@@ -1,17 +1,315 @@
 package com.example.todoapp.data;
 
 import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.example.todoapp.model.Task;
+import com.example.todoapp.util.TaskDateFormatter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class TaskDbHelper extends SQLiteOpenHelper {
     private static final String DATABASE_NAME = "tasks.db";
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = 12;
+
+    static final int AUTO_VACUUM_INCREMENTAL = 2;
+
+    // Matches TaskEntry.DEFAULT_SORT_ORDER term for term so the list query reads rows in index order.
+    private static final String SQL_CREATE_DUE_ORDER_INDEX = "CREATE INDEX IF NOT EXISTS " +
+            TaskContract.TaskEntry.INDEX_DUE_ORDER + " ON " +
+            TaskContract.TaskEntry.TABLE_NAME + " (" +
+            TaskContract.TaskEntry.DEFAULT_SORT_ORDER + ");";
+
+    private static final String SQL_CREATE_DUE_AT_INDEX = "CREATE INDEX IF NOT EXISTS " +
+            TaskContract.TaskEntry.INDEX_DUE_AT + " ON " +
+            TaskContract.TaskEntry.TABLE_NAME + " (" +
+            TaskContract.TaskEntry.COLUMN_DUE_AT + ");";
+
+    // Partial index holding only tasks with a pending alarm, so finding the next one is a
+    // single seek no matter how many tasks have no alarm or are already done.
+    private static final String SQL_CREATE_ALARM_DUE_AT_INDEX = "CREATE INDEX IF NOT EXISTS " +
+            TaskContract.TaskEntry.INDEX_ALARM_DUE_AT + " ON " +
+            TaskContract.TaskEntry.TABLE_NAME + " (" +
+            TaskContract.TaskEntry.COLUMN_DUE_AT + ") WHERE " +
+            TaskContract.TaskEntry.ALARM_SELECTION + ";";
+
+    // Lets the occurrence expansion read only recurring tasks.
+    private static final String SQL_CREATE_RECURRING_INDEX = "CREATE INDEX IF NOT EXISTS " +
+            TaskContract.TaskEntry.INDEX_RECURRING + " ON " +
+            TaskContract.TaskEntry.TABLE_NAME + " (" +
+            TaskContract.TaskEntry.COLUMN_RECURRENCE_START + ") WHERE " +
+            TaskContract.TaskEntry.COLUMN_RECURRENCE + " IS NOT NULL;";
+
+    // The list filters, each read in list order from an index holding only the rows it can
+    // match. Priority leads its index so one priority is a single range; the others are
+    // partial copies of the sort index.
+    private static final String SQL_CREATE_PRIORITY_ORDER_INDEX = "CREATE INDEX IF NOT EXISTS " +
+            TaskContract.TaskEntry.INDEX_PRIORITY_ORDER + " ON " +
+            TaskContract.TaskEntry.TABLE_NAME + " (" +
+            TaskContract.TaskEntry.COLUMN_PRIORITY + ", " +
+            TaskContract.TaskEntry.SORT_KEY_DATE + ", " +
+            TaskContract.TaskEntry.SORT_KEY_TIME + ", " +
+            TaskContract.TaskEntry._ID + ");";
+
+    private static final String SQL_CREATE_ALARMED_ORDER_INDEX = "CREATE INDEX IF NOT EXISTS " +
+            TaskContract.TaskEntry.INDEX_ALARMED_ORDER + " ON " +
+            TaskContract.TaskEntry.TABLE_NAME + " (" +
+            TaskContract.TaskEntry.DEFAULT_SORT_ORDER + ") WHERE " +
+            TaskContract.TaskEntry.ALARMED_SELECTION + ";";
+
+    private static final String SQL_CREATE_OPEN_ORDER_INDEX = "CREATE INDEX IF NOT EXISTS " +
+            TaskContract.TaskEntry.INDEX_OPEN_ORDER + " ON " +
+            TaskContract.TaskEntry.TABLE_NAME + " (" +
+            TaskContract.TaskEntry.DEFAULT_SORT_ORDER + ") WHERE " +
+            TaskContract.TaskEntry.OPEN_SELECTION + ";";
+
+    // Lets the archiver seek the longest-done tasks without reading open ones.
+    private static final String SQL_CREATE_COMPLETED_AT_INDEX = "CREATE INDEX IF NOT EXISTS " +
+            TaskContract.TaskEntry.INDEX_COMPLETED_AT + " ON " +
+            TaskContract.TaskEntry.TABLE_NAME + " (" +
+            TaskContract.TaskEntry.COLUMN_COMPLETED_AT + ") WHERE " +
+            TaskContract.TaskEntry.COLUMN_COMPLETED_AT + " IS NOT NULL;";
+
+    // No indexes beyond the primary key: archived rows are only found by id or through search.
+    private static final String SQL_CREATE_ARCHIVE_TABLE = "CREATE TABLE " +
+            TaskContract.TaskArchiveEntry.TABLE_NAME + " (" +
+            TaskContract.TaskEntry._ID + " INTEGER PRIMARY KEY, " +
+            TaskContract.TaskEntry.COLUMN_TITLE + " TEXT NOT NULL, " +
+            TaskContract.TaskEntry.COLUMN_DESCRIPTION + " TEXT, " +
+            TaskContract.TaskEntry.COLUMN_DATE + " TEXT, " +
+            TaskContract.TaskEntry.COLUMN_TIME + " TEXT, " +
+            TaskContract.TaskEntry.COLUMN_PRIORITY + " INTEGER NOT NULL DEFAULT 1, " +
+            TaskContract.TaskEntry.COLUMN_HAS_ALARM + " INTEGER NOT NULL DEFAULT 0, " +
+            TaskContract.TaskEntry.COLUMN_DUE_AT + " INTEGER, " +
+            TaskContract.TaskEntry.COLUMN_COMPLETED_AT + " INTEGER, " +
+            TaskContract.TaskEntry.COLUMN_RECURRENCE + " TEXT, " +
+            TaskContract.TaskEntry.COLUMN_RECURRENCE_START + " TEXT, " +
+            TaskContract.TaskArchiveEntry.COLUMN_ARCHIVED_AT + " INTEGER NOT NULL);";
+
+    private static final String SQL_CREATE_ARCHIVE_SEARCH_TABLE = "CREATE VIRTUAL TABLE " +
+            TaskContract.TaskArchiveSearchEntry.TABLE_NAME + " USING fts4(content=\"" +
+            TaskContract.TaskArchiveEntry.TABLE_NAME + "\", " +
+            TaskContract.TaskSearchEntry.COLUMN_TITLE + ", " +
+            TaskContract.TaskSearchEntry.COLUMN_DESCRIPTION + ", tokenize=unicode61);";
+
+    // Archived rows are only ever inserted and deleted, never updated.
+    private static final String[] SQL_CREATE_ARCHIVE_SEARCH_TRIGGERS = {
+            "CREATE TRIGGER tasks_archive_fts_before_delete BEFORE DELETE ON " +
+                    TaskContract.TaskArchiveEntry.TABLE_NAME + " BEGIN DELETE FROM " +
+                    TaskContract.TaskArchiveSearchEntry.TABLE_NAME + " WHERE " +
+                    TaskContract.TaskSearchEntry.COLUMN_DOCID + " = old." + TaskContract.TaskEntry._ID + "; END;",
+            "CREATE TRIGGER tasks_archive_fts_after_insert AFTER INSERT ON " +
+                    TaskContract.TaskArchiveEntry.TABLE_NAME + " BEGIN INSERT INTO " +
+                    TaskContract.TaskArchiveSearchEntry.TABLE_NAME + " (" +
+                    TaskContract.TaskSearchEntry.COLUMN_DOCID + ", " +
+                    TaskContract.TaskSearchEntry.COLUMN_TITLE + ", " +
+                    TaskContract.TaskSearchEntry.COLUMN_DESCRIPTION + ") VALUES (new." +
+                    TaskContract.TaskEntry._ID + ", new." +
+                    TaskContract.TaskEntry.COLUMN_TITLE + ", new." +
+                    TaskContract.TaskEntry.COLUMN_DESCRIPTION + "); END;"
+    };
+
+    private static final String SQL_CREATE_SYNC_TABLE = "CREATE TABLE " +
+            TaskContract.TaskSyncEntry.TABLE_NAME + " (" +
+            TaskContract.TaskSyncEntry.COLUMN_TASK_ID + " INTEGER PRIMARY KEY, " +
+            TaskContract.TaskSyncEntry.COLUMN_UID + " TEXT NOT NULL UNIQUE, " +
+            TaskContract.TaskSyncEntry.COLUMN_VERSION + " INTEGER NOT NULL, " +
+            TaskContract.TaskSyncEntry.COLUMN_DELETED + " INTEGER NOT NULL DEFAULT 0, " +
+            TaskContract.TaskSyncEntry.COLUMN_STAMP_TITLE + " INTEGER NOT NULL, " +
+            TaskContract.TaskSyncEntry.COLUMN_STAMP_DESCRIPTION + " INTEGER NOT NULL, " +
+            TaskContract.TaskSyncEntry.COLUMN_STAMP_DATE + " INTEGER NOT NULL, " +
+            TaskContract.TaskSyncEntry.COLUMN_STAMP_PRIORITY + " INTEGER NOT NULL, " +
+            TaskContract.TaskSyncEntry.COLUMN_STAMP_ALARM + " INTEGER NOT NULL, " +
+            TaskContract.TaskSyncEntry.COLUMN_STAMP_COMPLETED + " INTEGER NOT NULL, " +
+            TaskContract.TaskSyncEntry.COLUMN_STAMP_RECURRENCE + " INTEGER NOT NULL, " +
+            TaskContract.TaskSyncEntry.COLUMN_STAMP_DELETED + " INTEGER NOT NULL);";
+
+    // Lets a push read the rows changed since the last one in version order.
+    private static final String SQL_CREATE_SYNC_VERSION_INDEX = "CREATE INDEX IF NOT EXISTS " +
+            TaskContract.TaskSyncEntry.INDEX_VERSION + " ON " +
+            TaskContract.TaskSyncEntry.TABLE_NAME + " (" +
+            TaskContract.TaskSyncEntry.COLUMN_VERSION + ");";
+
+    private static final String SQL_CREATE_SYNC_STATE_TABLE = "CREATE TABLE " +
+            TaskContract.SyncStateEntry.TABLE_NAME + " (" +
+            TaskContract.SyncStateEntry._ID + " INTEGER PRIMARY KEY CHECK (" + TaskContract.SyncStateEntry._ID + " = 0), " +
+            TaskContract.SyncStateEntry.COLUMN_CLOCK + " INTEGER NOT NULL, " +
+            TaskContract.SyncStateEntry.COLUMN_VERSION + " INTEGER NOT NULL, " +
+            TaskContract.SyncStateEntry.COLUMN_PUSHED_VERSION + " INTEGER NOT NULL, " +
+            TaskContract.SyncStateEntry.COLUMN_PULL_TOKEN + " TEXT, " +
+            TaskContract.SyncStateEntry.COLUMN_TRACKING + " INTEGER NOT NULL);";
+
+    // Wall-clock epoch millis inside SQLite; stamps never go below it, nor back in time
+    private static final String SQL_NOW_MILLIS = "CAST((julianday('now') - 2440587.5) * 86400000 AS INTEGER)";
+
+    // First statement of every sync trigger: one new stamp and one new version for the write
+    private static final String SQL_SYNC_TICK = " BEGIN UPDATE " + TaskContract.SyncStateEntry.TABLE_NAME + " SET " +
+            TaskContract.SyncStateEntry.COLUMN_CLOCK + " = MAX(" + TaskContract.SyncStateEntry.COLUMN_CLOCK + " + 1, " +
+            SQL_NOW_MILLIS + "), " +
+            TaskContract.SyncStateEntry.COLUMN_VERSION + " = " + TaskContract.SyncStateEntry.COLUMN_VERSION + " + 1; ";
+
+    private static final String SQL_SYNC_CLOCK = "(SELECT " + TaskContract.SyncStateEntry.COLUMN_CLOCK +
+            " FROM " + TaskContract.SyncStateEntry.TABLE_NAME + ")";
+
+    private static final String SQL_SYNC_VERSION = "(SELECT " + TaskContract.SyncStateEntry.COLUMN_VERSION +
+            " FROM " + TaskContract.SyncStateEntry.TABLE_NAME + ")";
+
+    private static final String SQL_SYNC_TRACKING = " WHEN (SELECT " + TaskContract.SyncStateEntry.COLUMN_TRACKING +
+            " FROM " + TaskContract.SyncStateEntry.TABLE_NAME + ") = 1";
+
+    // The task columns behind each stamp, in TaskSyncRecord field order. Date and time change
+    // together, as do a rule and its start; due_at is left out, since each device derives it.
+    private static final String[][] SYNC_FIELD_COLUMNS = {
+            {TaskContract.TaskEntry.COLUMN_TITLE},
+            {TaskContract.TaskEntry.COLUMN_DESCRIPTION},
+            {TaskContract.TaskEntry.COLUMN_DATE, TaskContract.TaskEntry.COLUMN_TIME},
+            {TaskContract.TaskEntry.COLUMN_PRIORITY},
+            {TaskContract.TaskEntry.COLUMN_HAS_ALARM},
+            {TaskContract.TaskEntry.COLUMN_COMPLETED_AT},
+            {TaskContract.TaskEntry.COLUMN_RECURRENCE, TaskContract.TaskEntry.COLUMN_RECURRENCE_START}
+    };
+
+    static final String[] SYNC_STAMP_COLUMNS = {
+            TaskContract.TaskSyncEntry.COLUMN_STAMP_TITLE,
+            TaskContract.TaskSyncEntry.COLUMN_STAMP_DESCRIPTION,
+            TaskContract.TaskSyncEntry.COLUMN_STAMP_DATE,
+            TaskContract.TaskSyncEntry.COLUMN_STAMP_PRIORITY,
+            TaskContract.TaskSyncEntry.COLUMN_STAMP_ALARM,
+            TaskContract.TaskSyncEntry.COLUMN_STAMP_COMPLETED,
+            TaskContract.TaskSyncEntry.COLUMN_STAMP_RECURRENCE,
+            TaskContract.TaskSyncEntry.COLUMN_STAMP_DELETED
+    };
+
+    // 128 random bits as hex, so devices can name new tasks without asking each other
+    static final String SQL_NEW_UID = "lower(hex(randomblob(16)))";
+
+    private static final String SQL_SYNC_TOMBSTONE = "UPDATE " + TaskContract.TaskSyncEntry.TABLE_NAME + " SET " +
+            TaskContract.TaskSyncEntry.COLUMN_VERSION + " = " + SQL_SYNC_VERSION + ", " +
+            TaskContract.TaskSyncEntry.COLUMN_DELETED + " = 1, " +
+            TaskContract.TaskSyncEntry.COLUMN_STAMP_DELETED + " = " + SQL_SYNC_CLOCK +
+            " WHERE " + TaskContract.TaskSyncEntry.COLUMN_TASK_ID + " = old." + TaskContract.TaskEntry._ID + "; END;";
+
+    // Local edits only: pulled changes and archive moves turn tracking off around themselves.
+    // A task inserted again under an old id, by undo or a restore, keeps its uid and counts
+    // as written anew in every field.
+    private static final String[] SQL_CREATE_SYNC_TRIGGERS = {
+            "CREATE TRIGGER task_sync_after_insert AFTER INSERT ON " + TaskContract.TaskEntry.TABLE_NAME +
+                    SQL_SYNC_TRACKING + SQL_SYNC_TICK +
+                    "INSERT OR REPLACE INTO " + TaskContract.TaskSyncEntry.TABLE_NAME + " (" +
+                    TaskContract.TaskSyncEntry.COLUMN_TASK_ID + ", " +
+                    TaskContract.TaskSyncEntry.COLUMN_UID + ", " +
+                    TaskContract.TaskSyncEntry.COLUMN_VERSION + ", " +
+                    TaskContract.TaskSyncEntry.COLUMN_DELETED + ", " +
+                    join(SYNC_STAMP_COLUMNS) + ") VALUES (new." + TaskContract.TaskEntry._ID +
+                    ", IFNULL((SELECT " + TaskContract.TaskSyncEntry.COLUMN_UID + " FROM " +
+                    TaskContract.TaskSyncEntry.TABLE_NAME + " WHERE " + TaskContract.TaskSyncEntry.COLUMN_TASK_ID +
+                    " = new." + TaskContract.TaskEntry._ID + "), " + SQL_NEW_UID + "), " +
+                    SQL_SYNC_VERSION + ", 0, " + repeat(SQL_SYNC_CLOCK, SYNC_STAMP_COLUMNS.length) + "); END;",
+            "CREATE TRIGGER task_sync_after_update AFTER UPDATE ON " + TaskContract.TaskEntry.TABLE_NAME +
+                    SQL_SYNC_TRACKING + " AND (" + changed(allSyncFieldColumns()) + ")" + SQL_SYNC_TICK +
+                    "UPDATE " + TaskContract.TaskSyncEntry.TABLE_NAME + " SET " +
+                    TaskContract.TaskSyncEntry.COLUMN_VERSION + " = " + SQL_SYNC_VERSION + stampChanged() +
+                    " WHERE " + TaskContract.TaskSyncEntry.COLUMN_TASK_ID + " = new." + TaskContract.TaskEntry._ID + "; END;",
+            "CREATE TRIGGER task_sync_after_delete AFTER DELETE ON " + TaskContract.TaskEntry.TABLE_NAME +
+                    SQL_SYNC_TRACKING + SQL_SYNC_TICK + SQL_SYNC_TOMBSTONE,
+            // Deleting an archived task for good; moving one back to tasks turns tracking off
+            "CREATE TRIGGER task_sync_after_archive_delete AFTER DELETE ON " + TaskContract.TaskArchiveEntry.TABLE_NAME +
+                    SQL_SYNC_TRACKING + SQL_SYNC_TICK + SQL_SYNC_TOMBSTONE
+    };
+
+    private static final String SQL_CREATE_OCCURRENCES_TABLE = "CREATE TABLE " +
+            TaskContract.TaskOccurrenceEntry.TABLE_NAME + " (" +
+            TaskContract.TaskOccurrenceEntry.COLUMN_TASK_ID + " INTEGER NOT NULL, " +
+            TaskContract.TaskOccurrenceEntry.COLUMN_ORIGINAL_DATE + " TEXT NOT NULL, " +
+            TaskContract.TaskOccurrenceEntry.COLUMN_SKIPPED + " INTEGER NOT NULL DEFAULT 0, " +
+            TaskContract.TaskOccurrenceEntry.COLUMN_DATE + " TEXT, " +
+            "PRIMARY KEY (" + TaskContract.TaskOccurrenceEntry.COLUMN_TASK_ID + ", " +
+            TaskContract.TaskOccurrenceEntry.COLUMN_ORIGINAL_DATE + ")) WITHOUT ROWID;";
+
+    private static final String SQL_CREATE_OCCURRENCES_TRIGGER = "CREATE TRIGGER task_occurrences_after_task_delete " +
+            "AFTER DELETE ON " + TaskContract.TaskEntry.TABLE_NAME + " BEGIN DELETE FROM " +
+            TaskContract.TaskOccurrenceEntry.TABLE_NAME + " WHERE " +
+            TaskContract.TaskOccurrenceEntry.COLUMN_TASK_ID + " = old." + TaskContract.TaskEntry._ID + "; END;";
+
+    // External-content FTS4 table: the text lives only in tasks, the index only in tasks_fts.
+    private static final String SQL_CREATE_SEARCH_TABLE = "CREATE VIRTUAL TABLE " +
+            TaskContract.TaskSearchEntry.TABLE_NAME + " USING fts4(content=\"" +
+            TaskContract.TaskEntry.TABLE_NAME + "\", " +
+            TaskContract.TaskSearchEntry.COLUMN_TITLE + ", " +
+            TaskContract.TaskSearchEntry.COLUMN_DESCRIPTION + ", tokenize=unicode61);";
+
+    private static final String SQL_SEARCH_DELETE_OLD = " BEGIN DELETE FROM " +
+            TaskContract.TaskSearchEntry.TABLE_NAME + " WHERE " +
+            TaskContract.TaskSearchEntry.COLUMN_DOCID + " = old." + TaskContract.TaskEntry._ID + "; END;";
+
+    private static final String SQL_SEARCH_INSERT_NEW = " BEGIN INSERT INTO " +
+            TaskContract.TaskSearchEntry.TABLE_NAME + " (" +
+            TaskContract.TaskSearchEntry.COLUMN_DOCID + ", " +
+            TaskContract.TaskSearchEntry.COLUMN_TITLE + ", " +
+            TaskContract.TaskSearchEntry.COLUMN_DESCRIPTION + ") VALUES (new." +
+            TaskContract.TaskEntry._ID + ", new." +
+            TaskContract.TaskEntry.COLUMN_TITLE + ", new." +
+            TaskContract.TaskEntry.COLUMN_DESCRIPTION + "); END;";
+
+    // Only edits to the indexed text touch the FTS table; priority or alarm changes skip it.
+    // UPDATE OF alone fires whenever the columns are SET, and saves and sync pulls SET them all.
+    private static final String SEARCH_UPDATE_OF = " UPDATE OF " +
+            TaskContract.TaskEntry.COLUMN_TITLE + ", " +
+            TaskContract.TaskEntry.COLUMN_DESCRIPTION + " ON " + TaskContract.TaskEntry.TABLE_NAME +
+            " WHEN old." + TaskContract.TaskEntry.COLUMN_TITLE + " IS NOT new." + TaskContract.TaskEntry.COLUMN_TITLE +
+            " OR old." + TaskContract.TaskEntry.COLUMN_DESCRIPTION + " IS NOT new." +
+            TaskContract.TaskEntry.COLUMN_DESCRIPTION;
+
+    private static final String[] SQL_CREATE_SEARCH_TRIGGERS = {
+            "CREATE TRIGGER tasks_fts_before_update BEFORE" + SEARCH_UPDATE_OF + SQL_SEARCH_DELETE_OLD,
+            "CREATE TRIGGER tasks_fts_before_delete BEFORE DELETE ON " +
+                    TaskContract.TaskEntry.TABLE_NAME + SQL_SEARCH_DELETE_OLD,
+            "CREATE TRIGGER tasks_fts_after_update AFTER" + SEARCH_UPDATE_OF + SQL_SEARCH_INSERT_NEW,
+            "CREATE TRIGGER tasks_fts_after_insert AFTER INSERT ON " +
+                    TaskContract.TaskEntry.TABLE_NAME + SQL_SEARCH_INSERT_NEW
+    };
 
     public TaskDbHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
     }
 
+    /** A helper for the database file {@code name}, for tests that stand in for several devices. */
+    @VisibleForTesting
+    TaskDbHelper(Context context, String name) {
+        super(context, name, null, DATABASE_VERSION);
+    }
+
+    /**
+     * Asks for incremental auto-vacuum, so pages freed by archiving can be handed back a few
+     * at a time. A new database gets it as it is created; an existing one only after the full
+     * VACUUM in {@link #onOpen}.
+     */
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+    }
+
+    /**
+     * Rebuilds a database created before incremental auto-vacuum with a full VACUUM, once. It
+     * cannot run in onUpgrade's transaction, so it runs here instead, while the helper is still
+     * opening and nothing else can write; it takes as long as copying the file.
+     */
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        if (!db.isReadOnly()
+                && DatabaseUtils.longForQuery(db, "PRAGMA auto_vacuum", null) != AUTO_VACUUM_INCREMENTAL) {
+            db.execSQL("VACUUM");
+        }
+    }
+
     @Override
     public void onCreate(SQLiteDatabase db) {
         final String SQL_CREATE_TASKS_TABLE = "CREATE TABLE " +
@@ -22,14 +320,220 @@ public class TaskDbHelper extends SQLiteOpenHelper {
                 TaskContract.TaskEntry.COLUMN_DATE + " TEXT, " +
                 TaskContract.TaskEntry.COLUMN_TIME + " TEXT, " +
                 TaskContract.TaskEntry.COLUMN_PRIORITY + " INTEGER NOT NULL DEFAULT 1, " +
-                TaskContract.TaskEntry.COLUMN_HAS_ALARM + " INTEGER NOT NULL DEFAULT 0);";
+                TaskContract.TaskEntry.COLUMN_HAS_ALARM + " INTEGER NOT NULL DEFAULT 0, " +
+                TaskContract.TaskEntry.COLUMN_DUE_AT + " INTEGER, " +
+                TaskContract.TaskEntry.COLUMN_COMPLETED_AT + " INTEGER, " +
+                TaskContract.TaskEntry.COLUMN_RECURRENCE + " TEXT, " +
+                TaskContract.TaskEntry.COLUMN_RECURRENCE_START + " TEXT);";
 
         db.execSQL(SQL_CREATE_TASKS_TABLE);
+        db.execSQL(SQL_CREATE_DUE_ORDER_INDEX);
+        db.execSQL(SQL_CREATE_DUE_AT_INDEX);
+        db.execSQL(SQL_CREATE_ALARM_DUE_AT_INDEX);
+        createSearchIndex(db);
+        createRecurrence(db);
+        createFilterIndexes(db);
+        createArchive(db);
+        createSync(db);
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        db.execSQL("DROP TABLE IF EXISTS " + TaskContract.TaskEntry.TABLE_NAME);
-        onCreate(db);
+        // Each step upgrades one version in place; onUpgrade already runs inside a transaction.
+        // Version 2 only added the sort index, which version 4 rebuilds, so it has no step of its own.
+        if (oldVersion < 3) {
+            db.execSQL("ALTER TABLE " + TaskContract.TaskEntry.TABLE_NAME +
+                    " ADD COLUMN " + TaskContract.TaskEntry.COLUMN_DUE_AT + " INTEGER");
+            backfillDueAt(db);
+            db.execSQL(SQL_CREATE_DUE_AT_INDEX);
+        }
+        if (oldVersion < 4) {
+            // Rebuild the sort index on the IFNULL keys so keyset paging can seek into it
+            db.execSQL("DROP INDEX IF EXISTS " + TaskContract.TaskEntry.INDEX_DUE_ORDER);
+            db.execSQL(SQL_CREATE_DUE_ORDER_INDEX);
+        }
+        if (oldVersion < 5) {
+            createSearchIndex(db);
+            // Index the rows that existed before the triggers did
+            db.execSQL("INSERT INTO " + TaskContract.TaskSearchEntry.TABLE_NAME + " (" +
+                    TaskContract.TaskSearchEntry.TABLE_NAME + ") VALUES ('rebuild')");
+        }
+        if (oldVersion < 6) {
+            db.execSQL("ALTER TABLE " + TaskContract.TaskEntry.TABLE_NAME +
+                    " ADD COLUMN " + TaskContract.TaskEntry.COLUMN_COMPLETED_AT + " INTEGER");
+        }
+        if (oldVersion < 7) {
+            db.execSQL(SQL_CREATE_ALARM_DUE_AT_INDEX);
+        }
+        if (oldVersion < 8) {
+            db.execSQL("ALTER TABLE " + TaskContract.TaskEntry.TABLE_NAME +
+                    " ADD COLUMN " + TaskContract.TaskEntry.COLUMN_RECURRENCE + " TEXT");
+            db.execSQL("ALTER TABLE " + TaskContract.TaskEntry.TABLE_NAME +
+                    " ADD COLUMN " + TaskContract.TaskEntry.COLUMN_RECURRENCE_START + " TEXT");
+            createRecurrence(db);
+        }
+        if (oldVersion < 9) {
+            createFilterIndexes(db);
+        }
+        if (oldVersion < 10) {
+            createArchive(db);
+        }
+        if (oldVersion < 11) {
+            createSync(db);
+            backfillSync(db);
+        }
+        if (oldVersion < 12) {
+            // Recreate the update triggers with their WHEN clause
+            db.execSQL("DROP TRIGGER IF EXISTS tasks_fts_before_update");
+            db.execSQL("DROP TRIGGER IF EXISTS tasks_fts_after_update");
+            db.execSQL(SQL_CREATE_SEARCH_TRIGGERS[0]);
+            db.execSQL(SQL_CREATE_SEARCH_TRIGGERS[2]);
+        }
+    }
+
+    private static void createSearchIndex(SQLiteDatabase db) {
+        db.execSQL(SQL_CREATE_SEARCH_TABLE);
+        for (String trigger : SQL_CREATE_SEARCH_TRIGGERS) {
+            db.execSQL(trigger);
+        }
+    }
+
+    private static void createRecurrence(SQLiteDatabase db) {
+        db.execSQL(SQL_CREATE_RECURRING_INDEX);
+        db.execSQL(SQL_CREATE_OCCURRENCES_TABLE);
+        db.execSQL(SQL_CREATE_OCCURRENCES_TRIGGER);
+    }
+
+    private static void createFilterIndexes(SQLiteDatabase db) {
+        db.execSQL(SQL_CREATE_PRIORITY_ORDER_INDEX);
+        db.execSQL(SQL_CREATE_ALARMED_ORDER_INDEX);
+        db.execSQL(SQL_CREATE_OPEN_ORDER_INDEX);
+    }
+
+    private static void createArchive(SQLiteDatabase db) {
+        db.execSQL(SQL_CREATE_COMPLETED_AT_INDEX);
+        db.execSQL(SQL_CREATE_ARCHIVE_TABLE);
+        db.execSQL(SQL_CREATE_ARCHIVE_SEARCH_TABLE);
+        for (String trigger : SQL_CREATE_ARCHIVE_SEARCH_TRIGGERS) {
+            db.execSQL(trigger);
+        }
+    }
+
+    private static void createSync(SQLiteDatabase db) {
+        db.execSQL(SQL_CREATE_SYNC_TABLE);
+        db.execSQL(SQL_CREATE_SYNC_VERSION_INDEX);
+        db.execSQL(SQL_CREATE_SYNC_STATE_TABLE);
+        db.execSQL("INSERT INTO " + TaskContract.SyncStateEntry.TABLE_NAME + " (" +
+                TaskContract.SyncStateEntry._ID + ", " +
+                TaskContract.SyncStateEntry.COLUMN_CLOCK + ", " +
+                TaskContract.SyncStateEntry.COLUMN_VERSION + ", " +
+                TaskContract.SyncStateEntry.COLUMN_PUSHED_VERSION + ", " +
+                TaskContract.SyncStateEntry.COLUMN_TRACKING + ") VALUES (0, 0, 0, 0, 1)");
+        for (String trigger : SQL_CREATE_SYNC_TRIGGERS) {
+            db.execSQL(trigger);
+        }
+    }
+
+    // Tasks from before sync, listed or archived, each with a uid and a version of its own so
+    // the first push sends them all. Ids are unique across both tables, so they serve as versions.
+    private static void backfillSync(SQLiteDatabase db) {
+        for (String table : new String[]{TaskContract.TaskEntry.TABLE_NAME, TaskContract.TaskArchiveEntry.TABLE_NAME}) {
+            db.execSQL("INSERT INTO " + TaskContract.TaskSyncEntry.TABLE_NAME + " (" +
+                    TaskContract.TaskSyncEntry.COLUMN_TASK_ID + ", " +
+                    TaskContract.TaskSyncEntry.COLUMN_UID + ", " +
+                    TaskContract.TaskSyncEntry.COLUMN_VERSION + ", " +
+                    join(SYNC_STAMP_COLUMNS) + ") SELECT " +
+                    TaskContract.TaskEntry._ID + ", " + SQL_NEW_UID + ", " + TaskContract.TaskEntry._ID + ", " +
+                    repeat(SQL_NOW_MILLIS, SYNC_STAMP_COLUMNS.length) + " FROM " + table);
+        }
+        db.execSQL("UPDATE " + TaskContract.SyncStateEntry.TABLE_NAME + " SET " +
+                TaskContract.SyncStateEntry.COLUMN_CLOCK + " = " + SQL_NOW_MILLIS + ", " +
+                TaskContract.SyncStateEntry.COLUMN_VERSION + " = IFNULL((SELECT MAX(" +
+                TaskContract.TaskSyncEntry.COLUMN_VERSION + ") FROM " + TaskContract.TaskSyncEntry.TABLE_NAME + "), 0)");
+    }
+
+    private static String[] allSyncFieldColumns() {
+        List<String> columns = new ArrayList<>();
+        for (String[] field : SYNC_FIELD_COLUMNS) {
+            columns.addAll(Arrays.asList(field));
+        }
+        return columns.toArray(new String[0]);
+    }
+
+    // "old.a IS NOT new.a OR ..." for each of columns
+    private static String changed(String[] columns) {
+        StringBuilder sql = new StringBuilder();
+        for (String column : columns) {
+            if (sql.length() > 0) {
+                sql.append(" OR ");
+            }
+            sql.append("old.").append(column).append(" IS NOT new.").append(column);
+        }
+        return sql.toString();
+    }
+
+    // ", stamp_x = CASE WHEN <x changed> THEN <clock> ELSE stamp_x END" for each field
+    private static String stampChanged() {
+        StringBuilder sql = new StringBuilder();
+        for (int i = 0; i < SYNC_FIELD_COLUMNS.length; i++) {
+            sql.append(", ").append(SYNC_STAMP_COLUMNS[i]).append(" = CASE WHEN ")
+                    .append(changed(SYNC_FIELD_COLUMNS[i])).append(" THEN ").append(SQL_SYNC_CLOCK)
+                    .append(" ELSE ").append(SYNC_STAMP_COLUMNS[i]).append(" END");
+        }
+        return sql.toString();
+    }
+
+    private static String join(String[] values) {
+        StringBuilder sql = new StringBuilder();
+        for (String value : values) {
+            if (sql.length() > 0) {
+                sql.append(", ");
+            }
+            sql.append(value);
+        }
+        return sql.toString();
+    }
+
+    private static String repeat(String value, int count) {
+        StringBuilder sql = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sql.append(i == 0 ? "" : ", ").append(value);
+        }
+        return sql.toString();
+    }
+
+    // Also used to recompute every due_at after a time zone change.
+    static void backfillDueAt(SQLiteDatabase db) {
+        TaskDateFormatter formatter = TaskDateFormatter.getInstance();
+        SQLiteStatement update = db.compileStatement("UPDATE " + TaskContract.TaskEntry.TABLE_NAME +
+                " SET " + TaskContract.TaskEntry.COLUMN_DUE_AT + " = ?" +
+                " WHERE " + TaskContract.TaskEntry._ID + " = ?");
+        Cursor cursor = db.query(
+                TaskContract.TaskEntry.TABLE_NAME,
+                new String[]{
+                        TaskContract.TaskEntry._ID,
+                        TaskContract.TaskEntry.COLUMN_DATE,
+                        TaskContract.TaskEntry.COLUMN_TIME},
+                TaskContract.TaskEntry.COLUMN_DATE + " IS NOT NULL",
+                null,
+                null,
+                null,
+                null
+        );
+
+        try {
+            while (cursor.moveToNext()) {
+                long dueAt = formatter.toDueAt(cursor.getString(1), cursor.getString(2));
+                if (dueAt == Task.NO_DUE_AT) {
+                    continue;
+                }
+                update.bindLong(1, dueAt);
+                update.bindLong(2, cursor.getLong(0));
+                update.executeUpdateDelete();
+            }
+        } finally {
+            cursor.close();
+            update.close();
+        }
     }
 }
\ No newline at end of file
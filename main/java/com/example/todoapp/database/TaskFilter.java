@@ -0,0 +1,138 @@
+package com.example.todoapp.data;
+
+import com.example.todoapp.model.Task;
+import com.example.todoapp.util.TaskDateFormatter;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * One of the main screen's filters: a selection shared by the filtered list's page queries and
+ * its {@code COUNT(*)}, and the same test in Java for patching a filtered list after writes.
+ * Each selection is written so SQLite reads it in list order from an index covering only the
+ * rows it can match; see the filter indexes in {@link TaskDbHelper}.
+ */
+public final class TaskFilter {
+
+    public enum Kind {
+        PRIORITY,
+        OVERDUE,
+        ALARMED,
+        DATE_RANGE
+    }
+
+    private final Kind kind;
+    private final String selection;
+    private final String[] selectionArgs;
+    private final int priority;
+    private final long now;
+    private final String today;
+    private final String fromDate;
+    private final String toDate;
+
+    private TaskFilter(Kind kind, String selection, String[] selectionArgs,
+                       int priority, long now, String today, String fromDate, String toDate) {
+        this.kind = kind;
+        this.selection = selection;
+        this.selectionArgs = selectionArgs;
+        this.priority = priority;
+        this.now = now;
+        this.today = today;
+        this.fromDate = fromDate;
+        this.toDate = toDate;
+    }
+
+    /** Tasks of {@code priority}, 1 to 3. */
+    public static TaskFilter priority(int priority) {
+        if (priority < 1 || priority > 3) {
+            throw new IllegalArgumentException("Invalid priority: " + priority);
+        }
+        return new TaskFilter(Kind.PRIORITY, TaskContract.TaskEntry.COLUMN_PRIORITY + " = ?",
+                new String[]{String.valueOf(priority)}, priority, 0L, null, null, null);
+    }
+
+    /**
+     * Open tasks due before {@code now}: timed ones once their time has passed, untimed ones
+     * from the day after their date, as the list files them under Today until then.
+     * The bound on the date is implied by the others, but it is the one the open-tasks index
+     * can seek on.
+     */
+    public static TaskFilter overdue(long now, TaskDateFormatter dateFormatter) {
+        String today = dateFormatter.toStorageDate(
+                Instant.ofEpochMilli(now).atZone(dateFormatter.getZone()).toLocalDate());
+        return new TaskFilter(Kind.OVERDUE,
+                TaskContract.TaskEntry.OPEN_SELECTION + " AND " +
+                        TaskContract.TaskEntry.SORT_KEY_DATE + " <= ? AND (" +
+                        TaskContract.TaskEntry.COLUMN_TIME + " IS NULL AND " +
+                        TaskContract.TaskEntry.COLUMN_DATE + " < ? OR " +
+                        TaskContract.TaskEntry.COLUMN_TIME + " IS NOT NULL AND " +
+                        TaskContract.TaskEntry.COLUMN_DUE_AT + " < ?)",
+                new String[]{today, today, String.valueOf(now)}, 0, now, today, null, null);
+    }
+
+    /** Tasks with an alarm set, done or not. */
+    public static TaskFilter alarmed() {
+        return new TaskFilter(Kind.ALARMED, TaskContract.TaskEntry.ALARMED_SELECTION,
+                new String[0], 0, 0L, null, null, null);
+    }
+
+    /** Tasks dated from {@code from} to {@code to}, both included. */
+    public static TaskFilter dateRange(LocalDate from, LocalDate to, TaskDateFormatter dateFormatter) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Invalid date range: " + from + " to " + to);
+        }
+        String fromDate = dateFormatter.toStorageDate(from);
+        String toDate = dateFormatter.toStorageDate(to);
+        // On the sort key rather than the column so the sort index serves it in list order
+        return new TaskFilter(Kind.DATE_RANGE,
+                TaskContract.TaskEntry.SORT_KEY_DATE + " >= ? AND " +
+                        TaskContract.TaskEntry.SORT_KEY_DATE + " <= ?",
+                new String[]{fromDate, toDate}, 0, 0L, null, fromDate, toDate);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getSelection() {
+        return selection;
+    }
+
+    public String[] getSelectionArgs() {
+        return selectionArgs.clone();
+    }
+
+    /** Whether {@code task} is one of the rows {@link #getSelection()} selects. */
+    public boolean matches(Task task) {
+        switch (kind) {
+            case PRIORITY:
+                return task.getPriority() == priority;
+            case OVERDUE:
+                if (task.isCompleted() || task.getDate() == null) {
+                    return false;
+                }
+                return task.getTime() == null
+                        ? task.getDate().compareTo(today) < 0
+                        : task.hasDueAt() && task.getDueAt() < now;
+            case ALARMED:
+                return task.isHasAlarm();
+            case DATE_RANGE:
+                String date = task.getDate();
+                return date != null && date.compareTo(fromDate) >= 0 && date.compareTo(toDate) <= 0;
+            default:
+                throw new AssertionError(kind);
+        }
+    }
+
+    /** {@code selection} narrowed to this filter's rows, with its arguments after this filter's. */
+    String and(String selection) {
+        return "(" + this.selection + ") AND (" + selection + ")";
+    }
+
+    String[] andArgs(String[] selectionArgs) {
+        String[] args = new String[this.selectionArgs.length + selectionArgs.length];
+        System.arraycopy(this.selectionArgs, 0, args, 0, this.selectionArgs.length);
+        System.arraycopy(selectionArgs, 0, args, this.selectionArgs.length, selectionArgs.length);
+        return args;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.todoapp.data;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.example.todoapp.model.Task;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs task queries on a dedicated query thread and hands the result back
+ * to the main thread. Starting a new load makes every earlier one stale: a
+ * stale load skips its query if it has not started yet and never delivers
+ * its result.
+ */
+public class TaskLoader {
+
+    public interface Query {
+        @WorkerThread
+        List<Task> run();
+    }
+
+    public interface Callback {
+        void onTasksLoaded(List<Task> tasks);
+    }
+
+    private final Executor queryExecutor;
+    private final Executor mainExecutor;
+    private final AtomicInteger generation = new AtomicInteger();
+
+    public TaskLoader() {
+        this(newQueryExecutor(), newMainThreadExecutor());
+    }
+
+    @VisibleForTesting
+    TaskLoader(Executor queryExecutor, Executor mainExecutor) {
+        this.queryExecutor = queryExecutor;
+        this.mainExecutor = mainExecutor;
+    }
+
+    @MainThread
+    public void load(final Query query, final Callback callback) {
+        final int token = generation.incrementAndGet();
+
+        queryExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (token != generation.get()) {
+                    return;
+                }
+
+                final List<Task> tasks = query.run();
+
+                mainExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (token == generation.get()) {
+                            callback.onTasksLoaded(tasks);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /** Makes every earlier load stale without starting a new one. */
+    @MainThread
+    public void cancel() {
+        generation.incrementAndGet();
+    }
+
+    /** Drops any pending result and stops the query thread. */
+    @MainThread
+    public void shutdown() {
+        cancel();
+        if (queryExecutor instanceof ExecutorService) {
+            ((ExecutorService) queryExecutor).shutdown();
+        }
+    }
+
+    private static ExecutorService newQueryExecutor() {
+        return Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "TaskLoader");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    private static Executor newMainThreadExecutor() {
+        final Handler handler = new Handler(Looper.getMainLooper());
+        return new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                handler.post(runnable);
+            }
+        };
+    }
+}
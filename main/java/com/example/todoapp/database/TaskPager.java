@@ -0,0 +1,255 @@
+package com.example.todoapp.data;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.Nullable;
+
+import com.example.todoapp.model.Task;
+import com.example.todoapp.util.Metrics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps a bounded window of task pages in memory. Pages are loaded through {@link TaskLoader}
+ * as the list scrolls within {@code prefetchDistance} rows of either end of the window, and the
+ * page furthest from the scroll position is dropped once more than {@code maxPages} are held.
+ * {@link #onTasksChanged} patches the window in place after writes instead of reloading it.
+ */
+@MainThread
+public class TaskPager {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int DEFAULT_PREFETCH_DISTANCE = 15;
+    public static final int DEFAULT_MAX_PAGES = 6;
+
+    public interface Listener {
+        void onWindowChanged(List<Task> window);
+    }
+
+    private final TaskPagingSource pagingSource;
+    private final TaskLoader taskLoader;
+    private final int pageSize;
+    private final int prefetchDistance;
+    private final int maxPages;
+    private final Listener listener;
+
+    private final ArrayDeque<List<Task>> pages = new ArrayDeque<>();
+    private int windowSize;
+    // Last row before the window, or null when the window starts at the top of the list.
+    @Nullable
+    private Task startAnchor;
+    private boolean hasMoreAfter;
+    private boolean loading;
+
+    public TaskPager(TaskPagingSource pagingSource, TaskLoader taskLoader, Listener listener) {
+        this(pagingSource, taskLoader, DEFAULT_PAGE_SIZE, DEFAULT_PREFETCH_DISTANCE, DEFAULT_MAX_PAGES, listener);
+    }
+
+    public TaskPager(TaskPagingSource pagingSource, TaskLoader taskLoader,
+                     int pageSize, int prefetchDistance, int maxPages, Listener listener) {
+        if (pageSize <= 0 || prefetchDistance < 0 || maxPages < 2) {
+            throw new IllegalArgumentException("Invalid paging config: pageSize=" + pageSize
+                    + ", prefetchDistance=" + prefetchDistance + ", maxPages=" + maxPages);
+        }
+        this.pagingSource = pagingSource;
+        this.taskLoader = taskLoader;
+        this.pageSize = pageSize;
+        this.prefetchDistance = prefetchDistance;
+        this.maxPages = maxPages;
+        this.listener = listener;
+    }
+
+    /**
+     * Reloads the rows currently in the window, starting from the same place, so edits show
+     * up without jumping back to the top of the list.
+     */
+    public void refresh() {
+        final Task anchor = startAnchor;
+        final int limit = Math.max(pageSize, windowSize);
+
+        loading = true;
+        taskLoader.load(new TaskLoader.Query() {
+            @Override
+            public List<Task> run() {
+                return pagingSource.loadAfter(anchor, limit);
+            }
+        }, new TaskLoader.Callback() {
+            @Override
+            public void onTasksLoaded(List<Task> tasks) {
+                loading = false;
+                if (tasks.isEmpty() && anchor != null) {
+                    // Everything after the window start is gone, so start over from the top
+                    startAnchor = null;
+                    refresh();
+                    return;
+                }
+
+                pages.clear();
+                for (int start = 0; start < tasks.size(); start += pageSize) {
+                    pages.addLast(new ArrayList<>(tasks.subList(start, Math.min(start + pageSize, tasks.size()))));
+                }
+                hasMoreAfter = tasks.size() == limit;
+                publish();
+            }
+        });
+    }
+
+    /**
+     * Applies {@code change} to the window without a query: deleted rows are dropped, and
+     * updated and inserted rows are put where they now sort if that is inside the window.
+     * Reloads instead when the change asks for it, a page load is in flight, or the window
+     * empties while there are rows beyond it.
+     */
+    public void onTasksChanged(TaskChanges.Change change) {
+        if (change.isReloadNeeded() || loading) {
+            refresh();
+            return;
+        }
+
+        long sortStart = Metrics.SORT.start();
+        List<Task> window = new ArrayList<>(windowSize);
+        for (List<Task> page : pages) {
+            window.addAll(page);
+        }
+        // The window's end before the change; rows sorting after it belong to the next page
+        Task last = window.isEmpty() ? null : window.get(window.size() - 1);
+
+        Set<Integer> written = new LinkedHashSet<>(change.getUpdatedIds());
+        written.addAll(change.getInsertedIds());
+        boolean changed = false;
+        for (Iterator<Task> rows = window.iterator(); rows.hasNext(); ) {
+            int id = rows.next().getId();
+            if (written.contains(id) || change.getDeletedIds().contains(id)) {
+                rows.remove();
+                changed = true;
+            }
+        }
+        for (int id : written) {
+            Task row = change.getRow(id);
+            // A filtered list only takes rows that still match its filter
+            if (row != null && pagingSource.matches(row) && isInWindow(row, last)) {
+                int position = Collections.binarySearch(window, row, TaskCache.SORT_ORDER);
+                window.add(position < 0 ? -position - 1 : position, row);
+                changed = true;
+            }
+        }
+        Metrics.SORT.stop(sortStart);
+        if (!changed) {
+            return;
+        }
+        if (window.isEmpty() && (startAnchor != null || hasMoreAfter)) {
+            refresh();
+            return;
+        }
+
+        pages.clear();
+        for (int start = 0; start < window.size(); start += pageSize) {
+            pages.addLast(new ArrayList<>(window.subList(start, Math.min(start + pageSize, window.size()))));
+        }
+        publish();
+    }
+
+    /** Called as rows are bound; loads a neighbouring page when the position nears a window edge. */
+    public void onItemAccessed(int position) {
+        if (loading || pages.isEmpty()) {
+            return;
+        }
+
+        if (hasMoreAfter && position >= windowSize - prefetchDistance) {
+            loadNextPage();
+        } else if (startAnchor != null && position < prefetchDistance) {
+            loadPreviousPage();
+        }
+    }
+
+    /** Drops pending loads and stops the query thread. */
+    public void shutdown() {
+        taskLoader.shutdown();
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    private void loadNextPage() {
+        List<Task> lastPage = pages.peekLast();
+        final Task anchor = lastPage.get(lastPage.size() - 1);
+
+        loading = true;
+        taskLoader.load(new TaskLoader.Query() {
+            @Override
+            public List<Task> run() {
+                return pagingSource.loadAfter(anchor, pageSize);
+            }
+        }, new TaskLoader.Callback() {
+            @Override
+            public void onTasksLoaded(List<Task> tasks) {
+                loading = false;
+                hasMoreAfter = tasks.size() == pageSize;
+                if (tasks.isEmpty()) {
+                    return;
+                }
+
+                pages.addLast(tasks);
+                if (pages.size() > maxPages) {
+                    List<Task> dropped = pages.removeFirst();
+                    startAnchor = dropped.get(dropped.size() - 1);
+                }
+                publish();
+            }
+        });
+    }
+
+    private void loadPreviousPage() {
+        final Task anchor = pages.peekFirst().get(0);
+
+        loading = true;
+        taskLoader.load(new TaskLoader.Query() {
+            @Override
+            public List<Task> run() {
+                // One extra row becomes the new start anchor if there is still more above
+                return pagingSource.loadBefore(anchor, pageSize + 1);
+            }
+        }, new TaskLoader.Callback() {
+            @Override
+            public void onTasksLoaded(List<Task> tasks) {
+                loading = false;
+                if (tasks.size() > pageSize) {
+                    startAnchor = tasks.get(0);
+                    tasks = tasks.subList(1, tasks.size());
+                } else {
+                    startAnchor = null;
+                }
+                if (tasks.isEmpty()) {
+                    return;
+                }
+
+                pages.addFirst(new ArrayList<>(tasks));
+                if (pages.size() > maxPages) {
+                    pages.removeLast();
+                    hasMoreAfter = true;
+                }
+                publish();
+            }
+        });
+    }
+
+    private boolean isInWindow(Task row, @Nullable Task last) {
+        return (startAnchor == null || TaskCache.SORT_ORDER.compare(row, startAnchor) > 0)
+                && (!hasMoreAfter || (last != null && TaskCache.SORT_ORDER.compare(row, last) < 0));
+    }
+
+    private void publish() {
+        List<Task> window = new ArrayList<>(pages.size() * pageSize);
+        for (List<Task> page : pages) {
+            window.addAll(page);
+        }
+        windowSize = window.size();
+        listener.onWindowChanged(window);
+    }
+}
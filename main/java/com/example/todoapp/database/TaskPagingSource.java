@@ -0,0 +1,184 @@
+package com.example.todoapp.data;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.example.todoapp.model.Task;
+import com.example.todoapp.util.Metrics;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads pages of tasks in {@link TaskContract.TaskEntry#DEFAULT_SORT_ORDER} using keyset
+ * pagination: each page starts strictly after (or before) an anchor row instead of at an
+ * OFFSET, so SQLite seeks straight into the sort index and the cost of a page does not grow
+ * with how far into the list it is.
+ *
+ * <p>When given a {@link TaskCache}, pages the cache already covers are served from memory and
+ * pages read from SQLite are added to it. When given a {@link TaskFilter}, only the rows it
+ * selects are paged through; such a source has no cache, which holds runs of the whole list.
+ */
+public class TaskPagingSource {
+
+    // Rows after the anchor in sort order. The leading ">=" on the date key lets SQLite start
+    // the index scan at the anchor; the rest narrows ties on date, time, priority (descending) and id.
+    static final String AFTER_SELECTION =
+            TaskContract.TaskEntry.SORT_KEY_DATE + " >= ? AND (" +
+            TaskContract.TaskEntry.SORT_KEY_DATE + " > ? OR (" +
+            TaskContract.TaskEntry.SORT_KEY_DATE + " = ? AND (" +
+            TaskContract.TaskEntry.SORT_KEY_TIME + " > ? OR (" +
+            TaskContract.TaskEntry.SORT_KEY_TIME + " = ? AND (" +
+            TaskContract.TaskEntry.COLUMN_PRIORITY + " < ? OR (" +
+            TaskContract.TaskEntry.COLUMN_PRIORITY + " = ? AND " +
+            TaskContract.TaskEntry._ID + " > ?))))))";
+
+    // Mirror image of AFTER_SELECTION for rows before the anchor.
+    static final String BEFORE_SELECTION =
+            TaskContract.TaskEntry.SORT_KEY_DATE + " <= ? AND (" +
+            TaskContract.TaskEntry.SORT_KEY_DATE + " < ? OR (" +
+            TaskContract.TaskEntry.SORT_KEY_DATE + " = ? AND (" +
+            TaskContract.TaskEntry.SORT_KEY_TIME + " < ? OR (" +
+            TaskContract.TaskEntry.SORT_KEY_TIME + " = ? AND (" +
+            TaskContract.TaskEntry.COLUMN_PRIORITY + " > ? OR (" +
+            TaskContract.TaskEntry.COLUMN_PRIORITY + " = ? AND " +
+            TaskContract.TaskEntry._ID + " < ?))))))";
+
+    static final String REVERSE_SORT_ORDER =
+            TaskContract.TaskEntry.SORT_KEY_DATE + " DESC, " +
+            TaskContract.TaskEntry.SORT_KEY_TIME + " DESC, " +
+            TaskContract.TaskEntry.COLUMN_PRIORITY + ", " +
+            TaskContract.TaskEntry._ID + " DESC";
+
+    private final TaskDbHelper dbHelper;
+    private final TaskCursorMapper mapper;
+    private final TaskCache cache;
+    private final TaskFilter filter;
+
+    public TaskPagingSource(TaskDbHelper dbHelper) {
+        this(dbHelper, TaskCursorMapper.LIST_ROW);
+    }
+
+    public TaskPagingSource(TaskDbHelper dbHelper, TaskCursorMapper mapper) {
+        this(dbHelper, mapper, null);
+    }
+
+    public TaskPagingSource(TaskDbHelper dbHelper, TaskCursorMapper mapper, @Nullable TaskCache cache) {
+        this(dbHelper, mapper, cache, null);
+    }
+
+    public TaskPagingSource(TaskDbHelper dbHelper, TaskFilter filter) {
+        this(dbHelper, TaskCursorMapper.LIST_ROW, null, filter);
+    }
+
+    private TaskPagingSource(TaskDbHelper dbHelper, TaskCursorMapper mapper,
+                             @Nullable TaskCache cache, @Nullable TaskFilter filter) {
+        this.dbHelper = dbHelper;
+        this.mapper = mapper;
+        this.cache = cache;
+        this.filter = filter;
+    }
+
+    @Nullable
+    public TaskFilter getFilter() {
+        return filter;
+    }
+
+    /** Whether {@code task} belongs in the list this source pages through. */
+    public boolean matches(Task task) {
+        return filter == null || filter.matches(task);
+    }
+
+    /** Up to {@code limit} tasks that sort after {@code anchor}, or from the top when it is null. */
+    @WorkerThread
+    public List<Task> loadAfter(@Nullable Task anchor, int limit) {
+        if (cache == null) {
+            return queryAfter(anchor, limit);
+        }
+
+        List<Task> cached = cache.getAfter(anchor, limit);
+        if (cached != null) {
+            return cached;
+        }
+
+        int version = cache.getVersion();
+        List<Task> tasks = queryAfter(anchor, limit);
+        cache.putAfter(anchor, tasks, limit, version);
+        return tasks;
+    }
+
+    /** Up to {@code limit} tasks that sort immediately before {@code anchor}, in list order. */
+    @WorkerThread
+    public List<Task> loadBefore(Task anchor, int limit) {
+        if (cache == null) {
+            return queryBefore(anchor, limit);
+        }
+
+        List<Task> cached = cache.getBefore(anchor, limit);
+        if (cached != null) {
+            return cached;
+        }
+
+        int version = cache.getVersion();
+        List<Task> tasks = queryBefore(anchor, limit);
+        cache.putBefore(anchor, tasks, limit, version);
+        return tasks;
+    }
+
+    static String[] keysetArgs(Task anchor) {
+        String date = anchor.getDate() != null ? anchor.getDate() : TaskContract.TaskEntry.SORT_KEY_MISSING;
+        String time = anchor.getTime() != null ? anchor.getTime() : TaskContract.TaskEntry.SORT_KEY_MISSING;
+        String priority = String.valueOf(anchor.getPriority());
+        return new String[]{
+                date, date, date,
+                time, time,
+                priority, priority,
+                String.valueOf(anchor.getId())
+        };
+    }
+
+    private List<Task> queryAfter(@Nullable Task anchor, int limit) {
+        if (anchor == null) {
+            return query(null, null, TaskContract.TaskEntry.DEFAULT_SORT_ORDER, limit);
+        }
+        return query(AFTER_SELECTION, keysetArgs(anchor), TaskContract.TaskEntry.DEFAULT_SORT_ORDER, limit);
+    }
+
+    private List<Task> queryBefore(Task anchor, int limit) {
+        List<Task> tasks = query(BEFORE_SELECTION, keysetArgs(anchor), REVERSE_SORT_ORDER, limit);
+        Collections.reverse(tasks);
+        return tasks;
+    }
+
+    private List<Task> query(String selection, String[] selectionArgs, String orderBy, int limit) {
+        if (filter != null) {
+            selectionArgs = selection != null ? filter.andArgs(selectionArgs) : filter.getSelectionArgs();
+            selection = selection != null ? filter.and(selection) : filter.getSelection();
+        }
+        long start = Metrics.QUERY.start();
+        try {
+            SQLiteDatabase db = dbHelper.getReadableDatabase();
+            Cursor cursor = db.query(
+                    TaskContract.TaskEntry.TABLE_NAME,
+                    mapper.getProjection(),
+                    selection,
+                    selectionArgs,
+                    null,
+                    null,
+                    orderBy,
+                    String.valueOf(limit)
+            );
+
+            try {
+                return mapper.mapAll(cursor);
+            } finally {
+                cursor.close();
+            }
+        } finally {
+            Metrics.QUERY.stop(start);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.todoapp.data;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.example.todoapp.model.RecurrenceRule;
+import com.example.todoapp.model.Task;
+import com.example.todoapp.util.TaskDateFormatter;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recurring tasks. A series is a single row in the tasks table holding its current occurrence:
+ * date, time and due_at are that occurrence's, and completing it moves the row on to the next
+ * one instead of marking it done. The list, search and the alarm index therefore only ever see
+ * one row per series, however long it runs.
+ *
+ * <p>Later occurrences are never stored, nor expanded for the list or the alarms: a series shows
+ * and rings only for its current occurrence, and its next one comes up once that is completed or
+ * skipped. The only occurrences written down are the ones the user changed, skipped or moved to
+ * another date, as rows in task_occurrences, which are dropped once the series has gone past them.
+ */
+public class TaskRecurrence {
+
+    private static final String[] EXCEPTION_COLUMNS = {
+            TaskContract.TaskOccurrenceEntry.COLUMN_TASK_ID,
+            TaskContract.TaskOccurrenceEntry.COLUMN_ORIGINAL_DATE,
+            TaskContract.TaskOccurrenceEntry.COLUMN_SKIPPED,
+            TaskContract.TaskOccurrenceEntry.COLUMN_DATE
+    };
+
+    private final TaskDateFormatter dateFormatter;
+
+    TaskRecurrence(TaskDateFormatter dateFormatter) {
+        this.dateFormatter = dateFormatter;
+    }
+
+    /**
+     * Starts the series of a recurring task that does not have one yet: its date becomes the
+     * first occurrence on or after the date it was given. Clears the series of a task that no
+     * longer repeats. Throws IllegalArgumentException when the rule is invalid, the task has no
+     * date, or the rule has no occurrence from that date on.
+     */
+    void normalize(Task task) {
+        if (!task.isRecurring()) {
+            task.setRecurrenceStart(null);
+            return;
+        }
+
+        RecurrenceRule rule = RecurrenceRule.parse(task.getRecurrence());
+        task.setRecurrence(rule.toString());
+        if (task.getRecurrenceStart() != null) {
+            return;
+        }
+
+        LocalDate date = parseDate(task.getDate());
+        if (date == null) {
+            throw new IllegalArgumentException("Recurring task needs a date: " + task.getDate());
+        }
+        LocalDate first = rule.firstOnOrAfter(date, date);
+        if (first == null) {
+            throw new IllegalArgumentException("Invalid recurrence rule: " + rule + " has no occurrences");
+        }
+        moveTo(task, first, first);
+    }
+
+    /**
+     * Moves {@code task} on to its next occurrence that was not skipped, or marks it done at
+     * {@code completedAt} when the series has no more. Updates the row; call inside a transaction.
+     */
+    @WorkerThread
+    void advance(SQLiteDatabase db, Task task, long completedAt) {
+        RecurrenceRule rule = RecurrenceRule.parse(task.getRecurrence());
+        LocalDate start = parseDate(task.getRecurrenceStart());
+        Map<LocalDate, LocalDate> exceptions =
+                loadExceptions(db, Collections.singletonList(task.getId())).get(task.getId());
+
+        LocalDate original = start;
+        LocalDate date = null;
+        int used = 0;
+        Iterator<LocalDate> occurrences = rule.occurrences(start, start.plusDays(1));
+        while (date == null && occurrences.hasNext()) {
+            original = occurrences.next();
+            used++;
+            date = exceptions != null && exceptions.containsKey(original) ? exceptions.get(original) : original;
+        }
+
+        if (date == null) {
+            task.setCompletedAt(completedAt);
+        } else {
+            task.setRecurrence(rule.withoutFirst(used).toString());
+            moveTo(task, original, date);
+            db.delete(TaskContract.TaskOccurrenceEntry.TABLE_NAME,
+                    TaskContract.TaskOccurrenceEntry.COLUMN_TASK_ID + " = ? AND " +
+                            TaskContract.TaskOccurrenceEntry.COLUMN_ORIGINAL_DATE + " < ?",
+                    new String[]{String.valueOf(task.getId()), task.getRecurrenceStart()});
+        }
+        updateRow(db, task);
+    }
+
+    /**
+     * Records that the occurrence the rule puts on {@code originalDate} is skipped, or happens on
+     * {@code date} instead when that is not null. Changing the current occurrence updates the row
+     * as well. Call inside a transaction.
+     */
+    @WorkerThread
+    void setException(SQLiteDatabase db, Task task, LocalDate originalDate, @Nullable LocalDate date) {
+        RecurrenceRule rule = RecurrenceRule.parse(task.getRecurrence());
+        LocalDate start = parseDate(task.getRecurrenceStart());
+        if (originalDate.isBefore(start) || !originalDate.equals(rule.firstOnOrAfter(start, originalDate))) {
+            throw new IllegalArgumentException("Invalid occurrence: " + originalDate);
+        }
+
+        ContentValues values = new ContentValues();
+        values.put(TaskContract.TaskOccurrenceEntry.COLUMN_TASK_ID, task.getId());
+        values.put(TaskContract.TaskOccurrenceEntry.COLUMN_ORIGINAL_DATE, dateFormatter.toStorageDate(originalDate));
+        values.put(TaskContract.TaskOccurrenceEntry.COLUMN_SKIPPED, date == null ? 1 : 0);
+        values.put(TaskContract.TaskOccurrenceEntry.COLUMN_DATE, date != null ? dateFormatter.toStorageDate(date) : null);
+        db.insertWithOnConflict(TaskContract.TaskOccurrenceEntry.TABLE_NAME, null, values,
+                SQLiteDatabase.CONFLICT_REPLACE);
+
+        if (originalDate.equals(start)) {
+            if (date == null) {
+                advance(db, task, System.currentTimeMillis());
+            } else {
+                moveTo(task, start, date);
+                updateRow(db, task);
+            }
+        }
+    }
+
+    /** Drops every skipped or moved occurrence of task {@code id}, for when its series restarts. */
+    @WorkerThread
+    static void clearExceptions(SQLiteDatabase db, int id) {
+        db.delete(TaskContract.TaskOccurrenceEntry.TABLE_NAME,
+                TaskContract.TaskOccurrenceEntry.COLUMN_TASK_ID + " = ?",
+                new String[]{String.valueOf(id)});
+    }
+
+    /**
+     * The skipped and moved occurrences of the tasks in {@code ids}, as rows for
+     * {@link #insertExceptions} to put back after the tasks were deleted and restored.
+     */
+    @WorkerThread
+    static List<ContentValues> copyExceptions(SQLiteDatabase db, List<Integer> ids) {
+        List<ContentValues> rows = new ArrayList<>();
+        for (int start = 0; start < ids.size(); start += TaskRepository.MAX_IDS_PER_STATEMENT) {
+            List<Integer> chunk = ids.subList(start, Math.min(start + TaskRepository.MAX_IDS_PER_STATEMENT, ids.size()));
+            Cursor cursor = db.query(
+                    TaskContract.TaskOccurrenceEntry.TABLE_NAME,
+                    EXCEPTION_COLUMNS,
+                    exceptionSelection(chunk.size()),
+                    TaskRepository.idSelectionArgs(chunk),
+                    null,
+                    null,
+                    null
+            );
+            try {
+                while (cursor.moveToNext()) {
+                    ContentValues row = new ContentValues();
+                    DatabaseUtils.cursorRowToContentValues(cursor, row);
+                    rows.add(row);
+                }
+            } finally {
+                cursor.close();
+            }
+        }
+        return rows;
+    }
+
+    /** Writes back rows read by {@link #copyExceptions}. Call inside a transaction. */
+    @WorkerThread
+    static void insertExceptions(SQLiteDatabase db, List<ContentValues> rows) {
+        for (ContentValues row : rows) {
+            db.insertWithOnConflict(TaskContract.TaskOccurrenceEntry.TABLE_NAME, null, row,
+                    SQLiteDatabase.CONFLICT_REPLACE);
+        }
+    }
+
+    // Task id -> original date -> moved date, or null for a skip, for the tasks in ids
+    private Map<Integer, Map<LocalDate, LocalDate>> loadExceptions(SQLiteDatabase db, List<Integer> ids) {
+        Map<Integer, Map<LocalDate, LocalDate>> exceptions = new HashMap<>();
+        for (int start = 0; start < ids.size(); start += TaskRepository.MAX_IDS_PER_STATEMENT) {
+            List<Integer> chunk = ids.subList(start, Math.min(start + TaskRepository.MAX_IDS_PER_STATEMENT, ids.size()));
+            Cursor cursor = db.query(
+                    TaskContract.TaskOccurrenceEntry.TABLE_NAME,
+                    EXCEPTION_COLUMNS,
+                    exceptionSelection(chunk.size()),
+                    TaskRepository.idSelectionArgs(chunk),
+                    null,
+                    null,
+                    null
+            );
+            readExceptions(cursor, exceptions);
+        }
+        return exceptions;
+    }
+
+    private static String exceptionSelection(int count) {
+        StringBuilder selection = new StringBuilder(TaskContract.TaskOccurrenceEntry.COLUMN_TASK_ID).append(" IN (");
+        for (int i = 0; i < count; i++) {
+            selection.append(i == 0 ? "?" : ", ?");
+        }
+        return selection.append(')').toString();
+    }
+
+    private static void readExceptions(Cursor cursor, Map<Integer, Map<LocalDate, LocalDate>> exceptions) {
+        try {
+            while (cursor.moveToNext()) {
+                LocalDate original = parseDate(cursor.getString(1));
+                if (original == null) {
+                    continue;
+                }
+                LocalDate date = cursor.getInt(2) != 0 ? null : parseDate(cursor.getString(3));
+                Map<LocalDate, LocalDate> forTask = exceptions.get(cursor.getInt(0));
+                if (forTask == null) {
+                    forTask = new HashMap<>();
+                    exceptions.put(cursor.getInt(0), forTask);
+                }
+                forTask.put(original, date);
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private void moveTo(Task task, LocalDate original, LocalDate date) {
+        task.setRecurrenceStart(dateFormatter.toStorageDate(original));
+        task.setDate(dateFormatter.toStorageDate(date));
+        task.setDueAt(dateFormatter.toDueAt(task.getDate(), task.getTime()));
+    }
+
+    private static void updateRow(SQLiteDatabase db, Task task) {
+        db.update(
+                TaskContract.TaskEntry.TABLE_NAME,
+                TaskRepository.toContentValues(task),
+                TaskContract.TaskEntry._ID + "=?",
+                new String[]{String.valueOf(task.getId())}
+        );
+    }
+
+    @Nullable
+    private static LocalDate parseDate(@Nullable String date) {
+        if (date == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,1006 @@
+package com.example.todoapp.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.example.todoapp.model.Task;
+import com.example.todoapp.util.Metrics;
+import com.example.todoapp.util.TaskDateFormatter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Application-wide access to the tasks database. Owns the only {@link TaskDbHelper}, so every
+ * screen shares one connection pool, and turns on write-ahead logging so list reads keep
+ * running while a write commits.
+ *
+ * <p>Single-task reads and writes go through {@link TaskStatements}, compiled once.
+ *
+ * <p>The {@code *Task} methods run on the calling thread and must stay off the main thread;
+ * {@link #getTask(int, Callback)}, {@link #insert}, {@link #update} and {@link #delete} run on the
+ * repository's background thread and report back on the main thread. The batch methods take
+ * many ids and change them with one statement per {@link #MAX_IDS_PER_STATEMENT} ids, all in a
+ * single transaction, so the list sees the whole batch or none of it.
+ *
+ * <p>A recurring task is one row holding its current occurrence; completing it moves it on to
+ * the next one. See {@link TaskRecurrence}.
+ *
+ * <p>Reads go through a write-through {@link TaskCache}, so reopening the list or an edit screen
+ * after a change is served from memory. Every write is also reported through
+ * {@link #getChanges()}, so screens, alarms and anything else holding tasks hear about it
+ * wherever it came from. Call {@link #invalidateCache()} after changing the table any other way.
+ *
+ * <p>{@link #sync} runs on a thread of its own, so a slow network never holds up the writes
+ * above; see {@link TaskSync}.
+ */
+public class TaskRepository {
+
+    private static final String TAG = "TaskRepository";
+
+    /**
+     * Results of the asynchronous methods; pass null where the result is not needed. The result
+     * is null when the work failed, so a full disk or a constraint failure shows up as an error
+     * on screen rather than taking the app down.
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    /** Ids bound into one {@code _id IN (...)}, well under SQLite's 999 variable limit on older devices. */
+    @VisibleForTesting
+    static final int MAX_IDS_PER_STATEMENT = 500;
+
+    private static final String SQL_RESTORE = "INSERT INTO " + TaskContract.TaskEntry.TABLE_NAME + " (" +
+            TaskContract.TaskEntry._ID + ", " +
+            TaskContract.TaskEntry.COLUMN_TITLE + ", " +
+            TaskContract.TaskEntry.COLUMN_DESCRIPTION + ", " +
+            TaskContract.TaskEntry.COLUMN_DATE + ", " +
+            TaskContract.TaskEntry.COLUMN_TIME + ", " +
+            TaskContract.TaskEntry.COLUMN_PRIORITY + ", " +
+            TaskContract.TaskEntry.COLUMN_HAS_ALARM + ", " +
+            TaskContract.TaskEntry.COLUMN_DUE_AT + ", " +
+            TaskContract.TaskEntry.COLUMN_COMPLETED_AT + ", " +
+            TaskContract.TaskEntry.COLUMN_RECURRENCE + ", " +
+            TaskContract.TaskEntry.COLUMN_RECURRENCE_START + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static volatile TaskRepository instance;
+
+    private final TaskDbHelper dbHelper;
+    private final TaskCache cache = new TaskCache();
+    private final TaskStatements statements;
+    private final TaskPagingSource pagingSource;
+    private final TaskArchiver archiver;
+    private final Executor writeExecutor;
+    private final Executor readExecutor;
+    private final Executor archiveExecutor;
+    private final Executor syncExecutor;
+    private final Executor mainExecutor;
+    private final TaskChanges changes;
+    // Skipped and moved occurrences of deleted tasks by task id, which the delete trigger drops
+    // with the task, kept for restoreTasks to put back. Ids are never reused, so a kept row can
+    // only ever go back to its own task.
+    private final Map<Integer, List<ContentValues>> deletedExceptions = new HashMap<>();
+
+    public static TaskRepository getInstance(Context context) {
+        TaskRepository repository = instance;
+        if (repository == null) {
+            synchronized (TaskRepository.class) {
+                repository = instance;
+                if (repository == null) {
+                    repository = new TaskRepository(new TaskDbHelper(context.getApplicationContext()));
+                    instance = repository;
+                }
+            }
+        }
+        return repository;
+    }
+
+    @VisibleForTesting
+    TaskRepository(TaskDbHelper dbHelper) {
+        this(dbHelper, newBackgroundExecutor("TaskRepository"), newBackgroundExecutor("TaskCounts"),
+                newBackgroundExecutor("TaskArchiver"), newBackgroundExecutor("TaskSync"), newMainThreadExecutor(),
+                new TaskChanges(newMainThreadScheduler(), TaskChanges.DEFAULT_WINDOW_MILLIS));
+    }
+
+    /** Changes are delivered through {@code mainExecutor} as soon as they happen. */
+    @VisibleForTesting
+    TaskRepository(TaskDbHelper dbHelper, Executor writeExecutor, Executor mainExecutor) {
+        this(dbHelper, writeExecutor, mainExecutor, new TaskChanges(executorScheduler(mainExecutor), 0L));
+    }
+
+    /** Counts, archive runs and syncs run on {@code writeExecutor} too. */
+    @VisibleForTesting
+    TaskRepository(TaskDbHelper dbHelper, Executor writeExecutor, Executor mainExecutor, TaskChanges changes) {
+        this(dbHelper, writeExecutor, writeExecutor, writeExecutor, writeExecutor, mainExecutor, changes);
+    }
+
+    private TaskRepository(TaskDbHelper dbHelper, Executor writeExecutor, Executor readExecutor,
+                           Executor archiveExecutor, Executor syncExecutor, Executor mainExecutor,
+                           TaskChanges changes) {
+        this.dbHelper = dbHelper;
+        this.dbHelper.setWriteAheadLoggingEnabled(true);
+        this.statements = new TaskStatements(dbHelper);
+        this.pagingSource = new TaskPagingSource(dbHelper, TaskCursorMapper.LIST_ROW, cache);
+        this.archiver = new TaskArchiver(dbHelper);
+        this.writeExecutor = writeExecutor;
+        this.readExecutor = readExecutor;
+        this.archiveExecutor = archiveExecutor;
+        this.syncExecutor = syncExecutor;
+        this.mainExecutor = mainExecutor;
+        this.changes = changes;
+    }
+
+    /** Inserts, updates and deletes made through this repository, coalesced per short window. */
+    public TaskChanges getChanges() {
+        return changes;
+    }
+
+    public TaskPagingSource getPagingSource() {
+        return pagingSource;
+    }
+
+    /** Pages through the tasks {@code filter} selects, in list order, straight from SQLite. */
+    public TaskPagingSource getPagingSource(TaskFilter filter) {
+        return new TaskPagingSource(dbHelper, filter);
+    }
+
+    /** A search with its own debounce and query thread, for one screen to own and shut down. */
+    public TaskSearch newSearch() {
+        return new TaskSearch(dbHelper, new TaskLoader());
+    }
+
+    /** Like {@link #newSearch()}, over archived tasks. */
+    public TaskSearch newArchiveSearch() {
+        return TaskSearch.overArchive(dbHelper, new TaskLoader());
+    }
+
+    /**
+     * Imports tasks in batches of {@link TaskTransfer#DEFAULT_BATCH_SIZE} and returns how many
+     * were added. See {@link TaskTransfer#importTasks} for what a malformed record leaves behind.
+     */
+    @WorkerThread
+    public int importTasks(Reader reader, TaskTransfer.Format format) throws IOException {
+        try {
+            return new TaskTransfer(dbHelper, TaskDateFormatter.getInstance())
+                    .importTasks(reader, format, TaskTransfer.DEFAULT_BATCH_SIZE);
+        } finally {
+            // Rows went in behind the cache's back, possibly only some of them
+            cache.invalidate();
+            changes.onReloadNeeded();
+        }
+    }
+
+    @WorkerThread
+    public int exportTasks(Writer writer, TaskTransfer.Format format) throws IOException {
+        return new TaskTransfer(dbHelper, TaskDateFormatter.getInstance()).exportTasks(writer, format);
+    }
+
+    /**
+     * Pushes local changes to {@code backend} and pulls everyone else's, a batch of
+     * {@link TaskSync#DEFAULT_BATCH_SIZE} at a time. Pulled changes go in behind the cache, so
+     * listeners are told to reload once it is done, or as soon as it fails part way.
+     */
+    @WorkerThread
+    public TaskSync.Result syncTasks(TaskSyncBackend backend) throws IOException {
+        TaskSync.Result result = null;
+        try {
+            result = new TaskSync(dbHelper, TaskDateFormatter.getInstance()).sync(backend, TaskSync.DEFAULT_BATCH_SIZE);
+            return result;
+        } finally {
+            if (result == null || result.getPulled() > 0) {
+                cache.invalidate();
+                changes.onReloadNeeded();
+            }
+        }
+    }
+
+    /** Hit and miss counts for the list and edit screens' reads. */
+    public TaskCache getCache() {
+        return cache;
+    }
+
+    public void invalidateCache() {
+        cache.invalidate();
+        changes.onReloadNeeded();
+    }
+
+    @WorkerThread
+    @Nullable
+    public Task getTask(int id) {
+        Task cached = cache.getTask(id);
+        if (cached != null) {
+            return cached;
+        }
+        return loadTask(id);
+    }
+
+    /**
+     * Looks up one task by primary key. A cached task is delivered before this returns;
+     * otherwise the row is read in the background.
+     */
+    @MainThread
+    public void getTask(final int id, Callback<Task> callback) {
+        Task cached = cache.getTask(id);
+        if (cached != null) {
+            callback.onResult(cached);
+            return;
+        }
+
+        runInBackground(new Callable<Task>() {
+            @Override
+            public Task call() {
+                return loadTask(id);
+            }
+        }, callback);
+    }
+
+    @WorkerThread
+    @Nullable
+    private Task loadTask(int id) {
+        int version = cache.getVersion();
+        Task task = statements.select(id);
+        if (task != null) {
+            cache.putTask(task, version);
+        }
+        return task;
+    }
+
+    /**
+     * Due time of the earliest open, timed task with an alarm due strictly after {@code after},
+     * or {@link Task#NO_DUE_AT} when there is none.
+     */
+    @WorkerThread
+    public long getNextAlarmAfter(long after) {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        Cursor cursor = db.query(
+                TaskContract.TaskEntry.TABLE_NAME,
+                new String[]{TaskContract.TaskEntry.COLUMN_DUE_AT},
+                TaskContract.TaskEntry.ALARM_SELECTION + " AND " + TaskContract.TaskEntry.COLUMN_DUE_AT + " > ?",
+                new String[]{String.valueOf(after)},
+                null,
+                null,
+                TaskContract.TaskEntry.COLUMN_DUE_AT,
+                "1"
+        );
+
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : Task.NO_DUE_AT;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /** Open, timed tasks with an alarm due in ({@code after}, {@code upTo}], earliest first. */
+    @WorkerThread
+    public List<Task> getAlarmsBetween(long after, long upTo) {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        Cursor cursor = db.query(
+                TaskContract.TaskEntry.TABLE_NAME,
+                TaskCursorMapper.LIST_ROW.getProjection(),
+                TaskContract.TaskEntry.ALARM_SELECTION + " AND " +
+                        TaskContract.TaskEntry.COLUMN_DUE_AT + " > ? AND " +
+                        TaskContract.TaskEntry.COLUMN_DUE_AT + " <= ?",
+                new String[]{String.valueOf(after), String.valueOf(upTo)},
+                null,
+                null,
+                TaskContract.TaskEntry.COLUMN_DUE_AT + ", " + TaskContract.TaskEntry._ID
+        );
+
+        try {
+            return TaskCursorMapper.LIST_ROW.mapAll(cursor);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Recomputes every task's due_at from its stored date and time in the current time zone.
+     * Call {@link TaskDateFormatter#reset()} first after a zone change.
+     */
+    @WorkerThread
+    public void recomputeDueTimes() {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        long start = Metrics.WRITE.start();
+        db.beginTransactionNonExclusive();
+        try {
+            TaskDbHelper.backfillDueAt(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            Metrics.WRITE.stop(start);
+        }
+        cache.invalidate();
+        changes.onReloadNeeded();
+    }
+
+    @WorkerThread
+    public long getTaskCount() {
+        return DatabaseUtils.queryNumEntries(dbHelper.getReadableDatabase(), TaskContract.TaskEntry.TABLE_NAME);
+    }
+
+    /** How many tasks {@code filter} selects, counted by SQLite from the filter's index. */
+    @WorkerThread
+    public long getTaskCount(TaskFilter filter) {
+        return DatabaseUtils.queryNumEntries(dbHelper.getReadableDatabase(), TaskContract.TaskEntry.TABLE_NAME,
+                filter.getSelection(), filter.getSelectionArgs());
+    }
+
+    /**
+     * Inserts {@code task}, assigns it the new row id and returns it, or returns -1 on failure.
+     * A recurring task starts its series on the first occurrence from its date.
+     */
+    @WorkerThread
+    public long insertTask(Task task) {
+        newRecurrence().normalize(task);
+        long start = Metrics.WRITE.start();
+        long id;
+        try {
+            id = statements.insert(task);
+        } finally {
+            Metrics.WRITE.stop(start);
+        }
+        if (id > 0) {
+            task.setId((int) id);
+            cache.onTaskWritten(task);
+            changes.onInserted(task);
+        }
+        return id;
+    }
+
+    /**
+     * Writes {@code task} over its row. A recurring task with no recurrence start restarts its
+     * series from its date, dropping any skipped or moved occurrences.
+     */
+    @WorkerThread
+    public boolean updateTask(Task task) {
+        boolean restart = task.getRecurrenceStart() == null;
+        newRecurrence().normalize(task);
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        int rowsAffected;
+        long start = Metrics.WRITE.start();
+        db.beginTransactionNonExclusive();
+        try {
+            rowsAffected = statements.update(task);
+            if (rowsAffected > 0 && restart) {
+                TaskRecurrence.clearExceptions(db, task.getId());
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            Metrics.WRITE.stop(start);
+        }
+        if (rowsAffected > 0) {
+            cache.onTaskWritten(task);
+            changes.onUpdated(task);
+        }
+        return rowsAffected > 0;
+    }
+
+    @WorkerThread
+    public boolean deleteTask(int id) {
+        long start = Metrics.WRITE.start();
+        int rowsAffected;
+        try {
+            rowsAffected = statements.delete(id);
+        } finally {
+            Metrics.WRITE.stop(start);
+        }
+        if (rowsAffected > 0) {
+            cache.onTaskDeleted(id);
+            changes.onDeleted(id);
+        }
+        return rowsAffected > 0;
+    }
+
+    /**
+     * Deletes the tasks in {@code ids} and returns them as they were, for
+     * {@link #restoreTasks} to undo the delete, which puts back their skipped and moved
+     * occurrences as well. Ids that no longer exist are skipped.
+     */
+    @WorkerThread
+    public List<Task> deleteTasks(Collection<Integer> ids) {
+        List<Integer> idList = new ArrayList<>(ids);
+        List<Task> deleted = new ArrayList<>(idList.size());
+        List<ContentValues> exceptions;
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        long writeStart = Metrics.WRITE.start();
+        db.beginTransactionNonExclusive();
+        try {
+            exceptions = TaskRecurrence.copyExceptions(db, idList);
+            for (int start = 0; start < idList.size(); start += MAX_IDS_PER_STATEMENT) {
+                List<Integer> chunk = idList.subList(start, Math.min(start + MAX_IDS_PER_STATEMENT, idList.size()));
+                String selection = idSelection(chunk.size());
+                String[] selectionArgs = idSelectionArgs(chunk);
+                deleted.addAll(queryTasks(db, selection, selectionArgs));
+                db.delete(TaskContract.TaskEntry.TABLE_NAME, selection, selectionArgs);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            Metrics.WRITE.stop(writeStart);
+        }
+
+        synchronized (deletedExceptions) {
+            for (ContentValues row : exceptions) {
+                Integer id = row.getAsInteger(TaskContract.TaskOccurrenceEntry.COLUMN_TASK_ID);
+                List<ContentValues> forTask = deletedExceptions.get(id);
+                if (forTask == null) {
+                    forTask = new ArrayList<>();
+                    deletedExceptions.put(id, forTask);
+                }
+                forTask.add(row);
+            }
+        }
+
+        for (Task task : deleted) {
+            cache.onTaskDeleted(task.getId());
+            changes.onDeleted(task.getId());
+        }
+        return deleted;
+    }
+
+    /** Puts back tasks returned by {@link #deleteTasks}, with their original ids, in one transaction. */
+    @WorkerThread
+    public int restoreTasks(List<Task> tasks) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        SQLiteStatement insert = db.compileStatement(SQL_RESTORE);
+        long start = Metrics.WRITE.start();
+        db.beginTransactionNonExclusive();
+        try {
+            for (Task task : tasks) {
+                insert.clearBindings();
+                insert.bindLong(1, task.getId());
+                insert.bindString(2, task.getTitle());
+                bindNullable(insert, 3, task.getDescription());
+                bindNullable(insert, 4, task.getDate());
+                bindNullable(insert, 5, task.getTime());
+                insert.bindLong(6, task.getPriority());
+                insert.bindLong(7, task.isHasAlarm() ? 1 : 0);
+                if (task.hasDueAt()) {
+                    insert.bindLong(8, task.getDueAt());
+                }
+                if (task.isCompleted()) {
+                    insert.bindLong(9, task.getCompletedAt());
+                }
+                bindNullable(insert, 10, task.getRecurrence());
+                bindNullable(insert, 11, task.getRecurrenceStart());
+                insert.executeInsert();
+                List<ContentValues> exceptions;
+                synchronized (deletedExceptions) {
+                    exceptions = deletedExceptions.get(task.getId());
+                }
+                if (exceptions != null) {
+                    TaskRecurrence.insertExceptions(db, exceptions);
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+            Metrics.WRITE.stop(start);
+        }
+
+        synchronized (deletedExceptions) {
+            for (Task task : tasks) {
+                deletedExceptions.remove(task.getId());
+            }
+        }
+
+        for (Task task : tasks) {
+            cache.onTaskWritten(task);
+            changes.onInserted(task);
+        }
+        return tasks.size();
+    }
+
+    /**
+     * Moves every task done before {@code completedBefore} to the archive, a batch of
+     * {@link TaskArchiver#DEFAULT_BATCH_SIZE} per transaction, then lets the archiver vacuum.
+     * Returns how many were moved. Listeners see each batch leave the list as it commits.
+     */
+    @WorkerThread
+    public int archiveCompletedTasks(long completedBefore) {
+        long archivedAt = System.currentTimeMillis();
+        int archived = 0;
+        List<Integer> ids;
+        do {
+            long start = Metrics.WRITE.start();
+            try {
+                ids = archiver.archiveBatch(completedBefore, archivedAt, TaskArchiver.DEFAULT_BATCH_SIZE);
+            } finally {
+                Metrics.WRITE.stop(start);
+            }
+            for (int id : ids) {
+                cache.onTaskDeleted(id);
+                changes.onDeleted(id);
+            }
+            archived += ids.size();
+        } while (ids.size() == TaskArchiver.DEFAULT_BATCH_SIZE);
+        archiver.vacuum();
+        return archived;
+    }
+
+    /** Moves the archived tasks in {@code ids} back to the list as open tasks and returns them. */
+    @WorkerThread
+    public List<Task> restoreArchivedTasks(Collection<Integer> ids) {
+        List<Integer> idList = new ArrayList<>(ids);
+        List<Task> restored = new ArrayList<>(idList.size());
+        long writeStart = Metrics.WRITE.start();
+        try {
+            for (int start = 0; start < idList.size(); start += MAX_IDS_PER_STATEMENT) {
+                restored.addAll(archiver.restore(idList.subList(start, Math.min(start + MAX_IDS_PER_STATEMENT, idList.size()))));
+            }
+        } finally {
+            Metrics.WRITE.stop(writeStart);
+        }
+        for (Task task : restored) {
+            cache.onTaskWritten(task);
+            changes.onInserted(task);
+        }
+        return restored;
+    }
+
+    /** Deletes the archived tasks in {@code ids} for good, in one transaction, and returns how many there were. */
+    @WorkerThread
+    public int deleteArchivedTasks(Collection<Integer> ids) {
+        List<Integer> idList = new ArrayList<>(ids);
+        int deleted = 0;
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        db.beginTransactionNonExclusive();
+        try {
+            for (int start = 0; start < idList.size(); start += MAX_IDS_PER_STATEMENT) {
+                deleted += archiver.delete(idList.subList(start, Math.min(start + MAX_IDS_PER_STATEMENT, idList.size())));
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return deleted;
+    }
+
+    @WorkerThread
+    public long getArchivedCount() {
+        return archiver.getArchivedCount();
+    }
+
+    /** Sets the priority of every task in {@code ids} and returns how many changed. */
+    @WorkerThread
+    public int updateTasksPriority(Collection<Integer> ids, int priority) {
+        if (priority < 1 || priority > 3) {
+            throw new IllegalArgumentException("Invalid priority: " + priority);
+        }
+        ContentValues values = new ContentValues();
+        values.put(TaskContract.TaskEntry.COLUMN_PRIORITY, priority);
+        return updateTasks(ids, values, null, Task.NOT_COMPLETED);
+    }
+
+    /**
+     * Marks every task in {@code ids} done at {@code completedAt}, or open again when it is
+     * {@link Task#NOT_COMPLETED}, and returns how many changed. Open recurring tasks move on
+     * to their next occurrence instead, and are only marked done after the last one.
+     */
+    @WorkerThread
+    public int completeTasks(Collection<Integer> ids, long completedAt) {
+        ContentValues values = new ContentValues();
+        if (completedAt != Task.NOT_COMPLETED) {
+            values.put(TaskContract.TaskEntry.COLUMN_COMPLETED_AT, completedAt);
+            return updateTasks(ids, values, newRecurrence(), completedAt);
+        }
+        values.putNull(TaskContract.TaskEntry.COLUMN_COMPLETED_AT);
+        return updateTasks(ids, values, null, Task.NOT_COMPLETED);
+    }
+
+    /**
+     * Skips the occurrence of recurring task {@code id} that its rule puts on {@code originalDate}
+     * and returns the task, or null when there is no such task. Skipping the current occurrence
+     * moves the task on to the next one.
+     */
+    @WorkerThread
+    @Nullable
+    public Task skipOccurrence(int id, LocalDate originalDate) {
+        return setOccurrenceException(id, originalDate, null);
+    }
+
+    /**
+     * Moves the occurrence of recurring task {@code id} that its rule puts on {@code originalDate}
+     * to {@code date}, keeping its time, and returns the task, or null when there is no such task.
+     */
+    @WorkerThread
+    @Nullable
+    public Task moveOccurrence(int id, LocalDate originalDate, LocalDate date) {
+        return setOccurrenceException(id, originalDate, date);
+    }
+
+    @Nullable
+    private Task setOccurrenceException(int id, LocalDate originalDate, @Nullable LocalDate date) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        Task task;
+        long start = Metrics.WRITE.start();
+        db.beginTransactionNonExclusive();
+        try {
+            List<Task> found = queryTasks(db, TaskContract.TaskEntry._ID + "=?", new String[]{String.valueOf(id)});
+            if (found.isEmpty() || !found.get(0).isRecurring() || found.get(0).isCompleted()) {
+                return null;
+            }
+            task = found.get(0);
+            newRecurrence().setException(db, task, originalDate, date);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            Metrics.WRITE.stop(start);
+        }
+        cache.onTaskWritten(task);
+        changes.onUpdated(task);
+        return task;
+    }
+
+    private TaskRecurrence newRecurrence() {
+        // Looked up per call, since a time zone change replaces the instance
+        return new TaskRecurrence(TaskDateFormatter.getInstance());
+    }
+
+    // recurrence, when set, advances open recurring tasks at completedAt instead of applying values
+    private int updateTasks(Collection<Integer> ids, ContentValues values,
+                            @Nullable TaskRecurrence recurrence, long completedAt) {
+        List<Integer> idList = new ArrayList<>(ids);
+        List<Task> updated = new ArrayList<>(idList.size());
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        long writeStart = Metrics.WRITE.start();
+        db.beginTransactionNonExclusive();
+        try {
+            for (int start = 0; start < idList.size(); start += MAX_IDS_PER_STATEMENT) {
+                List<Integer> chunk = idList.subList(start, Math.min(start + MAX_IDS_PER_STATEMENT, idList.size()));
+                String selection = idSelection(chunk.size());
+                String[] selectionArgs = idSelectionArgs(chunk);
+                if (recurrence != null) {
+                    String open = " AND " + TaskContract.TaskEntry.COLUMN_COMPLETED_AT + " IS NULL";
+                    for (Task task : queryTasks(db, selection + open + " AND " +
+                            TaskContract.TaskEntry.COLUMN_RECURRENCE + " IS NOT NULL", selectionArgs)) {
+                        recurrence.advance(db, task, completedAt);
+                    }
+                    db.update(TaskContract.TaskEntry.TABLE_NAME, values, selection + " AND (" +
+                            TaskContract.TaskEntry.COLUMN_RECURRENCE + " IS NULL OR " +
+                            TaskContract.TaskEntry.COLUMN_COMPLETED_AT + " IS NOT NULL)", selectionArgs);
+                } else {
+                    db.update(TaskContract.TaskEntry.TABLE_NAME, values, selection, selectionArgs);
+                }
+                // Read the rows back inside the transaction so the cache gets exactly what committed
+                updated.addAll(queryTasks(db, selection, selectionArgs));
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            Metrics.WRITE.stop(writeStart);
+        }
+
+        for (Task task : updated) {
+            cache.onTaskWritten(task);
+            changes.onUpdated(task);
+        }
+        return updated.size();
+    }
+
+    private static List<Task> queryTasks(SQLiteDatabase db, String selection, String[] selectionArgs) {
+        Cursor cursor = db.query(
+                TaskContract.TaskEntry.TABLE_NAME,
+                TaskCursorMapper.FULL.getProjection(),
+                selection,
+                selectionArgs,
+                null,
+                null,
+                null
+        );
+
+        try {
+            return TaskCursorMapper.FULL.mapAll(cursor);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    static String idSelection(int count) {
+        StringBuilder selection = new StringBuilder(TaskContract.TaskEntry._ID).append(" IN (");
+        for (int i = 0; i < count; i++) {
+            selection.append(i == 0 ? "?" : ", ?");
+        }
+        return selection.append(')').toString();
+    }
+
+    static String[] idSelectionArgs(List<Integer> ids) {
+        String[] selectionArgs = new String[ids.size()];
+        for (int i = 0; i < ids.size(); i++) {
+            selectionArgs[i] = String.valueOf(ids.get(i));
+        }
+        return selectionArgs;
+    }
+
+    private static void bindNullable(SQLiteStatement statement, int index, String value) {
+        if (value != null) {
+            statement.bindString(index, value);
+        }
+    }
+
+    @MainThread
+    public void insert(final Task task, Callback<Long> callback) {
+        runInBackground(new Callable<Long>() {
+            @Override
+            public Long call() {
+                return insertTask(task);
+            }
+        }, callback);
+    }
+
+    @MainThread
+    public void update(final Task task, Callback<Boolean> callback) {
+        runInBackground(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return updateTask(task);
+            }
+        }, callback);
+    }
+
+    @MainThread
+    public void delete(final Task task, Callback<Boolean> callback) {
+        runInBackground(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return deleteTask(task.getId());
+            }
+        }, callback);
+    }
+
+    @MainThread
+    public void delete(Collection<Integer> ids, Callback<List<Task>> callback) {
+        final List<Integer> idList = new ArrayList<>(ids);
+        runInBackground(new Callable<List<Task>>() {
+            @Override
+            public List<Task> call() {
+                return deleteTasks(idList);
+            }
+        }, callback);
+    }
+
+    @MainThread
+    public void restore(final List<Task> tasks, Callback<Integer> callback) {
+        runInBackground(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return restoreTasks(tasks);
+            }
+        }, callback);
+    }
+
+    @MainThread
+    public void updatePriority(Collection<Integer> ids, final int priority, Callback<Integer> callback) {
+        final List<Integer> idList = new ArrayList<>(ids);
+        runInBackground(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return updateTasksPriority(idList, priority);
+            }
+        }, callback);
+    }
+
+    /**
+     * Archives tasks done more than {@link TaskArchiver#DEFAULT_RETENTION_DAYS} ago, then
+     * vacuums. Runs on a thread of its own rather than behind the user's saves, which get in
+     * between its short batch transactions instead of waiting for the whole run.
+     */
+    @MainThread
+    public void archiveCompleted(Callback<Integer> callback) {
+        final long completedBefore = TaskArchiver.cutoff(System.currentTimeMillis());
+        run(archiveExecutor, new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return archiveCompletedTasks(completedBefore);
+            }
+        }, callback);
+    }
+
+    @MainThread
+    public void restoreArchived(Collection<Integer> ids, Callback<List<Task>> callback) {
+        final List<Integer> idList = new ArrayList<>(ids);
+        runInBackground(new Callable<List<Task>>() {
+            @Override
+            public List<Task> call() {
+                return restoreArchivedTasks(idList);
+            }
+        }, callback);
+    }
+
+    @MainThread
+    public void deleteArchived(Collection<Integer> ids, Callback<Integer> callback) {
+        final List<Integer> idList = new ArrayList<>(ids);
+        runInBackground(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return deleteArchivedTasks(idList);
+            }
+        }, callback);
+    }
+
+    /**
+     * The count of each of {@code filters}, in the same order. Counted on a read thread of their
+     * own, so they never wait behind saves; write-ahead logging lets them run alongside one.
+     */
+    @MainThread
+    public void count(List<TaskFilter> filters, Callback<long[]> callback) {
+        final List<TaskFilter> filterList = new ArrayList<>(filters);
+        run(readExecutor, new Callable<long[]>() {
+            @Override
+            public long[] call() {
+                long[] counts = new long[filterList.size()];
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] = getTaskCount(filterList.get(i));
+                }
+                return counts;
+            }
+        }, callback);
+    }
+
+    /** Syncs with {@code backend}; the result is null when it failed. */
+    @MainThread
+    public void sync(final TaskSyncBackend backend, Callback<TaskSync.Result> callback) {
+        run(syncExecutor, new Callable<TaskSync.Result>() {
+            @Override
+            public TaskSync.Result call() throws IOException {
+                // On failure nothing is lost; the next sync starts after the last batch that got through
+                return syncTasks(backend);
+            }
+        }, callback);
+    }
+
+    /** Skips one occurrence of a recurring task; the result is the task, null if that failed. */
+    @MainThread
+    public void skipOccurrence(final int id, final LocalDate originalDate, Callback<Task> callback) {
+        runInBackground(new Callable<Task>() {
+            @Override
+            public Task call() {
+                return skipOccurrence(id, originalDate);
+            }
+        }, callback);
+    }
+
+    /** Moves one occurrence of a recurring task; the result is the task, null if that failed. */
+    @MainThread
+    public void moveOccurrence(final int id, final LocalDate originalDate, final LocalDate date,
+                               Callback<Task> callback) {
+        runInBackground(new Callable<Task>() {
+            @Override
+            public Task call() {
+                return moveOccurrence(id, originalDate, date);
+            }
+        }, callback);
+    }
+
+    /** Marks the tasks in {@code ids} done now. */
+    @MainThread
+    public void complete(Collection<Integer> ids, Callback<Integer> callback) {
+        final List<Integer> idList = new ArrayList<>(ids);
+        final long completedAt = System.currentTimeMillis();
+        runInBackground(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return completeTasks(idList, completedAt);
+            }
+        }, callback);
+    }
+
+    private <T> void runInBackground(Callable<T> work, @Nullable Callback<T> callback) {
+        run(writeExecutor, work, callback);
+    }
+
+    private <T> void run(Executor executor, final Callable<T> work, @Nullable final Callback<T> callback) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                T result;
+                try {
+                    result = work.call();
+                } catch (Exception e) {
+                    Log.e(TAG, "Background work failed", e);
+                    result = null;
+                }
+                final T delivered = result;
+
+                mainExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (callback != null) {
+                            callback.onResult(delivered);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    static ContentValues toContentValues(Task task) {
+        ContentValues values = new ContentValues();
+        values.put(TaskContract.TaskEntry.COLUMN_TITLE, task.getTitle());
+        values.put(TaskContract.TaskEntry.COLUMN_DESCRIPTION, task.getDescription());
+        values.put(TaskContract.TaskEntry.COLUMN_DATE, task.getDate());
+        values.put(TaskContract.TaskEntry.COLUMN_TIME, task.getTime());
+        values.put(TaskContract.TaskEntry.COLUMN_PRIORITY, task.getPriority());
+        values.put(TaskContract.TaskEntry.COLUMN_HAS_ALARM, task.isHasAlarm() ? 1 : 0);
+        if (task.hasDueAt()) {
+            values.put(TaskContract.TaskEntry.COLUMN_DUE_AT, task.getDueAt());
+        } else {
+            values.putNull(TaskContract.TaskEntry.COLUMN_DUE_AT);
+        }
+        if (task.isCompleted()) {
+            values.put(TaskContract.TaskEntry.COLUMN_COMPLETED_AT, task.getCompletedAt());
+        } else {
+            values.putNull(TaskContract.TaskEntry.COLUMN_COMPLETED_AT);
+        }
+        values.put(TaskContract.TaskEntry.COLUMN_RECURRENCE, task.getRecurrence());
+        values.put(TaskContract.TaskEntry.COLUMN_RECURRENCE_START, task.getRecurrenceStart());
+        return values;
+    }
+
+    private static ExecutorService newBackgroundExecutor(final String name) {
+        return Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    private static TaskChanges.Scheduler newMainThreadScheduler() {
+        final Handler handler = new Handler(Looper.getMainLooper());
+        return new TaskChanges.Scheduler() {
+            @Override
+            public void schedule(Runnable delivery, long delayMillis) {
+                handler.postDelayed(delivery, delayMillis);
+            }
+        };
+    }
+
+    private static TaskChanges.Scheduler executorScheduler(final Executor executor) {
+        return new TaskChanges.Scheduler() {
+            @Override
+            public void schedule(Runnable delivery, long delayMillis) {
+                executor.execute(delivery);
+            }
+        };
+    }
+
+    private static Executor newMainThreadExecutor() {
+        final Handler handler = new Handler(Looper.getMainLooper());
+        return new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                handler.post(runnable);
+            }
+        };
+    }
+}
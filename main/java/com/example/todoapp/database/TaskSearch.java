@@ -0,0 +1,252 @@
+package com.example.todoapp.data;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.example.todoapp.model.Task;
+import com.example.todoapp.util.Metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Prefix search over task titles and descriptions, backed by the
+ * {@link TaskContract.TaskSearchEntry} FTS index. Tasks whose title matches every term rank
+ * above tasks that only match in the description; ties keep list order. The two tiers are
+ * separate queries, so a broad query whose title matches fill the limit never sorts the
+ * description-only matches at all.
+ *
+ * <p>{@link #overArchive} searches archived tasks the same way, through their own index.
+ *
+ * <p>{@link #setQuery} is meant to be called on every keystroke: it waits until typing pauses,
+ * runs the search on its own {@link TaskLoader} and delivers only the latest query's results.
+ */
+public class TaskSearch {
+
+    public interface Callback {
+        void onSearchResults(String query, List<Task> tasks);
+    }
+
+    static final long DEBOUNCE_MILLIS = 250;
+    static final int DEFAULT_LIMIT = 100;
+
+    private final TaskDbHelper dbHelper;
+    private final TaskLoader loader;
+    // The table searched and the selections over its FTS index
+    private final String table;
+    private final String titleSelection;
+    private final String descriptionOnlySelection;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private Runnable pendingSearch;
+
+    public TaskSearch(TaskDbHelper dbHelper, TaskLoader loader) {
+        this(dbHelper, loader, TaskContract.TaskEntry.TABLE_NAME, TaskContract.TaskSearchEntry.TABLE_NAME);
+    }
+
+    private TaskSearch(TaskDbHelper dbHelper, TaskLoader loader, String table, String searchTable) {
+        this.dbHelper = dbHelper;
+        this.loader = loader;
+        this.table = table;
+        String matchSelection = " IN (SELECT " +
+                TaskContract.TaskSearchEntry.COLUMN_DOCID + " FROM " +
+                searchTable + " WHERE " +
+                searchTable + " MATCH ?)";
+        this.titleSelection = TaskContract.TaskEntry._ID + matchSelection;
+        this.descriptionOnlySelection = TaskContract.TaskEntry._ID + matchSelection +
+                " AND " + TaskContract.TaskEntry._ID + " NOT" + matchSelection;
+    }
+
+    /** A search over {@link TaskContract.TaskArchiveEntry} instead of the list's tasks. */
+    public static TaskSearch overArchive(TaskDbHelper dbHelper, TaskLoader loader) {
+        return new TaskSearch(dbHelper, loader, TaskContract.TaskArchiveEntry.TABLE_NAME,
+                TaskContract.TaskArchiveSearchEntry.TABLE_NAME);
+    }
+
+    /** Ids of up to {@code limit} matching tasks, best match first. */
+    @WorkerThread
+    public List<Integer> searchIds(String query, int limit) {
+        String match = toMatchQuery(query, null);
+        if (match == null) {
+            return Collections.emptyList();
+        }
+
+        String titleMatch = toMatchQuery(query, TaskContract.TaskSearchEntry.COLUMN_TITLE);
+        List<Integer> ids = new ArrayList<>();
+        collectIds(titleSelection, new String[]{titleMatch}, limit, ids);
+        if (ids.size() < limit) {
+            collectIds(descriptionOnlySelection, new String[]{match, titleMatch}, limit - ids.size(), ids);
+        }
+        return ids;
+    }
+
+    /** Up to {@code limit} matching tasks as list rows, best match first. */
+    @WorkerThread
+    public List<Task> search(String query, int limit) {
+        long start = Metrics.QUERY.start();
+        try {
+            return searchRows(query, limit);
+        } finally {
+            Metrics.QUERY.stop(start);
+        }
+    }
+
+    private List<Task> searchRows(String query, int limit) {
+        List<Integer> ids = searchIds(query, limit);
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        StringBuilder selection = new StringBuilder(TaskContract.TaskEntry._ID).append(" IN (");
+        String[] selectionArgs = new String[ids.size()];
+        for (int i = 0; i < ids.size(); i++) {
+            selection.append(i == 0 ? "?" : ", ?");
+            selectionArgs[i] = String.valueOf(ids.get(i));
+        }
+        selection.append(')');
+
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        Cursor cursor = db.query(
+                table,
+                TaskCursorMapper.LIST_ROW.getProjection(),
+                selection.toString(),
+                selectionArgs,
+                null,
+                null,
+                null
+        );
+
+        List<Task> rows;
+        try {
+            rows = TaskCursorMapper.LIST_ROW.mapAll(cursor);
+        } finally {
+            cursor.close();
+        }
+
+        // Back into ranked order
+        Task[] ranked = new Task[ids.size()];
+        for (Task task : rows) {
+            ranked[ids.indexOf(task.getId())] = task;
+        }
+        List<Task> tasks = new ArrayList<>(rows.size());
+        for (Task task : ranked) {
+            if (task != null) {
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Searches for {@code query} once it has stood for {@link #DEBOUNCE_MILLIS}. Each call
+     * replaces the previous one, whether it is still waiting or already running.
+     */
+    @MainThread
+    public void setQuery(final String query, final Callback callback) {
+        cancel();
+        pendingSearch = new Runnable() {
+            @Override
+            public void run() {
+                pendingSearch = null;
+                loader.load(new TaskLoader.Query() {
+                    @Override
+                    public List<Task> run() {
+                        return search(query, DEFAULT_LIMIT);
+                    }
+                }, new TaskLoader.Callback() {
+                    @Override
+                    public void onTasksLoaded(List<Task> tasks) {
+                        callback.onSearchResults(query, tasks);
+                    }
+                });
+            }
+        };
+        handler.postDelayed(pendingSearch, DEBOUNCE_MILLIS);
+    }
+
+    /** Drops a waiting or running search without delivering it. */
+    @MainThread
+    public void cancel() {
+        if (pendingSearch != null) {
+            handler.removeCallbacks(pendingSearch);
+            pendingSearch = null;
+        }
+        loader.cancel();
+    }
+
+    @MainThread
+    public void shutdown() {
+        cancel();
+        loader.shutdown();
+    }
+
+    /** True when {@code query} has nothing to search for, such as only spaces or punctuation. */
+    public static boolean isBlank(String query) {
+        return toMatchQuery(query, null) == null;
+    }
+
+    private void collectIds(String selection, String[] selectionArgs, int limit, List<Integer> ids) {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        Cursor cursor = db.query(
+                table,
+                new String[]{TaskContract.TaskEntry._ID},
+                selection,
+                selectionArgs,
+                null,
+                null,
+                TaskContract.TaskEntry.DEFAULT_SORT_ORDER,
+                String.valueOf(limit)
+        );
+
+        try {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getInt(0));
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Turns typed text into an FTS MATCH expression: every run of letters or digits becomes a
+     * lower-case prefix term, optionally limited to {@code column}, and all terms must match.
+     * Everything else is dropped, so user input can never form FTS operators or syntax errors.
+     * Returns null when no terms remain.
+     */
+    @VisibleForTesting
+    @Nullable
+    static String toMatchQuery(String query, @Nullable String column) {
+        StringBuilder match = new StringBuilder();
+        int length = query.length();
+        int offset = 0;
+        while (offset < length) {
+            int start = offset;
+            while (start < length && !Character.isLetterOrDigit(query.codePointAt(start))) {
+                start += Character.charCount(query.codePointAt(start));
+            }
+            int end = start;
+            while (end < length && Character.isLetterOrDigit(query.codePointAt(end))) {
+                end += Character.charCount(query.codePointAt(end));
+            }
+            if (end > start) {
+                if (match.length() > 0) {
+                    match.append(' ');
+                }
+                if (column != null) {
+                    match.append(column).append(':');
+                }
+                match.append(query.substring(start, end).toLowerCase(Locale.ROOT)).append('*');
+            }
+            offset = end;
+        }
+        return match.length() > 0 ? match.toString() : null;
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.todoapp.data;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.example.todoapp.model.Task;
+
+/**
+ * Single-task insert, update, delete and lookup by id with SQL compiled once. The write
+ * statements are compiled when first used on a database and kept until the helper hands out a
+ * different one, and each call binds the task's fields straight from their primitive values,
+ * skipping the ContentValues map, its boxing and the SQL text SQLiteDatabase.insert and
+ * update build on every call.
+ *
+ * <p>SQLiteStatement only returns single values, so the lookup reuses a constant query string
+ * instead; the connection's prepared-statement cache then finds it already compiled.
+ *
+ * <p>One set of statements is shared. Each write runs in its own transaction, or joins the
+ * caller's, so it holds the database's single writer connection before it touches them; calls
+ * are then serialized without a lock that could be taken in the opposite order.
+ */
+public class TaskStatements {
+
+    // The bound columns, in parameter order
+    private static final String[] COLUMNS = {
+            TaskContract.TaskEntry.COLUMN_TITLE,
+            TaskContract.TaskEntry.COLUMN_DESCRIPTION,
+            TaskContract.TaskEntry.COLUMN_DATE,
+            TaskContract.TaskEntry.COLUMN_TIME,
+            TaskContract.TaskEntry.COLUMN_PRIORITY,
+            TaskContract.TaskEntry.COLUMN_HAS_ALARM,
+            TaskContract.TaskEntry.COLUMN_DUE_AT,
+            TaskContract.TaskEntry.COLUMN_COMPLETED_AT,
+            TaskContract.TaskEntry.COLUMN_RECURRENCE,
+            TaskContract.TaskEntry.COLUMN_RECURRENCE_START
+    };
+
+    static final String SQL_INSERT = insertSql();
+    static final String SQL_UPDATE_BY_ID = updateSql();
+    static final String SQL_DELETE_BY_ID = "DELETE FROM " + TaskContract.TaskEntry.TABLE_NAME +
+            " WHERE " + TaskContract.TaskEntry._ID + " = ?";
+    static final String SQL_SELECT_BY_ID = selectSql();
+
+    private final TaskDbHelper dbHelper;
+
+    // Compiled against this database, recompiled if the helper opens a new one. Only touched
+    // while holding the writer connection.
+    private SQLiteDatabase compiledFor;
+    private SQLiteStatement insert;
+    private SQLiteStatement updateById;
+    private SQLiteStatement deleteById;
+
+    public TaskStatements(TaskDbHelper dbHelper) {
+        this.dbHelper = dbHelper;
+    }
+
+    /** Inserts {@code task} and returns the new row id, or -1 on failure. Does not set the id. */
+    @WorkerThread
+    public long insert(Task task) {
+        SQLiteDatabase db = begin();
+        try {
+            bind(insert, task);
+            long id = insert.executeInsert();
+            db.setTransactionSuccessful();
+            return id;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /** Writes every field of {@code task} over row {@code task.getId()} and returns the rows changed. */
+    @WorkerThread
+    public int update(Task task) {
+        SQLiteDatabase db = begin();
+        try {
+            bind(updateById, task);
+            updateById.bindLong(COLUMNS.length + 1, task.getId());
+            int rows = updateById.executeUpdateDelete();
+            db.setTransactionSuccessful();
+            return rows;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    @WorkerThread
+    public int delete(int id) {
+        SQLiteDatabase db = begin();
+        try {
+            deleteById.clearBindings();
+            deleteById.bindLong(1, id);
+            int rows = deleteById.executeUpdateDelete();
+            db.setTransactionSuccessful();
+            return rows;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /** Every column of task {@code id}, or null when there is no such row. */
+    @WorkerThread
+    @Nullable
+    public Task select(int id) {
+        Cursor cursor = dbHelper.getReadableDatabase().rawQuery(SQL_SELECT_BY_ID, new String[]{String.valueOf(id)});
+        try {
+            return TaskCursorMapper.FULL.mapFirst(cursor);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /** Releases the compiled statements; the next write compiles them again. */
+    public void close() {
+        SQLiteDatabase db = compiledFor;
+        if (db == null) {
+            return;
+        }
+        db.beginTransactionNonExclusive();
+        try {
+            release();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // Starts the write's transaction and makes sure the statements belong to its database
+    private SQLiteDatabase begin() {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        db.beginTransactionNonExclusive();
+        if (db != compiledFor) {
+            try {
+                release();
+                insert = db.compileStatement(SQL_INSERT);
+                updateById = db.compileStatement(SQL_UPDATE_BY_ID);
+                deleteById = db.compileStatement(SQL_DELETE_BY_ID);
+                compiledFor = db;
+            } catch (RuntimeException e) {
+                db.endTransaction();
+                throw e;
+            }
+        }
+        return db;
+    }
+
+    private void release() {
+        if (compiledFor != null) {
+            insert.close();
+            updateById.close();
+            deleteById.close();
+            compiledFor = null;
+        }
+    }
+
+    private static void bind(SQLiteStatement statement, Task task) {
+        statement.clearBindings();
+        statement.bindString(1, task.getTitle());
+        bindNullable(statement, 2, task.getDescription());
+        bindNullable(statement, 3, task.getDate());
+        bindNullable(statement, 4, task.getTime());
+        statement.bindLong(5, task.getPriority());
+        statement.bindLong(6, task.isHasAlarm() ? 1 : 0);
+        if (task.hasDueAt()) {
+            statement.bindLong(7, task.getDueAt());
+        }
+        if (task.isCompleted()) {
+            statement.bindLong(8, task.getCompletedAt());
+        }
+        bindNullable(statement, 9, task.getRecurrence());
+        bindNullable(statement, 10, task.getRecurrenceStart());
+    }
+
+    // Unbound parameters are NULL after clearBindings()
+    private static void bindNullable(SQLiteStatement statement, int index, @Nullable String value) {
+        if (value != null) {
+            statement.bindString(index, value);
+        }
+    }
+
+    private static String insertSql() {
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(TaskContract.TaskEntry.TABLE_NAME).append(" (");
+        StringBuilder values = new StringBuilder(") VALUES (");
+        for (int i = 0; i < COLUMNS.length; i++) {
+            sql.append(i == 0 ? "" : ", ").append(COLUMNS[i]);
+            values.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(values).append(')').toString();
+    }
+
+    private static String selectSql() {
+        String[] projection = TaskCursorMapper.FULL.getProjection();
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (int i = 0; i < projection.length; i++) {
+            sql.append(i == 0 ? "" : ", ").append(projection[i]);
+        }
+        return sql.append(" FROM ").append(TaskContract.TaskEntry.TABLE_NAME)
+                .append(" WHERE ").append(TaskContract.TaskEntry._ID).append(" = ?").toString();
+    }
+
+    private static String updateSql() {
+        StringBuilder sql = new StringBuilder("UPDATE ").append(TaskContract.TaskEntry.TABLE_NAME).append(" SET ");
+        for (int i = 0; i < COLUMNS.length; i++) {
+            sql.append(i == 0 ? "" : ", ").append(COLUMNS[i]).append(" = ?");
+        }
+        return sql.append(" WHERE ").append(TaskContract.TaskEntry._ID).append(" = ?").toString();
+    }
+}
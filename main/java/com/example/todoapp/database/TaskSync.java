@@ -0,0 +1,347 @@
+package com.example.todoapp.data;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.WorkerThread;
+
+import com.example.todoapp.model.Task;
+import com.example.todoapp.util.TaskDateFormatter;
+
+import java.io.IOException;
+
+/**
+ * Keeps tasks in step with a {@link TaskSyncBackend}, so several devices see the same list.
+ * Works offline first: every local write is recorded by TaskDbHelper's triggers in
+ * {@link TaskContract.TaskSyncEntry} as it happens, and a sync sends only the rows changed since
+ * the last push, then applies only the changes made elsewhere since the last pull.
+ *
+ * <p>Both directions move {@code batchSize} records per round trip, read from a cursor or a
+ * {@link TaskSyncBatch} one record at a time, so memory stays flat however many rows changed.
+ * Each pulled batch is applied in one transaction together with the token after it, so an
+ * interrupted sync picks up after the last batch that committed.
+ *
+ * <p>Conflicts resolve field by field, latest stamp wins; see {@link TaskSyncRecord}. Stamps come
+ * from a clock in {@link TaskContract.SyncStateEntry} that never falls behind wall time nor any
+ * stamp pulled in, so an edit made after seeing another device's always wins over it.
+ * Skipped and moved occurrences of recurring tasks stay on the device they were made on.
+ */
+public class TaskSync {
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    /** How many records a sync sent, and how many pulled changes it applied. */
+    public static final class Result {
+        private final int pushed;
+        private final int pulled;
+
+        Result(int pushed, int pulled) {
+            this.pushed = pushed;
+            this.pulled = pulled;
+        }
+
+        public int getPushed() { return pushed; }
+
+        public int getPulled() { return pulled; }
+    }
+
+    private static final String[] VALUE_COLUMNS = {
+            TaskContract.TaskEntry.COLUMN_TITLE,
+            TaskContract.TaskEntry.COLUMN_DESCRIPTION,
+            TaskContract.TaskEntry.COLUMN_DATE,
+            TaskContract.TaskEntry.COLUMN_TIME,
+            TaskContract.TaskEntry.COLUMN_PRIORITY,
+            TaskContract.TaskEntry.COLUMN_HAS_ALARM,
+            TaskContract.TaskEntry.COLUMN_COMPLETED_AT,
+            TaskContract.TaskEntry.COLUMN_RECURRENCE,
+            TaskContract.TaskEntry.COLUMN_RECURRENCE_START
+    };
+
+    // Positions in SQL_SELECT
+    private static final int TASK_ID = 0;
+    private static final int UID = 1;
+    private static final int VERSION = 2;
+    private static final int DELETED = 3;
+    private static final int STAMPS = 4;
+    private static final int IN_TASKS = STAMPS + TaskSyncRecord.FIELD_COUNT;
+    private static final int IN_ARCHIVE = IN_TASKS + 1;
+    private static final int VALUES = IN_ARCHIVE + 1;
+
+    // A task's sync row with its values from whichever table holds it; none for a tombstone
+    private static final String SQL_SELECT = "SELECT s." +
+            TaskContract.TaskSyncEntry.COLUMN_TASK_ID + ", s." +
+            TaskContract.TaskSyncEntry.COLUMN_UID + ", s." +
+            TaskContract.TaskSyncEntry.COLUMN_VERSION + ", s." +
+            TaskContract.TaskSyncEntry.COLUMN_DELETED + ", " +
+            prefixed("s.", TaskDbHelper.SYNC_STAMP_COLUMNS) + ", t." +
+            TaskContract.TaskEntry._ID + ", a." +
+            TaskContract.TaskEntry._ID + ", " +
+            fromEitherTable(VALUE_COLUMNS) + " FROM " +
+            TaskContract.TaskSyncEntry.TABLE_NAME + " s LEFT JOIN " +
+            TaskContract.TaskEntry.TABLE_NAME + " t ON t." + TaskContract.TaskEntry._ID + " = s." +
+            TaskContract.TaskSyncEntry.COLUMN_TASK_ID + " LEFT JOIN " +
+            TaskContract.TaskArchiveEntry.TABLE_NAME + " a ON a." + TaskContract.TaskEntry._ID + " = s." +
+            TaskContract.TaskSyncEntry.COLUMN_TASK_ID + " WHERE ";
+
+    private static final String SQL_STATE = "SELECT %s FROM " + TaskContract.SyncStateEntry.TABLE_NAME;
+
+    private final TaskDbHelper dbHelper;
+    private final TaskDateFormatter dateFormatter;
+
+    public TaskSync(TaskDbHelper dbHelper, TaskDateFormatter dateFormatter) {
+        this.dbHelper = dbHelper;
+        this.dateFormatter = dateFormatter;
+    }
+
+    /** Pushes local changes, then pulls everyone else's. */
+    @WorkerThread
+    public Result sync(TaskSyncBackend backend, int batchSize) throws IOException {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+        }
+        int pushed = push(backend, batchSize);
+        int pulled = pull(backend, batchSize);
+        return new Result(pushed, pulled);
+    }
+
+    /** Sends every row changed since the last push, oldest change first, and returns how many. */
+    @WorkerThread
+    int push(TaskSyncBackend backend, int batchSize) throws IOException {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        int pushed = 0;
+        while (true) {
+            long pushedVersion = DatabaseUtils.longForQuery(db,
+                    String.format(SQL_STATE, TaskContract.SyncStateEntry.COLUMN_PUSHED_VERSION), null);
+            TaskSyncBatch.Writer batch = new TaskSyncBatch.Writer(null, false);
+            long version = pushedVersion;
+            Cursor cursor = db.rawQuery(SQL_SELECT + "s." + TaskContract.TaskSyncEntry.COLUMN_VERSION + " > ? ORDER BY s." +
+                    TaskContract.TaskSyncEntry.COLUMN_VERSION + " LIMIT " + batchSize,
+                    new String[]{String.valueOf(pushedVersion)});
+            try {
+                while (cursor.moveToNext()) {
+                    batch.write(toRecord(cursor));
+                    version = cursor.getLong(VERSION);
+                }
+            } finally {
+                cursor.close();
+            }
+            int count = batch.getCount();
+            if (count == 0) {
+                return pushed;
+            }
+
+            backend.push(batch.finish());
+            // A row changed while its batch was out has a version above every one sent, so it goes next
+            db.execSQL("UPDATE " + TaskContract.SyncStateEntry.TABLE_NAME + " SET " +
+                    TaskContract.SyncStateEntry.COLUMN_PUSHED_VERSION + " = MAX(" +
+                    TaskContract.SyncStateEntry.COLUMN_PUSHED_VERSION + ", ?)", new Object[]{version});
+            pushed += count;
+            if (count < batchSize) {
+                return pushed;
+            }
+        }
+    }
+
+    /** Applies every change the backend has after the last pull and returns how many changed a task. */
+    @WorkerThread
+    int pull(TaskSyncBackend backend, int batchSize) throws IOException {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        String token = DatabaseUtils.stringForQuery(db,
+                String.format(SQL_STATE, TaskContract.SyncStateEntry.COLUMN_PULL_TOKEN), null);
+        int pulled = 0;
+        boolean more;
+        do {
+            TaskSyncBatch.Reader batch = new TaskSyncBatch.Reader(backend.pull(token, batchSize));
+            int count = 0;
+            long maxStamp = 0;
+            db.beginTransactionNonExclusive();
+            try {
+                setTracking(db, false);
+                TaskSyncRecord record;
+                while ((record = batch.next()) != null) {
+                    if (apply(db, record)) {
+                        pulled++;
+                    }
+                    maxStamp = Math.max(maxStamp, record.getMaxStamp());
+                    count++;
+                }
+                if (batch.getToken() != null) {
+                    token = batch.getToken();
+                }
+                // Local writes from here on stamp after every change seen, even on a clock running behind
+                db.execSQL("UPDATE " + TaskContract.SyncStateEntry.TABLE_NAME + " SET " +
+                        TaskContract.SyncStateEntry.COLUMN_CLOCK + " = MAX(" +
+                        TaskContract.SyncStateEntry.COLUMN_CLOCK + ", ?), " +
+                        TaskContract.SyncStateEntry.COLUMN_PULL_TOKEN + " = ?", new Object[]{maxStamp, token});
+                setTracking(db, true);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            // An empty batch that claims more would never get anywhere
+            more = batch.hasMore() && count > 0;
+        } while (more);
+        return pulled;
+    }
+
+    /**
+     * Turns the sync triggers off or back on. Only for writes that are not local edits, inside
+     * the transaction making them, turning them back on before it commits.
+     */
+    static void setTracking(SQLiteDatabase db, boolean tracking) {
+        db.execSQL("UPDATE " + TaskContract.SyncStateEntry.TABLE_NAME + " SET " +
+                TaskContract.SyncStateEntry.COLUMN_TRACKING + " = " + (tracking ? 1 : 0));
+    }
+
+    // Merges remote into the local task and writes whatever it took; false when nothing changed
+    private boolean apply(SQLiteDatabase db, TaskSyncRecord remote) throws IOException {
+        TaskSyncRecord local = null;
+        long taskId = 0;
+        boolean inTasks = false;
+        boolean inArchive = false;
+        Cursor cursor = db.rawQuery(SQL_SELECT + "s." + TaskContract.TaskSyncEntry.COLUMN_UID + " = ?",
+                new String[]{remote.getUid()});
+        try {
+            if (cursor.moveToFirst()) {
+                local = toRecord(cursor);
+                taskId = cursor.getLong(TASK_ID);
+                inTasks = !cursor.isNull(IN_TASKS);
+                inArchive = !cursor.isNull(IN_ARCHIVE);
+            }
+        } finally {
+            cursor.close();
+        }
+
+        if (local == null) {
+            if (remote.isDeleted()) {
+                return false;
+            }
+            checkValues(remote);
+            taskId = db.insertOrThrow(TaskContract.TaskEntry.TABLE_NAME, null, toValues(remote));
+            ContentValues sync = toSyncValues(remote);
+            sync.put(TaskContract.TaskSyncEntry.COLUMN_TASK_ID, taskId);
+            sync.put(TaskContract.TaskSyncEntry.COLUMN_UID, remote.getUid());
+            sync.put(TaskContract.TaskSyncEntry.COLUMN_VERSION, 0);
+            db.insertOrThrow(TaskContract.TaskSyncEntry.TABLE_NAME, null, sync);
+            return true;
+        }
+
+        int taken = local.mergeFrom(remote, true);
+        if (taken == 0) {
+            return false;
+        }
+        String[] idArgs = {String.valueOf(taskId)};
+        boolean present = inTasks || inArchive;
+        if (!local.isDeleted() && !present) {
+            // Brought back after a delete: nothing of this device's is left to keep
+            local.copyFrom(remote);
+            taken = (1 << TaskSyncRecord.FIELD_COUNT) - 1;
+        }
+        if (local.isDeleted()) {
+            if (present) {
+                db.delete(inTasks ? TaskContract.TaskEntry.TABLE_NAME : TaskContract.TaskArchiveEntry.TABLE_NAME,
+                        TaskContract.TaskEntry._ID + " = ?", idArgs);
+            }
+        } else {
+            checkValues(local);
+            ContentValues values = toValues(local);
+            if (inTasks) {
+                db.update(TaskContract.TaskEntry.TABLE_NAME, values, TaskContract.TaskEntry._ID + " = ?", idArgs);
+            } else {
+                // Changed elsewhere, so back in the list; the archiver moves it again if it is still old and done
+                if (inArchive) {
+                    db.delete(TaskContract.TaskArchiveEntry.TABLE_NAME, TaskContract.TaskEntry._ID + " = ?", idArgs);
+                }
+                values.put(TaskContract.TaskEntry._ID, taskId);
+                db.insertOrThrow(TaskContract.TaskEntry.TABLE_NAME, null, values);
+            }
+            if ((taken & (1 << TaskSyncRecord.RECURRENCE)) != 0) {
+                // Exceptions belong to the rule they were made under
+                TaskRecurrence.clearExceptions(db, (int) taskId);
+            }
+        }
+        db.update(TaskContract.TaskSyncEntry.TABLE_NAME, toSyncValues(local),
+                TaskContract.TaskSyncEntry.COLUMN_TASK_ID + " = ?", idArgs);
+        return true;
+    }
+
+    private static TaskSyncRecord toRecord(Cursor cursor) {
+        TaskSyncRecord record = new TaskSyncRecord(cursor.getString(UID));
+        if (!cursor.isNull(IN_TASKS) || !cursor.isNull(IN_ARCHIVE)) {
+            record.setTitle(cursor.getString(VALUES), stamp(cursor, TaskSyncRecord.TITLE));
+            record.setDescription(cursor.getString(VALUES + 1), stamp(cursor, TaskSyncRecord.DESCRIPTION));
+            record.setDate(cursor.getString(VALUES + 2), cursor.getString(VALUES + 3), stamp(cursor, TaskSyncRecord.DATE));
+            record.setPriority(cursor.getInt(VALUES + 4), stamp(cursor, TaskSyncRecord.PRIORITY));
+            record.setHasAlarm(cursor.getInt(VALUES + 5) == 1, stamp(cursor, TaskSyncRecord.ALARM));
+            record.setCompletedAt(cursor.isNull(VALUES + 6) ? Task.NOT_COMPLETED : cursor.getLong(VALUES + 6),
+                    stamp(cursor, TaskSyncRecord.COMPLETED));
+            record.setRecurrence(cursor.getString(VALUES + 7), cursor.getString(VALUES + 8),
+                    stamp(cursor, TaskSyncRecord.RECURRENCE));
+        }
+        record.setDeleted(cursor.getInt(DELETED) == 1, stamp(cursor, TaskSyncRecord.DELETED));
+        return record;
+    }
+
+    private static long stamp(Cursor cursor, int field) {
+        return cursor.getLong(STAMPS + field);
+    }
+
+    private static void checkValues(TaskSyncRecord record) throws IOException {
+        if (record.getTitle() == null || record.getPriority() < 1 || record.getPriority() > 3) {
+            throw new IOException("Invalid sync record: " + record.getUid());
+        }
+    }
+
+    private ContentValues toValues(TaskSyncRecord record) {
+        ContentValues values = new ContentValues();
+        values.put(TaskContract.TaskEntry.COLUMN_TITLE, record.getTitle());
+        values.put(TaskContract.TaskEntry.COLUMN_DESCRIPTION, record.getDescription());
+        values.put(TaskContract.TaskEntry.COLUMN_DATE, record.getDate());
+        values.put(TaskContract.TaskEntry.COLUMN_TIME, record.getTime());
+        values.put(TaskContract.TaskEntry.COLUMN_PRIORITY, record.getPriority());
+        values.put(TaskContract.TaskEntry.COLUMN_HAS_ALARM, record.isHasAlarm() ? 1 : 0);
+        long dueAt = dateFormatter.toDueAt(record.getDate(), record.getTime());
+        if (dueAt != Task.NO_DUE_AT) {
+            values.put(TaskContract.TaskEntry.COLUMN_DUE_AT, dueAt);
+        } else {
+            values.putNull(TaskContract.TaskEntry.COLUMN_DUE_AT);
+        }
+        if (record.getCompletedAt() != Task.NOT_COMPLETED) {
+            values.put(TaskContract.TaskEntry.COLUMN_COMPLETED_AT, record.getCompletedAt());
+        } else {
+            values.putNull(TaskContract.TaskEntry.COLUMN_COMPLETED_AT);
+        }
+        values.put(TaskContract.TaskEntry.COLUMN_RECURRENCE, record.getRecurrence());
+        values.put(TaskContract.TaskEntry.COLUMN_RECURRENCE_START, record.getRecurrenceStart());
+        return values;
+    }
+
+    private static ContentValues toSyncValues(TaskSyncRecord record) {
+        ContentValues values = new ContentValues();
+        values.put(TaskContract.TaskSyncEntry.COLUMN_DELETED, record.isDeleted() ? 1 : 0);
+        for (int field = 0; field < TaskSyncRecord.FIELD_COUNT; field++) {
+            values.put(TaskDbHelper.SYNC_STAMP_COLUMNS[field], record.getStamp(field));
+        }
+        return values;
+    }
+
+    private static String prefixed(String prefix, String[] columns) {
+        StringBuilder sql = new StringBuilder();
+        for (String column : columns) {
+            sql.append(sql.length() == 0 ? "" : ", ").append(prefix).append(column);
+        }
+        return sql.toString();
+    }
+
+    // A task is in tasks or in tasks_archive, never both
+    private static String fromEitherTable(String[] columns) {
+        StringBuilder sql = new StringBuilder();
+        for (String column : columns) {
+            sql.append(sql.length() == 0 ? "" : ", ")
+                    .append("IFNULL(t.").append(column).append(", a.").append(column).append(')');
+        }
+        return sql.toString();
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.todoapp.data;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.IOException;
+
+/**
+ * Where {@link TaskSync} sends local changes and gets everyone else's. Batches are
+ * {@link TaskSyncBatch}es. The backend keeps one merged record per uid, merged field by field
+ * with {@link TaskSyncRecord#mergeFrom} keeping its own value on equal stamps, and numbers
+ * records as they change so a pull can ask for everything after a token.
+ */
+public interface TaskSyncBackend {
+
+    /** Merges every record in {@code batch} into the backend's. */
+    @WorkerThread
+    void push(byte[] batch) throws IOException;
+
+    /**
+     * Up to {@code limit} records changed after {@code token}, or since the start when it is
+     * null, oldest change first. The batch's header holds the token to pass next and whether
+     * more records are waiting after it.
+     */
+    @WorkerThread
+    byte[] pull(@Nullable String token, int limit) throws IOException;
+}
@@ -0,0 +1,95 @@
+package com.example.todoapp.data;
+
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * What one push sends or one pull returns: a header with the backend's token and whether more
+ * changes are waiting, then {@link TaskSyncRecord}s, gzip-compressed as a whole. Both ends
+ * write and read it a record at a time, so a batch costs its compressed bytes plus one record.
+ * A pushed batch leaves the header's token null.
+ */
+public final class TaskSyncBatch {
+
+    // "TSB" and a format version
+    private static final int MAGIC = 0x54534201;
+
+    private TaskSyncBatch() {}
+
+    public static final class Writer {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out;
+        private int count;
+
+        public Writer(@Nullable String token, boolean more) throws IOException {
+            out = new DataOutputStream(new GZIPOutputStream(bytes));
+            out.writeInt(MAGIC);
+            TaskSyncRecord.writeString(out, token);
+            out.writeBoolean(more);
+        }
+
+        public void write(TaskSyncRecord record) throws IOException {
+            out.writeBoolean(true);
+            record.write(out);
+            count++;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        /** Ends the batch and returns it; the writer takes no more records. */
+        public byte[] finish() throws IOException {
+            out.writeBoolean(false);
+            out.close();
+            return bytes.toByteArray();
+        }
+    }
+
+    public static final class Reader {
+        private final DataInputStream in;
+        private final String token;
+        private final boolean more;
+        private boolean done;
+
+        public Reader(byte[] batch) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new ByteArrayInputStream(batch))));
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a sync batch");
+            }
+            token = TaskSyncRecord.readString(in);
+            more = in.readBoolean();
+        }
+
+        /** The token to pull from next, or null when the backend sent none. */
+        @Nullable
+        public String getToken() {
+            return token;
+        }
+
+        public boolean hasMore() {
+            return more;
+        }
+
+        /** The next record, or null after the last. */
+        @Nullable
+        public TaskSyncRecord next() throws IOException {
+            if (done) {
+                return null;
+            }
+            if (!in.readBoolean()) {
+                done = true;
+                return null;
+            }
+            return TaskSyncRecord.read(in);
+        }
+    }
+}
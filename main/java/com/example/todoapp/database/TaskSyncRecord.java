@@ -0,0 +1,278 @@
+package com.example.todoapp.data;
+
+import androidx.annotation.Nullable;
+
+import com.example.todoapp.model.Task;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * One task as sync exchanges it: every synced field, each with the clock stamp of the write
+ * that last set it. {@link #mergeFrom} takes each field from whichever side wrote it last, so
+ * edits made to different fields on different devices both survive.
+ *
+ * <p>Date and time travel as one field, as do a recurrence rule and its start. due_at does not
+ * travel at all; each device derives it from date and time in its own time zone. Deletion is a
+ * field of its own, so a delete on one device and an edit on another do not undo each other.
+ * A deleted record may carry no values, with its other stamps at 0.
+ */
+public final class TaskSyncRecord {
+
+    public static final int TITLE = 0;
+    public static final int DESCRIPTION = 1;
+    public static final int DATE = 2;
+    public static final int PRIORITY = 3;
+    public static final int ALARM = 4;
+    public static final int COMPLETED = 5;
+    public static final int RECURRENCE = 6;
+    public static final int DELETED = 7;
+    public static final int FIELD_COUNT = 8;
+
+    // Far beyond any real title or description; a longer length means a corrupt batch
+    private static final int MAX_STRING_BYTES = 1 << 20;
+
+    private final String uid;
+    private String title;
+    private String description;
+    private String date;
+    private String time;
+    private int priority = 1;
+    private boolean hasAlarm;
+    private long completedAt = Task.NOT_COMPLETED;
+    private String recurrence;
+    private String recurrenceStart;
+    private boolean deleted;
+    private final long[] stamps = new long[FIELD_COUNT];
+
+    public TaskSyncRecord(String uid) {
+        this.uid = uid;
+    }
+
+    public String getUid() { return uid; }
+
+    public String getTitle() { return title; }
+
+    public String getDescription() { return description; }
+
+    public String getDate() { return date; }
+
+    public String getTime() { return time; }
+
+    public int getPriority() { return priority; }
+
+    public boolean isHasAlarm() { return hasAlarm; }
+
+    public long getCompletedAt() { return completedAt; }
+
+    public String getRecurrence() { return recurrence; }
+
+    public String getRecurrenceStart() { return recurrenceStart; }
+
+    public boolean isDeleted() { return deleted; }
+
+    public long getStamp(int field) { return stamps[field]; }
+
+    public void setTitle(String title, long stamp) {
+        this.title = title;
+        stamps[TITLE] = stamp;
+    }
+
+    public void setDescription(@Nullable String description, long stamp) {
+        this.description = description;
+        stamps[DESCRIPTION] = stamp;
+    }
+
+    public void setDate(@Nullable String date, @Nullable String time, long stamp) {
+        this.date = date;
+        this.time = time;
+        stamps[DATE] = stamp;
+    }
+
+    public void setPriority(int priority, long stamp) {
+        this.priority = priority;
+        stamps[PRIORITY] = stamp;
+    }
+
+    public void setHasAlarm(boolean hasAlarm, long stamp) {
+        this.hasAlarm = hasAlarm;
+        stamps[ALARM] = stamp;
+    }
+
+    public void setCompletedAt(long completedAt, long stamp) {
+        this.completedAt = completedAt;
+        stamps[COMPLETED] = stamp;
+    }
+
+    public void setRecurrence(@Nullable String recurrence, @Nullable String recurrenceStart, long stamp) {
+        this.recurrence = recurrence;
+        this.recurrenceStart = recurrenceStart;
+        stamps[RECURRENCE] = stamp;
+    }
+
+    public void setDeleted(boolean deleted, long stamp) {
+        this.deleted = deleted;
+        stamps[DELETED] = stamp;
+    }
+
+    /** The latest stamp on any field. */
+    public long getMaxStamp() {
+        long max = stamps[0];
+        for (long stamp : stamps) {
+            max = Math.max(max, stamp);
+        }
+        return max;
+    }
+
+    /**
+     * Takes every field {@code other} wrote later, and returns them as a bit per field, 0 when
+     * nothing was taken. On equal stamps the field is taken only if {@code takeTies} and its
+     * value differs, so the side that breaks ties decides and both end up the same.
+     */
+    public int mergeFrom(TaskSyncRecord other, boolean takeTies) {
+        if (!uid.equals(other.uid)) {
+            throw new IllegalArgumentException("Invalid merge: " + uid + " with " + other.uid);
+        }
+        int taken = 0;
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            long stamp = other.stamps[field];
+            if (stamp > stamps[field] || (takeTies && stamp == stamps[field] && !sameValue(other, field))) {
+                copyField(other, field);
+                taken |= 1 << field;
+            }
+        }
+        return taken;
+    }
+
+    /** Takes every field of {@code other} as it is, stamps included. */
+    public void copyFrom(TaskSyncRecord other) {
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            copyField(other, field);
+        }
+    }
+
+    private void copyField(TaskSyncRecord other, int field) {
+        switch (field) {
+            case TITLE:
+                title = other.title;
+                break;
+            case DESCRIPTION:
+                description = other.description;
+                break;
+            case DATE:
+                date = other.date;
+                time = other.time;
+                break;
+            case PRIORITY:
+                priority = other.priority;
+                break;
+            case ALARM:
+                hasAlarm = other.hasAlarm;
+                break;
+            case COMPLETED:
+                completedAt = other.completedAt;
+                break;
+            case RECURRENCE:
+                recurrence = other.recurrence;
+                recurrenceStart = other.recurrenceStart;
+                break;
+            case DELETED:
+                deleted = other.deleted;
+                break;
+            default:
+                throw new AssertionError(field);
+        }
+        stamps[field] = other.stamps[field];
+    }
+
+    private boolean sameValue(TaskSyncRecord other, int field) {
+        switch (field) {
+            case TITLE:
+                return Objects.equals(title, other.title);
+            case DESCRIPTION:
+                return Objects.equals(description, other.description);
+            case DATE:
+                return Objects.equals(date, other.date) && Objects.equals(time, other.time);
+            case PRIORITY:
+                return priority == other.priority;
+            case ALARM:
+                return hasAlarm == other.hasAlarm;
+            case COMPLETED:
+                return completedAt == other.completedAt;
+            case RECURRENCE:
+                return Objects.equals(recurrence, other.recurrence)
+                        && Objects.equals(recurrenceStart, other.recurrenceStart);
+            case DELETED:
+                return deleted == other.deleted;
+            default:
+                throw new AssertionError(field);
+        }
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        writeString(out, uid);
+        writeString(out, title);
+        writeString(out, description);
+        writeString(out, date);
+        writeString(out, time);
+        out.writeByte(priority);
+        out.writeBoolean(hasAlarm);
+        out.writeLong(completedAt);
+        writeString(out, recurrence);
+        writeString(out, recurrenceStart);
+        out.writeBoolean(deleted);
+        for (long stamp : stamps) {
+            out.writeLong(stamp);
+        }
+    }
+
+    static TaskSyncRecord read(DataInputStream in) throws IOException {
+        String uid = readString(in);
+        if (uid == null) {
+            throw new IOException("Sync record without a uid");
+        }
+        TaskSyncRecord record = new TaskSyncRecord(uid);
+        record.title = readString(in);
+        record.description = readString(in);
+        record.date = readString(in);
+        record.time = readString(in);
+        record.priority = in.readByte();
+        record.hasAlarm = in.readBoolean();
+        record.completedAt = in.readLong();
+        record.recurrence = readString(in);
+        record.recurrenceStart = readString(in);
+        record.deleted = in.readBoolean();
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            record.stamps[field] = in.readLong();
+        }
+        return record;
+    }
+
+    // Length-prefixed UTF-8, -1 for null; unlike writeUTF, not limited to 64 KB
+    static void writeString(DataOutputStream out, @Nullable String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Nullable
+    static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < -1 || length > MAX_STRING_BYTES) {
+            throw new IOException("Invalid string length: " + length);
+        }
+        if (length == -1) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,451 @@
+package com.example.todoapp.data;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.annotation.WorkerThread;
+
+import com.example.todoapp.model.RecurrenceRule;
+import com.example.todoapp.model.Task;
+import com.example.todoapp.util.TaskDateFormatter;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk import and export of tasks as JSON Lines or CSV.
+ *
+ * <p>Import reads one record at a time and inserts through a single compiled statement,
+ * committing every {@code batchSize} rows, so a large file costs one journal sync per batch
+ * instead of one per row. If a record is malformed, the batch it falls in is rolled back and
+ * earlier batches stay imported. Export walks a cursor and writes as it goes.
+ *
+ * <p>Both formats carry the same fields: title, description, date (yyyy-MM-dd), time (HH:mm),
+ * priority, has_alarm, completed_at (epoch millis, null while open), recurrence (an RRULE) and
+ * recurrence_start (yyyy-MM-dd, the series' first occurrence; the task's date when absent).
+ * Ids are not exported; imported tasks get new ones. Skipped and moved occurrences stay behind.
+ */
+public class TaskTransfer {
+
+    public enum Format {
+        JSON_LINES,
+        CSV
+    }
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static final String[] COLUMNS = {
+            TaskContract.TaskEntry.COLUMN_TITLE,
+            TaskContract.TaskEntry.COLUMN_DESCRIPTION,
+            TaskContract.TaskEntry.COLUMN_DATE,
+            TaskContract.TaskEntry.COLUMN_TIME,
+            TaskContract.TaskEntry.COLUMN_PRIORITY,
+            TaskContract.TaskEntry.COLUMN_HAS_ALARM,
+            TaskContract.TaskEntry.COLUMN_COMPLETED_AT,
+            TaskContract.TaskEntry.COLUMN_RECURRENCE,
+            TaskContract.TaskEntry.COLUMN_RECURRENCE_START
+    };
+
+    // Positions in COLUMNS and in every record
+    private static final int TITLE = 0;
+    private static final int DESCRIPTION = 1;
+    private static final int DATE = 2;
+    private static final int TIME = 3;
+    private static final int PRIORITY = 4;
+    private static final int HAS_ALARM = 5;
+    private static final int COMPLETED_AT = 6;
+    private static final int RECURRENCE = 7;
+    private static final int RECURRENCE_START = 8;
+
+    private static final String SQL_INSERT = "INSERT INTO " + TaskContract.TaskEntry.TABLE_NAME + " (" +
+            TaskContract.TaskEntry.COLUMN_TITLE + ", " +
+            TaskContract.TaskEntry.COLUMN_DESCRIPTION + ", " +
+            TaskContract.TaskEntry.COLUMN_DATE + ", " +
+            TaskContract.TaskEntry.COLUMN_TIME + ", " +
+            TaskContract.TaskEntry.COLUMN_PRIORITY + ", " +
+            TaskContract.TaskEntry.COLUMN_HAS_ALARM + ", " +
+            TaskContract.TaskEntry.COLUMN_DUE_AT + ", " +
+            TaskContract.TaskEntry.COLUMN_COMPLETED_AT + ", " +
+            TaskContract.TaskEntry.COLUMN_RECURRENCE + ", " +
+            TaskContract.TaskEntry.COLUMN_RECURRENCE_START + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final TaskDbHelper dbHelper;
+    private final TaskDateFormatter dateFormatter;
+
+    public TaskTransfer(TaskDbHelper dbHelper, TaskDateFormatter dateFormatter) {
+        this.dbHelper = dbHelper;
+        this.dateFormatter = dateFormatter;
+    }
+
+    /** Imports every record from {@code reader} and returns how many tasks were added. */
+    @WorkerThread
+    public int importTasks(Reader reader, Format format, int batchSize) throws IOException {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+        }
+
+        RecordReader records = format == Format.CSV
+                ? new CsvRecordReader(reader)
+                : new JsonLinesRecordReader(reader);
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        SQLiteStatement insert = db.compileStatement(SQL_INSERT);
+        int imported = 0;
+
+        try {
+            String[] record = records.next();
+            while (record != null) {
+                db.beginTransactionNonExclusive();
+                try {
+                    int inBatch = 0;
+                    while (record != null && inBatch < batchSize) {
+                        bind(insert, record, records.getRecordNumber());
+                        insert.executeInsert();
+                        inBatch++;
+                        record = records.next();
+                    }
+                    db.setTransactionSuccessful();
+                    imported += inBatch;
+                } finally {
+                    db.endTransaction();
+                }
+            }
+        } finally {
+            insert.close();
+        }
+        return imported;
+    }
+
+    /** Writes every task to {@code writer} in insertion order and returns how many were written. */
+    @WorkerThread
+    public int exportTasks(Writer writer, Format format) throws IOException {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+        Cursor cursor = db.query(
+                TaskContract.TaskEntry.TABLE_NAME,
+                COLUMNS,
+                null,
+                null,
+                null,
+                null,
+                TaskContract.TaskEntry._ID
+        );
+
+        int exported = 0;
+        try {
+            if (format == Format.CSV) {
+                writeCsvRecord(writer, COLUMNS);
+            }
+            String[] record = new String[COLUMNS.length];
+            while (cursor.moveToNext()) {
+                for (int i = 0; i < record.length; i++) {
+                    record[i] = cursor.getString(i);
+                }
+                if (format == Format.CSV) {
+                    writeCsvRecord(writer, record);
+                } else {
+                    writeJsonRecord(writer, record);
+                }
+                exported++;
+            }
+            writer.flush();
+        } finally {
+            cursor.close();
+        }
+        return exported;
+    }
+
+    // record holds the COLUMNS fields in order; null means the field was absent or empty.
+    private void bind(SQLiteStatement insert, String[] record, int recordNumber) throws IOException {
+        String title = record[TITLE];
+        if (title == null || title.trim().isEmpty()) {
+            throw new IOException("Record " + recordNumber + ": title is required");
+        }
+
+        String date = record[DATE];
+        String time = record[TIME];
+        long dueAt = dateFormatter.toDueAt(date, time);
+        if (date != null && dueAt == Task.NO_DUE_AT) {
+            throw new IOException("Record " + recordNumber + ": invalid date or time");
+        }
+
+        int priority;
+        try {
+            priority = record[PRIORITY] != null ? Integer.parseInt(record[PRIORITY].trim()) : 1;
+        } catch (NumberFormatException e) {
+            priority = 0;
+        }
+        if (priority < 1 || priority > 3) {
+            throw new IOException("Record " + recordNumber + ": priority must be 1, 2 or 3");
+        }
+
+        String hasAlarm = record[HAS_ALARM];
+        boolean alarm = "1".equals(hasAlarm) || "true".equalsIgnoreCase(hasAlarm);
+
+        long completedAt = Task.NOT_COMPLETED;
+        if (record[COMPLETED_AT] != null) {
+            try {
+                completedAt = Long.parseLong(record[COMPLETED_AT].trim());
+            } catch (NumberFormatException e) {
+                completedAt = -1;
+            }
+            if (completedAt < 0) {
+                throw new IOException("Record " + recordNumber + ": invalid completed_at");
+            }
+        }
+
+        String recurrence = null;
+        String recurrenceStart = null;
+        if (record[RECURRENCE] != null) {
+            try {
+                recurrence = RecurrenceRule.parse(record[RECURRENCE]).toString();
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Record " + recordNumber + ": " + e.getMessage(), e);
+            }
+            recurrenceStart = record[RECURRENCE_START] != null ? record[RECURRENCE_START] : date;
+            if (date == null || dateFormatter.toDueAt(recurrenceStart, null) == Task.NO_DUE_AT) {
+                throw new IOException("Record " + recordNumber + ": a recurring task needs a valid date");
+            }
+        }
+
+        insert.clearBindings();
+        insert.bindString(1, title);
+        bindNullable(insert, 2, record[DESCRIPTION]);
+        bindNullable(insert, 3, date);
+        bindNullable(insert, 4, time);
+        insert.bindLong(5, priority);
+        insert.bindLong(6, alarm ? 1 : 0);
+        if (dueAt != Task.NO_DUE_AT) {
+            insert.bindLong(7, dueAt);
+        }
+        if (completedAt != Task.NOT_COMPLETED) {
+            insert.bindLong(8, completedAt);
+        }
+        bindNullable(insert, 9, recurrence);
+        bindNullable(insert, 10, recurrenceStart);
+    }
+
+    private static void bindNullable(SQLiteStatement statement, int index, String value) {
+        if (value != null) {
+            statement.bindString(index, value);
+        }
+    }
+
+    private static void writeJsonRecord(Writer writer, String[] record) throws IOException {
+        writer.write('{');
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(JSONObject.quote(COLUMNS[i]));
+            writer.write(':');
+            if (record[i] == null) {
+                writer.write("null");
+            } else if (i == PRIORITY || i == COMPLETED_AT) {
+                writer.write(record[i]);
+            } else if (i == HAS_ALARM) {
+                writer.write("1".equals(record[i]) ? "true" : "false");
+            } else {
+                writer.write(JSONObject.quote(record[i]));
+            }
+        }
+        writer.write("}\n");
+    }
+
+    // RFC 4180 quoting. NULL is an empty field and an empty string is "", so both survive a round trip.
+    private static void writeCsvRecord(Writer writer, String[] record) throws IOException {
+        for (int i = 0; i < record.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = record[i];
+            if (value == null) {
+                continue;
+            }
+            if (value.isEmpty() || needsQuoting(value)) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private static boolean needsQuoting(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private interface RecordReader {
+        /** The next record's fields in COLUMNS order, or null at the end of input. */
+        String[] next() throws IOException;
+
+        int getRecordNumber();
+    }
+
+    private static final class JsonLinesRecordReader implements RecordReader {
+        private final BufferedReader reader;
+        private int recordNumber;
+
+        JsonLinesRecordReader(Reader reader) {
+            this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        }
+
+        @Override
+        public String[] next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+            } while (line.trim().isEmpty());
+            recordNumber++;
+
+            try {
+                JSONObject json = new JSONObject(line);
+                String[] record = new String[COLUMNS.length];
+                for (int i = 0; i < COLUMNS.length; i++) {
+                    if (!json.isNull(COLUMNS[i])) {
+                        record[i] = json.getString(COLUMNS[i]);
+                    }
+                }
+                return record;
+            } catch (JSONException e) {
+                throw new IOException("Record " + recordNumber + ": " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public int getRecordNumber() {
+            return recordNumber;
+        }
+    }
+
+    private static final class CsvRecordReader implements RecordReader {
+        private final Reader reader;
+        private final StringBuilder field = new StringBuilder();
+        private int[] columnOrder;
+        private int recordNumber;
+        private int peeked = -2;
+
+        CsvRecordReader(Reader reader) {
+            this.reader = reader instanceof BufferedReader ? reader : new BufferedReader(reader);
+        }
+
+        @Override
+        public String[] next() throws IOException {
+            if (columnOrder == null) {
+                readHeader();
+            }
+
+            List<String> fields = readFields();
+            if (fields == null) {
+                return null;
+            }
+            recordNumber++;
+
+            String[] record = new String[COLUMNS.length];
+            for (int i = 0; i < columnOrder.length && i < fields.size(); i++) {
+                if (columnOrder[i] >= 0) {
+                    record[columnOrder[i]] = fields.get(i);
+                }
+            }
+            return record;
+        }
+
+        @Override
+        public int getRecordNumber() {
+            return recordNumber;
+        }
+
+        // The header may list the known columns in any order; unknown columns are ignored.
+        private void readHeader() throws IOException {
+            List<String> header = readFields();
+            if (header == null) {
+                throw new IOException("CSV input has no header");
+            }
+            columnOrder = new int[header.size()];
+            for (int i = 0; i < header.size(); i++) {
+                columnOrder[i] = -1;
+                for (int column = 0; column < COLUMNS.length; column++) {
+                    if (COLUMNS[column].equals(header.get(i) != null ? header.get(i).trim() : null)) {
+                        columnOrder[i] = column;
+                    }
+                }
+            }
+        }
+
+        // One record, or null at end of input. Unquoted empty fields are null, quoted ones "".
+        private List<String> readFields() throws IOException {
+            int c = read();
+            while (c == '\r' || c == '\n') {
+                c = read();
+            }
+            if (c == -1) {
+                return null;
+            }
+
+            List<String> fields = new ArrayList<>();
+            while (true) {
+                field.setLength(0);
+                boolean quoted = false;
+                if (c == '"') {
+                    quoted = true;
+                    while (true) {
+                        c = read();
+                        if (c == -1) {
+                            throw new IOException("Record " + (recordNumber + 1) + ": unterminated quote");
+                        }
+                        if (c == '"') {
+                            c = read();
+                            if (c != '"') {
+                                break;
+                            }
+                        }
+                        field.append((char) c);
+                    }
+                }
+                while (c != ',' && c != '\n' && c != '\r' && c != -1) {
+                    field.append((char) c);
+                    c = read();
+                }
+                fields.add(quoted || field.length() > 0 ? field.toString() : null);
+
+                if (c == ',') {
+                    c = read();
+                    continue;
+                }
+                if (c == '\r') {
+                    int next = read();
+                    if (next != '\n') {
+                        peeked = next;
+                    }
+                }
+                return fields;
+            }
+        }
+
+        private int read() throws IOException {
+            if (peeked != -2) {
+                int c = peeked;
+                peeked = -2;
+                return c;
+            }
+            return reader.read();
+        }
+    }
+}
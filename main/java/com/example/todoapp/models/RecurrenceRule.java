@@ -0,0 +1,320 @@
+package com.example.todoapp.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * How a task repeats, in a subset of RFC 5545 RRULE syntax: {@code FREQ} (DAILY, WEEKLY, MONTHLY
+ * or YEARLY), {@code INTERVAL}, {@code BYDAY} for weekly rules, and either {@code COUNT} or
+ * {@code UNTIL} (yyyyMMdd). Only dates repeat; every occurrence keeps the task's time.
+ *
+ * <p>Occurrences are never stored. {@link #occurrences} expands them lazily from the series start,
+ * and for rules without a COUNT it jumps straight to the period holding the first date wanted,
+ * so looking at next month costs the same however long ago the series began. As in RFC 5545, a
+ * monthly rule on the 31st skips months that have no 31st, and a yearly rule on Feb 29 skips
+ * years that are not leap years.
+ */
+public final class RecurrenceRule {
+
+    public enum Frequency {
+        DAILY,
+        WEEKLY,
+        MONTHLY,
+        YEARLY
+    }
+
+    private static final DateTimeFormatter UNTIL_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd", Locale.US);
+    private static final String[] DAY_CODES = {"MO", "TU", "WE", "TH", "FR", "SA", "SU"};
+
+    private final Frequency frequency;
+    private final int interval;
+    // Weekly rules only; empty means the weekday of the series start
+    private final EnumSet<DayOfWeek> byDay;
+    private final int count;
+    private final LocalDate until;
+
+    public RecurrenceRule(Frequency frequency, int interval, Set<DayOfWeek> byDay, int count, LocalDate until) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Invalid interval: " + interval);
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("Invalid count: " + count);
+        }
+        if (!byDay.isEmpty() && frequency != Frequency.WEEKLY) {
+            throw new IllegalArgumentException("BYDAY is only supported for weekly rules");
+        }
+        this.frequency = frequency;
+        this.interval = interval;
+        this.byDay = byDay.isEmpty() ? EnumSet.noneOf(DayOfWeek.class) : EnumSet.copyOf(byDay);
+        this.count = count;
+        this.until = until;
+    }
+
+    /** Every {@code frequency}, with no end. */
+    public static RecurrenceRule of(Frequency frequency) {
+        return new RecurrenceRule(frequency, 1, EnumSet.noneOf(DayOfWeek.class), 0, null);
+    }
+
+    public static RecurrenceRule parse(String rule) {
+        Frequency frequency = null;
+        int interval = 1;
+        Set<DayOfWeek> byDay = EnumSet.noneOf(DayOfWeek.class);
+        int count = 0;
+        LocalDate until = null;
+
+        try {
+            for (String part : rule.split(";")) {
+                int equals = part.indexOf('=');
+                if (equals < 0) {
+                    throw new IllegalArgumentException("Invalid recurrence rule: " + rule);
+                }
+                String name = part.substring(0, equals).trim().toUpperCase(Locale.US);
+                String value = part.substring(equals + 1).trim().toUpperCase(Locale.US);
+                switch (name) {
+                    case "FREQ":
+                        frequency = Frequency.valueOf(value);
+                        break;
+                    case "INTERVAL":
+                        interval = Integer.parseInt(value);
+                        break;
+                    case "BYDAY":
+                        for (String day : value.split(",")) {
+                            byDay.add(toDayOfWeek(day, rule));
+                        }
+                        break;
+                    case "COUNT":
+                        count = Integer.parseInt(value);
+                        break;
+                    case "UNTIL":
+                        // Only the date part of a date-time UNTIL matters here
+                        until = LocalDate.parse(value.length() > 8 ? value.substring(0, 8) : value, UNTIL_FORMAT);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unsupported recurrence rule part: " + name);
+                }
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid recurrence rule: " + rule, e);
+        }
+
+        if (frequency == null) {
+            throw new IllegalArgumentException("Invalid recurrence rule: " + rule);
+        }
+        if (count > 0 && until != null) {
+            throw new IllegalArgumentException("COUNT and UNTIL cannot both be set: " + rule);
+        }
+        try {
+            return new RecurrenceRule(frequency, interval, byDay, count, until);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid recurrence rule: " + rule, e);
+        }
+    }
+
+    public Frequency getFrequency() { return frequency; }
+
+    public int getInterval() { return interval; }
+
+    public Set<DayOfWeek> getByDay() { return EnumSet.copyOf(byDay); }
+
+    /** The number of occurrences the series has, or 0 when it is not limited by count. */
+    public int getCount() { return count; }
+
+    public LocalDate getUntil() { return until; }
+
+    /**
+     * The same series with its first {@code occurrences} occurrences used up, for re-anchoring
+     * it on a later occurrence. Only a COUNT changes.
+     */
+    public RecurrenceRule withoutFirst(int occurrences) {
+        if (count == 0 || occurrences == 0) {
+            return this;
+        }
+        return new RecurrenceRule(frequency, interval, byDay, Math.max(count - occurrences, 1), until);
+    }
+
+    /** True when the rule is just "every day/week/month/year" with no extra parts. */
+    public boolean isSimple() {
+        return interval == 1 && byDay.isEmpty() && count == 0 && until == null;
+    }
+
+    /**
+     * The occurrences of a series that starts on {@code start}, beginning with the first one on
+     * or after {@code from}, in date order. The iterator is lazy and ends only when the rule does.
+     */
+    public Iterator<LocalDate> occurrences(LocalDate start, LocalDate from) {
+        return new OccurrenceIterator(start, from);
+    }
+
+    /** The first occurrence on or after {@code from}, or null when the series has ended by then. */
+    public LocalDate firstOnOrAfter(LocalDate start, LocalDate from) {
+        Iterator<LocalDate> iterator = occurrences(start, from);
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    /** The first occurrence strictly after {@code date}, or null when there is none. */
+    public LocalDate firstAfter(LocalDate start, LocalDate date) {
+        return firstOnOrAfter(start, date.plusDays(1));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder rule = new StringBuilder("FREQ=").append(frequency.name());
+        if (interval != 1) {
+            rule.append(";INTERVAL=").append(interval);
+        }
+        if (!byDay.isEmpty()) {
+            rule.append(";BYDAY=");
+            boolean first = true;
+            for (DayOfWeek day : byDay) {
+                rule.append(first ? "" : ",").append(DAY_CODES[day.getValue() - 1]);
+                first = false;
+            }
+        }
+        if (count > 0) {
+            rule.append(";COUNT=").append(count);
+        }
+        if (until != null) {
+            rule.append(";UNTIL=").append(UNTIL_FORMAT.format(until));
+        }
+        return rule.toString();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof RecurrenceRule && toString().equals(other.toString());
+    }
+
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+
+    private static DayOfWeek toDayOfWeek(String code, String rule) {
+        for (int i = 0; i < DAY_CODES.length; i++) {
+            if (DAY_CODES[i].equals(code.trim())) {
+                return DayOfWeek.of(i + 1);
+            }
+        }
+        throw new IllegalArgumentException("Invalid recurrence rule: " + rule);
+    }
+
+    private final class OccurrenceIterator implements Iterator<LocalDate> {
+        private final LocalDate start;
+        private final LocalDate from;
+        // Weekly rules: the series' weekdays, Monday first, and the Monday of its first week
+        private final List<DayOfWeek> weekdays;
+        private final LocalDate firstWeek;
+
+        // Index of the current period (day, week, month or year, times interval) from the start
+        private long period;
+        private int dayInPeriod;
+        private int emitted;
+        private LocalDate next;
+        private boolean done;
+
+        OccurrenceIterator(LocalDate start, LocalDate from) {
+            this.start = start;
+            this.from = from.isBefore(start) ? start : from;
+            this.weekdays = new ArrayList<>(byDay.isEmpty() ? EnumSet.of(start.getDayOfWeek()) : byDay);
+            this.firstWeek = start.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            // A COUNT has to be counted from the first occurrence, so only unlimited rules jump
+            if (count == 0) {
+                period = periodsUntil(this.from) / interval;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !done) {
+                next = advance();
+                done = next == null;
+            }
+            return next != null;
+        }
+
+        @Override
+        public LocalDate next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            LocalDate result = next;
+            next = null;
+            return result;
+        }
+
+        private LocalDate advance() {
+            while (true) {
+                if (count > 0 && emitted >= count) {
+                    return null;
+                }
+                LocalDate candidate = candidate();
+                if (candidate == null) {
+                    // No occurrence in this period, such as February for a rule on the 30th
+                    continue;
+                }
+                if (until != null && candidate.isAfter(until)) {
+                    return null;
+                }
+                if (candidate.isBefore(start)) {
+                    continue;
+                }
+                emitted++;
+                if (!candidate.isBefore(from)) {
+                    return candidate;
+                }
+            }
+        }
+
+        // The next candidate date, moving on to the next period when this one is used up
+        private LocalDate candidate() {
+            long steps = period * interval;
+            switch (frequency) {
+                case DAILY:
+                    period++;
+                    return start.plusDays(steps);
+                case WEEKLY:
+                    DayOfWeek day = weekdays.get(dayInPeriod);
+                    LocalDate date = firstWeek.plusWeeks(steps).plusDays(day.getValue() - 1);
+                    if (++dayInPeriod == weekdays.size()) {
+                        dayInPeriod = 0;
+                        period++;
+                    }
+                    return date;
+                case MONTHLY:
+                    period++;
+                    YearMonth month = YearMonth.from(start).plusMonths(steps);
+                    return month.isValidDay(start.getDayOfMonth()) ? month.atDay(start.getDayOfMonth()) : null;
+                default:
+                    period++;
+                    YearMonth sameMonth = YearMonth.from(start).plusYears(steps);
+                    return sameMonth.isValidDay(start.getDayOfMonth()) ? sameMonth.atDay(start.getDayOfMonth()) : null;
+            }
+        }
+
+        // Whole periods between the series start and the period holding date
+        private long periodsUntil(LocalDate date) {
+            switch (frequency) {
+                case DAILY:
+                    return ChronoUnit.DAYS.between(start, date);
+                case WEEKLY:
+                    return ChronoUnit.WEEKS.between(firstWeek, date);
+                case MONTHLY:
+                    return ChronoUnit.MONTHS.between(YearMonth.from(start), YearMonth.from(date));
+                default:
+                    return ChronoUnit.YEARS.between(YearMonth.from(start), YearMonth.from(date));
+            }
+        }
+    }
+}
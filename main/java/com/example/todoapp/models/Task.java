@@ -1,6 +1,11 @@
 package com.example.todoapp.model;
 
 public class Task {
+    /** Value of {@link #getDueAt()} for tasks without a date. */
+    public static final long NO_DUE_AT = Long.MIN_VALUE;
+    /** Value of {@link #getCompletedAt()} for tasks that are still open. */
+    public static final long NOT_COMPLETED = Long.MIN_VALUE;
+
     private int id;
     private String title;
     private String description;
@@ -8,8 +13,12 @@ public class Task {
     private String time;
     private int priority;
     private boolean hasAlarm;
+    private long dueAt;
+    private long completedAt = NOT_COMPLETED;
+    private String recurrence;
+    private String recurrenceStart;
 
-    public Task(int id, String title, String description, String date, String time, int priority, boolean hasAlarm) {
+    public Task(int id, String title, String description, String date, String time, int priority, boolean hasAlarm, long dueAt) {
         this.id = id;
         this.title = title;
         this.description = description;
@@ -17,6 +26,7 @@ public class Task {
         this.time = time;
         this.priority = priority;
         this.hasAlarm = hasAlarm;
+        this.dueAt = dueAt;
     }
 
     // Getters and setters
@@ -40,4 +50,24 @@ public class Task {
 
     public boolean isHasAlarm() { return hasAlarm; }
     public void setHasAlarm(boolean hasAlarm) { this.hasAlarm = hasAlarm; }
+
+    public long getDueAt() { return dueAt; }
+    public void setDueAt(long dueAt) { this.dueAt = dueAt; }
+
+    public boolean hasDueAt() { return dueAt != NO_DUE_AT; }
+
+    public long getCompletedAt() { return completedAt; }
+    public void setCompletedAt(long completedAt) { this.completedAt = completedAt; }
+
+    public boolean isCompleted() { return completedAt != NOT_COMPLETED; }
+
+    /** The {@link RecurrenceRule} as text, or null for a task that does not repeat. */
+    public String getRecurrence() { return recurrence; }
+    public void setRecurrence(String recurrence) { this.recurrence = recurrence; }
+
+    /** The rule-given date of the current occurrence; the rule's remaining occurrences follow it. */
+    public String getRecurrenceStart() { return recurrenceStart; }
+    public void setRecurrenceStart(String recurrenceStart) { this.recurrenceStart = recurrenceStart; }
+
+    public boolean isRecurring() { return recurrence != null; }
 }
\ No newline at end of file
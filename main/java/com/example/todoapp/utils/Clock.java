@@ -0,0 +1,14 @@
+package com.example.todoapp.util;
+
+/** Source of the current time, so code that depends on it can run against a fake clock in tests. */
+public interface Clock {
+
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    long currentTimeMillis();
+}
@@ -0,0 +1,104 @@
+package com.example.todoapp.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts of non-negative values in fixed log-linear buckets: each power of two is split into
+ * {@link #SUB_BUCKETS} equal buckets, so a percentile is within 1/{@code SUB_BUCKETS} of the
+ * recorded value. Recording is a few atomic increments with no allocation or lock, and the
+ * whole range of long fits in under 500 buckets.
+ *
+ * <p>Safe to record from any thread. Reads taken while values are being recorded may be off
+ * by the values recorded in between.
+ */
+public class Histogram {
+
+    static final int SUB_BUCKET_BITS = 3;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values below SUB_BUCKETS get a bucket each, then SUB_BUCKETS per power of two up to 2^62
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /** Records {@code value}; negative values count as 0. */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        buckets.incrementAndGet(bucketOf(value));
+        sum.addAndGet(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    public long getSum() {
+        return sum.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * The smallest bucket bound that at least {@code percentile}% of the values are at or
+     * below, capped at the largest value recorded, or 0 when nothing has been recorded.
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Invalid percentile: " + percentile);
+        }
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueIn(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        sum.set(0);
+        max.set(0);
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    static long highestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        // The top bucket's bound overflows to Long.MIN_VALUE
+        long next = lowest + (1L << shift);
+        return next < lowest ? Long.MAX_VALUE : next - 1;
+    }
+}
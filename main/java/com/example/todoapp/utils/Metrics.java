@@ -0,0 +1,175 @@
+package com.example.todoapp.util;
+
+import android.os.Trace;
+import android.util.Log;
+
+import com.example.todoapp.BuildConfig;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Locale;
+
+/**
+ * Timers and counters for the list's hot paths: queries, rows mapped, sorting, diffing,
+ * binding and writes. Timers read the monotonic clock and open a {@link Trace} section named
+ * after them, so the same spans show up in a systrace or Perfetto capture.
+ *
+ * <p>Only built in when {@link #ENABLED}, which is on in debug builds and in release builds
+ * made with {@code -Ptodo.metrics=true}. Otherwise every method body is compiled out and the
+ * calls left behind are empty.
+ */
+public final class Metrics {
+
+    public static final boolean ENABLED = BuildConfig.METRICS;
+
+    private static final String TAG = "Metrics";
+
+    /** Time spent by each query behind the list and search. */
+    public static final Timer QUERY = new Timer("TaskDb.query");
+    /** Rows mapped from each cursor into tasks. */
+    public static final Counter ROWS_MAPPED = new Counter("TaskDb.rowsMapped");
+    /** Time spent putting rows in list order in memory instead of reading them sorted. */
+    public static final Timer SORT = new Timer("TaskList.sort");
+    /** Time spent diffing each new list against the one shown, off the main thread. */
+    public static final Timer DIFF = new Timer("TaskList.diff");
+    /** Time spent binding each row. */
+    public static final Timer BIND = new Timer("TaskList.bind");
+    /** Time from the start of each write to its commit. */
+    public static final Timer WRITE = new Timer("TaskDb.write");
+
+    private static final Timer[] TIMERS = {QUERY, SORT, DIFF, BIND, WRITE};
+    private static final Counter[] COUNTERS = {ROWS_MAPPED};
+
+    private Metrics() {
+    }
+
+    /**
+     * Durations, in nanoseconds. Time a span with
+     * {@code long start = timer.start(); try { ... } finally { timer.stop(start); }}; start and
+     * stop must run on the same thread, as trace sections nest per thread.
+     */
+    public static final class Timer {
+        private final String name;
+        private final Histogram histogram = new Histogram();
+
+        Timer(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Histogram getHistogram() {
+            return histogram;
+        }
+
+        /** Opens the span and returns its start time, for {@link #stop}. */
+        public long start() {
+            if (!ENABLED) {
+                return 0L;
+            }
+            Trace.beginSection(name);
+            return System.nanoTime();
+        }
+
+        public void stop(long startNanos) {
+            if (!ENABLED) {
+                return;
+            }
+            histogram.record(System.nanoTime() - startNanos);
+            Trace.endSection();
+        }
+
+        /** Records a duration measured elsewhere, without a trace section. */
+        public void record(long nanos) {
+            if (ENABLED) {
+                histogram.record(nanos);
+            }
+        }
+    }
+
+    /** A running total, with the distribution of the amounts it was increased by. */
+    public static final class Counter {
+        private final String name;
+        private final Histogram histogram = new Histogram();
+
+        Counter(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Histogram getHistogram() {
+            return histogram;
+        }
+
+        public void add(long amount) {
+            if (ENABLED) {
+                histogram.record(amount);
+            }
+        }
+
+        public long getTotal() {
+            return histogram.getSum();
+        }
+    }
+
+    /**
+     * Writes one line per metric: the count, then p50, p90, p99 and max, in milliseconds for
+     * timers. Metrics with nothing recorded are left out.
+     */
+    public static void dump(PrintWriter writer) {
+        if (!ENABLED) {
+            writer.println("Metrics are disabled in this build");
+            return;
+        }
+        for (Timer timer : TIMERS) {
+            Histogram histogram = timer.getHistogram();
+            long count = histogram.getCount();
+            if (count > 0) {
+                writer.println(String.format(Locale.US, "%s count=%d p50=%.3fms p90=%.3fms p99=%.3fms max=%.3fms",
+                        timer.getName(), count, histogram.getPercentile(50) / 1e6, histogram.getPercentile(90) / 1e6,
+                        histogram.getPercentile(99) / 1e6, histogram.getMax() / 1e6));
+            }
+        }
+        for (Counter counter : COUNTERS) {
+            Histogram histogram = counter.getHistogram();
+            long count = histogram.getCount();
+            if (count > 0) {
+                writer.println(String.format(Locale.US, "%s total=%d count=%d p50=%d p90=%d p99=%d max=%d",
+                        counter.getName(), counter.getTotal(), count, histogram.getPercentile(50),
+                        histogram.getPercentile(90), histogram.getPercentile(99), histogram.getMax()));
+            }
+        }
+    }
+
+    /** {@link #dump} as a string. */
+    public static String dump() {
+        StringWriter out = new StringWriter();
+        PrintWriter writer = new PrintWriter(out);
+        dump(writer);
+        writer.flush();
+        return out.toString();
+    }
+
+    /** Writes {@link #dump} to logcat. */
+    public static void log() {
+        for (String line : dump().split("\n")) {
+            if (!line.isEmpty()) {
+                Log.i(TAG, line);
+            }
+        }
+    }
+
+    public static void reset() {
+        for (Timer timer : TIMERS) {
+            timer.getHistogram().reset();
+        }
+        for (Counter counter : COUNTERS) {
+            counter.getHistogram().reset();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.todoapp.util;
+
+import com.example.todoapp.model.Task;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * The one place task dates and times are parsed and formatted. All formatters are immutable
+ * {@link DateTimeFormatter}s, so a single instance is shared by every screen and thread.
+ *
+ * <p>Storage strings are always yyyy-MM-dd / HH:mm with ASCII digits regardless of locale.
+ * Rendered "MMM d, yyyy - h:mm a" labels are cached by due timestamp, so binding a row that
+ * has been shown before does no formatting at all.
+ */
+public final class TaskDateFormatter {
+
+    private static final DateTimeFormatter STORAGE_DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd", Locale.US);
+    private static final DateTimeFormatter STORAGE_TIME = DateTimeFormatter.ofPattern("HH:mm", Locale.US);
+    private static final String LABEL_SEPARATOR = " - ";
+
+    // Power of two; comfortably more than the rows a list keeps bound or cached at once.
+    private static final int LABEL_CACHE_SIZE = 256;
+
+    private static volatile TaskDateFormatter instance;
+
+    private final ZoneId zone;
+    private final DateTimeFormatter displayDate;
+    private final DateTimeFormatter displayTime;
+    private final Label[] labels = new Label[LABEL_CACHE_SIZE];
+
+    public TaskDateFormatter(Locale locale, ZoneId zone) {
+        this.zone = zone;
+        this.displayDate = DateTimeFormatter.ofPattern("MMM d, yyyy", locale);
+        this.displayTime = DateTimeFormatter.ofPattern("h:mm a", locale);
+    }
+
+    /** The shared formatter for the device's current locale and time zone. */
+    public static TaskDateFormatter getInstance() {
+        TaskDateFormatter formatter = instance;
+        if (formatter == null) {
+            synchronized (TaskDateFormatter.class) {
+                formatter = instance;
+                if (formatter == null) {
+                    formatter = new TaskDateFormatter(Locale.getDefault(), ZoneId.systemDefault());
+                    instance = formatter;
+                }
+            }
+        }
+        return formatter;
+    }
+
+    /** Drops the shared formatter and its cached labels after a locale or time zone change. */
+    public static void reset() {
+        instance = null;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    public String toStorageDate(LocalDate date) {
+        return STORAGE_DATE.format(date);
+    }
+
+    public String toStorageTime(LocalTime time) {
+        return STORAGE_TIME.format(time);
+    }
+
+    /**
+     * Converts a stored date and optional time to epoch millis in this formatter's zone.
+     * Returns {@link Task#NO_DUE_AT} when there is no date or it is malformed.
+     */
+    public long toDueAt(String date, String time) {
+        if (date == null) {
+            return Task.NO_DUE_AT;
+        }
+
+        try {
+            LocalDate localDate = LocalDate.parse(date, STORAGE_DATE);
+            LocalTime localTime = time != null ? LocalTime.parse(time, STORAGE_TIME) : LocalTime.MIDNIGHT;
+            return ZonedDateTime.of(localDate, localTime, zone).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return Task.NO_DUE_AT;
+        }
+    }
+
+    public String formatDate(LocalDate date) {
+        return displayDate.format(date);
+    }
+
+    public String formatTime(LocalTime time) {
+        return displayTime.format(time);
+    }
+
+    public String formatDate(long epochMillis) {
+        return displayDate.format(toZoned(epochMillis));
+    }
+
+    public String formatTime(long epochMillis) {
+        return displayTime.format(toZoned(epochMillis));
+    }
+
+    /** Formats a stored HH:mm time for display, falling back to the raw text if it is malformed. */
+    public String formatStoredTime(String time) {
+        try {
+            return displayTime.format(LocalTime.parse(time, STORAGE_TIME));
+        } catch (DateTimeParseException e) {
+            return time;
+        }
+    }
+
+    /**
+     * "MMM d, yyyy - h:mm a", or just the date when the task has no time. Served from a
+     * fixed-size direct-mapped cache: a hit costs one array read and allocates nothing, and
+     * entries are immutable so readers on any thread see either a whole entry or none.
+     */
+    public String formatDueLabel(long dueAt, boolean hasTime) {
+        int slot = slot(dueAt);
+        Label label = labels[slot];
+        if (label != null && label.dueAt == dueAt && label.hasTime == hasTime) {
+            return label.text;
+        }
+
+        ZonedDateTime dateTime = toZoned(dueAt);
+        String text = hasTime
+                ? displayDate.format(dateTime) + LABEL_SEPARATOR + displayTime.format(dateTime)
+                : displayDate.format(dateTime);
+        labels[slot] = new Label(dueAt, hasTime, text);
+        return text;
+    }
+
+    private ZonedDateTime toZoned(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atZone(zone);
+    }
+
+    // Fibonacci hashing spreads minute-aligned timestamps, whose low bits are all zero.
+    private static int slot(long dueAt) {
+        return (int) ((dueAt * 0x9E3779B97F4A7C15L) >>> (64 - Integer.numberOfTrailingZeros(LABEL_CACHE_SIZE)));
+    }
+
+    private static final class Label {
+        final long dueAt;
+        final boolean hasTime;
+        final String text;
+
+        Label(long dueAt, boolean hasTime, String text) {
+            this.dueAt = dueAt;
+            this.hasTime = hasTime;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.todoapp.adapter;
+
+import android.content.Context;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import com.example.todoapp.R;
+import com.example.todoapp.data.TaskChanges;
+import com.example.todoapp.model.Task;
+import com.example.todoapp.util.TaskDateFormatter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowTrace;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class TaskAdapterTest {
+
+    private TaskAdapter adapter;
+    private FrameLayout parent;
+
+    @Before
+    public void setUp() {
+        // Robolectric's Trace keeps every section it sees; the platform's does not allocate
+        ShadowTrace.setEnabled(false);
+        Context context = new ContextThemeWrapper(RuntimeEnvironment.getApplication(), R.style.AppTheme);
+        parent = new FrameLayout(context);
+        TaskChanges changes = new TaskChanges(new TaskChanges.Scheduler() {
+            @Override
+            public void schedule(Runnable delivery, long delayMillis) {
+                delivery.run();
+            }
+        }, 0L);
+        adapter = new TaskAdapter(context, null, changes, new TaskAdapter.TaskItemClickListener() {
+            @Override
+            public void onEditClick(Task task) {
+            }
+
+            @Override
+            public void onDeleteClick(Task task) {
+            }
+        });
+        // The first list is taken as is, without a diff; with no pager it has no section headers
+        adapter.submitTasks(Arrays.asList(
+                new Task(1001, "Pay rent", "Before noon", "2025-03-01", "09:30", 3, true, 1_740_817_800_000L),
+                new Task(1002, "Call mom", null, null, "18:00", 2, false, Task.NO_DUE_AT),
+                new Task(1003, "Someday", "No date at all", null, null, 1, false, Task.NO_DUE_AT)));
+    }
+
+    @After
+    public void tearDown() {
+        ShadowTrace.setEnabled(true);
+    }
+
+    @Test
+    public void rebindingARecycledHolder_allocatesNothing() {
+        com.sun.management.ThreadMXBean threads = allocationCounter();
+        for (int position = 0; position < adapter.getItemCount(); position++) {
+            TaskAdapter.TaskViewHolder holder =
+                    (TaskAdapter.TaskViewHolder) adapter.onCreateViewHolder(parent, TaskAdapter.VIEW_TYPE_TASK);
+            // The first bind fills the views and caches; later ones find nothing to change
+            for (int i = 0; i < 100; i++) {
+                adapter.onBindViewHolder(holder, position);
+            }
+
+            long overhead = allocatedBytes(threads) - allocatedBytes(threads);
+            long before = allocatedBytes(threads);
+            for (int i = 0; i < 1_000; i++) {
+                adapter.onBindViewHolder(holder, position);
+            }
+            long allocated = allocatedBytes(threads) - before + overhead;
+
+            assertEquals("bytes allocated rebinding position " + position, 0, allocated);
+        }
+    }
+
+    @Test
+    public void bind_showsPriorityAndLabelsAndSkipsMissingParts() {
+        TaskAdapter.TaskViewHolder holder =
+                (TaskAdapter.TaskViewHolder) adapter.onCreateViewHolder(parent, TaskAdapter.VIEW_TYPE_TASK);
+
+        adapter.onBindViewHolder(holder, 0);
+        assertEquals("Pay rent", holder.tvTaskTitle.getText().toString());
+        assertEquals("High", holder.tvPriority.getText().toString());
+        assertEquals(View.VISIBLE, holder.tvDateTime.getVisibility());
+        assertEquals(View.VISIBLE, holder.ivAlarm.getVisibility());
+
+        // The same holder recycled for other rows picks up each row's values
+        adapter.onBindViewHolder(holder, 1);
+        assertEquals("", holder.tvTaskDescription.getText().toString());
+        assertEquals("Medium", holder.tvPriority.getText().toString());
+        assertEquals(View.VISIBLE, holder.tvDateTime.getVisibility());
+        assertEquals(View.GONE, holder.ivAlarm.getVisibility());
+
+        adapter.onBindViewHolder(holder, 2);
+        assertEquals("Low", holder.tvPriority.getText().toString());
+        assertEquals(View.GONE, holder.tvDateTime.getVisibility());
+    }
+
+    @Test
+    public void zoneChange_reformatsCachedLabels() {
+        TimeZone zone = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+            TaskDateFormatter.reset();
+            TaskAdapter.TaskViewHolder holder =
+                    (TaskAdapter.TaskViewHolder) adapter.onCreateViewHolder(parent, TaskAdapter.VIEW_TYPE_TASK);
+            adapter.onBindViewHolder(holder, 0);
+            String utcLabel = holder.tvDateTime.getText().toString();
+
+            TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+            TaskDateFormatter.reset();
+            adapter.onTimeChanged();
+            adapter.onBindViewHolder(holder, 0);
+
+            String tokyoLabel = TaskDateFormatter.getInstance().formatDueLabel(1_740_817_800_000L, true);
+            assertNotEquals(utcLabel, tokyoLabel);
+            assertEquals(tokyoLabel, holder.tvDateTime.getText().toString());
+        } finally {
+            TimeZone.setDefault(zone);
+            TaskDateFormatter.reset();
+        }
+    }
+
+    @Test
+    public void stableIds_areTaskIds() {
+        assertTrue(adapter.hasStableIds());
+        assertEquals(1002L, adapter.getItemId(1));
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+
+    private static long allocatedBytes(com.sun.management.ThreadMXBean threads) {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
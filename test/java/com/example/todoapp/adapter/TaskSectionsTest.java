@@ -0,0 +1,144 @@
+package com.example.todoapp.adapter;
+
+import com.example.todoapp.adapter.TaskSections.Bucket;
+import com.example.todoapp.model.Task;
+import com.example.todoapp.util.Clock;
+import com.example.todoapp.util.TaskDateFormatter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class TaskSectionsTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    private FakeClock clock;
+    private TaskDateFormatter formatter;
+    private List<Task> tasks;
+
+    @Before
+    public void setUp() {
+        clock = new FakeClock(Instant.parse("2025-03-10T22:00:00Z").toEpochMilli());
+        formatter = new TaskDateFormatter(Locale.US, ZoneId.of("UTC"));
+        tasks = Arrays.asList(
+                task(1, "2025-03-08"),
+                task(2, "2025-03-09"),
+                task(3, "2025-03-10"),
+                task(4, "2025-03-11"),
+                task(5, "2025-03-12"),
+                task(6, null),
+                task(7, null));
+    }
+
+    @Test
+    public void withHeaders_putsEachSectionUnderItsHeader() {
+        TaskSections sections = TaskSections.of(tasks, today());
+
+        assertEquals(Arrays.<Object>asList(
+                Bucket.OVERDUE, tasks.get(0), tasks.get(1),
+                Bucket.TODAY, tasks.get(2),
+                Bucket.UPCOMING, tasks.get(3), tasks.get(4),
+                Bucket.NO_DATE, tasks.get(5), tasks.get(6)), sections.withHeaders(tasks));
+        assertEquals(4, sections.getHeaderCount());
+    }
+
+    @Test
+    public void withHeaders_leavesOutEmptySections() {
+        List<Task> later = tasks.subList(3, tasks.size());
+
+        TaskSections sections = TaskSections.of(later, today());
+
+        assertEquals(Arrays.<Object>asList(
+                Bucket.UPCOMING, later.get(0), later.get(1),
+                Bucket.NO_DATE, later.get(2), later.get(3)), sections.withHeaders(later));
+        assertEquals(0, TaskSections.of(Collections.<Task>emptyList(), today()).getHeaderCount());
+    }
+
+    @Test
+    public void positions_mapToSectionsAndTasks() {
+        TaskSections sections = TaskSections.of(tasks, today());
+
+        assertEquals(Bucket.OVERDUE, sections.getBucketAt(0));
+        assertEquals(Bucket.OVERDUE, sections.getBucketAt(2));
+        assertEquals(Bucket.TODAY, sections.getBucketAt(3));
+        assertEquals(Bucket.NO_DATE, sections.getBucketAt(10));
+
+        assertEquals(3, sections.getNextHeaderPosition(1));
+        assertEquals(8, sections.getNextHeaderPosition(5));
+        assertEquals(-1, sections.getNextHeaderPosition(9));
+
+        assertEquals(0, sections.getTaskIndex(1));
+        assertEquals(2, sections.getTaskIndex(4));
+        assertEquals(6, sections.getTaskIndex(10));
+    }
+
+    @Test
+    public void midnight_movesTodayToOverdueAndTomorrowToToday() {
+        assertEquals(2 * HOUR, TaskSections.millisUntilTomorrow(clock, formatter));
+
+        clock.now += 2 * HOUR;
+        TaskSections sections = TaskSections.of(tasks, today());
+
+        assertEquals("2025-03-11", today());
+        assertEquals(Arrays.<Object>asList(
+                Bucket.OVERDUE, tasks.get(0), tasks.get(1), tasks.get(2),
+                Bucket.TODAY, tasks.get(3),
+                Bucket.UPCOMING, tasks.get(4),
+                Bucket.NO_DATE, tasks.get(5), tasks.get(6)), sections.withHeaders(tasks));
+        assertEquals(24 * HOUR, TaskSections.millisUntilTomorrow(clock, formatter));
+    }
+
+    @Test
+    public void changedTask_onlyMovesTheBoundsAroundIt() {
+        // Task 4 moved from tomorrow to today keeps its place in list order
+        List<Task> changed = new ArrayList<>(tasks);
+        changed.set(3, task(4, "2025-03-10"));
+
+        TaskSections sections = TaskSections.of(changed, today());
+
+        assertEquals(Arrays.<Object>asList(
+                Bucket.OVERDUE, changed.get(0), changed.get(1),
+                Bucket.TODAY, changed.get(2), changed.get(3),
+                Bucket.UPCOMING, changed.get(4),
+                Bucket.NO_DATE, changed.get(5), changed.get(6)), sections.withHeaders(changed));
+    }
+
+    @Test
+    public void none_showsTasksAsTheyAre() {
+        assertEquals(new ArrayList<Object>(tasks), TaskSections.NONE.withHeaders(tasks));
+        assertNull(TaskSections.NONE.getBucketAt(3));
+        assertEquals(-1, TaskSections.NONE.getNextHeaderPosition(0));
+        assertEquals(3, TaskSections.NONE.getTaskIndex(3));
+    }
+
+    private String today() {
+        return TaskSections.today(clock, formatter);
+    }
+
+    private Task task(int id, String date) {
+        return new Task(id, "Task " + id, null, date, null, 1, false, formatter.toDueAt(date, null));
+    }
+
+    private static final class FakeClock implements Clock {
+        long now;
+
+        FakeClock(long now) {
+            this.now = now;
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package com.example.todoapp.alarm;
+
+import com.example.todoapp.model.Task;
+import com.example.todoapp.util.Clock;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class AlarmSchedulerTest {
+
+    private static final long MINUTE = 60_000L;
+    private static final long START = 1_744_281_000_000L;
+
+    private FakeClock clock;
+    private FakeStore store;
+    private FakeSlot slot;
+    private AlarmScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        clock = new FakeClock(START);
+        store = new FakeStore();
+        slot = new FakeSlot();
+        scheduler = new AlarmScheduler(store, slot, clock);
+    }
+
+    @Test
+    public void reschedule_armsOnlyTheEarliestOfManyAlarms() {
+        for (int i = 1000; i > 0; i--) {
+            store.add(task(i, START + i * MINUTE, true));
+        }
+        store.add(task(2000, START + 30 * 1000L, false));
+
+        assertEquals(START + MINUTE, scheduler.reschedule());
+        assertEquals(Collections.singletonList(START + MINUTE), slot.sets);
+    }
+
+    @Test
+    public void reschedule_leavesTheSlotAloneWhenTheNextAlarmIsUnchanged() {
+        store.add(task(1, START + MINUTE, true));
+        scheduler.reschedule();
+        store.add(task(2, START + 5 * MINUTE, true));
+
+        scheduler.reschedule();
+
+        assertEquals(1, slot.sets.size());
+    }
+
+    @Test
+    public void onAlarmFired_deliversEverythingDueAndArmsTheNext() {
+        store.add(task(1, START + MINUTE, true));
+        store.add(task(2, START + MINUTE, true));
+        store.add(task(3, START + 2 * MINUTE, true));
+        scheduler.reschedule();
+
+        clock.now = START + MINUTE;
+        assertEquals(Arrays.asList(1, 2), ids(scheduler.onAlarmFired()));
+        assertEquals(START + 2 * MINUTE, scheduler.getArmedAt());
+
+        clock.now = START + 2 * MINUTE + 500;
+        assertEquals(Collections.singletonList(3), ids(scheduler.onAlarmFired()));
+        assertEquals(AlarmScheduler.NOT_ARMED, scheduler.getArmedAt());
+        // Firing emptied the slot, so there is nothing left to cancel
+        assertEquals(0, slot.cancels);
+    }
+
+    @Test
+    public void onAlarmFired_neverDeliversATaskTwice() {
+        store.add(task(1, START + MINUTE, true));
+        scheduler.reschedule();
+
+        clock.now = START + MINUTE;
+        assertEquals(1, scheduler.onAlarmFired().size());
+        assertTrue(scheduler.onAlarmFired().isEmpty());
+    }
+
+    @Test
+    public void edits_moveTheArmedAlarm() {
+        Task first = task(1, START + 10 * MINUTE, true);
+        store.add(first);
+        store.add(task(2, START + 20 * MINUTE, true));
+        scheduler.reschedule();
+
+        first.setDueAt(START + 5 * MINUTE);
+        assertEquals(START + 5 * MINUTE, scheduler.reschedule());
+
+        first.setDueAt(START + 30 * MINUTE);
+        assertEquals(START + 20 * MINUTE, scheduler.reschedule());
+
+        first.setDueAt(START + 5 * MINUTE);
+        first.setCompletedAt(START);
+        assertEquals(START + 20 * MINUTE, scheduler.reschedule());
+
+        store.tasks.remove(2);
+        assertEquals(AlarmScheduler.NOT_ARMED, scheduler.reschedule());
+        assertEquals(1, slot.cancels);
+        assertEquals(Arrays.asList(START + 10 * MINUTE, START + 5 * MINUTE, START + 20 * MINUTE), slot.sets);
+    }
+
+    @Test
+    public void reschedule_cancelsAnAlarmLeftByAnEarlierProcess() {
+        assertEquals(AlarmScheduler.NOT_ARMED, scheduler.reschedule());
+        assertEquals(1, slot.cancels);
+
+        scheduler.reschedule();
+        assertEquals(1, slot.cancels);
+    }
+
+    @Test
+    public void afterBoot_missedAlarmsFireAtOnce() {
+        store.add(task(1, START + MINUTE, true));
+        store.add(task(2, START + 2 * MINUTE, true));
+        store.add(task(3, START + 60 * MINUTE, true));
+        scheduler.reschedule();
+
+        // The device was off through the first two alarms; a new process starts with an empty slot
+        clock.now = START + 30 * MINUTE;
+        scheduler = new AlarmScheduler(store, slot, clock);
+        assertEquals(START + MINUTE, scheduler.reschedule());
+
+        assertEquals(Arrays.asList(1, 2), ids(scheduler.onAlarmFired()));
+        assertEquals(START + 60 * MINUTE, scheduler.getArmedAt());
+    }
+
+    @Test
+    public void firstRun_doesNotReplayPastAlarms() {
+        store.add(task(1, START - MINUTE, true));
+        store.add(task(2, START + MINUTE, true));
+
+        assertEquals(START + MINUTE, scheduler.reschedule());
+        assertEquals(START, store.deliveredThrough);
+    }
+
+    @Test
+    public void clockSetBack_deliversAlarmsThatHaveNotHappenedOnTheNewClock() {
+        store.add(task(1, START + MINUTE, true));
+        scheduler.reschedule();
+        clock.now = START + MINUTE;
+        scheduler.onAlarmFired();
+
+        clock.now = START;
+        assertEquals(START + MINUTE, scheduler.onClockChanged());
+
+        clock.now = START + MINUTE;
+        assertEquals(Collections.singletonList(1), ids(scheduler.onAlarmFired()));
+    }
+
+    @Test
+    public void clockSetForward_firesWhatItSkipped() {
+        store.add(task(1, START + MINUTE, true));
+        scheduler.reschedule();
+
+        clock.now = START + 10 * MINUTE;
+        assertEquals(START + MINUTE, scheduler.onClockChanged());
+        assertEquals(Collections.singletonList(1), ids(scheduler.onAlarmFired()));
+    }
+
+    @Test
+    public void window_includesItsEndAndStartsAfterItsStart() {
+        // START is a multiple of five minutes, so the windows are (START, START + 5m], ...
+        scheduler = new AlarmScheduler(store, slot, clock, 5 * MINUTE);
+        clock.now = START - MINUTE;
+        store.deliveredThrough = clock.now;
+        store.add(task(1, START, true));
+        store.add(task(2, START + 1, true));
+        store.add(task(3, START + 5 * MINUTE, true));
+        store.add(task(4, START + 5 * MINUTE + 1, true));
+
+        assertEquals(START, scheduler.windowEnd(START));
+        assertEquals(START + 5 * MINUTE, scheduler.windowEnd(START + 1));
+
+        // A task on the boundary closes its window and rings on time
+        assertEquals(START, scheduler.reschedule());
+        clock.now = START;
+        assertEquals(Collections.singletonList(1), ids(scheduler.onAlarmFired()));
+
+        // Everything due after the boundary, up to and including the next one, is one wakeup
+        assertEquals(START + 5 * MINUTE, scheduler.getArmedAt());
+        clock.now = START + 5 * MINUTE;
+        assertEquals(Arrays.asList(2, 3), ids(scheduler.onAlarmFired()));
+        assertEquals(START + 10 * MINUTE, scheduler.getArmedAt());
+        assertEquals(Arrays.asList(START, START + 5 * MINUTE, START + 10 * MINUTE), slot.sets);
+    }
+
+    @Test
+    public void window_burstOfTasksCostsOneWakeup() {
+        scheduler = new AlarmScheduler(store, slot, clock, 5 * MINUTE);
+        for (int i = 0; i < 50; i++) {
+            store.add(task(i, START + MINUTE + i * 1000L, true));
+        }
+
+        scheduler.reschedule();
+        clock.now = START + 5 * MINUTE;
+        assertEquals(50, scheduler.onAlarmFired().size());
+        assertEquals(Collections.singletonList(START + 5 * MINUTE), slot.sets);
+    }
+
+    @Test
+    public void window_editsMidWindowAreDeliveredWhereTheyEndUp() {
+        scheduler = new AlarmScheduler(store, slot, clock, 5 * MINUTE);
+        Task movedOut = task(1, START + 2 * MINUTE, true);
+        Task movedIn = task(2, START + 30 * MINUTE, true);
+        Task switchedOff = task(3, START + 3 * MINUTE, true);
+        Task stays = task(4, START + 4 * MINUTE, true);
+        for (Task task : Arrays.asList(movedOut, movedIn, switchedOff, stays)) {
+            store.add(task);
+        }
+        assertEquals(START + 5 * MINUTE, scheduler.reschedule());
+
+        clock.now = START + MINUTE;
+        movedOut.setDueAt(START + 7 * MINUTE);
+        movedIn.setDueAt(START + 90 * 1000L);
+        switchedOff.setHasAlarm(false);
+        store.add(task(5, START + 5 * MINUTE, true));
+        // None of that changes which window comes next, so the slot is left as it is
+        assertEquals(START + 5 * MINUTE, scheduler.reschedule());
+        assertEquals(1, slot.sets.size());
+
+        clock.now = START + 5 * MINUTE;
+        assertEquals(Arrays.asList(2, 4, 5), ids(scheduler.onAlarmFired()));
+        assertEquals(START + 10 * MINUTE, scheduler.getArmedAt());
+
+        clock.now = START + 10 * MINUTE;
+        assertEquals(Collections.singletonList(1), ids(scheduler.onAlarmFired()));
+    }
+
+    @Test
+    public void window_emptiedMidWindowIsCancelledOrMoved() {
+        scheduler = new AlarmScheduler(store, slot, clock, 5 * MINUTE);
+        Task only = task(1, START + 2 * MINUTE, true);
+        store.add(only);
+        store.add(task(2, START + 12 * MINUTE, true));
+        scheduler.reschedule();
+
+        only.setCompletedAt(START + MINUTE);
+        assertEquals(START + 15 * MINUTE, scheduler.reschedule());
+
+        store.tasks.remove(2);
+        assertEquals(AlarmScheduler.NOT_ARMED, scheduler.reschedule());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void window_mustBePositive() {
+        new AlarmScheduler(store, slot, clock, 0);
+    }
+
+    private static Task task(int id, long dueAt, boolean hasAlarm) {
+        return new Task(id, "Task " + id, null, "2025-04-10", "10:30", 1, hasAlarm, dueAt);
+    }
+
+    private static List<Integer> ids(List<Task> tasks) {
+        List<Integer> ids = new ArrayList<>();
+        for (Task task : tasks) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+
+    private static final class FakeClock implements Clock {
+        long now;
+
+        FakeClock(long now) {
+            this.now = now;
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+    }
+
+    private static final class FakeSlot implements AlarmScheduler.AlarmSlot {
+        final List<Long> sets = new ArrayList<>();
+        int cancels;
+
+        @Override
+        public void set(long triggerAt) {
+            sets.add(triggerAt);
+        }
+
+        @Override
+        public void cancel() {
+            cancels++;
+        }
+    }
+
+    // Filters the way TaskRepository's alarm queries do
+    private static final class FakeStore implements AlarmScheduler.AlarmStore {
+        final Map<Integer, Task> tasks = new LinkedHashMap<>();
+        long deliveredThrough = Task.NO_DUE_AT;
+
+        void add(Task task) {
+            tasks.put(task.getId(), task);
+        }
+
+        @Override
+        public long nextAlarmAfter(long after) {
+            long next = Task.NO_DUE_AT;
+            for (Task task : tasks.values()) {
+                if (isPending(task) && task.getDueAt() > after
+                        && (next == Task.NO_DUE_AT || task.getDueAt() < next)) {
+                    next = task.getDueAt();
+                }
+            }
+            return next;
+        }
+
+        @Override
+        public List<Task> alarmsBetween(long after, long upTo) {
+            List<Task> due = new ArrayList<>();
+            for (Task task : tasks.values()) {
+                if (isPending(task) && task.getDueAt() > after && task.getDueAt() <= upTo) {
+                    due.add(task);
+                }
+            }
+            Collections.sort(due, new Comparator<Task>() {
+                @Override
+                public int compare(Task a, Task b) {
+                    int byDue = Long.compare(a.getDueAt(), b.getDueAt());
+                    return byDue != 0 ? byDue : Integer.compare(a.getId(), b.getId());
+                }
+            });
+            return due;
+        }
+
+        @Override
+        public long getDeliveredThrough() {
+            return deliveredThrough;
+        }
+
+        @Override
+        public void setDeliveredThrough(long time) {
+            deliveredThrough = time;
+        }
+
+        private static boolean isPending(Task task) {
+            return task.isHasAlarm() && !task.isCompleted() && task.hasDueAt();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.todoapp.data;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An in-memory {@link TaskSyncBackend} that merges the way a real one must: one record per uid,
+ * its own value kept on equal stamps, and a new sequence number whenever a push changed it.
+ */
+class FakeTaskSyncBackend implements TaskSyncBackend {
+
+    private final Map<String, TaskSyncRecord> records = new HashMap<>();
+    private final Map<String, Long> sequences = new HashMap<>();
+    private final TreeMap<Long, String> changes = new TreeMap<>();
+    private long sequence;
+
+    int pushes;
+    int pulls;
+    int maxBatchRecords;
+    int maxBatchBytes;
+
+    @Override
+    public synchronized void push(byte[] batch) throws IOException {
+        pushes++;
+        maxBatchBytes = Math.max(maxBatchBytes, batch.length);
+        TaskSyncBatch.Reader reader = new TaskSyncBatch.Reader(batch);
+        int count = 0;
+        TaskSyncRecord record;
+        while ((record = reader.next()) != null) {
+            count++;
+            TaskSyncRecord stored = records.get(record.getUid());
+            if (stored == null) {
+                records.put(record.getUid(), record);
+            } else if (stored.mergeFrom(record, false) == 0) {
+                continue;
+            }
+            Long previous = sequences.put(record.getUid(), ++sequence);
+            if (previous != null) {
+                changes.remove(previous);
+            }
+            changes.put(sequence, record.getUid());
+        }
+        maxBatchRecords = Math.max(maxBatchRecords, count);
+    }
+
+    @Override
+    public synchronized byte[] pull(@Nullable String token, int limit) throws IOException {
+        pulls++;
+        long since = token == null ? 0 : Long.parseLong(token);
+        Iterator<Map.Entry<Long, String>> after = changes.tailMap(since, false).entrySet().iterator();
+        TaskSyncRecord[] batch = new TaskSyncRecord[Math.min(limit, changes.size())];
+        int count = 0;
+        long last = since;
+        while (count < limit && after.hasNext()) {
+            Map.Entry<Long, String> change = after.next();
+            batch[count++] = records.get(change.getValue());
+            last = change.getKey();
+        }
+        TaskSyncBatch.Writer writer = new TaskSyncBatch.Writer(String.valueOf(last), after.hasNext());
+        for (int i = 0; i < count; i++) {
+            writer.write(batch[i]);
+        }
+        maxBatchRecords = Math.max(maxBatchRecords, count);
+        byte[] bytes = writer.finish();
+        maxBatchBytes = Math.max(maxBatchBytes, bytes.length);
+        return bytes;
+    }
+
+    @Nullable
+    synchronized TaskSyncRecord get(String uid) {
+        return records.get(uid);
+    }
+
+    synchronized int size() {
+        return records.size();
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.todoapp.data;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+
+import static org.junit.Assert.*;
+
+public class HttpTaskSyncBackendTest {
+
+    private final FakeTaskSyncBackend fake = new FakeTaskSyncBackend();
+    private HttpServer server;
+    private String baseUrl;
+    private volatile String lastQuery;
+    private volatile String lastContentType;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/changes", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                lastQuery = exchange.getRequestURI().getRawQuery();
+                lastContentType = exchange.getRequestHeaders().getFirst("Content-Type");
+                byte[] response = new byte[0];
+                if ("POST".equals(exchange.getRequestMethod())) {
+                    fake.push(readAll(exchange.getRequestBody()));
+                } else {
+                    String since = null;
+                    int limit = 0;
+                    for (String parameter : lastQuery.split("&")) {
+                        String[] pair = parameter.split("=", 2);
+                        if (pair[0].equals("since")) {
+                            since = URLDecoder.decode(pair[1], "UTF-8");
+                        } else if (pair[0].equals("limit")) {
+                            limit = Integer.parseInt(pair[1]);
+                        }
+                    }
+                    response = fake.pull(since, limit);
+                }
+                exchange.sendResponseHeaders(200, response.length == 0 ? -1 : response.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(response);
+                out.close();
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/api";
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void pushAndPull_reachTheServer() throws IOException {
+        HttpTaskSyncBackend backend = new HttpTaskSyncBackend(baseUrl + "/");
+        TaskSyncBatch.Writer writer = new TaskSyncBatch.Writer(null, false);
+        for (int i = 0; i < 3; i++) {
+            TaskSyncRecord record = new TaskSyncRecord("uid" + i);
+            record.setTitle("Task " + i, 10);
+            writer.write(record);
+        }
+
+        backend.push(writer.finish());
+
+        assertEquals(HttpTaskSyncBackend.CONTENT_TYPE, lastContentType);
+        assertEquals(3, fake.size());
+        TaskSyncBatch.Reader first = new TaskSyncBatch.Reader(backend.pull(null, 2));
+        assertEquals("limit=2", lastQuery);
+        assertTrue(first.hasMore());
+        assertEquals("Task 0", first.next().getTitle());
+        assertEquals("Task 1", first.next().getTitle());
+        assertNull(first.next());
+        TaskSyncBatch.Reader second = new TaskSyncBatch.Reader(backend.pull(first.getToken(), 2));
+        assertEquals("limit=2&since=2", lastQuery);
+        assertFalse(second.hasMore());
+        assertEquals("Task 2", second.next().getTitle());
+    }
+
+    @Test
+    public void failedRequest_throws() throws IOException {
+        HttpTaskSyncBackend backend = new HttpTaskSyncBackend(baseUrl + "/missing");
+        try {
+            backend.pull(null, 10);
+            fail();
+        } catch (IOException e) {
+            assertEquals("Sync request failed: HTTP 404", e.getMessage());
+        }
+        try {
+            new HttpTaskSyncBackend("not a url");
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.todoapp.data;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.todoapp.model.Task;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.todoapp.data.TestExecutors.directExecutor;
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class TaskArchiverTest {
+
+    private static final long NOW = 1_743_500_000_000L;
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    private TaskDbHelper dbHelper;
+    private TaskRepository repository;
+    private TaskArchiver archiver;
+
+    @Before
+    public void setUp() {
+        dbHelper = new TaskDbHelper(RuntimeEnvironment.getApplication());
+        repository = new TaskRepository(dbHelper, directExecutor(), directExecutor());
+        archiver = new TaskArchiver(dbHelper);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+    }
+
+    @Test
+    public void archive_movesOnlyTasksDoneBeforeTheCutoff() {
+        List<Integer> old = insertTasks(450, NOW - 40 * DAY);
+        List<Integer> recent = insertTasks(20, NOW - 2 * DAY);
+        List<Integer> open = insertTasks(30, Task.NOT_COMPLETED);
+        final Set<Integer> deleted = new HashSet<>();
+        repository.getChanges().register(new TaskChanges.Listener() {
+            @Override
+            public void onTasksChanged(TaskChanges.Change change) {
+                deleted.addAll(change.getDeletedIds());
+            }
+        });
+
+        assertEquals(450, repository.archiveCompletedTasks(TaskArchiver.cutoff(NOW)));
+
+        assertEquals(new HashSet<>(old), deleted);
+        assertEquals(450, repository.getArchivedCount());
+        List<Integer> remaining = ids(new TaskPagingSource(dbHelper).loadAfter(null, Integer.MAX_VALUE));
+        assertEquals(50, remaining.size());
+        assertTrue(remaining.containsAll(recent));
+        assertTrue(remaining.containsAll(open));
+        assertNull(repository.getTask(old.get(0)));
+        assertEquals(0, repository.archiveCompletedTasks(TaskArchiver.cutoff(NOW)));
+    }
+
+    @Test
+    public void archiveBatch_takesTheLongestDoneFirst() {
+        int newer = insertTasks(1, NOW - 35 * DAY).get(0);
+        int oldest = insertTasks(1, NOW - 90 * DAY).get(0);
+        int older = insertTasks(1, NOW - 60 * DAY).get(0);
+
+        assertEquals(Arrays.asList(oldest, older), archiver.archiveBatch(TaskArchiver.cutoff(NOW), NOW, 2));
+        assertEquals(Collections.singletonList(newer), archiver.archiveBatch(TaskArchiver.cutoff(NOW), NOW, 2));
+        assertTrue(archiver.archiveBatch(TaskArchiver.cutoff(NOW), NOW, 2).isEmpty());
+        try {
+            archiver.archiveBatch(TaskArchiver.cutoff(NOW), NOW, 0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void archivedTasks_areSearchableAndRestoredOpen() {
+        Task passport = new Task(0, "Renew passport", "Photos first", "2025-01-10", "09:00", 3, false, Task.NO_DUE_AT);
+        passport.setCompletedAt(NOW - 40 * DAY);
+        int id = (int) repository.insertTask(passport);
+        TaskLoader loader = new TaskLoader(directExecutor(), directExecutor());
+        TaskSearch listSearch = new TaskSearch(dbHelper, loader);
+        TaskSearch archiveSearch = TaskSearch.overArchive(dbHelper, loader);
+
+        repository.archiveCompletedTasks(TaskArchiver.cutoff(NOW));
+
+        assertTrue(listSearch.searchIds("pass", 10).isEmpty());
+        assertEquals(Collections.singletonList(id), archiveSearch.searchIds("pass", 10));
+        assertEquals(Collections.singletonList(id), archiveSearch.searchIds("photos", 10));
+        assertEquals("Renew passport", archiveSearch.search("pass", 10).get(0).getTitle());
+
+        List<Task> restored = repository.restoreArchivedTasks(Collections.singleton(id));
+
+        assertEquals(1, restored.size());
+        assertEquals(id, restored.get(0).getId());
+        assertFalse(restored.get(0).isCompleted());
+        assertEquals(3, repository.getTask(id).getPriority());
+        assertTrue(archiveSearch.searchIds("pass", 10).isEmpty());
+        assertEquals(Collections.singletonList(id), listSearch.searchIds("pass", 10));
+        assertEquals(0, repository.getArchivedCount());
+    }
+
+    @Test
+    public void restoredTask_keepsItsWholeDescription() {
+        StringBuilder notes = new StringBuilder();
+        while (notes.length() <= TaskCursorMapper.DESCRIPTION_PREVIEW_LENGTH * 2) {
+            notes.append("Bring the forms and the old passport. ");
+        }
+        Task passport = new Task(0, "Renew passport", notes.toString(), null, null, 1, false, Task.NO_DUE_AT);
+        passport.setCompletedAt(NOW - 40 * DAY);
+        int id = (int) repository.insertTask(passport);
+        repository.archiveCompletedTasks(TaskArchiver.cutoff(NOW));
+
+        repository.restoreArchivedTasks(Collections.singleton(id));
+
+        assertEquals(notes.toString(), repository.getTask(id).getDescription());
+        repository.invalidateCache();
+        assertEquals(notes.toString(), repository.getTask(id).getDescription());
+    }
+
+    @Test
+    public void deleteArchived_removesThemForGood() {
+        List<Integer> old = insertTasks(3, NOW - 40 * DAY);
+        repository.archiveCompletedTasks(TaskArchiver.cutoff(NOW));
+
+        assertEquals(2, repository.deleteArchivedTasks(old.subList(0, 2)));
+
+        assertEquals(1, repository.getArchivedCount());
+        assertTrue(repository.restoreArchivedTasks(old.subList(0, 2)).isEmpty());
+    }
+
+    @Test
+    public void vacuum_handsFreePagesBack() {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        List<Integer> old = insertTasks(2000, NOW - 40 * DAY);
+
+        // The database is opened with incremental auto-vacuum already on
+        assertEquals(2, DatabaseUtils.longForQuery(db, "PRAGMA auto_vacuum", null));
+        repository.archiveCompletedTasks(TaskArchiver.cutoff(NOW));
+
+        repository.deleteArchivedTasks(old);
+        long free = DatabaseUtils.longForQuery(db, "PRAGMA freelist_count", null);
+        assertTrue(String.valueOf(free), free > TaskArchiver.VACUUM_THRESHOLD_PAGES);
+
+        long freed = archiver.vacuum();
+
+        assertTrue(freed > 0 && freed <= TaskArchiver.VACUUM_PAGES);
+        assertEquals(free - freed, DatabaseUtils.longForQuery(db, "PRAGMA freelist_count", null));
+    }
+
+    @Test
+    public void archiveQuery_seeksTheCompletedAtIndex() {
+        Cursor cursor = dbHelper.getReadableDatabase().rawQuery("EXPLAIN QUERY PLAN SELECT " +
+                TaskContract.TaskEntry._ID + " FROM " + TaskContract.TaskEntry.TABLE_NAME + " WHERE " +
+                TaskContract.TaskEntry.COLUMN_COMPLETED_AT + " < ? ORDER BY " +
+                TaskContract.TaskEntry.COLUMN_COMPLETED_AT + " LIMIT 200", new String[]{String.valueOf(NOW)});
+        StringBuilder plan = new StringBuilder();
+        try {
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(cursor.getColumnIndexOrThrow("detail"))).append('\n');
+            }
+        } finally {
+            cursor.close();
+        }
+
+        assertTrue(plan.toString(), plan.toString().contains(TaskContract.TaskEntry.INDEX_COMPLETED_AT));
+        assertFalse(plan.toString(), plan.toString().contains("TEMP B-TREE"));
+    }
+
+    // Tasks with a long description each, so archiving and deleting them frees whole pages
+    private List<Integer> insertTasks(int count, long completedAt) {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            description.append("notes ").append(i).append(' ');
+        }
+        List<Integer> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Task task = new Task(0, "Task " + i, description.toString(), "2025-02-01", null, 1, false, Task.NO_DUE_AT);
+            task.setCompletedAt(completedAt);
+            ids.add((int) repository.insertTask(task));
+        }
+        return ids;
+    }
+
+    private static List<Integer> ids(List<Task> tasks) {
+        List<Integer> ids = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+}
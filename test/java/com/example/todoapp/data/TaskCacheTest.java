@@ -0,0 +1,159 @@
+package com.example.todoapp.data;
+
+import com.example.todoapp.model.Task;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TaskCacheTest {
+
+    private final TaskCache cache = new TaskCache();
+
+    @Test
+    public void sortOrder_matchesDefaultSortOrder() {
+        Task undated = task(1, null, null, 3);
+        Task highLater = task(2, "2025-04-11", "09:00", 3);
+        Task lowSooner = task(3, "2025-04-10", "10:30", 1);
+        Task highSooner = task(4, "2025-04-10", "10:30", 3);
+        Task dateOnly = task(5, "2025-04-10", null, 2);
+
+        List<Task> tasks = new ArrayList<>(Arrays.asList(undated, highLater, lowSooner, highSooner, dateOnly));
+        tasks.sort(TaskCache.SORT_ORDER);
+
+        assertEquals(Arrays.asList(highSooner, lowSooner, dateOnly, highLater, undated), tasks);
+    }
+
+    @Test
+    public void getAfter_servesPagesInsideTheCachedRun() {
+        List<Task> rows = rows(0, 10);
+        cache.putAfter(null, rows, 10, cache.getVersion());
+
+        assertEquals(rows, cache.getAfter(null, 10));
+        assertEquals(rows.subList(5, 8), cache.getAfter(rows.get(4), 3));
+        assertEquals(rows.subList(1, 4), cache.getBefore(rows.get(4), 3));
+        assertEquals(3, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void getAfter_missesPastTheEndOfAnOpenRun() {
+        List<Task> rows = rows(0, 10);
+        cache.putAfter(null, rows, 10, cache.getVersion());
+
+        assertNull(cache.getAfter(rows.get(7), 5));
+        assertEquals(1, cache.getMissCount());
+
+        cache.putAfter(rows.get(7), rows.subList(8, 10), 5, cache.getVersion());
+
+        assertEquals(rows.subList(8, 10), cache.getAfter(rows.get(7), 5));
+        assertTrue(cache.getAfter(rows.get(9), 5).isEmpty());
+    }
+
+    @Test
+    public void putBefore_extendsTheRunBackwardsToTheStart() {
+        List<Task> all = rows(0, 10);
+        cache.putAfter(all.get(4), all.subList(5, 10), 5, cache.getVersion());
+        cache.putBefore(all.get(5), all.subList(0, 5), 10, cache.getVersion());
+
+        assertEquals(all, cache.getAfter(null, 10));
+        assertNull(cache.getAfter(null, 11));
+    }
+
+    @Test
+    public void writes_patchTheRunInPlace() {
+        List<Task> rows = rows(0, 5);
+        cache.putAfter(null, rows, 10, cache.getVersion());
+
+        Task inserted = task(100, "2025-04-02", "12:00", 1);
+        cache.onTaskWritten(inserted);
+        Task moved = task(rows.get(0).getId(), null, null, 1);
+        cache.onTaskWritten(moved);
+        cache.onTaskDeleted(rows.get(4).getId());
+
+        List<Task> page = cache.getAfter(null, 10);
+        assertEquals(5, page.size());
+        assertEquals(rows.get(1).getId(), page.get(0).getId());
+        assertEquals(100, page.get(1).getId());
+        assertEquals(moved.getId(), page.get(4).getId());
+        assertNull(page.get(4).getDate());
+    }
+
+    @Test
+    public void writes_outsideAnOpenRunAreNotCached() {
+        List<Task> rows = rows(0, 5);
+        cache.putAfter(null, rows, 5, cache.getVersion());
+
+        cache.onTaskWritten(task(100, "2030-01-01", "12:00", 1));
+
+        assertEquals(rows, cache.getAfter(null, 5));
+        assertNull(cache.getAfter(rows.get(4), 5));
+    }
+
+    @Test
+    public void writtenRows_keepOnlyTheListPreviewOfTheDescription() {
+        cache.putAfter(null, new ArrayList<Task>(), 10, cache.getVersion());
+        char[] longText = new char[TaskCursorMapper.DESCRIPTION_PREVIEW_LENGTH + 50];
+        Arrays.fill(longText, 'x');
+        Task task = new Task(1, "Long", new String(longText), null, null, 1, false, Task.NO_DUE_AT);
+
+        cache.onTaskWritten(task);
+
+        assertEquals(TaskCursorMapper.DESCRIPTION_PREVIEW_LENGTH,
+                cache.getAfter(null, 10).get(0).getDescription().length());
+        assertSame(task, cache.getTask(1));
+    }
+
+    @Test
+    public void readsThatRaceAWrite_areNotCached() {
+        int version = cache.getVersion();
+        cache.putTask(task(1, null, null, 1), version);
+        cache.onTaskDeleted(2);
+
+        cache.putAfter(null, rows(0, 5), 10, version);
+        cache.putTask(task(3, null, null, 1), version);
+
+        assertNull(cache.getAfter(null, 10));
+        assertNotNull(cache.getTask(1));
+        assertNull(cache.getTask(3));
+    }
+
+    @Test
+    public void invalidate_dropsEverything() {
+        cache.putAfter(null, rows(0, 5), 10, cache.getVersion());
+        cache.putTask(task(1, null, null, 1), cache.getVersion());
+
+        cache.invalidate();
+
+        assertNull(cache.getAfter(null, 10));
+        assertNull(cache.getTask(1));
+    }
+
+    @Test
+    public void run_isBoundedBySize() {
+        TaskCache small = new TaskCache(8, 4);
+        List<Task> all = rows(0, 12);
+        small.putAfter(null, all.subList(0, 6), 6, small.getVersion());
+        small.putAfter(all.get(5), all.subList(6, 12), 6, small.getVersion());
+
+        assertNull(small.getAfter(null, 6));
+        assertEquals(all.subList(6, 12), small.getAfter(all.get(5), 6));
+    }
+
+    // Tasks due on consecutive days from April 1st, in list order.
+    private static List<Task> rows(int first, int count) {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = first; i < first + count; i++) {
+            tasks.add(task(i + 1, String.format("2025-04-%02d", i + 1), "09:00", 1));
+        }
+        return tasks;
+    }
+
+    private static Task task(int id, String date, String time, int priority) {
+        return new Task(id, "Task " + id, "", date, time, priority, false, Task.NO_DUE_AT);
+    }
+}
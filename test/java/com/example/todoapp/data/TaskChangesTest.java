@@ -0,0 +1,117 @@
+package com.example.todoapp.data;
+
+import com.example.todoapp.model.Task;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TaskChangesTest {
+
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final List<TaskChanges.Change> delivered = new ArrayList<>();
+    private TaskChanges changes;
+
+    @Before
+    public void setUp() {
+        changes = new TaskChanges(new TaskChanges.Scheduler() {
+            @Override
+            public void schedule(Runnable delivery, long delayMillis) {
+                assertEquals(TaskChanges.DEFAULT_WINDOW_MILLIS, delayMillis);
+                scheduled.add(delivery);
+            }
+        }, TaskChanges.DEFAULT_WINDOW_MILLIS);
+        changes.register(new TaskChanges.Listener() {
+            @Override
+            public void onTasksChanged(TaskChanges.Change change) {
+                delivered.add(change);
+            }
+        });
+    }
+
+    @Test
+    public void writesInOneWindow_areDeliveredOnce() {
+        changes.onInserted(task(1, "New"));
+        changes.onUpdated(task(2, "Old"));
+        changes.onUpdated(task(2, "Renamed"));
+        changes.onDeleted(3);
+
+        assertEquals(1, scheduled.size());
+        assertTrue(delivered.isEmpty());
+        closeWindow();
+
+        TaskChanges.Change change = delivered.get(0);
+        assertEquals(Collections.singleton(1), change.getInsertedIds());
+        assertEquals(Collections.singleton(2), change.getUpdatedIds());
+        assertEquals(Collections.singleton(3), change.getDeletedIds());
+        assertEquals("Renamed", change.getRow(2).getTitle());
+        assertNull(change.getRow(3));
+        assertFalse(change.isReloadNeeded());
+    }
+
+    @Test
+    public void eventsForOneId_areMerged() {
+        // Inserted then changed: still new to listeners
+        changes.onInserted(task(1, "New"));
+        changes.onUpdated(task(1, "New, edited"));
+        // Inserted then deleted: never seen
+        changes.onInserted(task(2, "Gone"));
+        changes.onDeleted(2);
+        // Deleted then restored by undo: only changed
+        changes.onDeleted(3);
+        changes.onInserted(task(3, "Back"));
+        // Changed then deleted: only deleted
+        changes.onUpdated(task(4, "Edited"));
+        changes.onDeleted(4);
+        closeWindow();
+
+        TaskChanges.Change change = delivered.get(0);
+        assertEquals(Collections.singleton(1), change.getInsertedIds());
+        assertEquals("New, edited", change.getRow(1).getTitle());
+        assertEquals(Collections.singleton(3), change.getUpdatedIds());
+        assertEquals(Collections.singleton(4), change.getDeletedIds());
+        assertNull(change.getRow(2));
+    }
+
+    @Test
+    public void nextWrite_opensANewWindow() {
+        changes.onDeleted(1);
+        closeWindow();
+        changes.onDeleted(2);
+        changes.onReloadNeeded();
+        closeWindow();
+
+        assertEquals(2, delivered.size());
+        assertEquals(Collections.singleton(2), delivered.get(1).getDeletedIds());
+        assertTrue(delivered.get(1).isReloadNeeded());
+        assertFalse(delivered.get(0).isReloadNeeded());
+    }
+
+    @Test
+    public void rows_areSnapshotsOfTheWrite() {
+        Task task = task(1, "Before");
+        changes.onUpdated(task);
+        task.setTitle("After");
+        closeWindow();
+
+        assertEquals("Before", delivered.get(0).getRow(1).getTitle());
+        assertEquals(Collections.singleton(1), delivered.get(0).getUpdatedIds());
+    }
+
+    private void closeWindow() {
+        List<Runnable> due = new ArrayList<>(scheduled);
+        scheduled.clear();
+        for (Runnable delivery : due) {
+            delivery.run();
+        }
+    }
+
+    private static Task task(int id, String title) {
+        return new Task(id, title, null, null, null, 1, false, Task.NO_DUE_AT);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.todoapp.data;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import com.example.todoapp.model.Task;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Per-row mapping cost of the old per-row getColumnIndex loop over SELECT * against
+ * TaskCursorMapper with the list-row projection.
+ * Skipped unless run with {@code -Ptodo.benchmark=true}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TaskCursorMapperBenchmark {
+
+    private static final int ROWS = 20_000;
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 10;
+
+    private TaskDbHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        assumeTrue(Boolean.getBoolean("todo.benchmark"));
+        dbHelper = new TaskDbHelper(RuntimeEnvironment.getApplication());
+        seed(dbHelper.getWritableDatabase());
+    }
+
+    @After
+    public void tearDown() {
+        if (dbHelper != null) {
+            dbHelper.close();
+        }
+    }
+
+    @Test
+    public void comparePerRowMappingCost() {
+        SQLiteDatabase db = dbHelper.getReadableDatabase();
+
+        long legacyNanos = Long.MAX_VALUE;
+        long mapperNanos = Long.MAX_VALUE;
+        List<Task> legacy = null;
+        List<Task> mapped = null;
+
+        for (int run = 0; run < WARMUP_RUNS + MEASURED_RUNS; run++) {
+            long start = System.nanoTime();
+            Cursor cursor = db.query(TaskContract.TaskEntry.TABLE_NAME, null, null, null, null, null, null);
+            try {
+                legacy = mapLegacy(cursor);
+            } finally {
+                cursor.close();
+            }
+            long legacyRun = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            cursor = db.query(TaskContract.TaskEntry.TABLE_NAME, TaskCursorMapper.LIST_ROW.getProjection(),
+                    null, null, null, null, null);
+            try {
+                mapped = TaskCursorMapper.LIST_ROW.mapAll(cursor);
+            } finally {
+                cursor.close();
+            }
+            long mapperRun = System.nanoTime() - start;
+
+            if (run >= WARMUP_RUNS) {
+                legacyNanos = Math.min(legacyNanos, legacyRun);
+                mapperNanos = Math.min(mapperNanos, mapperRun);
+            }
+        }
+
+        assertEquals(ROWS, legacy.size());
+        assertEquals(ROWS, mapped.size());
+        assertEquals(legacy.get(0).getTitle(), mapped.get(0).getTitle());
+        assertEquals(TaskCursorMapper.DESCRIPTION_PREVIEW_LENGTH, mapped.get(0).getDescription().length());
+
+        System.out.println(String.format(Locale.US,
+                "cursor mapping rows=%d legacyNsPerRow=%d mapperNsPerRow=%d",
+                ROWS, legacyNanos / ROWS, mapperNanos / ROWS));
+    }
+
+    // The loop MainActivity.loadTasks() used before TaskCursorMapper.
+    private static List<Task> mapLegacy(Cursor cursor) {
+        List<Task> taskList = new ArrayList<>();
+        while (cursor.moveToNext()) {
+            int id = cursor.getInt(cursor.getColumnIndex(TaskContract.TaskEntry._ID));
+            String title = cursor.getString(cursor.getColumnIndex(TaskContract.TaskEntry.COLUMN_TITLE));
+            String description = cursor.getString(cursor.getColumnIndex(TaskContract.TaskEntry.COLUMN_DESCRIPTION));
+            String date = cursor.getString(cursor.getColumnIndex(TaskContract.TaskEntry.COLUMN_DATE));
+            String time = cursor.getString(cursor.getColumnIndex(TaskContract.TaskEntry.COLUMN_TIME));
+            int priority = cursor.getInt(cursor.getColumnIndex(TaskContract.TaskEntry.COLUMN_PRIORITY));
+            boolean hasAlarm = cursor.getInt(cursor.getColumnIndex(TaskContract.TaskEntry.COLUMN_HAS_ALARM)) == 1;
+            int dueAtIndex = cursor.getColumnIndex(TaskContract.TaskEntry.COLUMN_DUE_AT);
+            long dueAt = cursor.isNull(dueAtIndex) ? Task.NO_DUE_AT : cursor.getLong(dueAtIndex);
+
+            taskList.add(new Task(id, title, description, date, time, priority, hasAlarm, dueAt));
+        }
+        return taskList;
+    }
+
+    private static void seed(SQLiteDatabase db) {
+        StringBuilder description = new StringBuilder();
+        while (description.length() < 2_000) {
+            description.append("A long task description that the list only previews. ");
+        }
+
+        SQLiteStatement insert = db.compileStatement("INSERT INTO " + TaskContract.TaskEntry.TABLE_NAME + " (" +
+                TaskContract.TaskEntry.COLUMN_TITLE + ", " +
+                TaskContract.TaskEntry.COLUMN_DESCRIPTION + ", " +
+                TaskContract.TaskEntry.COLUMN_DATE + ", " +
+                TaskContract.TaskEntry.COLUMN_TIME + ") VALUES (?, ?, ?, ?)");
+
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < ROWS; i++) {
+                insert.bindString(1, "Task " + i);
+                insert.bindString(2, description.toString());
+                insert.bindString(3, "2025-04-10");
+                insert.bindString(4, "10:30");
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.example.todoapp.data;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.todoapp.model.Task;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Calendar;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class TaskDbHelperMigrationTest {
+
+    // The tasks table exactly as version 1 of the app created it.
+    private static final String SQL_CREATE_V1_TASKS_TABLE = "CREATE TABLE tasks (" +
+            "_id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+            "title TEXT NOT NULL, " +
+            "description TEXT, " +
+            "date TEXT, " +
+            "time TEXT, " +
+            "priority INTEGER NOT NULL DEFAULT 1, " +
+            "has_alarm INTEGER NOT NULL DEFAULT 0);";
+
+    private SQLiteDatabase db;
+    private TaskDbHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        db = SQLiteDatabase.create(null);
+        dbHelper = new TaskDbHelper(RuntimeEnvironment.getApplication());
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+        dbHelper.close();
+    }
+
+    @Test
+    public void upgradeFromV1_keepsRowsAndBackfillsDueAt() {
+        db.execSQL(SQL_CREATE_V1_TASKS_TABLE);
+        long dated = insertV1Task("Dentist", "Bring forms", "2025-04-10", "10:30", 3);
+        long dateOnly = insertV1Task("Rent", null, "2025-05-01", null, 2);
+        long timeOnly = insertV1Task("Stretch", null, null, "07:15", 1);
+        long undated = insertV1Task("Someday", null, null, null, 1);
+        long malformed = insertV1Task("Broken", null, "soon", null, 1);
+
+        db.beginTransaction();
+        try {
+            dbHelper.onUpgrade(db, 1, 4);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        assertEquals(5, count("SELECT COUNT(*) FROM tasks"));
+        assertEquals(localMillis(2025, Calendar.APRIL, 10, 10, 30), dueAt(dated));
+        assertEquals(localMillis(2025, Calendar.MAY, 1, 0, 0), dueAt(dateOnly));
+        assertEquals(Task.NO_DUE_AT, dueAt(timeOnly));
+        assertEquals(Task.NO_DUE_AT, dueAt(undated));
+        assertEquals(Task.NO_DUE_AT, dueAt(malformed));
+
+        Cursor cursor = db.rawQuery("SELECT title, description, priority FROM tasks WHERE _id = ?",
+                new String[]{String.valueOf(dated)});
+        try {
+            assertTrue(cursor.moveToFirst());
+            assertEquals("Dentist", cursor.getString(0));
+            assertEquals("Bring forms", cursor.getString(1));
+            assertEquals(3, cursor.getInt(2));
+        } finally {
+            cursor.close();
+        }
+
+        assertIndexExists(TaskContract.TaskEntry.INDEX_DUE_ORDER);
+        assertIndexExists(TaskContract.TaskEntry.INDEX_DUE_AT);
+    }
+
+    @Test
+    public void upgradeFromV2_addsDueAtAndRebuildsSortIndex() {
+        db.execSQL(SQL_CREATE_V1_TASKS_TABLE);
+        db.execSQL("CREATE INDEX index_tasks_due_order ON tasks " +
+                "(date IS NULL, date, time IS NULL, time, priority DESC)");
+        long id = insertV1Task("Dentist", null, "2025-04-10", "10:30", 3);
+
+        dbHelper.onUpgrade(db, 2, 4);
+
+        assertEquals(localMillis(2025, Calendar.APRIL, 10, 10, 30), dueAt(id));
+        assertIndexExists(TaskContract.TaskEntry.INDEX_DUE_AT);
+        assertTrue(indexSql(TaskContract.TaskEntry.INDEX_DUE_ORDER).contains("IFNULL"));
+    }
+
+    @Test
+    public void upgradeFromV4_indexesExistingTasksForSearch() {
+        db.execSQL(SQL_CREATE_V1_TASKS_TABLE);
+        long id = insertV1Task("Dentist", "Bring forms", "2025-04-10", "10:30", 3);
+
+        dbHelper.onUpgrade(db, 1, 5);
+
+        assertEquals(id, count("SELECT docid FROM tasks_fts WHERE tasks_fts MATCH 'form*'"));
+        assertEquals(1, count("SELECT COUNT(*) FROM sqlite_master WHERE type = 'trigger' " +
+                "AND name = 'tasks_fts_after_insert'"));
+    }
+
+    @Test
+    public void upgradeFromV5_addsOpenCompletedAtAndAlarmIndex() {
+        db.execSQL(SQL_CREATE_V1_TASKS_TABLE);
+        long id = insertV1Task("Dentist", null, "2025-04-10", "10:30", 3);
+
+        dbHelper.onUpgrade(db, 1, 7);
+
+        assertEquals(1, count("SELECT COUNT(*) FROM tasks WHERE _id = " + id + " AND completed_at IS NULL"));
+        assertIndexExists(TaskContract.TaskEntry.INDEX_ALARM_DUE_AT);
+    }
+
+    @Test
+    public void upgradeFromV7_leavesTasksNotRepeatingAndAddsOccurrences() {
+        db.execSQL(SQL_CREATE_V1_TASKS_TABLE);
+        long id = insertV1Task("Dentist", null, "2025-04-10", "10:30", 3);
+
+        dbHelper.onUpgrade(db, 1, 8);
+
+        assertEquals(1, count("SELECT COUNT(*) FROM tasks WHERE _id = " + id + " AND recurrence IS NULL"));
+        assertEquals(0, count("SELECT COUNT(*) FROM task_occurrences"));
+        assertIndexExists(TaskContract.TaskEntry.INDEX_RECURRING);
+    }
+
+    @Test
+    public void upgradeFromV8_addsFilterIndexes() {
+        db.execSQL(SQL_CREATE_V1_TASKS_TABLE);
+        insertV1Task("Dentist", null, "2025-04-10", "10:30", 3);
+
+        dbHelper.onUpgrade(db, 1, 9);
+
+        assertIndexExists(TaskContract.TaskEntry.INDEX_PRIORITY_ORDER);
+        assertTrue(indexSql(TaskContract.TaskEntry.INDEX_ALARMED_ORDER).contains("WHERE"));
+        assertTrue(indexSql(TaskContract.TaskEntry.INDEX_OPEN_ORDER).contains("WHERE"));
+    }
+
+    @Test
+    public void upgradeFromV9_addsArchive() {
+        db.execSQL(SQL_CREATE_V1_TASKS_TABLE);
+        long id = insertV1Task("Dentist", null, "2025-04-10", "10:30", 3);
+
+        dbHelper.onUpgrade(db, 1, 10);
+
+        assertTrue(indexSql(TaskContract.TaskEntry.INDEX_COMPLETED_AT).contains("WHERE"));
+        db.execSQL("INSERT INTO tasks_archive (_id, title, archived_at) VALUES (" + (id + 1) + ", 'Old dentist', 1)");
+        assertEquals(id + 1, count("SELECT docid FROM tasks_archive_fts WHERE tasks_archive_fts MATCH 'dentist'"));
+    }
+
+    @Test
+    public void upgradeFromV10_tracksExistingTasksForSync() {
+        db.execSQL(SQL_CREATE_V1_TASKS_TABLE);
+        long id = insertV1Task("Dentist", null, "2025-04-10", "10:30", 3);
+        insertV1Task("Groceries", null, null, null, 1);
+
+        dbHelper.onUpgrade(db, 1, 11);
+
+        assertEquals(2, count("SELECT COUNT(*) FROM task_sync WHERE version > 0 AND length(uid) = 32"));
+        assertEquals(2, count("SELECT COUNT(DISTINCT uid) FROM task_sync"));
+        assertEquals(2, count("SELECT version FROM sync_state"));
+        assertEquals(0, count("SELECT pushed_version FROM sync_state"));
+
+        long stamp = count("SELECT stamp_title FROM task_sync WHERE task_id = " + id);
+        db.execSQL("UPDATE tasks SET priority = 1 WHERE _id = " + id);
+        assertEquals(3, count("SELECT version FROM task_sync WHERE task_id = " + id));
+        assertEquals(stamp, count("SELECT stamp_title FROM task_sync WHERE task_id = " + id));
+        assertTrue(count("SELECT stamp_priority FROM task_sync WHERE task_id = " + id) > stamp);
+    }
+
+    @Test
+    public void upgradeFromV11_searchTriggersFireOnlyOnTextChanges() {
+        db.execSQL(SQL_CREATE_V1_TASKS_TABLE);
+        long id = insertV1Task("Dentist", "Bring the forms", null, null, 1);
+
+        dbHelper.onUpgrade(db, 1, 12);
+
+        assertTrue(triggerSql("tasks_fts_before_update").contains("WHEN"));
+        assertTrue(triggerSql("tasks_fts_after_update").contains("WHEN"));
+        db.execSQL("UPDATE tasks SET title = title, description = description, priority = 3");
+        assertEquals(id, count("SELECT docid FROM tasks_fts WHERE tasks_fts MATCH 'forms'"));
+        db.execSQL("UPDATE tasks SET title = 'Doctor'");
+        assertEquals(id, count("SELECT docid FROM tasks_fts WHERE tasks_fts MATCH 'doctor'"));
+        assertEquals(0, count("SELECT COUNT(*) FROM tasks_fts WHERE tasks_fts MATCH 'dentist'"));
+    }
+
+    @Test
+    public void onCreate_matchesUpgradedSchema() {
+        dbHelper.onCreate(db);
+
+        ContentValues values = new ContentValues();
+        values.put(TaskContract.TaskEntry.COLUMN_TITLE, "Fresh");
+        values.put(TaskContract.TaskEntry.COLUMN_DUE_AT, 1234L);
+        values.put(TaskContract.TaskEntry.COLUMN_COMPLETED_AT, 5678L);
+        long id = db.insert(TaskContract.TaskEntry.TABLE_NAME, null, values);
+
+        assertEquals(1234L, dueAt(id));
+        assertIndexExists(TaskContract.TaskEntry.INDEX_DUE_ORDER);
+        assertIndexExists(TaskContract.TaskEntry.INDEX_DUE_AT);
+        assertIndexExists(TaskContract.TaskEntry.INDEX_ALARM_DUE_AT);
+        assertEquals(id, count("SELECT docid FROM tasks_fts WHERE tasks_fts MATCH 'fresh'"));
+        assertEquals(5678L, count("SELECT completed_at FROM tasks"));
+        assertIndexExists(TaskContract.TaskEntry.INDEX_RECURRING);
+        assertIndexExists(TaskContract.TaskEntry.INDEX_PRIORITY_ORDER);
+        assertIndexExists(TaskContract.TaskEntry.INDEX_ALARMED_ORDER);
+        assertIndexExists(TaskContract.TaskEntry.INDEX_OPEN_ORDER);
+        assertIndexExists(TaskContract.TaskEntry.INDEX_COMPLETED_AT);
+        assertEquals(0, count("SELECT COUNT(*) FROM tasks_archive"));
+        assertEquals(1, count("SELECT COUNT(*) FROM task_sync WHERE task_id = " + id + " AND deleted = 0"));
+        assertEquals(1, count("SELECT tracking FROM sync_state"));
+        assertIndexExists(TaskContract.TaskSyncEntry.INDEX_VERSION);
+
+        db.execSQL("INSERT INTO task_occurrences (task_id, original_date, skipped) VALUES (" + id + ", '2025-04-10', 1)");
+        db.delete(TaskContract.TaskEntry.TABLE_NAME, null, null);
+        assertEquals(0, count("SELECT COUNT(*) FROM task_occurrences"));
+    }
+
+    private long insertV1Task(String title, String description, String date, String time, int priority) {
+        ContentValues values = new ContentValues();
+        values.put("title", title);
+        values.put("description", description);
+        values.put("date", date);
+        values.put("time", time);
+        values.put("priority", priority);
+        return db.insert("tasks", null, values);
+    }
+
+    private long dueAt(long id) {
+        Cursor cursor = db.rawQuery("SELECT due_at FROM tasks WHERE _id = ?", new String[]{String.valueOf(id)});
+        try {
+            assertTrue(cursor.moveToFirst());
+            return cursor.isNull(0) ? Task.NO_DUE_AT : cursor.getLong(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private long count(String sql) {
+        Cursor cursor = db.rawQuery(sql, null);
+        try {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getLong(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private String indexSql(String name) {
+        Cursor cursor = db.rawQuery("SELECT sql FROM sqlite_master WHERE type = 'index' AND name = ?",
+                new String[]{name});
+        try {
+            assertTrue("missing index " + name, cursor.moveToFirst());
+            return cursor.getString(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private String triggerSql(String name) {
+        Cursor cursor = db.rawQuery("SELECT sql FROM sqlite_master WHERE type = 'trigger' AND name = ?",
+                new String[]{name});
+        try {
+            assertTrue("missing trigger " + name, cursor.moveToFirst());
+            return cursor.getString(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private void assertIndexExists(String name) {
+        Cursor cursor = db.rawQuery("SELECT 1 FROM sqlite_master WHERE type = 'index' AND name = ?",
+                new String[]{name});
+        try {
+            assertTrue("missing index " + name, cursor.moveToFirst());
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static long localMillis(int year, int month, int day, int hour, int minute) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, month, day, hour, minute);
+        return calendar.getTimeInMillis();
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.todoapp.data;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteQueryBuilder;
+
+import com.example.todoapp.model.Task;
+import com.example.todoapp.util.TaskDateFormatter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static com.example.todoapp.data.TestExecutors.directExecutor;
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class TaskFilterTest {
+
+    private static final int PAGE_SIZE = 25;
+
+    private TaskDbHelper dbHelper;
+    private TaskRepository repository;
+    private TaskDateFormatter formatter;
+    private long now;
+    private List<Task> window;
+
+    @Before
+    public void setUp() {
+        dbHelper = new TaskDbHelper(RuntimeEnvironment.getApplication());
+        repository = new TaskRepository(dbHelper, directExecutor(), directExecutor());
+        formatter = new TaskDateFormatter(Locale.US, ZoneId.of("UTC"));
+        now = formatter.toDueAt("2025-04-01", "12:00");
+        window = new ArrayList<>();
+        seed(300);
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+    }
+
+    @Test
+    public void pages_holdExactlyTheRowsEachFilterMatches() {
+        List<Task> all = new TaskPagingSource(dbHelper).loadAfter(null, Integer.MAX_VALUE);
+        for (TaskFilter filter : filters()) {
+            List<Integer> expected = new ArrayList<>();
+            for (Task task : all) {
+                if (filter.matches(task)) {
+                    expected.add(task.getId());
+                }
+            }
+
+            TaskPagingSource source = repository.getPagingSource(filter);
+            List<Task> paged = new ArrayList<>();
+            List<Task> page = source.loadAfter(null, PAGE_SIZE);
+            while (!page.isEmpty()) {
+                paged.addAll(page);
+                page = source.loadAfter(page.get(page.size() - 1), PAGE_SIZE);
+            }
+
+            assertFalse(filter.getKind().toString(), expected.isEmpty());
+            assertEquals(filter.getKind().toString(), expected, ids(paged));
+        }
+    }
+
+    @Test
+    public void counts_matchTheRowsEachFilterMatches() {
+        for (TaskFilter filter : filters()) {
+            List<Task> rows = repository.getPagingSource(filter).loadAfter(null, Integer.MAX_VALUE);
+            assertEquals(filter.getKind().toString(), rows.size(), repository.getTaskCount(filter));
+        }
+    }
+
+    @Test
+    public void overdue_leavesUntimedTasksDatedTodayOut() {
+        dbHelper.getWritableDatabase().delete(TaskContract.TaskEntry.TABLE_NAME, null, null);
+        int yesterday = insert("2025-03-31", null);
+        insert("2025-04-01", null);
+        int timedEarlier = insert("2025-04-01", "11:00");
+        insert("2025-04-01", "13:00");
+        insert("2025-04-02", null);
+        TaskFilter filter = TaskFilter.overdue(now, formatter);
+
+        List<Task> rows = repository.getPagingSource(filter).loadAfter(null, Integer.MAX_VALUE);
+
+        assertEquals(Arrays.asList(yesterday, timedEarlier), ids(rows));
+        assertEquals(2, repository.getTaskCount(filter));
+        for (Task task : new TaskPagingSource(dbHelper).loadAfter(null, Integer.MAX_VALUE)) {
+            assertEquals(task.getTitle(), ids(rows).contains(task.getId()), filter.matches(task));
+        }
+    }
+
+    @Test
+    public void queries_seekTheirIndexesInsteadOfScanningTheTable() {
+        assertSeeks(TaskFilter.priority(3), TaskContract.TaskEntry.INDEX_PRIORITY_ORDER);
+        assertSeeks(TaskFilter.overdue(now, formatter), TaskContract.TaskEntry.INDEX_OPEN_ORDER);
+        assertSeeks(TaskFilter.alarmed(), TaskContract.TaskEntry.INDEX_ALARMED_ORDER);
+        assertSeeks(TaskFilter.dateRange(LocalDate.of(2025, 3, 10), LocalDate.of(2025, 3, 20), formatter),
+                TaskContract.TaskEntry.INDEX_DUE_ORDER);
+    }
+
+    @Test
+    public void filteredPager_patchesToWhatARefreshWouldLoad() {
+        TaskFilter filter = TaskFilter.priority(3);
+        final TaskPager pager = new TaskPager(repository.getPagingSource(filter), new TaskLoader(directExecutor(), directExecutor()),
+                PAGE_SIZE, 5, 3, new TaskPager.Listener() {
+                    @Override
+                    public void onWindowChanged(List<Task> tasks) {
+                        window = tasks;
+                    }
+                });
+        pager.refresh();
+        repository.getChanges().register(new TaskChanges.Listener() {
+            @Override
+            public void onTasksChanged(TaskChanges.Change change) {
+                pager.onTasksChanged(change);
+            }
+        });
+
+        Task demoted = repository.getTask(window.get(2).getId());
+        demoted.setPriority(1);
+        repository.updateTask(demoted);
+        Task promoted = repository.getPagingSource(TaskFilter.priority(2)).loadAfter(null, 1).get(0);
+        promoted = repository.getTask(promoted.getId());
+        promoted.setPriority(3);
+        repository.updateTask(promoted);
+        repository.insertTask(new Task(0, "Low", null, "2025-03-01", null, 1, false, formatter.toDueAt("2025-03-01", null)));
+        List<Integer> patched = ids(window);
+
+        pager.refresh();
+
+        assertEquals(ids(window), patched);
+        assertFalse(patched.contains(demoted.getId()));
+        assertTrue(patched.contains(promoted.getId()));
+    }
+
+    @Test
+    public void invalidFilters_areRejected() {
+        try {
+            TaskFilter.priority(4);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            TaskFilter.dateRange(LocalDate.of(2025, 3, 2), LocalDate.of(2025, 3, 1), formatter);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    private List<TaskFilter> filters() {
+        return Arrays.asList(
+                TaskFilter.priority(1), TaskFilter.priority(2), TaskFilter.priority(3),
+                TaskFilter.overdue(now, formatter),
+                TaskFilter.alarmed(),
+                TaskFilter.dateRange(LocalDate.of(2025, 3, 10), LocalDate.of(2025, 3, 20), formatter));
+    }
+
+    // The first page, a later page and the count must each seek the filter's index, and the
+    // pages must come out of it in list order without a sort
+    private void assertSeeks(TaskFilter filter, String index) {
+        String[] projection = TaskCursorMapper.LIST_ROW.getProjection();
+        Task anchor = new Task(1, "Anchor", null, "2025-03-15", "09:00", 2, false, Task.NO_DUE_AT);
+
+        String firstPage = plan(SQLiteQueryBuilder.buildQueryString(false, TaskContract.TaskEntry.TABLE_NAME,
+                projection, filter.getSelection(), null, null, TaskContract.TaskEntry.DEFAULT_SORT_ORDER,
+                String.valueOf(PAGE_SIZE)), filter.getSelectionArgs());
+        String laterPage = plan(SQLiteQueryBuilder.buildQueryString(false, TaskContract.TaskEntry.TABLE_NAME,
+                projection, filter.and(TaskPagingSource.AFTER_SELECTION), null, null,
+                TaskContract.TaskEntry.DEFAULT_SORT_ORDER, String.valueOf(PAGE_SIZE)),
+                filter.andArgs(TaskPagingSource.keysetArgs(anchor)));
+        String count = plan("SELECT COUNT(*) FROM " + TaskContract.TaskEntry.TABLE_NAME +
+                " WHERE " + filter.getSelection(), filter.getSelectionArgs());
+
+        for (String plan : new String[]{firstPage, laterPage, count}) {
+            assertTrue(plan, plan.contains(index));
+            assertFalse(plan, plan.matches("(?s).*SCAN (TABLE )?" + TaskContract.TaskEntry.TABLE_NAME + "\\b(?! USING).*"));
+        }
+        assertFalse(firstPage, firstPage.contains("TEMP B-TREE"));
+        assertFalse(laterPage, laterPage.contains("TEMP B-TREE"));
+    }
+
+    private String plan(String sql, String[] args) {
+        Cursor cursor = dbHelper.getReadableDatabase().rawQuery("EXPLAIN QUERY PLAN " + sql, args);
+        StringBuilder plan = new StringBuilder();
+        try {
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(cursor.getColumnIndexOrThrow("detail"))).append('\n');
+            }
+        } finally {
+            cursor.close();
+        }
+        return plan.toString();
+    }
+
+    // Dates over March and April around now, with every filter matching some rows and missing others
+    private void seed(int count) {
+        Random random = new Random(7);
+        for (int i = 0; i < count; i++) {
+            String date = random.nextInt(10) > 0
+                    ? String.format(Locale.US, "2025-%02d-%02d", 3 + random.nextInt(2), 1 + random.nextInt(28))
+                    : null;
+            String time = date != null && random.nextBoolean()
+                    ? String.format(Locale.US, "%02d:%02d", random.nextInt(24), random.nextInt(60))
+                    : null;
+            Task task = new Task(0, "Task " + i, null, date, time, 1 + random.nextInt(3),
+                    random.nextInt(5) == 0, formatter.toDueAt(date, time));
+            if (random.nextInt(3) == 0) {
+                task.setCompletedAt(now - 1);
+            }
+            repository.insertTask(task);
+        }
+    }
+
+    private int insert(String date, String time) {
+        return (int) repository.insertTask(new Task(0, date + " " + time, null, date, time, 2, false,
+                formatter.toDueAt(date, time)));
+    }
+
+    private static List<Integer> ids(List<Task> tasks) {
+        List<Integer> ids = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.todoapp.data;
+
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.example.todoapp.adapter.TaskAdapter;
+import com.example.todoapp.model.Task;
+import com.example.todoapp.util.TaskDateFormatter;
+
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * JMH benchmarks for the in-memory half of the list pipeline at 1k, 10k and 100k tasks:
+ * sorting with {@link TaskCache#SORT_ORDER}, formatting due labels, and the DiffUtil pass
+ * the adapter runs when a list with edited, removed and inserted rows replaces the shown one.
+ * See {@link TaskPipelineBenchmark} for the SQL half and how to run both.
+ *
+ * <p>{@link #runJmh} starts JMH from the unit test task and writes its JSON results to
+ * {@code build/benchmarks/TaskListBenchmark.json}. Skipped unless run with
+ * {@code -Ptodo.benchmark=true}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TaskListBenchmark {
+
+    // Rows moved in and out of the list by each diff, whatever its size, as one sync would
+    private static final int STRUCTURAL_EDITS = 20;
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private List<Task> tasks;
+    private List<Task> shuffled;
+    private List<Task> edited;
+    private TaskDateFormatter formatter;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tasks = TaskPipelineBenchmark.newTasks(rows);
+        Collections.sort(tasks, TaskCache.SORT_ORDER);
+        shuffled = new ArrayList<>(tasks);
+        Collections.shuffle(shuffled, new Random(42));
+        edited = edit(tasks);
+        formatter = new TaskDateFormatter(Locale.US, ZoneId.of("Europe/Berlin"));
+    }
+
+    @Benchmark
+    public List<Task> sort() {
+        List<Task> sorted = new ArrayList<>(shuffled);
+        Collections.sort(sorted, TaskCache.SORT_ORDER);
+        return sorted;
+    }
+
+    @Benchmark
+    public void formatDueLabels(Blackhole blackhole) {
+        for (Task task : tasks) {
+            if (task.hasDueAt()) {
+                blackhole.consume(formatter.formatDueLabel(task.getDueAt(), task.getTime() != null));
+            }
+        }
+    }
+
+    @Benchmark
+    public DiffUtil.DiffResult diff() {
+        return DiffUtil.calculateDiff(new ListDiff(tasks, edited));
+    }
+
+    @Test
+    public void runJmh() throws RunnerException {
+        assumeTrue(Boolean.getBoolean("todo.benchmark"));
+        new Runner(new OptionsBuilder()
+                .include(TaskListBenchmark.class.getName() + "\\.")
+                // In the test worker itself: a forked JVM would need Gradle's test classpath rebuilt
+                .forks(0)
+                .resultFormat(ResultFormatType.JSON)
+                .result(TaskPipelineBenchmark.resultFile("TaskListBenchmark.json").getPath())
+                .shouldFailOnError(true)
+                .build()).run();
+    }
+
+    // Every tenth row retitled, and STRUCTURAL_EDITS rows removed and as many new ones added
+    private static List<Task> edit(List<Task> tasks) {
+        List<Task> edited = new ArrayList<>(tasks.size());
+        int step = Math.max(1, tasks.size() / STRUCTURAL_EDITS);
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            if (i % step == step / 2) {
+                continue;
+            }
+            if (i % 10 == 0) {
+                task = copy(task, task.getId());
+                task.setTitle(task.getTitle() + " (edited)");
+            }
+            edited.add(task);
+            if (i % step == 0) {
+                edited.add(copy(task, tasks.size() + 1 + i));
+            }
+        }
+        return edited;
+    }
+
+    private static Task copy(Task task, int id) {
+        Task copy = new Task(id, task.getTitle(), task.getDescription(), task.getDate(), task.getTime(),
+                task.getPriority(), task.isHasAlarm(), task.getDueAt());
+        copy.setCompletedAt(task.getCompletedAt());
+        return copy;
+    }
+
+    /** What AsyncListDiffer hands DiffUtil, over the adapter's own item callback. */
+    private static class ListDiff extends DiffUtil.Callback {
+        private final List<Task> oldList;
+        private final List<Task> newList;
+
+        ListDiff(List<Task> oldList, List<Task> newList) {
+            this.oldList = oldList;
+            this.newList = newList;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldList.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newList.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldPosition, int newPosition) {
+            return TaskAdapter.DIFF_CALLBACK.areItemsTheSame(oldList.get(oldPosition), newList.get(newPosition));
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldPosition, int newPosition) {
+            return TaskAdapter.DIFF_CALLBACK.areContentsTheSame(oldList.get(oldPosition), newList.get(newPosition));
+        }
+    }
+}
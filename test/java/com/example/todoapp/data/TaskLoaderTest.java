@@ -0,0 +1,210 @@
+package com.example.todoapp.data;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.todoapp.model.Task;
+import com.example.todoapp.util.TaskDateFormatter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+public class TaskLoaderTest {
+
+    private RecordingDbHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        dbHelper = new RecordingDbHelper(RuntimeEnvironment.getApplication());
+
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        insertTask(db, "Later", "2025-04-11", "09:00", 1);
+        insertTask(db, "Sooner", "2025-04-10", "10:30", 1);
+        insertTask(db, "Undated", null, null, 3);
+
+        dbHelper.startRecording();
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+    }
+
+    @Test
+    public void load_queriesOffMainThreadAndDeliversOnMainThread() throws Exception {
+        ExecutorService queryExecutor = Executors.newSingleThreadExecutor();
+        TaskLoader loader = new TaskLoader(queryExecutor, mainThreadExecutor());
+
+        final List<Task> delivered = new ArrayList<>();
+        final List<Thread> deliveryThreads = new ArrayList<>();
+        loader.load(firstPage(), new TaskLoader.Callback() {
+            @Override
+            public void onTasksLoaded(List<Task> tasks) {
+                delivered.addAll(tasks);
+                deliveryThreads.add(Thread.currentThread());
+            }
+        });
+
+        queryExecutor.shutdown();
+        assertTrue(queryExecutor.awaitTermination(5, TimeUnit.SECONDS));
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertFalse(dbHelper.accessThreads.isEmpty());
+        for (Thread thread : dbHelper.accessThreads) {
+            assertNotSame(Looper.getMainLooper().getThread(), thread);
+        }
+
+        assertEquals(Collections.singletonList(Looper.getMainLooper().getThread()), deliveryThreads);
+        assertEquals(3, delivered.size());
+        assertEquals("Sooner", delivered.get(0).getTitle());
+        assertEquals("Later", delivered.get(1).getTitle());
+        assertEquals("Undated", delivered.get(2).getTitle());
+    }
+
+    @Test
+    public void load_newerLoadCancelsStaleOne() {
+        QueuedExecutor queryExecutor = new QueuedExecutor();
+        TaskLoader loader = new TaskLoader(queryExecutor, mainThreadExecutor());
+
+        final List<String> results = new ArrayList<>();
+        loader.load(firstPage(), new TaskLoader.Callback() {
+            @Override
+            public void onTasksLoaded(List<Task> tasks) {
+                results.add("stale");
+            }
+        });
+        loader.load(firstPage(), new TaskLoader.Callback() {
+            @Override
+            public void onTasksLoaded(List<Task> tasks) {
+                results.add("fresh");
+            }
+        });
+
+        queryExecutor.runAll();
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertEquals(Collections.singletonList("fresh"), results);
+        assertEquals(1, dbHelper.accessThreads.size());
+    }
+
+    @Test
+    public void shutdown_dropsPendingResult() {
+        QueuedExecutor queryExecutor = new QueuedExecutor();
+        TaskLoader loader = new TaskLoader(queryExecutor, mainThreadExecutor());
+
+        final List<Task> delivered = new ArrayList<>();
+        loader.load(firstPage(), new TaskLoader.Callback() {
+            @Override
+            public void onTasksLoaded(List<Task> tasks) {
+                delivered.addAll(tasks);
+            }
+        });
+        loader.shutdown();
+
+        queryExecutor.runAll();
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertTrue(delivered.isEmpty());
+        assertTrue(dbHelper.accessThreads.isEmpty());
+    }
+
+    private TaskLoader.Query firstPage() {
+        final TaskPagingSource pagingSource = new TaskPagingSource(dbHelper);
+        return new TaskLoader.Query() {
+            @Override
+            public List<Task> run() {
+                return pagingSource.loadAfter(null, 100);
+            }
+        };
+    }
+
+    private static void insertTask(SQLiteDatabase db, String title, String date, String time, int priority) {
+        ContentValues values = new ContentValues();
+        values.put(TaskContract.TaskEntry.COLUMN_TITLE, title);
+        values.put(TaskContract.TaskEntry.COLUMN_DATE, date);
+        values.put(TaskContract.TaskEntry.COLUMN_TIME, time);
+        values.put(TaskContract.TaskEntry.COLUMN_PRIORITY, priority);
+        if (date != null) {
+            values.put(TaskContract.TaskEntry.COLUMN_DUE_AT, TaskDateFormatter.getInstance().toDueAt(date, time));
+        }
+        db.insert(TaskContract.TaskEntry.TABLE_NAME, null, values);
+    }
+
+    private static Executor mainThreadExecutor() {
+        final Handler handler = new Handler(Looper.getMainLooper());
+        return new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                handler.post(runnable);
+            }
+        };
+    }
+
+    /** Records the thread of every database access once recording has started. */
+    private static class RecordingDbHelper extends TaskDbHelper {
+        final List<Thread> accessThreads = Collections.synchronizedList(new ArrayList<Thread>());
+        private volatile boolean recording;
+
+        RecordingDbHelper(Context context) {
+            super(context);
+        }
+
+        void startRecording() {
+            recording = true;
+        }
+
+        @Override
+        public SQLiteDatabase getReadableDatabase() {
+            record();
+            return super.getReadableDatabase();
+        }
+
+        @Override
+        public SQLiteDatabase getWritableDatabase() {
+            record();
+            return super.getWritableDatabase();
+        }
+
+        private void record() {
+            if (recording) {
+                accessThreads.add(Thread.currentThread());
+            }
+        }
+    }
+
+    /** Holds submitted work until the test runs it. */
+    private static class QueuedExecutor implements Executor {
+        private final List<Runnable> queue = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable runnable) {
+            queue.add(runnable);
+        }
+
+        void runAll() {
+            for (Runnable runnable : new ArrayList<>(queue)) {
+                runnable.run();
+            }
+            queue.clear();
+        }
+    }
+}
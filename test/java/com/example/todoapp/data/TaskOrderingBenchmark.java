@@ -0,0 +1,199 @@
+package com.example.todoapp.data;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Compares the old in-Java sort against the indexed ORDER BY.
+ * Skipped unless run with {@code -Ptodo.benchmark=true}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TaskOrderingBenchmark {
+
+    private static final int WARMUP_RUNS = 2;
+    private static final int MEASURED_RUNS = 5;
+
+    private TaskDbHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        assumeTrue(Boolean.getBoolean("todo.benchmark"));
+        dbHelper = new TaskDbHelper(RuntimeEnvironment.getApplication());
+    }
+
+    @After
+    public void tearDown() {
+        if (dbHelper != null) {
+            dbHelper.close();
+        }
+    }
+
+    @Test
+    public void compareOrdering_10k() {
+        compareOrdering(10_000);
+    }
+
+    @Test
+    public void compareOrdering_100k() {
+        compareOrdering(100_000);
+    }
+
+    private void compareOrdering(int rows) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        seed(db, rows);
+
+        long javaSortNanos = Long.MAX_VALUE;
+        long sqlSortNanos = Long.MAX_VALUE;
+        List<Row> javaSorted = null;
+        List<Row> sqlSorted = null;
+
+        for (int run = 0; run < WARMUP_RUNS + MEASURED_RUNS; run++) {
+            long start = System.nanoTime();
+            javaSorted = readRows(db, null);
+            Collections.sort(javaSorted, new LegacyComparator());
+            long javaNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            sqlSorted = readRows(db, TaskContract.TaskEntry.DEFAULT_SORT_ORDER);
+            long sqlNanos = System.nanoTime() - start;
+
+            if (run >= WARMUP_RUNS) {
+                javaSortNanos = Math.min(javaSortNanos, javaNanos);
+                sqlSortNanos = Math.min(sqlSortNanos, sqlNanos);
+            }
+        }
+
+        assertEquals(rows, sqlSorted.size());
+        for (int i = 0; i < rows; i++) {
+            assertEquals(0, new LegacyComparator().compare(javaSorted.get(i), sqlSorted.get(i)));
+        }
+
+        System.out.println(String.format(Locale.US,
+                "ordering rows=%d javaSortMs=%.1f sqlOrderByMs=%.1f",
+                rows, javaSortNanos / 1e6, sqlSortNanos / 1e6));
+    }
+
+    private static void seed(SQLiteDatabase db, int rows) {
+        Random random = new Random(42);
+        SQLiteStatement insert = db.compileStatement("INSERT INTO " + TaskContract.TaskEntry.TABLE_NAME + " (" +
+                TaskContract.TaskEntry.COLUMN_TITLE + ", " +
+                TaskContract.TaskEntry.COLUMN_DATE + ", " +
+                TaskContract.TaskEntry.COLUMN_TIME + ", " +
+                TaskContract.TaskEntry.COLUMN_PRIORITY + ") VALUES (?, ?, ?, ?)");
+
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < rows; i++) {
+                insert.clearBindings();
+                insert.bindString(1, "Task " + i);
+                if (random.nextInt(10) > 0) {
+                    insert.bindString(2, String.format(Locale.US, "2025-%02d-%02d",
+                            1 + random.nextInt(12), 1 + random.nextInt(28)));
+                }
+                if (random.nextInt(4) > 0) {
+                    insert.bindString(3, String.format(Locale.US, "%02d:%02d",
+                            random.nextInt(24), random.nextInt(60)));
+                }
+                insert.bindLong(4, 1 + random.nextInt(3));
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static List<Row> readRows(SQLiteDatabase db, String orderBy) {
+        List<Row> rows = new ArrayList<>();
+        Cursor cursor = db.query(TaskContract.TaskEntry.TABLE_NAME,
+                new String[]{
+                        TaskContract.TaskEntry.COLUMN_DATE,
+                        TaskContract.TaskEntry.COLUMN_TIME,
+                        TaskContract.TaskEntry.COLUMN_PRIORITY},
+                null, null, null, null, orderBy);
+        try {
+            while (cursor.moveToNext()) {
+                rows.add(new Row(cursor.getString(0), cursor.getString(1), cursor.getInt(2)));
+            }
+        } finally {
+            cursor.close();
+        }
+        return rows;
+    }
+
+    private static class Row {
+        final String date;
+        final String time;
+        final int priority;
+
+        Row(String date, String time, int priority) {
+            this.date = date;
+            this.time = time;
+            this.priority = priority;
+        }
+    }
+
+    /** The comparator MainActivity used before ordering moved into SQL, with the both-null cases made symmetric. */
+    private static class LegacyComparator implements Comparator<Row> {
+        private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm", Locale.US);
+
+        @Override
+        public int compare(Row t1, Row t2) {
+            try {
+                if (t1.date != null && t2.date != null) {
+                    Date date1 = dateFormat.parse(t1.date);
+                    Date date2 = dateFormat.parse(t2.date);
+
+                    int dateComparison = date1.compareTo(date2);
+                    if (dateComparison != 0) {
+                        return dateComparison;
+                    }
+                } else if (t1.date == null && t2.date != null) {
+                    return 1;
+                } else if (t2.date == null && t1.date != null) {
+                    return -1;
+                }
+
+                if (t1.time != null && t2.time != null) {
+                    Date time1 = timeFormat.parse(t1.time);
+                    Date time2 = timeFormat.parse(t2.time);
+
+                    int timeComparison = time1.compareTo(time2);
+                    if (timeComparison != 0) {
+                        return timeComparison;
+                    }
+                } else if (t1.time == null && t2.time != null) {
+                    return 1;
+                } else if (t2.time == null && t1.time != null) {
+                    return -1;
+                }
+            } catch (ParseException e) {
+                throw new AssertionError(e);
+            }
+
+            return Integer.compare(t2.priority, t1.priority);
+        }
+    }
+}
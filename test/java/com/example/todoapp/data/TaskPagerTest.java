@@ -0,0 +1,231 @@
+package com.example.todoapp.data;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import com.example.todoapp.model.Task;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class TaskPagerTest {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int PREFETCH_DISTANCE = 5;
+    private static final int MAX_PAGES = 3;
+
+    private TaskDbHelper dbHelper;
+    private List<Task> window;
+
+    @Before
+    public void setUp() {
+        dbHelper = new TaskDbHelper(RuntimeEnvironment.getApplication());
+        window = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+    }
+
+    @Test
+    public void scrollingForward_visitsEveryRowOnceInSortOrder() {
+        seed(500, 0);
+        TaskPager pager = newPager();
+        pager.refresh();
+
+        List<Task> seen = scrollToEnd(pager);
+
+        assertEquals(500, seen.size());
+        assertEquals(allRowsInSortOrder(), ids(seen));
+    }
+
+    @Test
+    public void scrollingBack_restoresEarlierPages() {
+        seed(300, 0);
+        TaskPager pager = newPager();
+        pager.refresh();
+        scrollToEnd(pager);
+
+        List<Integer> expected = allRowsInSortOrder();
+        assertEquals(expected.subList(300 - pager.getWindowSize(), 300), ids(window));
+
+        for (int i = 0; i < 100 && expected.get(0) != window.get(0).getId(); i++) {
+            pager.onItemAccessed(0);
+        }
+
+        assertEquals(expected.subList(0, pager.getWindowSize()), ids(window));
+    }
+
+    @Test
+    public void retainedRows_stayFlatAsTableGrows() {
+        seed(1_000, 0);
+        int smallTablePeak = peakWindowWhileScrolling();
+
+        seed(20_000, 1_000);
+        int largeTablePeak = peakWindowWhileScrolling();
+
+        assertEquals(PAGE_SIZE * MAX_PAGES, smallTablePeak);
+        assertEquals(smallTablePeak, largeTablePeak);
+    }
+
+    @Test
+    public void refresh_keepsWindowPosition() {
+        seed(200, 0);
+        TaskPager pager = newPager();
+        pager.refresh();
+        for (int i = 0; i < 6; i++) {
+            pager.onItemAccessed(pager.getWindowSize() - 1);
+        }
+        int firstId = window.get(0).getId();
+
+        pager.refresh();
+
+        assertEquals(firstId, window.get(0).getId());
+        assertEquals(PAGE_SIZE * MAX_PAGES, window.size());
+    }
+
+    @Test
+    public void changes_patchTheWindowToWhatARefreshWouldLoad() {
+        seed(200, 0);
+        Executor direct = new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                runnable.run();
+            }
+        };
+        TaskRepository repository = new TaskRepository(dbHelper, direct, direct);
+        final TaskPager pager = newPager();
+        pager.refresh();
+        for (int i = 0; i < 4; i++) {
+            pager.onItemAccessed(pager.getWindowSize() - 1);
+        }
+        repository.getChanges().register(new TaskChanges.Listener() {
+            @Override
+            public void onTasksChanged(TaskChanges.Change change) {
+                pager.onTasksChanged(change);
+            }
+        });
+
+        List<Task> before = new ArrayList<>(window);
+        repository.deleteTask(before.get(3).getId());
+        Task moved = repository.getTask(before.get(10).getId());
+        moved.setDate("2025-04-05");
+        moved.setPriority(3);
+        repository.updateTask(moved);
+        repository.completeTasks(ids(before.subList(20, 25)), 1L);
+        repository.insertTask(new Task(0, "Inside", null, before.get(30).getDate(), before.get(30).getTime(), 2, false, Task.NO_DUE_AT));
+        repository.insertTask(new Task(0, "Undated", null, null, null, 1, false, Task.NO_DUE_AT));
+        List<Integer> patched = ids(window);
+
+        pager.refresh();
+
+        assertEquals(ids(window), patched);
+        assertFalse(patched.contains(before.get(3).getId()));
+    }
+
+    private int peakWindowWhileScrolling() {
+        TaskPager pager = newPager();
+        pager.refresh();
+        int peak = window.size();
+        int previousLastId = -1;
+        while (window.get(window.size() - 1).getId() != previousLastId) {
+            previousLastId = window.get(window.size() - 1).getId();
+            pager.onItemAccessed(window.size() - 1);
+            peak = Math.max(peak, window.size());
+        }
+        return peak;
+    }
+
+    private List<Task> scrollToEnd(TaskPager pager) {
+        List<Task> seen = new ArrayList<>(window);
+        int previousLastId = -1;
+        while (window.get(window.size() - 1).getId() != previousLastId) {
+            previousLastId = window.get(window.size() - 1).getId();
+            pager.onItemAccessed(window.size() - 1);
+            int lastSeenId = seen.get(seen.size() - 1).getId();
+            boolean afterLastSeen = false;
+            for (Task task : window) {
+                if (afterLastSeen) {
+                    seen.add(task);
+                }
+                afterLastSeen |= task.getId() == lastSeenId;
+            }
+        }
+        return seen;
+    }
+
+    private TaskPager newPager() {
+        Executor direct = new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                runnable.run();
+            }
+        };
+        return new TaskPager(new TaskPagingSource(dbHelper), new TaskLoader(direct, direct),
+                PAGE_SIZE, PREFETCH_DISTANCE, MAX_PAGES, new TaskPager.Listener() {
+                    @Override
+                    public void onWindowChanged(List<Task> tasks) {
+                        window = tasks;
+                    }
+                });
+    }
+
+    private List<Integer> allRowsInSortOrder() {
+        List<Task> all = new TaskPagingSource(dbHelper).loadAfter(null, Integer.MAX_VALUE);
+        return ids(all);
+    }
+
+    private static List<Integer> ids(List<Task> tasks) {
+        List<Integer> ids = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+
+    // Plenty of shared dates, times and priorities so page boundaries land inside ties.
+    private void seed(int rows, int seed) {
+        Random random = new Random(seed);
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        SQLiteStatement insert = db.compileStatement("INSERT INTO " + TaskContract.TaskEntry.TABLE_NAME + " (" +
+                TaskContract.TaskEntry.COLUMN_TITLE + ", " +
+                TaskContract.TaskEntry.COLUMN_DESCRIPTION + ", " +
+                TaskContract.TaskEntry.COLUMN_DATE + ", " +
+                TaskContract.TaskEntry.COLUMN_TIME + ", " +
+                TaskContract.TaskEntry.COLUMN_PRIORITY + ") VALUES (?, ?, ?, ?, ?)");
+
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < rows; i++) {
+                insert.clearBindings();
+                insert.bindString(1, "Task " + i);
+                insert.bindString(2, "Description of task " + i);
+                if (random.nextInt(5) > 0) {
+                    insert.bindString(3, String.format(Locale.US, "2025-04-%02d", 1 + random.nextInt(5)));
+                }
+                if (random.nextInt(3) > 0) {
+                    insert.bindString(4, String.format(Locale.US, "%02d:00", 8 + random.nextInt(3)));
+                }
+                insert.bindLong(5, 1 + random.nextInt(3));
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.todoapp.data;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.todoapp.model.Task;
+import com.example.todoapp.util.TaskDateFormatter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * The SQL half of the list pipeline at 1k, 10k and 100k tasks: bulk insert through
+ * {@link TaskStatements} in one transaction, then the list query mapped by
+ * {@link TaskCursorMapper#LIST_ROW}. {@link TaskListBenchmark} covers the in-memory half
+ * with JMH. Run both with
+ * {@code ./gradlew testDebugUnitTest -Ptodo.benchmark=true --tests '*PipelineBenchmark' --tests '*TaskListBenchmark'}.
+ *
+ * <p>Each result is written to {@code build/benchmarks} as JSON in the shape JMH uses for its
+ * own results, one file per benchmark and size, so both halves can be tracked by the same tooling.
+ */
+@RunWith(ParameterizedRobolectricTestRunner.class)
+public class TaskPipelineBenchmark {
+
+    private static final int WARMUP_RUNS = 2;
+    private static final int MEASURED_RUNS = 5;
+
+    @ParameterizedRobolectricTestRunner.Parameters(name = "rows={0}")
+    public static Collection<Object[]> sizes() {
+        return Arrays.asList(new Object[][]{{1_000}, {10_000}, {100_000}});
+    }
+
+    private final int rows;
+    private TaskDbHelper dbHelper;
+    private List<Task> tasks;
+
+    public TaskPipelineBenchmark(int rows) {
+        this.rows = rows;
+    }
+
+    @Before
+    public void setUp() {
+        assumeTrue(Boolean.getBoolean("todo.benchmark"));
+        dbHelper = new TaskDbHelper(RuntimeEnvironment.getApplication());
+        dbHelper.setWriteAheadLoggingEnabled(true);
+        tasks = newTasks(rows);
+    }
+
+    @After
+    public void tearDown() {
+        if (dbHelper != null) {
+            dbHelper.close();
+        }
+    }
+
+    @Test
+    public void bulkInsert() throws IOException {
+        TaskStatements statements = new TaskStatements(dbHelper);
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        long[] runs = new long[MEASURED_RUNS];
+        for (int run = 0; run < WARMUP_RUNS + MEASURED_RUNS; run++) {
+            db.delete(TaskContract.TaskEntry.TABLE_NAME, null, null);
+
+            long start = System.nanoTime();
+            db.beginTransactionNonExclusive();
+            try {
+                for (Task task : tasks) {
+                    statements.insert(task);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            if (run >= WARMUP_RUNS) {
+                runs[run - WARMUP_RUNS] = System.nanoTime() - start;
+            }
+        }
+        statements.close();
+
+        assertEquals(rows, DatabaseUtils.queryNumEntries(db, TaskContract.TaskEntry.TABLE_NAME));
+        report("bulkInsert", runs);
+    }
+
+    @Test
+    public void cursorMapping() throws IOException {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        TaskStatements statements = new TaskStatements(dbHelper);
+        db.beginTransactionNonExclusive();
+        try {
+            for (Task task : tasks) {
+                statements.insert(task);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        statements.close();
+
+        long[] runs = new long[MEASURED_RUNS];
+        List<Task> mapped = null;
+        for (int run = 0; run < WARMUP_RUNS + MEASURED_RUNS; run++) {
+            long start = System.nanoTime();
+            Cursor cursor = db.query(TaskContract.TaskEntry.TABLE_NAME, TaskCursorMapper.LIST_ROW.getProjection(),
+                    null, null, null, null, TaskContract.TaskEntry.DEFAULT_SORT_ORDER);
+            try {
+                mapped = TaskCursorMapper.LIST_ROW.mapAll(cursor);
+            } finally {
+                cursor.close();
+            }
+            if (run >= WARMUP_RUNS) {
+                runs[run - WARMUP_RUNS] = System.nanoTime() - start;
+            }
+        }
+
+        assertEquals(rows, mapped.size());
+        report("cursorMapping", runs);
+    }
+
+    private void report(String benchmark, long[] runNanos) throws IOException {
+        long best = Long.MAX_VALUE;
+        long total = 0;
+        for (long nanos : runNanos) {
+            best = Math.min(best, nanos);
+            total += nanos;
+        }
+        System.out.println(String.format(Locale.US, "pipeline %s rows=%d bestMs=%.2f meanMs=%.2f",
+                benchmark, rows, best / 1e6, total / 1e6 / runNanos.length));
+        writeResult(benchmark, rows, runNanos);
+    }
+
+    /**
+     * Writes one result as a JMH-style JSON array: average time per operation in milliseconds,
+     * with each measured run in {@code rawData}.
+     */
+    private static void writeResult(String benchmark, int rows, long[] runNanos) throws IOException {
+        double total = 0;
+        StringBuilder rawData = new StringBuilder();
+        for (int i = 0; i < runNanos.length; i++) {
+            total += runNanos[i] / 1e6;
+            rawData.append(i == 0 ? "" : ", ").append(String.format(Locale.US, "%.4f", runNanos[i] / 1e6));
+        }
+        String json = String.format(Locale.US, "[{\"benchmark\": \"%s\", \"mode\": \"avgt\", "
+                        + "\"measurementIterations\": %d, \"params\": {\"rows\": \"%d\"}, "
+                        + "\"primaryMetric\": {\"score\": %.4f, \"scoreUnit\": \"ms/op\", \"rawData\": [[%s]]}}]\n",
+                TaskPipelineBenchmark.class.getName() + "." + benchmark, runNanos.length, rows, total / runNanos.length, rawData);
+
+        File file = resultFile(TaskPipelineBenchmark.class.getSimpleName() + "." + benchmark + "-" + rows + ".json");
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+        try {
+            writer.write(json);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /** {@code name} in the directory Gradle passes as {@code todo.benchmark.output}, created if needed. */
+    static File resultFile(String name) {
+        File directory = new File(System.getProperty("todo.benchmark.output", "build/benchmarks"));
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalStateException("Cannot create " + directory);
+        }
+        return new File(directory, name);
+    }
+
+    /** {@code rows} tasks spread over a year, with the mix of dates, times and priorities the list sees. */
+    static List<Task> newTasks(int rows) {
+        TaskDateFormatter formatter = new TaskDateFormatter(Locale.US, ZoneId.of("Europe/Berlin"));
+        Random random = new Random(42);
+        List<Task> tasks = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            String date = random.nextInt(10) > 0
+                    ? String.format(Locale.US, "2025-%02d-%02d", 1 + random.nextInt(12), 1 + random.nextInt(28))
+                    : null;
+            String time = date != null && random.nextInt(4) > 0
+                    ? String.format(Locale.US, "%02d:%02d", random.nextInt(24), random.nextInt(60))
+                    : null;
+            long dueAt = date != null ? formatter.toDueAt(date, time) : Task.NO_DUE_AT;
+            Task task = new Task(i + 1, "Task " + i, i % 3 == 0 ? null : "Notes for task " + i,
+                    date, time, 1 + random.nextInt(3), time != null && random.nextBoolean(), dueAt);
+            if (random.nextInt(5) == 0) {
+                task.setCompletedAt(1_700_000_000_000L + i);
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.todoapp.data;
+
+import android.database.DatabaseUtils;
+
+import com.example.todoapp.model.Task;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.example.todoapp.data.TestExecutors.directExecutor;
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class TaskRecurrenceTest {
+
+    private TaskDbHelper dbHelper;
+    private TaskRepository repository;
+
+    @Before
+    public void setUp() {
+        dbHelper = new TaskDbHelper(RuntimeEnvironment.getApplication());
+        repository = new TaskRepository(dbHelper, directExecutor(), directExecutor());
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+    }
+
+    @Test
+    public void insert_startsTheSeriesOnItsFirstOccurrence() {
+        // 2025-03-01 is a Saturday
+        Task task = insert("Standup", "2025-03-01", "FREQ=WEEKLY;BYDAY=MO,TH");
+
+        assertEquals("2025-03-03", task.getDate());
+        assertEquals("2025-03-03", task.getRecurrenceStart());
+        assertEquals("2025-03-03", repository.getTask(task.getId()).getDate());
+        assertEquals(1, DatabaseUtils.queryNumEntries(dbHelper.getReadableDatabase(),
+                TaskContract.TaskEntry.TABLE_NAME));
+    }
+
+    @Test
+    public void complete_advancesUntilTheLastOccurrence() {
+        Task task = insert("Pills", "2025-03-01", "FREQ=DAILY;COUNT=3");
+        List<Integer> ids = Collections.singletonList(task.getId());
+
+        assertEquals(1, repository.completeTasks(ids, 100L));
+        Task second = repository.getTask(task.getId());
+        assertEquals("2025-03-02", second.getDate());
+        assertEquals("FREQ=DAILY;COUNT=2", second.getRecurrence());
+        assertFalse(second.isCompleted());
+
+        repository.completeTasks(ids, 200L);
+        repository.completeTasks(ids, 300L);
+        Task last = repository.getTask(task.getId());
+        assertEquals("2025-03-03", last.getDate());
+        assertEquals(300L, last.getCompletedAt());
+    }
+
+    @Test
+    public void skipAndMove_areStoredOnlyForTheChangedOccurrences() {
+        Task task = insert("Gym", "2025-03-03", "FREQ=DAILY");
+
+        repository.skipOccurrence(task.getId(), LocalDate.of(2025, 3, 4));
+        repository.moveOccurrence(task.getId(), LocalDate.of(2025, 3, 5), LocalDate.of(2025, 3, 9));
+        assertEquals(2, DatabaseUtils.queryNumEntries(dbHelper.getReadableDatabase(),
+                TaskContract.TaskOccurrenceEntry.TABLE_NAME));
+
+        // Completing the current occurrence passes the skipped one and lands on the moved one
+        repository.completeTasks(Collections.singletonList(task.getId()), 1L);
+        Task next = repository.getTask(task.getId());
+        assertEquals("2025-03-09", next.getDate());
+        assertEquals("2025-03-05", next.getRecurrenceStart());
+        // Exceptions the series has passed are dropped
+        assertEquals(1, DatabaseUtils.queryNumEntries(dbHelper.getReadableDatabase(),
+                TaskContract.TaskOccurrenceEntry.TABLE_NAME));
+    }
+
+    @Test
+    public void editingTheDate_restartsTheSeriesAndDropsExceptions() {
+        Task task = insert("Gym", "2025-03-03", "FREQ=DAILY");
+        repository.skipOccurrence(task.getId(), LocalDate.of(2025, 3, 10));
+
+        Task edited = repository.getTask(task.getId());
+        edited.setDate("2025-04-01");
+        edited.setRecurrenceStart(null);
+        repository.updateTask(edited);
+
+        assertEquals("2025-04-01", repository.getTask(task.getId()).getRecurrenceStart());
+        assertEquals(0, DatabaseUtils.queryNumEntries(dbHelper.getReadableDatabase(),
+                TaskContract.TaskOccurrenceEntry.TABLE_NAME));
+    }
+
+    @Test
+    public void deletingTheTask_deletesItsExceptions() {
+        Task task = insert("Gym", "2025-03-03", "FREQ=DAILY");
+        repository.skipOccurrence(task.getId(), LocalDate.of(2025, 3, 10));
+
+        repository.deleteTask(task.getId());
+
+        assertEquals(0, DatabaseUtils.queryNumEntries(dbHelper.getReadableDatabase(),
+                TaskContract.TaskOccurrenceEntry.TABLE_NAME));
+    }
+
+    @Test
+    public void undoingADelete_putsTheExceptionsBack() {
+        Task task = insert("Gym", "2025-03-03", "FREQ=DAILY");
+        List<Integer> ids = Collections.singletonList(task.getId());
+        repository.skipOccurrence(task.getId(), LocalDate.of(2025, 3, 4));
+        repository.moveOccurrence(task.getId(), LocalDate.of(2025, 3, 5), LocalDate.of(2025, 3, 9));
+
+        repository.restoreTasks(repository.deleteTasks(ids));
+
+        assertEquals(2, DatabaseUtils.queryNumEntries(dbHelper.getReadableDatabase(),
+                TaskContract.TaskOccurrenceEntry.TABLE_NAME));
+        // The restored series still passes the skipped occurrence and lands on the moved one
+        repository.completeTasks(ids, 1L);
+        assertEquals("2025-03-09", repository.getTask(task.getId()).getDate());
+    }
+
+    @Test
+    public void asyncSkipAndMove_reportTheTaskOrNull() {
+        Task task = insert("Gym", "2025-03-03", "FREQ=DAILY");
+        final List<Task> results = new ArrayList<>();
+        TaskRepository.Callback<Task> callback = new TaskRepository.Callback<Task>() {
+            @Override
+            public void onResult(Task result) {
+                results.add(result);
+            }
+        };
+
+        repository.skipOccurrence(task.getId(), LocalDate.of(2025, 3, 3), callback);
+        repository.moveOccurrence(task.getId(), LocalDate.of(2025, 3, 4), LocalDate.of(2025, 3, 6), callback);
+        repository.skipOccurrence(task.getId(), LocalDate.of(2025, 2, 1), callback);
+
+        assertEquals("2025-03-04", results.get(0).getDate());
+        assertEquals("2025-03-06", results.get(1).getDate());
+        assertEquals("2025-03-04", results.get(1).getRecurrenceStart());
+        assertNull(results.get(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void skippingADateTheRuleDoesNotGive_isRejected() {
+        Task task = insert("Rent", "2025-01-31", "FREQ=MONTHLY");
+
+        repository.skipOccurrence(task.getId(), LocalDate.of(2025, 2, 28));
+    }
+
+    private Task insert(String title, String date, String recurrence) {
+        Task task = new Task(0, title, null, date, "09:00", 1, false, Task.NO_DUE_AT);
+        task.setRecurrence(recurrence);
+        repository.insertTask(task);
+        return task;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.todoapp.data;
+
+import android.database.Cursor;
+
+import com.example.todoapp.model.Task;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.example.todoapp.data.TestExecutors.directExecutor;
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class TaskRepositoryAlarmTest {
+
+    private TaskDbHelper dbHelper;
+    private TaskRepository repository;
+
+    @Before
+    public void setUp() {
+        dbHelper = new TaskDbHelper(RuntimeEnvironment.getApplication());
+        repository = new TaskRepository(dbHelper, directExecutor(), directExecutor());
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+    }
+
+    @Test
+    public void nextAlarm_skipsTasksWithoutAPendingTimedAlarm() {
+        insert("No alarm", "10:00", false, 1000L);
+        insert("Date only", null, true, 1500L);
+        int done = insert("Done", "10:00", true, 2000L);
+        repository.completeTasks(Collections.singletonList(done), 1L);
+        int pending = insert("Pending", "10:00", true, 3000L);
+
+        assertEquals(3000L, repository.getNextAlarmAfter(0L));
+        assertEquals(Task.NO_DUE_AT, repository.getNextAlarmAfter(3000L));
+        assertEquals(Collections.singletonList(pending), ids(repository.getAlarmsBetween(0L, 3000L)));
+    }
+
+    @Test
+    public void alarmsBetween_excludesStartAndIncludesEnd() {
+        int first = insert("First", "10:00", true, 1000L);
+        int second = insert("Second", "10:00", true, 2000L);
+        int sameMinute = insert("Same minute", "10:00", true, 2000L);
+        insert("Later", "10:00", true, 3000L);
+
+        assertEquals(Arrays.asList(second, sameMinute), ids(repository.getAlarmsBetween(1000L, 2000L)));
+        assertEquals(Collections.singletonList(first), ids(repository.getAlarmsBetween(999L, 1000L)));
+    }
+
+    @Test
+    public void nextAlarm_seeksThePartialIndex() {
+        Cursor cursor = dbHelper.getReadableDatabase().rawQuery("EXPLAIN QUERY PLAN SELECT " +
+                TaskContract.TaskEntry.COLUMN_DUE_AT + " FROM " + TaskContract.TaskEntry.TABLE_NAME +
+                " WHERE " + TaskContract.TaskEntry.ALARM_SELECTION + " AND " +
+                TaskContract.TaskEntry.COLUMN_DUE_AT + " > ? ORDER BY " +
+                TaskContract.TaskEntry.COLUMN_DUE_AT + " LIMIT 1", new String[]{"0"});
+        StringBuilder plan = new StringBuilder();
+        try {
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(cursor.getColumnIndexOrThrow("detail"))).append('\n');
+            }
+        } finally {
+            cursor.close();
+        }
+        assertTrue(plan.toString(), plan.toString().contains(TaskContract.TaskEntry.INDEX_ALARM_DUE_AT));
+        assertFalse(plan.toString(), plan.toString().contains("TEMP B-TREE"));
+    }
+
+    private int insert(String title, String time, boolean hasAlarm, long dueAt) {
+        return (int) repository.insertTask(new Task(0, title, null, "2025-04-10", time, 1, hasAlarm, dueAt));
+    }
+
+    private static List<Integer> ids(List<Task> tasks) {
+        List<Integer> ids = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+}
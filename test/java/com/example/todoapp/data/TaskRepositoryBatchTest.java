@@ -0,0 +1,150 @@
+package com.example.todoapp.data;
+
+import com.example.todoapp.model.Task;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.example.todoapp.data.TestExecutors.directExecutor;
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class TaskRepositoryBatchTest {
+
+    private TaskDbHelper dbHelper;
+    private TaskRepository repository;
+
+    @Before
+    public void setUp() {
+        dbHelper = new TaskDbHelper(RuntimeEnvironment.getApplication());
+        repository = new TaskRepository(dbHelper, directExecutor(), directExecutor());
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+    }
+
+    @Test
+    public void deleteTasks_spansSeveralStatementsAndUndoRestoresTheSameRows() {
+        int count = TaskRepository.MAX_IDS_PER_STATEMENT * 2 + 10;
+        List<Integer> ids = insertTasks(count);
+        repository.completeTasks(ids.subList(0, 1), 1234L);
+
+        List<Task> deleted = repository.deleteTasks(ids);
+
+        assertEquals(count, deleted.size());
+        assertEquals(0, repository.getTaskCount());
+
+        assertEquals(count, repository.restoreTasks(deleted));
+        assertEquals(count, repository.getTaskCount());
+        repository.invalidateCache();
+        Task first = repository.getTask(ids.get(0));
+        assertEquals("Task 0", first.getTitle());
+        assertEquals(1234L, first.getCompletedAt());
+        assertEquals("Task " + (count - 1), repository.getTask(ids.get(count - 1)).getTitle());
+
+        // The search index follows the restored rows through the insert trigger
+        TaskSearch search = new TaskSearch(dbHelper, new TaskLoader(directExecutor(), directExecutor()));
+        assertEquals(Collections.singletonList(ids.get(count - 1)), search.searchIds("note" + (count - 1), 10));
+    }
+
+    @Test
+    public void deleteTasks_skipsMissingIdsAndPatchesCachedList() {
+        List<Integer> ids = insertTasks(5);
+        TaskPagingSource source = repository.getPagingSource();
+        source.loadAfter(null, 20);
+
+        List<Task> deleted = repository.deleteTasks(Arrays.asList(ids.get(1), ids.get(3), 9999));
+        assertEquals(2, deleted.size());
+
+        long misses = repository.getCache().getMissCount();
+        assertEquals(Arrays.asList(ids.get(0), ids.get(2), ids.get(4)), idsOf(source.loadAfter(null, 20)));
+        assertEquals(misses, repository.getCache().getMissCount());
+    }
+
+    @Test
+    public void updateTasksPriority_changesOnlyTheGivenRowsAndWritesThrough() {
+        List<Integer> ids = insertTasks(4);
+        TaskPagingSource source = repository.getPagingSource();
+        source.loadAfter(null, 20);
+
+        assertEquals(2, repository.updateTasksPriority(ids.subList(1, 3), 3));
+
+        // Same date and time, so the two raised rows now sort first
+        List<Task> page = source.loadAfter(null, 20);
+        assertEquals(Arrays.asList(ids.get(1), ids.get(2), ids.get(0), ids.get(3)), idsOf(page));
+        assertEquals(3, page.get(0).getPriority());
+        assertEquals(1, page.get(2).getPriority());
+
+        repository.invalidateCache();
+        assertEquals(idsOf(page), idsOf(source.loadAfter(null, 20)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void updateTasksPriority_rejectsUnknownPriority() {
+        repository.updateTasksPriority(insertTasks(1), 4);
+    }
+
+    @Test
+    public void completeTasks_marksDoneAndReopens() {
+        List<Integer> ids = insertTasks(3);
+
+        assertEquals(2, repository.completeTasks(ids.subList(0, 2), 5000L));
+        assertTrue(repository.getTask(ids.get(0)).isCompleted());
+        assertFalse(repository.getTask(ids.get(2)).isCompleted());
+
+        repository.completeTasks(ids.subList(0, 1), Task.NOT_COMPLETED);
+        repository.invalidateCache();
+        assertFalse(repository.getTask(ids.get(0)).isCompleted());
+        assertEquals(5000L, repository.getTask(ids.get(1)).getCompletedAt());
+    }
+
+    @Test
+    public void asyncBatch_deliversDeletedRowsForUndo() {
+        final List<Integer> ids = insertTasks(3);
+        final List<Task> delivered = new ArrayList<>();
+
+        repository.delete(ids.subList(0, 2), new TaskRepository.Callback<List<Task>>() {
+            @Override
+            public void onResult(List<Task> deleted) {
+                delivered.addAll(deleted);
+            }
+        });
+        assertEquals(2, delivered.size());
+
+        repository.restore(delivered, new TaskRepository.Callback<Integer>() {
+            @Override
+            public void onResult(Integer restored) {
+                assertEquals(2, restored.intValue());
+            }
+        });
+        assertEquals(3, repository.getTaskCount());
+    }
+
+    private List<Integer> insertTasks(int count) {
+        List<Integer> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Task task = new Task(0, "Task " + i, "note" + i, "2025-04-10", "10:30", 1, false, 1L);
+            ids.add((int) repository.insertTask(task));
+        }
+        return ids;
+    }
+
+    private static List<Integer> idsOf(List<Task> tasks) {
+        List<Integer> ids = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            ids.add(task.getId());
+        }
+        return ids;
+    }
+}
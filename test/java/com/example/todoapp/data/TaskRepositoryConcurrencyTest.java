@@ -0,0 +1,226 @@
+package com.example.todoapp.data;
+
+import com.example.todoapp.model.Task;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.example.todoapp.data.TestExecutors.directExecutor;
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class TaskRepositoryConcurrencyTest {
+
+    private static final int READERS = 4;
+    private static final int WRITES = 500;
+
+    private TaskDbHelper dbHelper;
+    private TaskRepository repository;
+
+    @Before
+    public void setUp() {
+        dbHelper = new TaskDbHelper(RuntimeEnvironment.getApplication());
+        repository = new TaskRepository(dbHelper, directExecutor(), directExecutor());
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+    }
+
+    @Test
+    public void enablesWriteAheadLogging() {
+        assertTrue(dbHelper.getWritableDatabase().isWriteAheadLoggingEnabled());
+    }
+
+    @Test
+    public void crud_roundTripsThroughRepository() {
+        long id = repository.insertTask(task(0, "Draft", "2025-04-10", "10:30"));
+        assertTrue(id > 0);
+
+        Task stored = repository.getTask((int) id);
+        assertEquals("Draft", stored.getTitle());
+        assertTrue(stored.hasDueAt());
+
+        assertTrue(repository.updateTask(task((int) id, "Final", null, null)));
+        stored = repository.getTask((int) id);
+        assertEquals("Final", stored.getTitle());
+        assertNull(stored.getDate());
+        assertFalse(stored.hasDueAt());
+
+        assertTrue(repository.deleteTask((int) id));
+        assertNull(repository.getTask((int) id));
+        assertFalse(repository.deleteTask((int) id));
+    }
+
+    @Test
+    public void listReads_areServedFromMemoryAfterWarmUp() {
+        for (int i = 0; i < 30; i++) {
+            repository.insertTask(task(0, "Task " + i, "2025-04-10", "10:30"));
+        }
+        TaskPagingSource source = repository.getPagingSource();
+        TaskCache cache = repository.getCache();
+
+        List<Task> firstPage = source.loadAfter(null, 20);
+        long misses = cache.getMissCount();
+
+        repository.updateTask(task(firstPage.get(3).getId(), "Edited", "2025-04-10", "10:30"));
+        List<Task> reloaded = source.loadAfter(null, 20);
+        List<Task> secondPage = source.loadAfter(reloaded.get(19), 20);
+
+        assertEquals(misses + 1, cache.getMissCount());
+        assertEquals("Edited", reloaded.get(3).getTitle());
+        assertEquals(10, secondPage.size());
+        assertEquals(secondPage.get(9).getId(), source.loadAfter(secondPage.get(8), 20).get(0).getId());
+        assertEquals(misses + 1, cache.getMissCount());
+    }
+
+    @Test
+    public void parallelReaders_seeConsistentSnapshotsWhileOneWriterInserts() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(READERS + 1);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicBoolean writing = new AtomicBoolean(true);
+
+        try {
+            List<Future<Integer>> readers = new ArrayList<>();
+            for (int reader = 0; reader < READERS; reader++) {
+                readers.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        start.await();
+                        int reads = 0;
+                        long lastCount = 0;
+                        do {
+                            long count = repository.getTaskCount();
+                            assertTrue("count went backwards", count >= lastCount);
+                            lastCount = count;
+
+                            List<Task> page = repository.getPagingSource().loadAfter(null, 20);
+                            assertTrue(page.size() <= 20);
+                            reads++;
+                        } while (writing.get());
+                        return reads;
+                    }
+                }));
+            }
+
+            Future<?> writer = executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    start.await();
+                    try {
+                        for (int i = 0; i < WRITES; i++) {
+                            assertTrue(repository.insertTask(task(0, "Task " + i, "2025-04-10", "10:30")) > 0);
+                        }
+                    } finally {
+                        writing.set(false);
+                    }
+                    return null;
+                }
+            });
+
+            start.countDown();
+            writer.get(30, TimeUnit.SECONDS);
+            for (Future<Integer> reader : readers) {
+                assertTrue(reader.get(30, TimeUnit.SECONDS) > 0);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(WRITES, repository.getTaskCount());
+    }
+
+    @Test
+    public void asyncWrites_reportResultThroughCallback() {
+        final List<Object> results = new ArrayList<>();
+
+        repository.insert(task(0, "Async", null, null), new TaskRepository.Callback<Long>() {
+            @Override
+            public void onResult(Long id) {
+                results.add(id);
+            }
+        });
+        int id = ((Long) results.get(0)).intValue();
+
+        repository.delete(task(id, "Async", null, null), new TaskRepository.Callback<Boolean>() {
+            @Override
+            public void onResult(Boolean deleted) {
+                results.add(deleted);
+            }
+        });
+
+        assertTrue(id > 0);
+        assertEquals(Boolean.TRUE, results.get(1));
+        assertEquals(0, repository.getTaskCount());
+    }
+
+    @Test
+    public void asyncWriteThatFails_reportsNullInsteadOfThrowing() {
+        final List<Object> results = new ArrayList<>();
+
+        // No title breaks the NOT NULL constraint
+        repository.insert(task(0, null, null, null), new TaskRepository.Callback<Long>() {
+            @Override
+            public void onResult(Long id) {
+                results.add(id);
+            }
+        });
+
+        assertEquals(1, results.size());
+        assertNull(results.get(0));
+        assertEquals(0, repository.getTaskCount());
+    }
+
+    @Test
+    public void asyncGetTask_answersFromCacheAndQueuesOnlyMisses() {
+        final List<Runnable> queued = new ArrayList<>();
+        TaskRepository queuedRepository = new TaskRepository(dbHelper, new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                queued.add(runnable);
+            }
+        }, directExecutor());
+        final int id = (int) queuedRepository.insertTask(task(0, "Cached", null, null));
+        final List<Task> loaded = new ArrayList<>();
+        TaskRepository.Callback<Task> callback = new TaskRepository.Callback<Task>() {
+            @Override
+            public void onResult(Task task) {
+                loaded.add(task);
+            }
+        };
+
+        queuedRepository.getTask(id, callback);
+        assertEquals(1, loaded.size());
+        assertTrue(queued.isEmpty());
+
+        queuedRepository.invalidateCache();
+        queuedRepository.getTask(id, callback);
+        assertEquals(1, loaded.size());
+        assertEquals(1, queued.size());
+
+        queued.get(0).run();
+        assertEquals(2, loaded.size());
+        assertEquals("Cached", loaded.get(1).getTitle());
+    }
+
+    private static Task task(int id, String title, String date, String time) {
+        long dueAt = date != null ? 1_744_281_000_000L : Task.NO_DUE_AT;
+        return new Task(id, title, "", date, time, 1, false, dueAt);
+    }
+}
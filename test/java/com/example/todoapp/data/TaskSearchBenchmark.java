@@ -0,0 +1,107 @@
+package com.example.todoapp.data;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Latency of TaskSearch over 100k tasks, from a query matching a handful of rows to one
+ * matching a tenth of the table.
+ * Skipped unless run with {@code -Ptodo.benchmark=true}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TaskSearchBenchmark {
+
+    private static final int ROWS = 100_000;
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 15;
+    private static final String[] WORDS = {
+            "buy", "call", "email", "fix", "book", "pay", "clean", "plan", "read", "write"
+    };
+    private static final String[] TOPICS = {
+            "groceries", "dentist", "invoice", "garden", "flights", "report", "laundry", "taxes",
+            "birthday", "meeting", "car", "insurance", "library", "plumber", "newsletter", "budget"
+    };
+
+    private TaskDbHelper dbHelper;
+
+    @Before
+    public void setUp() {
+        assumeTrue(Boolean.getBoolean("todo.benchmark"));
+        dbHelper = new TaskDbHelper(RuntimeEnvironment.getApplication());
+        seed(dbHelper.getWritableDatabase());
+    }
+
+    @After
+    public void tearDown() {
+        if (dbHelper != null) {
+            dbHelper.close();
+        }
+    }
+
+    @Test
+    public void searchLatency_100k() {
+        TaskSearch search = new TaskSearch(dbHelper, new TaskLoader());
+        try {
+            for (String query : Arrays.asList("4242", "pay taxes", "insur", "gard")) {
+                long best = Long.MAX_VALUE;
+                long total = 0;
+                List<Integer> ids = null;
+                for (int run = 0; run < WARMUP_RUNS + MEASURED_RUNS; run++) {
+                    long start = System.nanoTime();
+                    ids = search.searchIds(query, TaskSearch.DEFAULT_LIMIT);
+                    long elapsed = System.nanoTime() - start;
+                    if (run >= WARMUP_RUNS) {
+                        best = Math.min(best, elapsed);
+                        total += elapsed;
+                    }
+                }
+                assertFalse(ids.isEmpty());
+
+                System.out.println(String.format(Locale.US,
+                        "search rows=%d query=\"%s\" results=%d bestMs=%.2f meanMs=%.2f",
+                        ROWS, query, ids.size(), best / 1e6, total / 1e6 / MEASURED_RUNS));
+            }
+        } finally {
+            search.shutdown();
+        }
+    }
+
+    private static void seed(SQLiteDatabase db) {
+        Random random = new Random(42);
+        SQLiteStatement insert = db.compileStatement("INSERT INTO " + TaskContract.TaskEntry.TABLE_NAME + " (" +
+                TaskContract.TaskEntry.COLUMN_TITLE + ", " +
+                TaskContract.TaskEntry.COLUMN_DESCRIPTION + ", " +
+                TaskContract.TaskEntry.COLUMN_DATE + ") VALUES (?, ?, ?)");
+
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < ROWS; i++) {
+                String word = WORDS[random.nextInt(WORDS.length)];
+                String topic = TOPICS[random.nextInt(TOPICS.length)];
+                insert.bindString(1, word + " " + topic);
+                insert.bindString(2, "note " + i + " about the " + TOPICS[random.nextInt(TOPICS.length)]);
+                insert.bindString(3, String.format(Locale.US, "2025-%02d-%02d",
+                        1 + random.nextInt(12), 1 + random.nextInt(28)));
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+}
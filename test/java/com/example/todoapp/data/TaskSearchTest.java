@@ -0,0 +1,134 @@
+package com.example.todoapp.data;
+
+import android.content.ContentValues;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Looper;
+
+import com.example.todoapp.model.Task;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.example.todoapp.data.TestExecutors.directExecutor;
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+public class TaskSearchTest {
+
+    private TaskDbHelper dbHelper;
+    private TaskSearch search;
+
+    @Before
+    public void setUp() {
+        dbHelper = new TaskDbHelper(RuntimeEnvironment.getApplication());
+        search = new TaskSearch(dbHelper, new TaskLoader(directExecutor(), directExecutor()));
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+    }
+
+    @Test
+    public void toMatchQuery_keepsOnlyPrefixTerms() {
+        assertEquals("milk* eggs*", TaskSearch.toMatchQuery("  Milk, EGGS!", null));
+        assertEquals("title:milk* title:eggs*", TaskSearch.toMatchQuery("milk eggs", "title"));
+        assertEquals("café* or* 2025*", TaskSearch.toMatchQuery("\"Café\" OR -2025", null));
+        assertNull(TaskSearch.toMatchQuery(" *\"():- ", null));
+        assertTrue(TaskSearch.isBlank("   "));
+    }
+
+    @Test
+    public void search_matchesPrefixesInTitleAndDescription() {
+        int milk = insertTask("Buy milk", "From the corner shop", "2025-04-10");
+        int call = insertTask("Call the dentist", "Ask about the milk tooth", "2025-04-09");
+        insertTask("Water plants", null, null);
+
+        assertEquals(Arrays.asList(milk, call), search.searchIds("mil", 10));
+        assertEquals(Collections.singletonList(call), search.searchIds("dent ask", 10));
+        assertEquals(Collections.singletonList(milk), search.searchIds("CORNER", 10));
+        assertTrue(search.searchIds("milkshake", 10).isEmpty());
+        assertTrue(search.searchIds("?!", 10).isEmpty());
+    }
+
+    @Test
+    public void search_ranksTitleMatchesFirstThenListOrder() {
+        int descriptionOnly = insertTask("Groceries", "Report card", "2025-04-01");
+        int laterTitle = insertTask("Report expenses", null, "2025-04-20");
+        int soonerTitle = insertTask("Report bug", null, "2025-04-05");
+
+        assertEquals(Arrays.asList(soonerTitle, laterTitle, descriptionOnly), search.searchIds("rep", 10));
+        assertEquals(Arrays.asList(soonerTitle, laterTitle), search.searchIds("rep", 2));
+
+        List<Task> tasks = search.search("rep", 10);
+        assertEquals("Report bug", tasks.get(0).getTitle());
+    }
+
+    @Test
+    public void triggers_keepIndexInStepWithEdits() {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        int id = insertTask("Buy milk", null, null);
+
+        ContentValues values = new ContentValues();
+        values.put(TaskContract.TaskEntry.COLUMN_TITLE, "Buy bread");
+        db.update(TaskContract.TaskEntry.TABLE_NAME, values, "_id = ?", new String[]{String.valueOf(id)});
+
+        assertTrue(search.searchIds("milk", 10).isEmpty());
+        assertEquals(Collections.singletonList(id), search.searchIds("bread", 10));
+
+        values.clear();
+        values.put(TaskContract.TaskEntry.COLUMN_PRIORITY, 3);
+        db.update(TaskContract.TaskEntry.TABLE_NAME, values, "_id = ?", new String[]{String.valueOf(id)});
+        assertEquals(Collections.singletonList(id), search.searchIds("bread", 10));
+
+        db.delete(TaskContract.TaskEntry.TABLE_NAME, "_id = ?", new String[]{String.valueOf(id)});
+        assertTrue(search.searchIds("bread", 10).isEmpty());
+    }
+
+    @Test
+    public void setQuery_debouncesToTheLastQuery() {
+        insertTask("Buy milk", null, null);
+        insertTask("Buy bread", null, null);
+        final List<String> delivered = new ArrayList<>();
+        TaskSearch.Callback callback = new TaskSearch.Callback() {
+            @Override
+            public void onSearchResults(String query, List<Task> tasks) {
+                delivered.add(query + "=" + tasks.size());
+            }
+        };
+
+        search.setQuery("b", callback);
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(TaskSearch.DEBOUNCE_MILLIS / 2));
+        search.setQuery("bu", callback);
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(TaskSearch.DEBOUNCE_MILLIS / 2));
+        search.setQuery("buy m", callback);
+
+        assertTrue(delivered.isEmpty());
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(TaskSearch.DEBOUNCE_MILLIS));
+        assertEquals(Collections.singletonList("buy m=1"), delivered);
+
+        search.setQuery("bread", callback);
+        search.cancel();
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(TaskSearch.DEBOUNCE_MILLIS));
+        assertEquals(1, delivered.size());
+    }
+
+    private int insertTask(String title, String description, String date) {
+        ContentValues values = new ContentValues();
+        values.put(TaskContract.TaskEntry.COLUMN_TITLE, title);
+        values.put(TaskContract.TaskEntry.COLUMN_DESCRIPTION, description);
+        values.put(TaskContract.TaskEntry.COLUMN_DATE, date);
+        return (int) dbHelper.getWritableDatabase().insert(TaskContract.TaskEntry.TABLE_NAME, null, values);
+    }
+}
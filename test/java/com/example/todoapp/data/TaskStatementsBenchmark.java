@@ -0,0 +1,179 @@
+package com.example.todoapp.data;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.todoapp.model.Task;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Locale;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Single-row insert, update, select and delete by id through {@link TaskStatements} against the
+ * ContentValues calls they replace. Each operation is timed once on its own, committing per row
+ * as the screens do, and once inside one transaction, which leaves only the per-call overhead.
+ * Skipped unless run with {@code -Ptodo.benchmark=true}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TaskStatementsBenchmark {
+
+    private static final int ROWS = 5_000;
+    private static final int WARMUP_RUNS = 2;
+    private static final int MEASURED_RUNS = 5;
+
+    private TaskDbHelper dbHelper;
+    private TaskStatements statements;
+    private Task[] tasks;
+
+    private interface Operation {
+        void run(Task task);
+    }
+
+    @Before
+    public void setUp() {
+        assumeTrue(Boolean.getBoolean("todo.benchmark"));
+        dbHelper = new TaskDbHelper(RuntimeEnvironment.getApplication());
+        dbHelper.setWriteAheadLoggingEnabled(true);
+        statements = new TaskStatements(dbHelper);
+        tasks = new Task[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            tasks[i] = new Task(0, "Task " + i, i % 3 == 0 ? null : "Notes for task " + i,
+                    String.format(Locale.US, "2025-%02d-%02d", 1 + i % 12, 1 + i % 28), i % 2 == 0 ? "09:30" : null,
+                    1 + i % 3, i % 4 == 0, 1_700_000_000_000L + i * 60_000L);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        if (dbHelper != null) {
+            statements.close();
+            dbHelper.close();
+        }
+    }
+
+    @Test
+    public void crud_statementsVersusContentValues() {
+        for (boolean batched : new boolean[]{false, true}) {
+            measure("contentValues", batched, contentValuesPath());
+            measure("statements", batched, statementPath());
+        }
+    }
+
+    private void measure(String path, boolean batched, Operation[] operations) {
+        String[] names = {"insert", "select", "update", "delete"};
+        long[] best = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+        for (int run = 0; run < WARMUP_RUNS + MEASURED_RUNS; run++) {
+            for (int op = 0; op < operations.length; op++) {
+                long elapsed = time(operations[op], batched);
+                if (run >= WARMUP_RUNS) {
+                    best[op] = Math.min(best[op], elapsed);
+                }
+            }
+        }
+        for (int op = 0; op < names.length; op++) {
+            System.out.println(String.format(Locale.US,
+                    "crud path=%s op=%s rows=%d batched=%b bestUsPerRow=%.2f",
+                    path, names[op], ROWS, batched, best[op] / 1e3 / ROWS));
+        }
+    }
+
+    private long time(Operation operation, boolean batched) {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        long start = System.nanoTime();
+        if (batched) {
+            db.beginTransactionNonExclusive();
+        }
+        try {
+            for (Task task : tasks) {
+                operation.run(task);
+            }
+            if (batched) {
+                db.setTransactionSuccessful();
+            }
+        } finally {
+            if (batched) {
+                db.endTransaction();
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    // insert, select, update and delete, in the order measure() runs them
+    private Operation[] contentValuesPath() {
+        return new Operation[]{
+                new Operation() {
+                    @Override
+                    public void run(Task task) {
+                        task.setId((int) dbHelper.getWritableDatabase().insert(
+                                TaskContract.TaskEntry.TABLE_NAME, null, TaskRepository.toContentValues(task)));
+                    }
+                },
+                new Operation() {
+                    @Override
+                    public void run(Task task) {
+                        Cursor cursor = dbHelper.getReadableDatabase().query(TaskContract.TaskEntry.TABLE_NAME,
+                                TaskCursorMapper.FULL.getProjection(), TaskContract.TaskEntry._ID + "=?",
+                                new String[]{String.valueOf(task.getId())}, null, null, null);
+                        try {
+                            TaskCursorMapper.FULL.mapFirst(cursor);
+                        } finally {
+                            cursor.close();
+                        }
+                    }
+                },
+                new Operation() {
+                    @Override
+                    public void run(Task task) {
+                        ContentValues values = TaskRepository.toContentValues(task);
+                        dbHelper.getWritableDatabase().update(TaskContract.TaskEntry.TABLE_NAME, values,
+                                TaskContract.TaskEntry._ID + "=?", new String[]{String.valueOf(task.getId())});
+                    }
+                },
+                new Operation() {
+                    @Override
+                    public void run(Task task) {
+                        dbHelper.getWritableDatabase().delete(TaskContract.TaskEntry.TABLE_NAME,
+                                TaskContract.TaskEntry._ID + "=?", new String[]{String.valueOf(task.getId())});
+                    }
+                }
+        };
+    }
+
+    private Operation[] statementPath() {
+        return new Operation[]{
+                new Operation() {
+                    @Override
+                    public void run(Task task) {
+                        task.setId((int) statements.insert(task));
+                    }
+                },
+                new Operation() {
+                    @Override
+                    public void run(Task task) {
+                        statements.select(task.getId());
+                    }
+                },
+                new Operation() {
+                    @Override
+                    public void run(Task task) {
+                        statements.update(task);
+                    }
+                },
+                new Operation() {
+                    @Override
+                    public void run(Task task) {
+                        statements.delete(task.getId());
+                    }
+                }
+        };
+    }
+}
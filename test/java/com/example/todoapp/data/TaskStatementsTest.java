@@ -0,0 +1,125 @@
+package com.example.todoapp.data;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+
+import com.example.todoapp.model.Task;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class TaskStatementsTest {
+
+    private TaskDbHelper dbHelper;
+    private TaskStatements statements;
+
+    @Before
+    public void setUp() {
+        dbHelper = new TaskDbHelper(RuntimeEnvironment.getApplication());
+        statements = new TaskStatements(dbHelper);
+    }
+
+    @After
+    public void tearDown() {
+        statements.close();
+        dbHelper.close();
+    }
+
+    @Test
+    public void crud_writesTheSameRowsAsContentValues() {
+        Task full = new Task(0, "Dentist", "Bring forms", "2025-04-10", "10:30", 3, true, 1234L);
+        full.setCompletedAt(5678L);
+        full.setRecurrence("FREQ=WEEKLY");
+        full.setRecurrenceStart("2025-04-10");
+        Task sparse = new Task(0, "Someday", null, null, null, 1, false, Task.NO_DUE_AT);
+
+        for (Task task : new Task[]{full, sparse}) {
+            long viaStatement = statements.insert(task);
+            long viaValues = dbHelper.getWritableDatabase().insert(TaskContract.TaskEntry.TABLE_NAME, null,
+                    TaskRepository.toContentValues(task));
+
+            assertEquals(row(viaValues), row(viaStatement));
+        }
+    }
+
+    @Test
+    public void updateAndDelete_touchOnlyTheGivenId() {
+        Task first = new Task(0, "First", null, "2025-04-10", null, 1, false, 1000L);
+        first.setId((int) statements.insert(first));
+        long other = statements.insert(new Task(0, "Other", null, null, null, 1, false, Task.NO_DUE_AT));
+
+        first.setTitle("Renamed");
+        first.setDate(null);
+        first.setDueAt(Task.NO_DUE_AT);
+        assertEquals(1, statements.update(first));
+
+        Task stored = statements.select(first.getId());
+        assertEquals("Renamed", stored.getTitle());
+        assertNull(stored.getDate());
+        assertFalse(stored.hasDueAt());
+        assertEquals("Other", statements.select((int) other).getTitle());
+
+        assertEquals(1, statements.delete(first.getId()));
+        assertEquals(0, statements.delete(first.getId()));
+        assertNull(statements.select(first.getId()));
+        assertNotNull(statements.select((int) other));
+    }
+
+    @Test
+    public void statements_areRecompiledAfterTheDatabaseIsReopened() {
+        statements.insert(new Task(0, "Before", null, null, null, 1, false, Task.NO_DUE_AT));
+        dbHelper.close();
+
+        long id = statements.insert(new Task(0, "After", null, null, null, 1, false, Task.NO_DUE_AT));
+
+        assertEquals("After", statements.select((int) id).getTitle());
+    }
+
+    @Test
+    public void writes_joinTheCallersTransaction() {
+        dbHelper.getWritableDatabase().beginTransaction();
+        try {
+            statements.insert(new Task(0, "Rolled back", null, null, null, 1, false, Task.NO_DUE_AT));
+        } finally {
+            dbHelper.getWritableDatabase().endTransaction();
+        }
+
+        assertEquals(0, count());
+    }
+
+    private long count() {
+        Cursor cursor = dbHelper.getReadableDatabase().rawQuery("SELECT COUNT(*) FROM tasks", null);
+        try {
+            cursor.moveToFirst();
+            return cursor.getLong(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Every column but _id, as stored
+    private ContentValues row(long id) {
+        Cursor cursor = dbHelper.getReadableDatabase().rawQuery("SELECT * FROM tasks WHERE _id = ?",
+                new String[]{String.valueOf(id)});
+        try {
+            assertTrue(cursor.moveToFirst());
+            ContentValues values = new ContentValues();
+            for (int i = 0; i < cursor.getColumnCount(); i++) {
+                String column = cursor.getColumnName(i);
+                if (!TaskContract.TaskEntry._ID.equals(column)) {
+                    values.put(column, cursor.isNull(i) ? null : cursor.getString(i));
+                }
+            }
+            return values;
+        } finally {
+            cursor.close();
+        }
+    }
+}
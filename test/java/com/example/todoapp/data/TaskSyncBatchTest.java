@@ -0,0 +1,141 @@
+package com.example.todoapp.data;
+
+import com.example.todoapp.model.Task;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class TaskSyncBatchTest {
+
+    @Test
+    public void batch_roundTripsEveryField() throws IOException {
+        TaskSyncRecord full = record("a", 10);
+        full.setDescription("Bring the forms\nand a pen ✎", 11);
+        full.setDate("2025-04-10", "10:30", 12);
+        full.setPriority(3, 13);
+        full.setHasAlarm(true, 14);
+        full.setCompletedAt(1_743_500_000_000L, 15);
+        full.setRecurrence("FREQ=WEEKLY;BYDAY=MO", "2025-04-07", 16);
+        TaskSyncRecord tombstone = new TaskSyncRecord("b");
+        tombstone.setDeleted(true, 20);
+
+        TaskSyncBatch.Writer writer = new TaskSyncBatch.Writer("42", true);
+        writer.write(full);
+        writer.write(tombstone);
+        assertEquals(2, writer.getCount());
+        TaskSyncBatch.Reader reader = new TaskSyncBatch.Reader(writer.finish());
+
+        assertEquals("42", reader.getToken());
+        assertTrue(reader.hasMore());
+        TaskSyncRecord read = reader.next();
+        assertEquals("a", read.getUid());
+        assertEquals("Dentist", read.getTitle());
+        assertEquals("Bring the forms\nand a pen ✎", read.getDescription());
+        assertEquals("2025-04-10", read.getDate());
+        assertEquals("10:30", read.getTime());
+        assertEquals(3, read.getPriority());
+        assertTrue(read.isHasAlarm());
+        assertEquals(1_743_500_000_000L, read.getCompletedAt());
+        assertEquals("FREQ=WEEKLY;BYDAY=MO", read.getRecurrence());
+        assertEquals("2025-04-07", read.getRecurrenceStart());
+        assertFalse(read.isDeleted());
+        for (int field = 0; field < TaskSyncRecord.DELETED; field++) {
+            assertEquals(10 + field, read.getStamp(field));
+        }
+        TaskSyncRecord deleted = reader.next();
+        assertTrue(deleted.isDeleted());
+        assertNull(deleted.getTitle());
+        assertEquals(0, deleted.getStamp(TaskSyncRecord.TITLE));
+        assertEquals(20, deleted.getMaxStamp());
+        assertNull(reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void batch_isCompressed() throws IOException {
+        TaskSyncBatch.Writer writer = new TaskSyncBatch.Writer(null, false);
+        int raw = 0;
+        for (int i = 0; i < 500; i++) {
+            TaskSyncRecord record = record(String.format("%032x", i), 1_743_500_000_000L + i);
+            record.setDescription("Weekly groceries and the usual list", 1_743_500_000_000L + i);
+            record.setDate("2025-04-10", null, 1_743_500_000_000L + i);
+            writer.write(record);
+            raw += 2 * 32 + 7 + 35 + 10 + 8 * TaskSyncRecord.FIELD_COUNT;
+        }
+
+        byte[] batch = writer.finish();
+
+        assertTrue(batch.length + " of " + raw, batch.length < raw / 4);
+        assertNull(new TaskSyncBatch.Reader(batch).getToken());
+    }
+
+    @Test(expected = IOException.class)
+    public void reader_rejectsWhatIsNotABatch() throws IOException {
+        new TaskSyncBatch.Reader(new byte[]{1, 2, 3, 4});
+    }
+
+    @Test
+    public void merge_takesLaterFieldsOnly() {
+        TaskSyncRecord local = record("a", 10);
+        local.setPriority(1, 10);
+        TaskSyncRecord remote = record("a", 10);
+        remote.setTitle("Dentist at 11", 9);
+        remote.setPriority(3, 12);
+
+        int taken = local.mergeFrom(remote, true);
+
+        assertEquals(1 << TaskSyncRecord.PRIORITY, taken);
+        assertEquals("Dentist", local.getTitle());
+        assertEquals(3, local.getPriority());
+        assertEquals(12, local.getStamp(TaskSyncRecord.PRIORITY));
+        assertEquals(0, local.mergeFrom(remote, true));
+    }
+
+    @Test
+    public void merge_breaksTiesTheSameWayOnBothSides() {
+        TaskSyncRecord server = record("a", 10);
+        TaskSyncRecord device = record("a", 10);
+        device.setTitle("Dentist at 11", 10);
+
+        assertEquals(0, server.mergeFrom(device, false));
+        assertEquals(1 << TaskSyncRecord.TITLE, device.mergeFrom(server, true));
+        assertEquals("Dentist", device.getTitle());
+        assertEquals(0, device.mergeFrom(server, true));
+    }
+
+    @Test
+    public void merge_keepsDeleteAndEditApart() {
+        TaskSyncRecord edited = record("a", 10);
+        edited.setTitle("Dentist at 11", 20);
+        TaskSyncRecord deleted = record("a", 10);
+        deleted.setDeleted(true, 15);
+
+        edited.mergeFrom(deleted, true);
+
+        assertTrue(edited.isDeleted());
+        assertEquals("Dentist at 11", edited.getTitle());
+        assertEquals(Task.NOT_COMPLETED, edited.getCompletedAt());
+        try {
+            edited.mergeFrom(record("b", 30), true);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    // A task as first created at stamp: every field stamped with it
+    private static TaskSyncRecord record(String uid, long stamp) {
+        TaskSyncRecord record = new TaskSyncRecord(uid);
+        record.setTitle("Dentist", stamp);
+        record.setDescription(null, stamp);
+        record.setDate(null, null, stamp);
+        record.setPriority(1, stamp);
+        record.setHasAlarm(false, stamp);
+        record.setCompletedAt(Task.NOT_COMPLETED, stamp);
+        record.setRecurrence(null, null, stamp);
+        record.setDeleted(false, stamp);
+        return record;
+    }
+}
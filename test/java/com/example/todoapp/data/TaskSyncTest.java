@@ -0,0 +1,237 @@
+package com.example.todoapp.data;
+
+import android.content.ContentValues;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.todoapp.model.Task;
+import com.example.todoapp.util.TaskDateFormatter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.todoapp.data.TestExecutors.directExecutor;
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class TaskSyncTest {
+
+    private final FakeTaskSyncBackend backend = new FakeTaskSyncBackend();
+    private TaskDbHelper dbHelperA;
+    private TaskDbHelper dbHelperB;
+    private TaskRepository deviceA;
+    private TaskRepository deviceB;
+
+    @Before
+    public void setUp() {
+        dbHelperA = new TaskDbHelper(RuntimeEnvironment.getApplication(), "device_a.db");
+        dbHelperB = new TaskDbHelper(RuntimeEnvironment.getApplication(), "device_b.db");
+        deviceA = new TaskRepository(dbHelperA, directExecutor(), directExecutor());
+        deviceB = new TaskRepository(dbHelperB, directExecutor(), directExecutor());
+    }
+
+    @After
+    public void tearDown() {
+        dbHelperA.close();
+        dbHelperB.close();
+    }
+
+    @Test
+    public void createEditAndDelete_reachTheOtherDevice() throws IOException {
+        Task dentist = new Task(0, "Dentist", "Bring the forms", "2025-04-10", "10:30", 3, true, Task.NO_DUE_AT);
+        int dentistId = (int) deviceA.insertTask(dentist);
+        int groceriesId = (int) deviceA.insertTask(new Task(0, "Groceries", null, null, null, 1, false, Task.NO_DUE_AT));
+
+        assertEquals(2, deviceA.syncTasks(backend).getPushed());
+        assertEquals(2, deviceB.syncTasks(backend).getPulled());
+
+        Task copy = find(dbHelperB, "Dentist");
+        assertEquals("Bring the forms", copy.getDescription());
+        assertEquals("2025-04-10", copy.getDate());
+        assertEquals("10:30", copy.getTime());
+        assertEquals(3, copy.getPriority());
+        assertTrue(copy.isHasAlarm());
+        assertEquals(TaskDateFormatter.getInstance().toDueAt("2025-04-10", "10:30"), copy.getDueAt());
+
+        dentist = deviceA.getTask(dentistId);
+        dentist.setTitle("Dentist at 11");
+        deviceA.updateTask(dentist);
+        deviceA.deleteTask(groceriesId);
+        assertEquals(2, deviceA.syncTasks(backend).getPushed());
+        assertEquals(2, deviceB.syncTasks(backend).getPulled());
+
+        assertEquals(1, deviceB.getTaskCount());
+        assertEquals("Dentist at 11", find(dbHelperB, "Dentist at 11").getTitle());
+    }
+
+    @Test
+    public void pulledChanges_areNotSentBack() throws IOException {
+        deviceA.insertTask(new Task(0, "Dentist", null, null, null, 1, false, Task.NO_DUE_AT));
+        deviceA.syncTasks(backend);
+        deviceB.syncTasks(backend);
+        int pushes = backend.pushes;
+
+        TaskSync.Result again = deviceB.syncTasks(backend);
+
+        assertEquals(0, again.getPushed());
+        assertEquals(0, again.getPulled());
+        assertEquals(pushes, backend.pushes);
+        assertEquals(0, deviceA.syncTasks(backend).getPulled());
+    }
+
+    @Test
+    public void editsToDifferentFields_bothSurvive() throws IOException {
+        int idA = (int) deviceA.insertTask(new Task(0, "Dentist", null, null, null, 1, false, Task.NO_DUE_AT));
+        deviceA.syncTasks(backend);
+        deviceB.syncTasks(backend);
+        int idB = find(dbHelperB, "Dentist").getId();
+
+        Task onA = deviceA.getTask(idA);
+        onA.setTitle("Dentist at 11");
+        deviceA.updateTask(onA);
+        Task onB = deviceB.getTask(idB);
+        onB.setPriority(3);
+        deviceB.updateTask(onB);
+        deviceA.syncTasks(backend);
+        deviceB.syncTasks(backend);
+        deviceA.syncTasks(backend);
+
+        for (TaskRepository device : new TaskRepository[]{deviceA, deviceB}) {
+            Task merged = device.getTask(device == deviceA ? idA : idB);
+            assertEquals("Dentist at 11", merged.getTitle());
+            assertEquals(3, merged.getPriority());
+        }
+    }
+
+    @Test
+    public void sameFieldEditedTwice_laterEditWinsEverywhere() throws IOException {
+        int idA = (int) deviceA.insertTask(new Task(0, "Dentist", null, null, null, 1, false, Task.NO_DUE_AT));
+        deviceA.syncTasks(backend);
+        deviceB.syncTasks(backend);
+        int idB = find(dbHelperB, "Dentist").getId();
+        // B's edit is the later one however quickly the two run
+        dbHelperB.getWritableDatabase().execSQL("UPDATE sync_state SET clock = " +
+                (System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1)));
+
+        Task onB = deviceB.getTask(idB);
+        onB.setTitle("Dentist on Friday");
+        deviceB.updateTask(onB);
+        Task onA = deviceA.getTask(idA);
+        onA.setTitle("Dentist at 11");
+        deviceA.updateTask(onA);
+        deviceB.syncTasks(backend);
+        deviceA.syncTasks(backend);
+        deviceB.syncTasks(backend);
+
+        assertEquals("Dentist on Friday", deviceA.getTask(idA).getTitle());
+        assertEquals("Dentist on Friday", deviceB.getTask(idB).getTitle());
+    }
+
+    @Test
+    public void deleteOnOneDevice_isNotUndoneByAnEditOnAnother() throws IOException {
+        int idA = (int) deviceA.insertTask(new Task(0, "Dentist", null, null, null, 1, false, Task.NO_DUE_AT));
+        deviceA.syncTasks(backend);
+        deviceB.syncTasks(backend);
+        int idB = find(dbHelperB, "Dentist").getId();
+
+        deviceA.deleteTask(idA);
+        Task onB = deviceB.getTask(idB);
+        onB.setPriority(2);
+        deviceB.updateTask(onB);
+        deviceB.syncTasks(backend);
+        deviceA.syncTasks(backend);
+        deviceB.syncTasks(backend);
+
+        assertEquals(0, deviceA.getTaskCount());
+        assertEquals(0, deviceB.getTaskCount());
+    }
+
+    @Test
+    public void archivedTasks_stayOnOtherDevicesUntilChanged() throws IOException {
+        long now = System.currentTimeMillis();
+        Task done = new Task(0, "Renew passport", null, null, null, 1, false, Task.NO_DUE_AT);
+        done.setCompletedAt(now - TimeUnit.DAYS.toMillis(40));
+        int idA = (int) deviceA.insertTask(done);
+        deviceA.syncTasks(backend);
+        deviceB.syncTasks(backend);
+
+        assertEquals(1, deviceA.archiveCompletedTasks(TaskArchiver.cutoff(now)));
+        assertEquals(0, deviceA.syncTasks(backend).getPushed());
+        assertTrue(find(dbHelperB, "Renew passport").isCompleted());
+
+        deviceA.restoreArchivedTasks(Collections.singleton(idA));
+        assertEquals(1, deviceA.syncTasks(backend).getPushed());
+        deviceB.syncTasks(backend);
+
+        assertFalse(find(dbHelperB, "Renew passport").isCompleted());
+    }
+
+    @Test
+    public void remoteChange_bringsAnArchivedTaskBack() throws IOException {
+        long now = System.currentTimeMillis();
+        Task done = new Task(0, "Renew passport", null, null, null, 1, false, Task.NO_DUE_AT);
+        done.setCompletedAt(now - TimeUnit.DAYS.toMillis(40));
+        int idA = (int) deviceA.insertTask(done);
+        deviceA.syncTasks(backend);
+        deviceB.syncTasks(backend);
+        deviceA.archiveCompletedTasks(TaskArchiver.cutoff(now));
+
+        Task onB = find(dbHelperB, "Renew passport");
+        onB.setPriority(3);
+        deviceB.updateTask(onB);
+        deviceB.syncTasks(backend);
+        assertEquals(1, deviceA.syncTasks(backend).getPulled());
+
+        assertEquals(0, deviceA.getArchivedCount());
+        assertEquals(3, deviceA.getTask(idA).getPriority());
+    }
+
+    @Test
+    public void manyChanges_travelInBoundedBatches() throws IOException {
+        SQLiteDatabase db = dbHelperA.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            ContentValues values = new ContentValues();
+            for (int i = 0; i < 10_000; i++) {
+                values.put(TaskContract.TaskEntry.COLUMN_TITLE, "Task " + i);
+                values.put(TaskContract.TaskEntry.COLUMN_DATE, "2025-04-10");
+                db.insertOrThrow(TaskContract.TaskEntry.TABLE_NAME, null, values);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        assertEquals(10_000, deviceA.syncTasks(backend).getPushed());
+        assertEquals(TaskSync.DEFAULT_BATCH_SIZE, backend.maxBatchRecords);
+        assertEquals(10_000 / TaskSync.DEFAULT_BATCH_SIZE, backend.pushes);
+        assertEquals(10_000, deviceB.syncTasks(backend).getPulled());
+        assertEquals(10_000, deviceB.getTaskCount());
+        assertEquals(10_000, DatabaseUtils.longForQuery(dbHelperB.getReadableDatabase(),
+                "SELECT COUNT(*) FROM task_sync s JOIN tasks t ON t._id = s.task_id", null));
+
+        // Only what changed since goes the next time
+        db.execSQL("UPDATE tasks SET priority = 2 WHERE _id <= 10");
+        assertEquals(10, deviceA.syncTasks(backend).getPushed());
+        assertEquals(10, deviceB.syncTasks(backend).getPulled());
+    }
+
+    private static Task find(TaskDbHelper dbHelper, String title) {
+        List<Task> tasks = new TaskPagingSource(dbHelper).loadAfter(null, Integer.MAX_VALUE);
+        for (Task task : tasks) {
+            if (task.getTitle().equals(title)) {
+                return task;
+            }
+        }
+        throw new AssertionError("No task titled " + title);
+    }
+}
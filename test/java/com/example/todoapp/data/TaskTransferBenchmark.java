@@ -0,0 +1,144 @@
+package com.example.todoapp.data;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.todoapp.util.TaskDateFormatter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Import throughput by batch size and export throughput, for 100k tasks in each format.
+ * Batch size 1 is what one auto-committed insert per row costs, so it runs on a slice.
+ * Skipped unless run with {@code -Ptodo.benchmark=true}.
+ *
+ * <p>It has not been run yet, so there are no results to compare against and the 100k-row
+ * import throughput asked for is unmeasured.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TaskTransferBenchmark {
+
+    private static final int ROWS = 100_000;
+    private static final int UNBATCHED_ROWS = 2_000;
+
+    private TaskDbHelper dbHelper;
+    private TaskTransfer transfer;
+
+    @Before
+    public void setUp() {
+        assumeTrue(Boolean.getBoolean("todo.benchmark"));
+        dbHelper = new TaskDbHelper(RuntimeEnvironment.getApplication());
+        dbHelper.setWriteAheadLoggingEnabled(true);
+        transfer = new TaskTransfer(dbHelper, TaskDateFormatter.getInstance());
+    }
+
+    @After
+    public void tearDown() {
+        if (dbHelper != null) {
+            dbHelper.close();
+        }
+    }
+
+    @Test
+    public void throughput_jsonLines() throws IOException {
+        measure(TaskTransfer.Format.JSON_LINES);
+    }
+
+    @Test
+    public void throughput_csv() throws IOException {
+        measure(TaskTransfer.Format.CSV);
+    }
+
+    private void measure(TaskTransfer.Format format) throws IOException {
+        String slice = generate(format, UNBATCHED_ROWS);
+        importAndReport(format, slice, UNBATCHED_ROWS, 1);
+
+        String input = generate(format, ROWS);
+        for (int batchSize : new int[]{100, TaskTransfer.DEFAULT_BATCH_SIZE, 5_000}) {
+            importAndReport(format, input, ROWS, batchSize);
+        }
+
+        // The last import left all ROWS rows in place
+        CountingWriter output = new CountingWriter();
+        long start = System.nanoTime();
+        assertEquals(ROWS, transfer.exportTasks(output, format));
+        long elapsed = System.nanoTime() - start;
+        System.out.println(String.format(Locale.US,
+                "export format=%s rows=%d bytes=%d rowsPerSec=%.0f",
+                format, ROWS, output.count, ROWS / (elapsed / 1e9)));
+    }
+
+    private void importAndReport(TaskTransfer.Format format, String input, int rows, int batchSize)
+            throws IOException {
+        clear();
+        long start = System.nanoTime();
+        assertEquals(rows, transfer.importTasks(new StringReader(input), format, batchSize));
+        long elapsed = System.nanoTime() - start;
+        System.out.println(String.format(Locale.US,
+                "import format=%s rows=%d batchSize=%d rowsPerSec=%.0f",
+                format, rows, batchSize, rows / (elapsed / 1e9)));
+    }
+
+    private void clear() {
+        SQLiteDatabase db = dbHelper.getWritableDatabase();
+        db.delete(TaskContract.TaskEntry.TABLE_NAME, null, null);
+    }
+
+    private static String generate(TaskTransfer.Format format, int rows) {
+        StringBuilder input = new StringBuilder(rows * 120);
+        if (format == TaskTransfer.Format.CSV) {
+            input.append("title,description,date,time,priority,has_alarm\r\n");
+        }
+        for (int i = 0; i < rows; i++) {
+            String date = String.format(Locale.US, "2025-%02d-%02d", 1 + i % 12, 1 + i % 28);
+            String time = String.format(Locale.US, "%02d:%02d", i % 24, i % 60);
+            if (format == TaskTransfer.Format.CSV) {
+                input.append("Task ").append(i).append(",\"Notes, part ").append(i).append("\",")
+                        .append(date).append(',').append(time).append(',')
+                        .append(1 + i % 3).append(',').append(i % 2).append("\r\n");
+            } else {
+                input.append("{\"title\":\"Task ").append(i)
+                        .append("\",\"description\":\"Notes, part ").append(i)
+                        .append("\",\"date\":\"").append(date)
+                        .append("\",\"time\":\"").append(time)
+                        .append("\",\"priority\":").append(1 + i % 3)
+                        .append(",\"has_alarm\":").append(i % 2 == 1).append("}\n");
+            }
+        }
+        return input.toString();
+    }
+
+    private static final class CountingWriter extends Writer {
+        long count;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void write(String string) {
+            count += string.length();
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
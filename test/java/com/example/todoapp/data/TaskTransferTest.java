@@ -0,0 +1,169 @@
+package com.example.todoapp.data;
+
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+
+import com.example.todoapp.model.Task;
+import com.example.todoapp.util.TaskDateFormatter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+@RunWith(RobolectricTestRunner.class)
+public class TaskTransferTest {
+
+    private static final String CSV_HEADER = "title,description,date,time,priority,has_alarm,completed_at,recurrence,recurrence_start\r\n";
+
+    private TaskDbHelper dbHelper;
+    private TaskTransfer transfer;
+
+    @Before
+    public void setUp() {
+        dbHelper = new TaskDbHelper(RuntimeEnvironment.getApplication());
+        transfer = new TaskTransfer(dbHelper, new TaskDateFormatter(Locale.US, ZoneId.of("UTC")));
+    }
+
+    @After
+    public void tearDown() {
+        dbHelper.close();
+    }
+
+    @Test
+    public void jsonLines_roundTrip() throws IOException {
+        String input = "{\"title\":\"Dentist\",\"description\":\"Bring \\\"forms\\\"\\nand card\"," +
+                "\"date\":\"2025-04-10\",\"time\":\"10:30\",\"priority\":3,\"has_alarm\":true," +
+                "\"completed_at\":1744290000000,\"recurrence\":\"FREQ=WEEKLY;BYDAY=TH\"," +
+                "\"recurrence_start\":\"2025-04-03\"}\n" +
+                "\n" +
+                "{\"title\":\"Someday\",\"description\":null,\"date\":null,\"time\":null," +
+                "\"priority\":1,\"has_alarm\":false,\"completed_at\":null,\"recurrence\":null," +
+                "\"recurrence_start\":null}\n";
+
+        assertEquals(2, transfer.importTasks(new StringReader(input), TaskTransfer.Format.JSON_LINES, 1));
+
+        List<Task> tasks = allTasks();
+        assertEquals("Bring \"forms\"\nand card", tasks.get(0).getDescription());
+        assertEquals(1_744_281_000_000L, tasks.get(0).getDueAt());
+        assertTrue(tasks.get(0).isHasAlarm());
+        assertEquals(1_744_290_000_000L, tasks.get(0).getCompletedAt());
+        assertNull(tasks.get(1).getDescription());
+        assertEquals("FREQ=WEEKLY;BYDAY=TH", tasks.get(0).getRecurrence());
+        assertEquals("2025-04-03", tasks.get(0).getRecurrenceStart());
+        assertFalse(tasks.get(1).isCompleted());
+        assertFalse(tasks.get(1).isRecurring());
+        assertFalse(tasks.get(1).hasDueAt());
+
+        StringWriter output = new StringWriter();
+        assertEquals(2, transfer.exportTasks(output, TaskTransfer.Format.JSON_LINES));
+        assertEquals(input.replace("\n\n", "\n"), output.toString());
+    }
+
+    @Test
+    public void csv_roundTripKeepsQuotesNewlinesAndNulls() throws IOException {
+        String input = CSV_HEADER +
+                "\"Call, then email\",\"Say \"\"hi\"\"\r\nand bye\",2025-04-10,,2,1,1744290000000,,\r\n" +
+                "Café,\"\",,07:15,1,0,,,\r\n";
+
+        assertEquals(2, transfer.importTasks(new StringReader(input), TaskTransfer.Format.CSV, 10));
+
+        List<Task> tasks = allTasks();
+        assertEquals("Call, then email", tasks.get(0).getTitle());
+        assertEquals("Say \"hi\"\r\nand bye", tasks.get(0).getDescription());
+        assertNull(tasks.get(0).getTime());
+        assertTrue(tasks.get(0).hasDueAt());
+        assertEquals(1_744_290_000_000L, tasks.get(0).getCompletedAt());
+        assertEquals("Café", tasks.get(1).getTitle());
+        assertEquals("", tasks.get(1).getDescription());
+        assertNull(tasks.get(1).getDate());
+        assertEquals("07:15", tasks.get(1).getTime());
+
+        StringWriter output = new StringWriter();
+        transfer.exportTasks(output, TaskTransfer.Format.CSV);
+        assertEquals(input, output.toString());
+    }
+
+    @Test
+    public void csv_acceptsColumnsInAnyOrder() throws IOException {
+        String input = "priority,notes,title\n2,ignored,Water plants\n";
+
+        transfer.importTasks(new StringReader(input), TaskTransfer.Format.CSV, 10);
+
+        Task task = allTasks().get(0);
+        assertEquals("Water plants", task.getTitle());
+        assertEquals(2, task.getPriority());
+        assertNull(task.getDescription());
+    }
+
+    @Test
+    public void recurrence_startsAtTheDateWhenNoStartIsGiven() throws IOException {
+        String input = "{\"title\":\"Pay rent\",\"date\":\"2025-05-01\",\"recurrence\":\"freq=monthly\"}\n";
+
+        transfer.importTasks(new StringReader(input), TaskTransfer.Format.JSON_LINES, 10);
+
+        Task task = allTasks().get(0);
+        assertEquals("FREQ=MONTHLY", task.getRecurrence());
+        assertEquals("2025-05-01", task.getRecurrenceStart());
+    }
+
+    @Test
+    public void malformedRecord_rollsBackOnlyItsBatch() {
+        StringBuilder input = new StringBuilder(CSV_HEADER);
+        for (int i = 0; i < 7; i++) {
+            input.append("Task ").append(i).append(",,,,1,0\r\n");
+        }
+        input.append("Broken,,2025-13-40,,1,0\r\n");
+
+        try {
+            transfer.importTasks(new StringReader(input.toString()), TaskTransfer.Format.CSV, 3);
+            fail("Expected the malformed date to be rejected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("Record 8:"));
+        }
+
+        assertEquals(6, DatabaseUtils.queryNumEntries(dbHelper.getReadableDatabase(),
+                TaskContract.TaskEntry.TABLE_NAME));
+    }
+
+    @Test
+    public void invalidFields_areRejected() {
+        assertRejected("{\"title\":\"  \"}");
+        assertRejected("{\"title\":\"Pay rent\",\"priority\":7}");
+        assertRejected("{\"title\":\"Pay rent\",\"date\":\"2025-04-10\",\"time\":\"noon\"}");
+        assertRejected("{\"title\":\"Pay rent\",\"completed_at\":\"yesterday\"}");
+        assertRejected("{\"title\":\"Pay rent\",\"date\":\"2025-04-10\",\"recurrence\":\"FREQ=HOURLY\"}");
+        assertRejected("{\"title\":\"Pay rent\",\"recurrence\":\"FREQ=MONTHLY\"}");
+        assertRejected("not json");
+    }
+
+    private void assertRejected(String line) {
+        try {
+            transfer.importTasks(new StringReader(line), TaskTransfer.Format.JSON_LINES, 10);
+            fail("Expected " + line + " to be rejected");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().startsWith("Record 1:"));
+        }
+    }
+
+    private List<Task> allTasks() {
+        Cursor cursor = dbHelper.getReadableDatabase().query(TaskContract.TaskEntry.TABLE_NAME,
+                TaskCursorMapper.FULL.getProjection(), null, null, null, null, TaskContract.TaskEntry._ID);
+        try {
+            return TaskCursorMapper.FULL.mapAll(cursor);
+        } finally {
+            cursor.close();
+        }
+    }
+}
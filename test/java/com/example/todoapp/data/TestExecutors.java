@@ -0,0 +1,20 @@
+package com.example.todoapp.data;
+
+import java.util.concurrent.Executor;
+
+/** Executors shared by the repository tests. */
+final class TestExecutors {
+
+    private TestExecutors() {
+    }
+
+    /** Runs each task on the calling thread before returning, so background work is done when a call returns. */
+    static Executor directExecutor() {
+        return new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                runnable.run();
+            }
+        };
+    }
+}
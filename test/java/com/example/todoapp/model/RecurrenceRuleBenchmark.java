@@ -0,0 +1,72 @@
+package com.example.todoapp.model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Expanding 10k rules of every frequency over a one-year window, with series that started up to
+ * ten years earlier, the way the occurrence query expands the rules it reads.
+ * Skipped unless run with {@code -Ptodo.benchmark=true}.
+ */
+public class RecurrenceRuleBenchmark {
+
+    private static final int RULES = 10_000;
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 10;
+    private static final String[] RULE_TEXTS = {
+            "FREQ=DAILY", "FREQ=DAILY;INTERVAL=2", "FREQ=WEEKLY", "FREQ=WEEKLY;BYDAY=MO,WE,FR",
+            "FREQ=WEEKLY;INTERVAL=2;BYDAY=TU,TH", "FREQ=MONTHLY", "FREQ=MONTHLY;INTERVAL=3", "FREQ=YEARLY"
+    };
+
+    private final List<RecurrenceRule> rules = new ArrayList<>(RULES);
+    private final List<LocalDate> starts = new ArrayList<>(RULES);
+
+    @Before
+    public void setUp() {
+        assumeTrue(Boolean.getBoolean("todo.benchmark"));
+        Random random = new Random(42);
+        LocalDate earliest = LocalDate.of(2015, 1, 1);
+        for (int i = 0; i < RULES; i++) {
+            rules.add(RecurrenceRule.parse(RULE_TEXTS[random.nextInt(RULE_TEXTS.length)]));
+            starts.add(earliest.plusDays(random.nextInt(3_650)));
+        }
+    }
+
+    @Test
+    public void expand10kRulesOverOneYear() {
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = from.plusYears(1).minusDays(1);
+
+        long best = Long.MAX_VALUE;
+        long total = 0;
+        long occurrences = 0;
+        for (int run = 0; run < WARMUP_RUNS + MEASURED_RUNS; run++) {
+            long start = System.nanoTime();
+            occurrences = 0;
+            for (int i = 0; i < RULES; i++) {
+                Iterator<LocalDate> dates = rules.get(i).occurrences(starts.get(i), from);
+                while (dates.hasNext() && !dates.next().isAfter(to)) {
+                    occurrences++;
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            if (run >= WARMUP_RUNS) {
+                best = Math.min(best, elapsed);
+                total += elapsed;
+            }
+        }
+
+        System.out.println(String.format(Locale.US,
+                "expand rules=%d window=1y occurrences=%d bestMs=%.2f meanMs=%.2f",
+                RULES, occurrences, best / 1e6, total / 1e6 / MEASURED_RUNS));
+    }
+}
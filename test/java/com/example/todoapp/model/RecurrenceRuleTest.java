@@ -0,0 +1,128 @@
+package com.example.todoapp.model;
+
+import org.junit.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RecurrenceRuleTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 1, 31);
+
+    @Test
+    public void parse_roundTripsCanonicalText() {
+        RecurrenceRule rule = RecurrenceRule.parse("freq=weekly; byday=FR,MO ;interval=2;COUNT=6");
+
+        assertEquals(RecurrenceRule.Frequency.WEEKLY, rule.getFrequency());
+        assertEquals(EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), rule.getByDay());
+        assertEquals("FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,FR;COUNT=6", rule.toString());
+        assertEquals(rule, RecurrenceRule.parse(rule.toString()));
+        assertEquals(LocalDate.of(2025, 3, 1), RecurrenceRule.parse("FREQ=DAILY;UNTIL=20250301T120000Z").getUntil());
+        assertTrue(RecurrenceRule.of(RecurrenceRule.Frequency.MONTHLY).isSimple());
+    }
+
+    @Test
+    public void parse_rejectsInvalidRules() {
+        for (String rule : Arrays.asList("", "INTERVAL=2", "FREQ=HOURLY", "FREQ=DAILY;INTERVAL=0",
+                "FREQ=DAILY;COUNT=-1", "FREQ=DAILY;BYDAY=MO", "FREQ=WEEKLY;BYDAY=XX",
+                "FREQ=DAILY;COUNT=2;UNTIL=20250101", "FREQ=DAILY;UNTIL=2025", "FREQ=DAILY;BYMONTH=2")) {
+            try {
+                RecurrenceRule.parse(rule);
+                fail("Expected " + rule + " to be rejected");
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void daily_withInterval() {
+        assertEquals(dates("2025-01-31", "2025-02-03", "2025-02-06"),
+                take(RecurrenceRule.parse("FREQ=DAILY;INTERVAL=3"), START, START, 3));
+    }
+
+    @Test
+    public void weekly_byDayStartsInTheStartWeek() {
+        // Jan 31 2025 is a Friday, so Monday of that week is before the start and skipped
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=WEEKLY;INTERVAL=2;BYDAY=MO,FR");
+
+        assertEquals(dates("2025-01-31", "2025-02-10", "2025-02-14", "2025-02-24"), take(rule, START, START, 4));
+    }
+
+    @Test
+    public void monthly_onThe31stSkipsShortMonths() {
+        assertEquals(dates("2025-01-31", "2025-03-31", "2025-05-31", "2025-07-31"),
+                take(RecurrenceRule.of(RecurrenceRule.Frequency.MONTHLY), START, START, 4));
+    }
+
+    @Test
+    public void yearly_onLeapDayOnlyInLeapYears() {
+        LocalDate leapDay = LocalDate.of(2024, 2, 29);
+
+        assertEquals(dates("2024-02-29", "2028-02-29"),
+                take(RecurrenceRule.of(RecurrenceRule.Frequency.YEARLY), leapDay, leapDay, 2));
+    }
+
+    @Test
+    public void countAndUntil_endTheSeries() {
+        assertEquals(dates("2025-01-31", "2025-02-01"), take(RecurrenceRule.parse("FREQ=DAILY;COUNT=2"), START, START, 5));
+        assertEquals(dates("2025-01-31", "2025-02-07"),
+                take(RecurrenceRule.parse("FREQ=WEEKLY;UNTIL=20250213"), START, START, 5));
+        // COUNT is counted from the series start, not from the first date asked for
+        assertEquals(dates("2025-02-02"), take(RecurrenceRule.parse("FREQ=DAILY;COUNT=3"), START, LocalDate.of(2025, 2, 2), 5));
+    }
+
+    @Test
+    public void firstAfter_andWithoutFirstReanchorTheSeries() {
+        RecurrenceRule rule = RecurrenceRule.parse("FREQ=MONTHLY;COUNT=3");
+
+        LocalDate second = rule.firstAfter(START, START);
+        assertEquals(LocalDate.of(2025, 3, 31), second);
+        RecurrenceRule rest = rule.withoutFirst(1);
+        assertEquals(dates("2025-03-31", "2025-05-31"), take(rest, second, second, 5));
+        assertNull(rule.firstAfter(START, LocalDate.of(2025, 5, 31)));
+    }
+
+    @Test
+    public void jumpingAhead_matchesWalkingFromTheStart() {
+        LocalDate from = LocalDate.of(2031, 6, 17);
+        for (String text : Arrays.asList("FREQ=DAILY;INTERVAL=5", "FREQ=WEEKLY;INTERVAL=3;BYDAY=TU,SA",
+                "FREQ=MONTHLY;INTERVAL=2", "FREQ=YEARLY")) {
+            RecurrenceRule rule = RecurrenceRule.parse(text);
+
+            List<LocalDate> walked = new ArrayList<>();
+            Iterator<LocalDate> all = rule.occurrences(START, START);
+            while (walked.size() < 3) {
+                LocalDate date = all.next();
+                if (!date.isBefore(from)) {
+                    walked.add(date);
+                }
+            }
+            assertEquals(text, walked, take(rule, START, from, 3));
+        }
+    }
+
+    private static List<LocalDate> take(RecurrenceRule rule, LocalDate start, LocalDate from, int limit) {
+        List<LocalDate> dates = new ArrayList<>();
+        Iterator<LocalDate> occurrences = rule.occurrences(start, from);
+        while (occurrences.hasNext() && dates.size() < limit) {
+            dates.add(occurrences.next());
+        }
+        return dates;
+    }
+
+    private static List<LocalDate> dates(String... dates) {
+        List<LocalDate> parsed = new ArrayList<>();
+        for (String date : dates) {
+            parsed.add(LocalDate.parse(date));
+        }
+        return parsed;
+    }
+}
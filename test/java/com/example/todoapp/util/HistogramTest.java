@@ -0,0 +1,80 @@
+package com.example.todoapp.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HistogramTest {
+
+    @Test
+    public void emptyHistogram_reportsZero() {
+        Histogram histogram = new Histogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(99));
+        assertEquals(0, histogram.getMax());
+    }
+
+    @Test
+    public void smallValues_areExact() {
+        Histogram histogram = new Histogram();
+        for (int value = 1; value <= 4; value++) {
+            histogram.record(value);
+        }
+
+        assertEquals(4, histogram.getCount());
+        assertEquals(10, histogram.getSum());
+        assertEquals(2, histogram.getPercentile(50));
+        assertEquals(4, histogram.getPercentile(100));
+        assertEquals(1, histogram.getPercentile(0));
+    }
+
+    @Test
+    public void percentiles_areWithinOneSubBucket() {
+        Histogram histogram = new Histogram();
+        Random random = new Random(7);
+        long[] values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            // Spread over microseconds to seconds, like the timers record
+            values[i] = (long) Math.pow(10, 3 + random.nextDouble() * 6);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double percentile : new double[]{50, 90, 99, 99.9}) {
+            long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long reported = histogram.getPercentile(percentile);
+            assertTrue(percentile + ": " + reported + " < " + exact, reported >= exact);
+            assertTrue(percentile + ": " + reported + " too far above " + exact,
+                    reported <= exact + exact / Histogram.SUB_BUCKETS);
+        }
+        assertEquals(values[values.length - 1], histogram.getPercentile(100));
+    }
+
+    @Test
+    public void buckets_coverEveryLongWithoutGaps() {
+        assertEquals(Long.MAX_VALUE, Histogram.highestValueIn(Histogram.bucketOf(Long.MAX_VALUE)));
+        for (int bucket = 0; bucket < Histogram.bucketOf(Long.MAX_VALUE); bucket++) {
+            long highest = Histogram.highestValueIn(bucket);
+            assertEquals(bucket, Histogram.bucketOf(highest));
+            assertEquals(bucket + 1, Histogram.bucketOf(highest + 1));
+        }
+    }
+
+    @Test
+    public void negativeValues_countAsZero_andResetClearsEverything() {
+        Histogram histogram = new Histogram();
+        histogram.record(-5);
+        histogram.record(1_000);
+
+        assertEquals(0, histogram.getPercentile(50));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getSum());
+        assertEquals(0, histogram.getMax());
+    }
+}
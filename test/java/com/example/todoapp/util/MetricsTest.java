@@ -0,0 +1,62 @@
+package com.example.todoapp.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class MetricsTest {
+
+    @Before
+    public void setUp() {
+        assumeTrue(Metrics.ENABLED);
+        Metrics.reset();
+    }
+
+    @After
+    public void tearDown() {
+        Metrics.reset();
+    }
+
+    @Test
+    public void timer_recordsEachSpan() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            long start = Metrics.WRITE.start();
+            Thread.sleep(2);
+            Metrics.WRITE.stop(start);
+        }
+
+        Histogram histogram = Metrics.WRITE.getHistogram();
+        assertEquals(3, histogram.getCount());
+        assertTrue(histogram.getPercentile(50) >= 2_000_000L);
+    }
+
+    @Test
+    public void dump_listsOnlyWhatWasRecorded() {
+        Metrics.BIND.record(1_500_000L);
+        Metrics.ROWS_MAPPED.add(50);
+        Metrics.ROWS_MAPPED.add(20);
+
+        String dump = Metrics.dump();
+
+        assertTrue(dump, dump.contains("TaskList.bind count=1 p50=1.5"));
+        assertTrue(dump, dump.contains("TaskDb.rowsMapped total=70 count=2"));
+        assertFalse(dump, dump.contains("TaskDb.query"));
+        assertEquals(70, Metrics.ROWS_MAPPED.getTotal());
+    }
+
+    @Test
+    public void reset_clearsEveryMetric() {
+        Metrics.QUERY.record(10L);
+        Metrics.ROWS_MAPPED.add(5);
+
+        Metrics.reset();
+
+        assertEquals("", Metrics.dump());
+    }
+}
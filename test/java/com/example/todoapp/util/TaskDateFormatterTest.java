@@ -0,0 +1,112 @@
+package com.example.todoapp.util;
+
+import com.example.todoapp.model.Task;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class TaskDateFormatterTest {
+
+    private static final ZoneId ZONE = ZoneId.of("America/New_York");
+
+    private final TaskDateFormatter formatter = new TaskDateFormatter(Locale.US, ZONE);
+
+    @Test
+    public void storageStrings_useAsciiDigitsInEveryLocale() {
+        TaskDateFormatter arabic = new TaskDateFormatter(new Locale("ar", "EG"), ZONE);
+
+        assertEquals("2025-04-10", arabic.toStorageDate(LocalDate.of(2025, 4, 10)));
+        assertEquals("07:05", arabic.toStorageTime(LocalTime.of(7, 5)));
+    }
+
+    @Test
+    public void toDueAt_handlesMissingAndMalformedParts() {
+        assertEquals(millis(2025, 12, 31, 23, 59), formatter.toDueAt("2025-12-31", "23:59"));
+        assertEquals(millis(2025, 12, 31, 0, 0), formatter.toDueAt("2025-12-31", null));
+        assertEquals(Task.NO_DUE_AT, formatter.toDueAt(null, "23:59"));
+        assertEquals(Task.NO_DUE_AT, formatter.toDueAt("2025-1", null));
+        assertEquals(Task.NO_DUE_AT, formatter.toDueAt("2025-12-31", "noon"));
+    }
+
+    @Test
+    public void formatDueLabel_matchesListFormat() {
+        long dueAt = millis(2025, 4, 10, 14, 30);
+
+        assertEquals("Apr 10, 2025 - 2:30 PM", formatter.formatDueLabel(dueAt, true));
+        assertEquals("Apr 10, 2025", formatter.formatDueLabel(dueAt, false));
+    }
+
+    @Test
+    public void formatDueLabel_returnsCachedInstanceOnRepeat() {
+        long dueAt = millis(2025, 4, 10, 14, 30);
+
+        String first = formatter.formatDueLabel(dueAt, true);
+
+        assertSame(first, formatter.formatDueLabel(dueAt, true));
+        assertNotSame(first, formatter.formatDueLabel(dueAt, false));
+    }
+
+    @Test
+    public void formatDueLabel_staysCorrectWhenSlotsCollide() {
+        for (int day = 1; day <= 28; day++) {
+            for (int hour = 0; hour < 24; hour++) {
+                long dueAt = millis(2025, 2, day, hour, 0);
+                String expected = formatter.formatDate(dueAt) + " - " + formatter.formatTime(dueAt);
+                assertEquals(expected, formatter.formatDueLabel(dueAt, true));
+            }
+        }
+    }
+
+    @Test
+    public void formatStoredTime_fallsBackToRawText() {
+        assertEquals("7:05 AM", formatter.formatStoredTime("07:05"));
+        assertEquals("soon", formatter.formatStoredTime("soon"));
+    }
+
+    @Test
+    public void sharedInstance_isSafeAcrossThreads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                final int offset = thread;
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        for (int i = 0; i < 2_000; i++) {
+                            int minute = (i + offset) % 60;
+                            long dueAt = millis(2025, 4, 10, 9, minute);
+                            String expected = String.format(Locale.US, "Apr 10, 2025 - 9:%02d AM", minute);
+                            if (!expected.equals(formatter.formatDueLabel(dueAt, true))) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long millis(int year, int month, int day, int hour, int minute) {
+        return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, ZONE).toInstant().toEpochMilli();
+    }
+}